@@ -0,0 +1,141 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full license.
+ */
+package com.vaadin.sso.benchmarks;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.session.SessionRegistry;
+import org.springframework.security.core.session.SessionRegistryImpl;
+import org.springframework.security.oauth2.client.registration.InMemoryClientRegistrationRepository;
+
+import com.vaadin.sso.core.BackChannelLogoutFilter;
+import com.vaadin.sso.core.OidcSessionRegistry;
+
+/**
+ * Measures the handling of a Back-Channel logout request, from decoding the
+ * Logout Token to expiring the matching session, against registries of
+ * different sizes and implementations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+@SuppressWarnings("removal")
+public class BackChannelLogoutFilterBenchmark {
+
+    private static final int TOKEN_COUNT = 1024;
+
+    private static final String TOKEN_PARAM_NAME = "logout_token";
+
+    private static final FilterChain NO_OP_CHAIN = (request, response) -> {
+    };
+
+    @Param({ "1000", "100000", "1000000" })
+    int sessionCount;
+
+    @Param({ "scan", "indexed" })
+    String registryType;
+
+    private BenchmarkTokens tokens;
+
+    private SessionRegistry registry;
+
+    private BackChannelLogoutFilter filter;
+
+    private int[] loggedOutUsers;
+
+    private String[] logoutTokens;
+
+    @Setup
+    public void setup() {
+        registry = "indexed".equals(registryType) ? new OidcSessionRegistry()
+                : new SessionRegistryImpl();
+        for (int i = 0; i < sessionCount; i++) {
+            registerSession(i);
+        }
+
+        // The filter verifies the tokens with the keys of the served JWK set,
+        // fetched once by the shared JWK set cache
+        tokens = new BenchmarkTokens();
+        final var repository = new InMemoryClientRegistrationRepository(
+                BenchmarkTokens.clientRegistration(tokens.serveJwkSet()));
+        filter = new BackChannelLogoutFilter(registry, repository, event -> {
+        });
+        loggedOutUsers = new int[0];
+        logoutTokens = new String[TOKEN_COUNT];
+    }
+
+    @Setup(Level.Iteration)
+    public void signTokens() throws IOException, ServletException {
+        // The sessions expired by the previous iteration are registered
+        // again, so that each iteration expires active sessions
+        for (var user : loggedOutUsers) {
+            registerSession(user);
+        }
+        // Tokens are signed before each iteration, so that their iat claim
+        // stays recent, and without jti, so that they can be replayed across
+        // invocations
+        final var random = ThreadLocalRandom.current();
+        loggedOutUsers = new int[TOKEN_COUNT];
+        for (int i = 0; i < TOKEN_COUNT; i++) {
+            loggedOutUsers[i] = random.nextInt(sessionCount);
+            logoutTokens[i] = tokens.logoutToken("sid-" + loggedOutUsers[i]);
+        }
+        // Fail fast rather than measuring the rejection of invalid tokens
+        final int status = doFilter();
+        if (status != HttpServletResponse.SC_OK) {
+            throw new IllegalStateException(
+                    "Logout request failed with status " + status);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        tokens.close();
+    }
+
+    @Benchmark
+    public int doFilter() throws IOException, ServletException {
+        final var token = logoutTokens[ThreadLocalRandom.current()
+                .nextInt(TOKEN_COUNT)];
+        final var request = new MockHttpServletRequest("POST",
+                "/logout/back-channel/" + BenchmarkTokens.REGISTRATION_ID);
+        request.setParameter(TOKEN_PARAM_NAME, token);
+        final var response = new MockHttpServletResponse();
+        filter.doFilter(request, response, NO_OP_CHAIN);
+        return response.getStatus();
+    }
+
+    private void registerSession(int user) {
+        registry.registerNewSession("session-" + user,
+                BenchmarkTokens.oidcUser("user-" + user, "sid-" + user));
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full license.
+ */
+package com.vaadin.sso.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.Disposable;
+
+import com.vaadin.hilla.sso.starter.BackChannelLogoutSubscription;
+import com.vaadin.sso.core.UserLogoutEvent;
+
+/**
+ * Measures the delivery of a logout event to the clients subscribed to
+ * Back-Channel logout messages.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BackChannelLogoutSubscriptionBenchmark {
+
+    @Param({ "100", "10000" })
+    int subscriberCount;
+
+    private BackChannelLogoutSubscription subscription;
+
+    private Object[] principals;
+
+    private final List<Disposable> subscribers = new ArrayList<>();
+
+    @Setup
+    public void setup(Blackhole blackhole) {
+        subscription = new BackChannelLogoutSubscription();
+        principals = new Object[subscriberCount];
+        for (int i = 0; i < subscriberCount; i++) {
+            principals[i] = BenchmarkTokens.oidcUser("user-" + i, "sid-" + i);
+            subscribers.add(subscription.getFluxForUser(principals[i])
+                    .subscribe(blackhole::consume));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        subscribers.forEach(Disposable::dispose);
+        subscribers.clear();
+    }
+
+    @Benchmark
+    public void onApplicationEvent() {
+        final var principal = principals[ThreadLocalRandom.current()
+                .nextInt(subscriberCount)];
+        subscription.onApplicationEvent(new UserLogoutEvent(principal));
+    }
+}
@@ -0,0 +1,244 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full license.
+ */
+package com.vaadin.sso.benchmarks;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.sun.net.httpserver.HttpServer;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.oidc.IdTokenClaimNames;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.core.oidc.user.DefaultOidcUser;
+import org.springframework.security.oauth2.core.oidc.user.OidcUser;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtTypeValidator;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+
+import com.vaadin.sso.core.BackChannelLogoutFilter;
+
+/**
+ * Signs tokens with an in-process RSA key, so that benchmarks do not depend
+ * on a running identity provider. The public key can be served as a JWK set
+ * on the loopback interface, for the decoders that SSO Kit creates from the
+ * JWK set URI of a client registration.
+ */
+public final class BenchmarkTokens implements AutoCloseable {
+
+    public static final String ISSUER_URI = "https://sso.example.com/realms/benchmark";
+
+    public static final String CLIENT_ID = "benchmark-client";
+
+    public static final String REGISTRATION_ID = "benchmark";
+
+    public static final String JWK_SET_URI = ISSUER_URI + "/protocol/openid-connect/certs";
+
+    private static final String BACKCHANNEL_LOGOUT_EVENT = "http://schemas.openid.net/event/backchannel-logout";
+
+    private final RSAKey key;
+
+    private final RSASSASigner signer;
+
+    private HttpServer jwkSetServer;
+
+    public BenchmarkTokens() {
+        try {
+            key = new RSAKeyGenerator(2048).keyID("benchmark").generate();
+            signer = new RSASSASigner(key);
+        } catch (JOSEException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Creates a client registration for the benchmark issuer, whose JWK set
+     * URI is not served.
+     *
+     * @return the client registration
+     */
+    public static ClientRegistration clientRegistration() {
+        return clientRegistration(JWK_SET_URI);
+    }
+
+    /**
+     * Creates a client registration for the benchmark issuer.
+     *
+     * @param jwkSetUri
+     *            the JWK set URI of the issuer
+     * @return the client registration
+     */
+    public static ClientRegistration clientRegistration(String jwkSetUri) {
+        // @formatter:off
+        return ClientRegistration.withRegistrationId(REGISTRATION_ID)
+                .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+                .clientId(CLIENT_ID)
+                .redirectUri("{baseUrl}/login/oauth2/code/{registrationId}")
+                .authorizationUri(ISSUER_URI + "/protocol/openid-connect/auth")
+                .tokenUri(ISSUER_URI + "/protocol/openid-connect/token")
+                .jwkSetUri(jwkSetUri)
+                .issuerUri(ISSUER_URI)
+                .userNameAttributeName(IdTokenClaimNames.SUB)
+                .providerConfigurationMetadata(Map.of("end_session_endpoint",
+                        ISSUER_URI + "/protocol/openid-connect/logout"))
+                .build();
+        // @formatter:on
+    }
+
+    /**
+     * Creates an OIDC user as it would be after login.
+     *
+     * @param subject
+     *            the subject claim
+     * @param sid
+     *            the session-id claim
+     * @return the OIDC user
+     */
+    public static OidcUser oidcUser(String subject, String sid) {
+        final var now = Instant.now();
+        final var idToken = new OidcIdToken(subject + "." + sid, now,
+                now.plusSeconds(300), Map.of(IdTokenClaimNames.ISS, ISSUER_URI,
+                        IdTokenClaimNames.SUB, subject, "sid", sid));
+        return new DefaultOidcUser(List.of(), idToken);
+    }
+
+    /**
+     * Serves the public key of this instance as a JWK set, until this
+     * instance is closed.
+     *
+     * @return the URI of the JWK set
+     */
+    public synchronized String serveJwkSet() {
+        if (jwkSetServer == null) {
+            final var body = new JWKSet(key.toPublicJWK()).toString()
+                    .getBytes(StandardCharsets.UTF_8);
+            try {
+                jwkSetServer = HttpServer.create(new InetSocketAddress(
+                        InetAddress.getLoopbackAddress(), 0), 0);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            jwkSetServer.createContext("/certs", exchange -> {
+                exchange.getResponseHeaders().set("Content-Type",
+                        "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                try (var out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            });
+            jwkSetServer.start();
+        }
+        final var address = jwkSetServer.getAddress();
+        return "http://" + address.getHostString() + ":" + address.getPort()
+                + "/certs";
+    }
+
+    /**
+     * Stops serving the JWK set, if served.
+     */
+    @Override
+    public synchronized void close() {
+        if (jwkSetServer != null) {
+            jwkSetServer.stop(0);
+            jwkSetServer = null;
+        }
+    }
+
+    /**
+     * Creates a decoder which verifies logout tokens signed by this instance,
+     * like the one used by {@link BackChannelLogoutFilter}.
+     *
+     * @return the decoder
+     */
+    public JwtDecoder logoutTokenDecoder() {
+        final var decoder = NimbusJwtDecoder.withPublicKey(publicKey())
+                .validateType(false).build();
+        final var typeValidator = new JwtTypeValidator("logout+jwt");
+        typeValidator.setAllowEmpty(true);
+        decoder.setJwtValidator(
+                JwtValidators.createDefaultWithValidators(typeValidator));
+        return decoder;
+    }
+
+    /**
+     * Signs an access token with Keycloak realm and client roles.
+     *
+     * @param roleCount
+     *            the number of realm and of client roles
+     * @return the serialized token
+     */
+    public String accessToken(int roleCount) {
+        final var roles = IntStream.range(0, roleCount)
+                .mapToObj(i -> "role-" + i).toList();
+        final var now = Instant.now();
+        final var claims = new JWTClaimsSet.Builder().issuer(ISSUER_URI)
+                .subject("john").audience(CLIENT_ID)
+                .issueTime(Date.from(now))
+                .expirationTime(Date.from(now.plusSeconds(3600)))
+                .claim("realm_access", Map.of("roles", roles))
+                .claim("resource_access",
+                        Map.of(CLIENT_ID, Map.of("roles", roles)))
+                .build();
+        return sign(JOSEObjectType.JWT, claims);
+    }
+
+    /**
+     * Signs a logout token for the given session-id.
+     *
+     * @param sid
+     *            the session-id claim
+     * @return the serialized token
+     */
+    public String logoutToken(String sid) {
+        final var claims = new JWTClaimsSet.Builder().issuer(ISSUER_URI)
+                .subject("john").audience(CLIENT_ID)
+                .issueTime(Date.from(Instant.now())).claim("sid", sid)
+                .claim("events", Map.of(BACKCHANNEL_LOGOUT_EVENT, Map.of()))
+                .build();
+        return sign(new JOSEObjectType("logout+jwt"), claims);
+    }
+
+    private String sign(JOSEObjectType type, JWTClaimsSet claims) {
+        final var header = new JWSHeader.Builder(JWSAlgorithm.RS256)
+                .keyID(key.getKeyID()).type(type).build();
+        final var jwt = new SignedJWT(header, claims);
+        try {
+            jwt.sign(signer);
+        } catch (JOSEException e) {
+            throw new IllegalStateException(e);
+        }
+        return jwt.serialize();
+    }
+
+    private RSAPublicKey publicKey() {
+        try {
+            return key.toRSAPublicKey();
+        } catch (JOSEException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
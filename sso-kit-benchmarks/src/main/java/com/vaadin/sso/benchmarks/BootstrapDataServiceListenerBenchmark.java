@@ -0,0 +1,109 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full license.
+ */
+package com.vaadin.sso.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jsoup.nodes.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.client.registration.InMemoryClientRegistrationRepository;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import com.vaadin.flow.server.ServiceInitEvent;
+import com.vaadin.flow.server.VaadinService;
+import com.vaadin.flow.server.VaadinServletRequest;
+import com.vaadin.flow.server.VaadinServletService;
+import com.vaadin.flow.server.communication.IndexHtmlRequestListener;
+import com.vaadin.flow.server.communication.IndexHtmlResponse;
+import com.vaadin.hilla.sso.starter.BackChannelLogoutSubscription;
+import com.vaadin.hilla.sso.starter.BootstrapDataServiceListener;
+import com.vaadin.hilla.sso.starter.SingleSignOnContext;
+import com.vaadin.hilla.sso.starter.SingleSignOnProperties;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Measures the generation of the single sign-on bootstrap script injected in
+ * the index.html of each page load. The script of authenticated users is
+ * cached in their session after the first page load.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BootstrapDataServiceListenerBenchmark {
+
+    @Param({ "true", "false" })
+    boolean authenticated;
+
+    private IndexHtmlRequestListener listener;
+
+    private VaadinServletRequest request;
+
+    @Setup
+    public void setup() {
+        final var registration = BenchmarkTokens.clientRegistration();
+        final var properties = new SingleSignOnProperties();
+        properties.setBackChannelLogout(true);
+        final var context = new SingleSignOnContext(
+                new InMemoryClientRegistrationRepository(registration),
+                properties, new BackChannelLogoutSubscription());
+
+        final var event = new ServiceInitEvent(mock(VaadinService.class));
+        new BootstrapDataServiceListener(context).serviceInit(event);
+        listener = event.getAddedIndexHtmlRequestListeners().findFirst()
+                .orElseThrow();
+
+        if (authenticated) {
+            final var user = BenchmarkTokens.oidcUser("john", "sid");
+            SecurityContextHolder.setContext(new SecurityContextImpl(
+                    new OAuth2AuthenticationToken(user, user.getAuthorities(),
+                            registration.getRegistrationId())));
+        }
+        final var servletRequest = new MockHttpServletRequest("GET", "/");
+        servletRequest.setSession(new MockHttpSession());
+        RequestContextHolder.setRequestAttributes(
+                new ServletRequestAttributes(servletRequest));
+        request = new VaadinServletRequest(servletRequest,
+                mock(VaadinServletService.class));
+    }
+
+    @TearDown
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Benchmark
+    public Document modifyIndexHtmlResponse() {
+        final var document = new Document("");
+        document.appendElement("html").appendElement("body");
+        listener.modifyIndexHtmlResponse(
+                new IndexHtmlResponse(request, null, document));
+        return document;
+    }
+}
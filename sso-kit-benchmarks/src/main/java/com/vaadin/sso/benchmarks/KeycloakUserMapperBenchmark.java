@@ -0,0 +1,84 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full license.
+ */
+package com.vaadin.sso.benchmarks;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.oauth2.client.oidc.userinfo.OidcUserRequest;
+import org.springframework.security.oauth2.client.oidc.userinfo.OidcUserSource;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.oidc.user.OidcUser;
+
+import com.vaadin.sso.core.KeycloakUserMapper;
+
+/**
+ * Measures the conversion of a login into an OIDC user with Keycloak roles,
+ * with and without a second verification of the access token signature.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KeycloakUserMapperBenchmark {
+
+    @Param({ "5", "50" })
+    int roleCount;
+
+    @Param({ "true", "false" })
+    boolean verifyAccessToken;
+
+    private BenchmarkTokens tokens;
+
+    private KeycloakUserMapper mapper;
+
+    private OidcUserSource userSource;
+
+    @Setup
+    public void setup() {
+        tokens = new BenchmarkTokens();
+        mapper = new KeycloakUserMapper(verifyAccessToken);
+        // The access token is verified with the keys of the served JWK set,
+        // fetched once by the shared JWK set cache
+        final var registration = BenchmarkTokens
+                .clientRegistration(tokens.serveJwkSet());
+
+        final var now = Instant.now();
+        final var accessToken = new OAuth2AccessToken(
+                OAuth2AccessToken.TokenType.BEARER,
+                tokens.accessToken(roleCount), now, now.plusSeconds(3600));
+        final var idToken = BenchmarkTokens.oidcUser("john", "sid")
+                .getIdToken();
+        userSource = new OidcUserSource(
+                new OidcUserRequest(registration, accessToken, idToken));
+    }
+
+    @TearDown
+    public void tearDown() {
+        tokens.close();
+    }
+
+    @Benchmark
+    public OidcUser convert() {
+        return mapper.convert(userSource);
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full license.
+ */
+package com.vaadin.sso.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import com.vaadin.sso.core.OidcLogoutTokenValidator;
+
+/**
+ * Measures the validation of the claims of a decoded Logout Token.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@SuppressWarnings("removal")
+public class OidcLogoutTokenValidatorBenchmark {
+
+    private OidcLogoutTokenValidator validator;
+
+    private Jwt logoutToken;
+
+    @Setup
+    public void setup() {
+        final var tokens = new BenchmarkTokens();
+        validator = new OidcLogoutTokenValidator(
+                BenchmarkTokens.clientRegistration());
+        logoutToken = tokens.logoutTokenDecoder()
+                .decode(tokens.logoutToken("sid"));
+    }
+
+    @Benchmark
+    public OAuth2TokenValidatorResult validate() {
+        return validator.validate(logoutToken);
+    }
+}
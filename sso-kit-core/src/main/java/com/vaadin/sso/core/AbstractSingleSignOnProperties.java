@@ -7,6 +7,12 @@
  */
 package com.vaadin.sso.core;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.vaadin.sso.core.BackChannelLogoutExecutor.OverflowPolicy;
+
 /**
  * Definition of configuration properties for the SSO Kit starter.
  *
@@ -69,18 +75,81 @@ public abstract class AbstractSingleSignOnProperties {
      */
     private String backChannelLogoutRoute = DEFAULT_BACKCHANNEL_LOGOUT_ROUTE;
 
+    /**
+     * If set to {@code true}, Back-Channel logout requests are answered as soon
+     * as the Logout Token is validated, and the matching sessions are expired
+     * asynchronously.
+     */
+    private boolean backChannelLogoutAsync = false;
+
+    /**
+     * The maximum number of Back-Channel logout requests waiting to be
+     * processed when asynchronous processing is enabled.
+     */
+    private int backChannelLogoutQueueCapacity = BackChannelLogoutExecutor.DEFAULT_QUEUE_CAPACITY;
+
+    /**
+     * The policy applied to Back-Channel logout requests which do not fit in
+     * the queue when asynchronous processing is enabled.
+     */
+    private OverflowPolicy backChannelLogoutOverflowPolicy = OverflowPolicy.CALLER_RUNS;
+
     /**
      * The number of maximum concurrent sessions allowed per user. The default
      * value is -1 which means any number of concurrent sessions is allowed.
      */
     private int maximumConcurrentSessions = DEFAULT_MAXIMUM_SESSIONS_PER_USER;
 
+    /**
+     * The file of the journal persisting the sessions of the default session
+     * registry, so that Back-Channel logout requests still find the sessions
+     * restored after a restart. If not set, sessions are kept in memory only.
+     */
+    private String sessionJournal;
+
+    /**
+     * The interval between the sweeps of the default session registry, which
+     * remove the sessions timed out without a session destroyed event. If not
+     * set, the registry is not swept.
+     */
+    private Duration sessionSweepInterval;
+
+    /**
+     * The minimum interval between two refreshes of the last request time of
+     * a session in the default session registry, which otherwise happen on
+     * every request. If not set, the time is refreshed on every request.
+     */
+    private Duration sessionRefreshGranularity;
+
     /**
      * If set to {@code true} it enables mapping of Keycloak realm and client
      * roles to Spring Security granted authorities.
      */
     private boolean keycloakRoles = false;
 
+    /**
+     * If set to {@code true}, the signature of the access token is verified
+     * again before reading the Keycloak roles from it. By default, the claims
+     * of the access token received from the token endpoint are read without
+     * a second verification.
+     */
+    private boolean keycloakRolesVerifyAccessToken = false;
+
+    /**
+     * If set to {@code true}, authenticated users are held as compact
+     * principals, which keep only the configured claims, the claims used for
+     * Back-Channel logout, and the authorities.
+     */
+    private boolean compactPrincipal = false;
+
+    /**
+     * The claims kept by compact principals, in addition to {@code sub},
+     * {@code iss}, {@code sid} and the user name claim. The default value is
+     * the standard profile claims.
+     */
+    private List<String> compactPrincipalClaims = new ArrayList<>(
+            CompactOidcUserMapper.DEFAULT_CLAIMS);
+
     /**
      * Checks is auto-configuration of SingleSignOnConfiguration is enabled.
      *
@@ -185,6 +254,71 @@ public abstract class AbstractSingleSignOnProperties {
         this.backChannelLogoutRoute = backChannelLogoutRoute;
     }
 
+    /**
+     * Checks whether Back-Channel logout requests are processed
+     * asynchronously.
+     *
+     * @return {@code true} if Back-Channel logout requests are processed
+     *         asynchronously, {@code false} otherwise
+     */
+    public boolean isBackChannelLogoutAsync() {
+        return backChannelLogoutAsync;
+    }
+
+    /**
+     * Enables or disables asynchronous processing of Back-Channel logout
+     * requests.
+     *
+     * @param backChannelLogoutAsync
+     *            whether to process Back-Channel logout requests
+     *            asynchronously
+     */
+    public void setBackChannelLogoutAsync(boolean backChannelLogoutAsync) {
+        this.backChannelLogoutAsync = backChannelLogoutAsync;
+    }
+
+    /**
+     * Gets the capacity of the asynchronous Back-Channel logout queue.
+     *
+     * @return the queue capacity
+     */
+    public int getBackChannelLogoutQueueCapacity() {
+        return backChannelLogoutQueueCapacity;
+    }
+
+    /**
+     * Sets the capacity of the asynchronous Back-Channel logout queue.
+     *
+     * @param backChannelLogoutQueueCapacity
+     *            the queue capacity
+     */
+    public void setBackChannelLogoutQueueCapacity(
+            int backChannelLogoutQueueCapacity) {
+        this.backChannelLogoutQueueCapacity = backChannelLogoutQueueCapacity;
+    }
+
+    /**
+     * Gets the policy applied when the asynchronous Back-Channel logout queue
+     * is full.
+     *
+     * @return the overflow policy
+     */
+    public OverflowPolicy getBackChannelLogoutOverflowPolicy() {
+        return backChannelLogoutOverflowPolicy;
+    }
+
+    /**
+     * Sets the policy applied when the asynchronous Back-Channel logout queue
+     * is full.
+     *
+     * @param backChannelLogoutOverflowPolicy
+     *            the overflow policy
+     */
+    public void setBackChannelLogoutOverflowPolicy(
+            OverflowPolicy backChannelLogoutOverflowPolicy) {
+        this.backChannelLogoutOverflowPolicy = backChannelLogoutOverflowPolicy;
+    }
+
     /**
      * Gets the maximum number of concurrent sessions per user.
      *
@@ -204,6 +338,70 @@ public abstract class AbstractSingleSignOnProperties {
         this.maximumConcurrentSessions = maximumConcurrentSessions;
     }
 
+    /**
+     * Gets the file of the session journal.
+     *
+     * @return the file of the session journal, or {@code null} if sessions are
+     *         kept in memory only
+     */
+    public String getSessionJournal() {
+        return sessionJournal;
+    }
+
+    /**
+     * Sets the file of the session journal.
+     *
+     * @param sessionJournal
+     *            the file of the session journal, or {@code null} to keep
+     *            sessions in memory only
+     */
+    public void setSessionJournal(String sessionJournal) {
+        this.sessionJournal = sessionJournal;
+    }
+
+    /**
+     * Gets the interval between the sweeps of the session registry.
+     *
+     * @return the sweep interval, or {@code null} if the registry is not swept
+     */
+    public Duration getSessionSweepInterval() {
+        return sessionSweepInterval;
+    }
+
+    /**
+     * Sets the interval between the sweeps of the session registry.
+     *
+     * @param sessionSweepInterval
+     *            the sweep interval, or {@code null} not to sweep the registry
+     */
+    public void setSessionSweepInterval(Duration sessionSweepInterval) {
+        this.sessionSweepInterval = sessionSweepInterval;
+    }
+
+    /**
+     * Gets the minimum interval between two refreshes of the last request
+     * time of a session.
+     *
+     * @return the refresh granularity, or {@code null} if the time is
+     *         refreshed on every request
+     */
+    public Duration getSessionRefreshGranularity() {
+        return sessionRefreshGranularity;
+    }
+
+    /**
+     * Sets the minimum interval between two refreshes of the last request
+     * time of a session.
+     *
+     * @param sessionRefreshGranularity
+     *            the refresh granularity, or {@code null} to refresh the time
+     *            on every request
+     */
+    public void setSessionRefreshGranularity(
+            Duration sessionRefreshGranularity) {
+        this.sessionRefreshGranularity = sessionRefreshGranularity;
+    }
+
     /**
      * Checks whether Keycloak role mapping is enabled.
      *
@@ -224,4 +422,68 @@ public abstract class AbstractSingleSignOnProperties {
     public void setKeycloakRoles(boolean keycloakRoles) {
         this.keycloakRoles = keycloakRoles;
     }
+
+    /**
+     * Checks whether the access token is verified before reading the Keycloak
+     * roles from it.
+     *
+     * @return {@code true} if the access token is verified, {@code false}
+     *         otherwise
+     */
+    public boolean isKeycloakRolesVerifyAccessToken() {
+        return keycloakRolesVerifyAccessToken;
+    }
+
+    /**
+     * Enables or disables the verification of the access token before reading
+     * the Keycloak roles from it.
+     *
+     * @param keycloakRolesVerifyAccessToken
+     *            whether to verify the access token
+     */
+    public void setKeycloakRolesVerifyAccessToken(
+            boolean keycloakRolesVerifyAccessToken) {
+        this.keycloakRolesVerifyAccessToken = keycloakRolesVerifyAccessToken;
+    }
+
+    /**
+     * Checks whether authenticated users are held as compact principals.
+     *
+     * @return {@code true} if compact principals are enabled, {@code false}
+     *         otherwise
+     */
+    public boolean isCompactPrincipal() {
+        return compactPrincipal;
+    }
+
+    /**
+     * Enables or disables compact principals, which keep only the configured
+     * claims of the authenticated users.
+     *
+     * @param compactPrincipal
+     *            whether to enable or disable compact principals
+     */
+    public void setCompactPrincipal(boolean compactPrincipal) {
+        this.compactPrincipal = compactPrincipal;
+    }
+
+    /**
+     * Gets the claims kept by compact principals.
+     *
+     * @return the names of the claims
+     */
+    public List<String> getCompactPrincipalClaims() {
+        return compactPrincipalClaims;
+    }
+
+    /**
+     * Sets the claims kept by compact principals, in addition to the ones
+     * always kept.
+     *
+     * @param compactPrincipalClaims
+     *            the names of the claims
+     */
+    public void setCompactPrincipalClaims(List<String> compactPrincipalClaims) {
+        this.compactPrincipalClaims = compactPrincipalClaims;
+    }
 }
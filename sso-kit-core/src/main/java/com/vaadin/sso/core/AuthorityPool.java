@@ -0,0 +1,98 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full license.
+ */
+package com.vaadin.sso.core;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.security.core.GrantedAuthority;
+
+/**
+ * A pool of canonical authorities, so that the many users sharing the same
+ * roles also share the same instances instead of holding their own copies.
+ * <p>
+ * Whole sets of authorities can be pooled too, as unmodifiable sets. Only
+ * immutable authorities with value-based equality must be pooled. The pool is
+ * bounded: once full, the given instances are returned as they are.
+ *
+ * @author Vaadin Ltd
+ * @since 4.1
+ */
+final class AuthorityPool {
+
+    static final int DEFAULT_MAXIMUM_SIZE = 10_000;
+
+    private static final AuthorityPool DEFAULT_INSTANCE = new AuthorityPool();
+
+    private final ConcurrentMap<GrantedAuthority, GrantedAuthority> authorities = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<Set<GrantedAuthority>, Set<GrantedAuthority>> authoritySets = new ConcurrentHashMap<>();
+
+    private final int maximumSize;
+
+    AuthorityPool() {
+        this(DEFAULT_MAXIMUM_SIZE);
+    }
+
+    AuthorityPool(int maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    /*
+     * Returns the pool shared by the mappers of the application.
+     */
+    static AuthorityPool getDefault() {
+        return DEFAULT_INSTANCE;
+    }
+
+    /*
+     * Returns the canonical instance equal to the given authority.
+     */
+    @SuppressWarnings("unchecked")
+    <T extends GrantedAuthority> T intern(T authority) {
+        var canonical = authorities.get(authority);
+        if (canonical == null) {
+            if (authorities.size() >= maximumSize) {
+                return authority;
+            }
+            canonical = authorities.putIfAbsent(authority, authority);
+            if (canonical == null) {
+                return authority;
+            }
+        }
+        return (T) canonical;
+    }
+
+    /*
+     * Returns the canonical unmodifiable set equal to the given authorities,
+     * keeping their iteration order.
+     */
+    Set<GrantedAuthority> intern(Collection<? extends GrantedAuthority> set) {
+        var copy = Collections
+                .unmodifiableSet(new LinkedHashSet<GrantedAuthority>(set));
+        var canonical = authoritySets.get(copy);
+        if (canonical == null) {
+            if (authoritySets.size() >= maximumSize) {
+                return copy;
+            }
+            canonical = authoritySets.putIfAbsent(copy, copy);
+            if (canonical == null) {
+                return copy;
+            }
+        }
+        return canonical;
+    }
+
+    int size() {
+        return authorities.size();
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full license.
+ */
+package com.vaadin.sso.core;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+/**
+ * A bounded executor for the session matching and expiry of Back-Channel
+ * logout requests, which allows the requests to be answered as soon as the
+ * Logout Token is validated.
+ * <p>
+ * Tasks are queued up to the given capacity and run on virtual threads, at
+ * most the given number at a time. When the queue is full, the configured
+ * {@link OverflowPolicy} applies.
+ *
+ * @author Vaadin Ltd
+ * @since 4.1
+ */
+public final class BackChannelLogoutExecutor implements Executor {
+
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(BackChannelLogoutExecutor.class);
+
+    /**
+     * The default maximum number of queued logout tasks.
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 1000;
+
+    /**
+     * The policy applied to logout tasks which do not fit in the queue.
+     */
+    public enum OverflowPolicy {
+
+        /**
+         * Runs the task on the request thread, as if the executor was not
+         * used. This is the default.
+         */
+        CALLER_RUNS,
+
+        /**
+         * Rejects the task, which fails the logout request so that the
+         * OpenID Provider can retry it.
+         */
+        REJECT
+    }
+
+    private final ThreadPoolExecutor executor;
+
+    private final OverflowPolicy overflowPolicy;
+
+    private final LongAdder processedCount = new LongAdder();
+
+    private final LongAdder overflowCount = new LongAdder();
+
+    private final AtomicLong lastLagNanos = new AtomicLong();
+
+    private final AtomicLong maximumLagNanos = new AtomicLong();
+
+    /**
+     * Creates a new executor with the default queue capacity and the
+     * {@link OverflowPolicy#CALLER_RUNS} policy.
+     */
+    public BackChannelLogoutExecutor() {
+        this(DEFAULT_QUEUE_CAPACITY, OverflowPolicy.CALLER_RUNS);
+    }
+
+    /**
+     * Creates a new executor which runs as many tasks at a time as there are
+     * available processors.
+     *
+     * @param queueCapacity
+     *            the maximum number of queued tasks, positive
+     * @param overflowPolicy
+     *            the policy for tasks which do not fit in the queue, not
+     *            {@code null}
+     */
+    public BackChannelLogoutExecutor(int queueCapacity,
+            OverflowPolicy overflowPolicy) {
+        this(queueCapacity, Runtime.getRuntime().availableProcessors(),
+                overflowPolicy);
+    }
+
+    /**
+     * Creates a new executor.
+     *
+     * @param queueCapacity
+     *            the maximum number of queued tasks, positive
+     * @param concurrency
+     *            the maximum number of tasks run at a time, positive
+     * @param overflowPolicy
+     *            the policy for tasks which do not fit in the queue, not
+     *            {@code null}
+     */
+    public BackChannelLogoutExecutor(int queueCapacity, int concurrency,
+            OverflowPolicy overflowPolicy) {
+        Assert.isTrue(queueCapacity > 0, "queueCapacity must be > 0");
+        Assert.isTrue(concurrency > 0, "concurrency must be > 0");
+        this.overflowPolicy = Objects.requireNonNull(overflowPolicy);
+        final var threadFactory = Thread.ofVirtual()
+                .name("sso-back-channel-logout-", 0).factory();
+        this.executor = new ThreadPoolExecutor(concurrency, concurrency, 60,
+                TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                threadFactory, createOverflowHandler(overflowPolicy));
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Queues the given logout task.
+     *
+     * @param task
+     *            the task to run, not {@code null}
+     * @throws RejectedExecutionException
+     *             if the queue is full and the overflow policy is
+     *             {@link OverflowPolicy#REJECT}, or if the executor has been
+     *             shut down
+     */
+    @Override
+    public void execute(Runnable task) {
+        Objects.requireNonNull(task);
+        final var queuedAt = System.nanoTime();
+        executor.execute(() -> {
+            recordLag(System.nanoTime() - queuedAt);
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                LOGGER.error("Back-Channel logout task failed", e);
+            } finally {
+                processedCount.increment();
+            }
+        });
+    }
+
+    /**
+     * Gets the overflow policy of this executor.
+     *
+     * @return the overflow policy
+     */
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    /**
+     * Gets the number of tasks waiting in the queue.
+     *
+     * @return the queue depth
+     */
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * Gets the time the most recently started task spent in the queue.
+     *
+     * @return the processing lag of the last task
+     */
+    public Duration getProcessingLag() {
+        return Duration.ofNanos(lastLagNanos.get());
+    }
+
+    /**
+     * Gets the longest time a task has spent in the queue.
+     *
+     * @return the maximum processing lag
+     */
+    public Duration getMaximumProcessingLag() {
+        return Duration.ofNanos(maximumLagNanos.get());
+    }
+
+    /**
+     * Gets the number of completed tasks, including the ones run by the
+     * caller because of the overflow policy.
+     *
+     * @return the number of processed tasks
+     */
+    public long getProcessedCount() {
+        return processedCount.sum();
+    }
+
+    /**
+     * Gets the number of tasks which did not fit in the queue.
+     *
+     * @return the number of overflows
+     */
+    public long getOverflowCount() {
+        return overflowCount.sum();
+    }
+
+    /**
+     * Stops accepting new tasks. Queued tasks are still run.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private void recordLag(long lagNanos) {
+        lastLagNanos.set(lagNanos);
+        maximumLagNanos.accumulateAndGet(lagNanos, Math::max);
+    }
+
+    private RejectedExecutionHandler createOverflowHandler(
+            OverflowPolicy policy) {
+        final RejectedExecutionHandler handler = switch (policy) {
+        case CALLER_RUNS -> new ThreadPoolExecutor.CallerRunsPolicy();
+        case REJECT -> new ThreadPoolExecutor.AbortPolicy();
+        };
+        return (task, executor) -> {
+            if (!executor.isShutdown()) {
+                overflowCount.increment();
+                LOGGER.warn("Back-Channel logout queue is full, applying "
+                        + "overflow policy {}", policy);
+            }
+            handler.rejectedExecution(task, executor);
+        };
+    }
+}
@@ -15,25 +15,32 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.core.log.LogMessage;
 import org.springframework.http.HttpMethod;
-import org.springframework.security.core.session.SessionInformation;
 import org.springframework.security.core.session.SessionRegistry;
 import org.springframework.security.oauth2.client.registration.ClientRegistration;
 import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
-import org.springframework.security.oauth2.core.oidc.user.OidcUser;
+import org.springframework.security.oauth2.core.oidc.IdTokenClaimNames;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.JwtDecoderFactory;
+import org.springframework.security.oauth2.jwt.JwtException;
 import org.springframework.security.oauth2.jwt.JwtTypeValidator;
 import org.springframework.security.oauth2.jwt.JwtValidationException;
 import org.springframework.security.oauth2.jwt.JwtValidators;
-import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
 import org.springframework.security.web.servlet.util.matcher.PathPatternRequestMatcher;
 import org.springframework.security.web.util.matcher.RequestMatcher;
 import org.springframework.web.filter.GenericFilterBean;
 
+import com.vaadin.sso.core.BackChannelLogoutMetrics.Outcome;
+import com.vaadin.sso.core.BackChannelLogoutMetrics.Stage;
+
 /**
  * A filter responsible to handle OpenID Connect Back-Channel Logout requests.
  *
@@ -53,17 +60,24 @@ public class BackChannelLogoutFilter extends GenericFilterBean {
 
     private static final String LOG_MESSAGE = "Did not match request to %s";
 
-    private final SessionRegistry sessionRegistry;
+    private final SingleSignOnSessionTerminator sessionTerminator;
 
     private final ClientRegistrationRepository clientRegistrationRepository;
 
     private final JwtDecoderFactory<ClientRegistration> decoderFactory;
 
+    private final JtiReplayCache replayCache = new JtiReplayCache(
+            OidcLogoutTokenValidator.DEFAULT_CLOCK_SKEW);
+
     private RequestMatcher requestMatcher = PathPatternRequestMatcher
             .withDefaults().matcher(
                     AbstractSingleSignOnProperties.DEFAULT_BACKCHANNEL_LOGOUT_ROUTE);
 
-    private final ApplicationEventPublisher eventPublisher;
+    private Executor logoutExecutor;
+
+    private BackChannelLogoutMetrics metrics = BackChannelLogoutMetrics.NONE;
+
+    private LogoutEventBus logoutEventBus;
 
     /**
      * Creates an instance of the filter.
@@ -79,25 +93,8 @@ public class BackChannelLogoutFilter extends GenericFilterBean {
             ClientRegistrationRepository clientRegistrationRepository,
             ApplicationEventPublisher eventPublisher) {
         this(sessionRegistry, clientRegistrationRepository, eventPublisher,
-                clientRegistration -> {
-                    final var jwkSetUri = clientRegistration
-                            .getProviderDetails().getJwkSetUri();
-                    // OpenID Connect Back-Channel Logout tokens use
-                    // typ=logout+jwt per the spec. Spring Security 7 enforces
-                    // typ=JWT by default, which breaks logout token decoding.
-                    // We disable that Nimbus-level check and replace it with a
-                    // JwtTypeValidator that explicitly accepts logout+jwt (and
-                    // tokens without a typ header for backward compatibility).
-                    final var typeValidator = new JwtTypeValidator(
-                            "logout+jwt");
-                    typeValidator.setAllowEmpty(true);
-                    final var decoder = NimbusJwtDecoder
-                            .withJwkSetUri(jwkSetUri).validateType(false)
-                            .build();
-                    decoder.setJwtValidator(JwtValidators
-                            .createDefaultWithValidators(typeValidator));
-                    return decoder;
-                });
+                new CachingJwtDecoderFactory(
+                        BackChannelLogoutFilter::createLogoutTokenDecoder));
         logger.warn("BackChannelLogoutFilter is deprecated and will be removed "
                 + "in the future. SpringSecurity provides equivalent function "
                 + "by default. Remove  `vaadin.sso.back-channel-logout=true` "
@@ -108,13 +105,31 @@ public class BackChannelLogoutFilter extends GenericFilterBean {
             ClientRegistrationRepository clientRegistrationRepository,
             ApplicationEventPublisher eventPublisher,
             JwtDecoderFactory<ClientRegistration> decoderFactory) {
-        this.sessionRegistry = Objects.requireNonNull(sessionRegistry);
+        this.sessionTerminator = new SingleSignOnSessionTerminator(
+                sessionRegistry, eventPublisher);
         this.clientRegistrationRepository = Objects
                 .requireNonNull(clientRegistrationRepository);
-        this.eventPublisher = Objects.requireNonNull(eventPublisher);
         this.decoderFactory = Objects.requireNonNull(decoderFactory);
     }
 
+    private static JwtDecoder createLogoutTokenDecoder(
+            ClientRegistration clientRegistration) {
+        final var jwkSetUri = clientRegistration.getProviderDetails()
+                .getJwkSetUri();
+        // OpenID Connect Back-Channel Logout tokens use typ=logout+jwt per the
+        // spec. Spring Security 7 enforces typ=JWT by default, which breaks
+        // logout token decoding. We disable that Nimbus-level check and
+        // replace it with a JwtTypeValidator that explicitly accepts
+        // logout+jwt (and tokens without a typ header for backward
+        // compatibility).
+        final var typeValidator = new JwtTypeValidator("logout+jwt");
+        typeValidator.setAllowEmpty(true);
+        final var decoder = JwkSetCache.getDefault().createDecoder(jwkSetUri);
+        decoder.setJwtValidator(
+                JwtValidators.createDefaultWithValidators(typeValidator));
+        return decoder;
+    }
+
     @Override
     public void doFilter(ServletRequest request, ServletResponse response,
             FilterChain chain) throws IOException, ServletException {
@@ -130,6 +145,7 @@ public class BackChannelLogoutFilter extends GenericFilterBean {
 
     private void performLogout(HttpServletRequest request,
             HttpServletResponse response) throws JwtValidationException {
+        final var start = System.nanoTime();
         final var clientRegistrationId = requestMatcher.matcher(request)
                 .getVariables().get(REGISTRATION_ID_URI_VARIABLE_NAME);
 
@@ -137,8 +153,9 @@ public class BackChannelLogoutFilter extends GenericFilterBean {
             logger.warn("Back-Channel logout request matcher missing "
                     + "required registrationId URI variable:"
                     + REGISTRATION_ID_URI_VARIABLE_NAME);
-            // Set the response status to 400 Bad Request as per specification
-            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            badRequest(response,
+                    BackChannelLogoutMetrics.UNKNOWN_REGISTRATION_ID,
+                    Outcome.MISSING_REGISTRATION_ID, start);
             return;
         }
 
@@ -148,8 +165,9 @@ public class BackChannelLogoutFilter extends GenericFilterBean {
         if (clientRegistration == null) {
             logger.warn(
                     "Client registration not found: " + clientRegistrationId);
-            // Set the response status to 400 Bad Request as per specification
-            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            badRequest(response,
+                    BackChannelLogoutMetrics.UNKNOWN_REGISTRATION_ID,
+                    Outcome.UNKNOWN_REGISTRATION, start);
             return;
         }
 
@@ -158,13 +176,24 @@ public class BackChannelLogoutFilter extends GenericFilterBean {
         if (token == null) {
             logger.warn("Back-Channel logout request missing parameter: "
                     + TOKEN_PARAM_NAME);
-            // Set the response status to 400 Bad Request as per specification
-            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            badRequest(response, clientRegistrationId, Outcome.MISSING_TOKEN,
+                    start);
             return;
         }
 
         final var decoder = decoderFactory.createDecoder(clientRegistration);
-        final var jwt = decoder.decode(token);
+        final Jwt jwt;
+        try {
+            jwt = decoder.decode(token);
+        } catch (JwtException e) {
+            // Not answered by this filter, the exception is handled as any
+            // other error of the request
+            metrics.recordRequest(clientRegistrationId, Outcome.ERROR,
+                    System.nanoTime() - start);
+            throw e;
+        }
+        final var stageStart = recordStage(clientRegistrationId, Stage.DECODE,
+                start);
 
         // TODO: Validation should be part of the decoding process. This means
         // that we need a custom JwtDecoderFactory that creates a decoder for
@@ -172,38 +201,68 @@ public class BackChannelLogoutFilter extends GenericFilterBean {
         // See Spring's OidcIdTokenDecoderFactory and OidcIdTokenValidator
         final var tokenValidator = new OidcLogoutTokenValidator(
                 clientRegistration);
-        if (tokenValidator.validate(jwt).hasErrors()) {
+        tokenValidator.setReplayCache(replayCache);
+        final var invalid = tokenValidator.validate(jwt).hasErrors();
+        recordStage(clientRegistrationId, Stage.VALIDATE, stageStart);
+        if (invalid) {
             logger.warn("Invalid logout token");
-            // Set the response status to 400 Bad Request as per specification
-            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            badRequest(response, clientRegistrationId, Outcome.INVALID_CLAIMS,
+                    start);
             return;
         }
 
+        final var tokenIss = jwt.getClaimAsString(IdTokenClaimNames.ISS);
         final var tokenSub = jwt.getSubject();
         final var tokenSid = jwt.getClaimAsString(LogoutTokenClaimNames.SID);
 
-        sessionRegistry.getAllPrincipals().stream().filter(principal -> {
-            if (principal instanceof OidcUser) {
-                final var user = (OidcUser) principal;
-                // If a SID claim is provided, use it to match the principal;
-                // otherwise use the SUB claim (not null in valid tokens)
-                if (tokenSid != null) {
-                    final var userSid = user
-                            .getClaimAsString(LogoutTokenClaimNames.SID);
-                    return Objects.equals(tokenSid, userSid);
-                } else {
-                    final var userSub = user.getSubject();
-                    return Objects.equals(tokenSub, userSub);
+        final var criteria = new LogoutCriteria(tokenIss, tokenSid, tokenSub);
+        final Runnable logout = () -> {
+            if (logoutEventBus != null) {
+                logoutEventBus.publish(criteria);
+                return;
+            }
+            final var expired = sessionTerminator.terminate(List.of(criteria),
+                    (stage, nanos) -> metrics.recordStage(clientRegistrationId,
+                            stage, nanos));
+            metrics.recordExpiredSessions(clientRegistrationId, expired);
+        };
+        if (logoutExecutor == null) {
+            logout.run();
+        } else {
+            try {
+                logoutExecutor.execute(logout);
+            } catch (RejectedExecutionException e) {
+                logger.warn("Back-Channel logout request rejected", e);
+                // The logout could not be performed: the retry of the same
+                // token must not be rejected as a replay
+                final var jti = jwt.getId();
+                if (jti != null) {
+                    replayCache.remove(tokenIss, jti);
                 }
-            } else {
-                return false;
+                badRequest(response, clientRegistrationId, Outcome.REJECTED,
+                        start);
+                return;
             }
-        }).peek(p -> eventPublisher.publishEvent(new UserLogoutEvent(p)))
-                .flatMap(p -> sessionRegistry.getAllSessions(p, false).stream())
-                .forEach(SessionInformation::expireNow);
+        }
 
         // Set the response status to 200 OK as per specification
         response.setStatus(HttpServletResponse.SC_OK);
+        metrics.recordRequest(clientRegistrationId, Outcome.SUCCESS,
+                System.nanoTime() - start);
+    }
+
+    private void badRequest(HttpServletResponse response,
+            String registrationId, Outcome outcome, long start) {
+        // Set the response status to 400 Bad Request as per specification
+        response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+        metrics.recordRequest(registrationId, outcome,
+                System.nanoTime() - start);
+    }
+
+    private long recordStage(String registrationId, Stage stage, long start) {
+        final var end = System.nanoTime();
+        metrics.recordStage(registrationId, stage, end - start);
+        return end;
     }
 
     private boolean requiresLogout(HttpServletRequest request) {
@@ -235,6 +294,50 @@ public class BackChannelLogoutFilter extends GenericFilterBean {
         requestMatcher = Objects.requireNonNull(logoutRequestMatcher);
     }
 
+    /**
+     * Sets the executor which matches and expires the sessions of valid logout
+     * requests. If set, the filter responds as soon as the Logout Token is
+     * validated, without waiting for the sessions to be expired. By default,
+     * no executor is used and sessions are expired on the request thread.
+     *
+     * @param logoutExecutor
+     *            the executor, or {@code null} to expire sessions on the
+     *            request thread
+     * @see BackChannelLogoutExecutor
+     */
+    public void setLogoutExecutor(Executor logoutExecutor) {
+        this.logoutExecutor = logoutExecutor;
+    }
+
+    /**
+     * Sets the metrics which record the duration of each stage and the outcome
+     * of the logout requests. By default, nothing is recorded.
+     *
+     * @param metrics
+     *            the metrics, not {@code null}
+     * @see MicrometerBackChannelLogoutMetrics
+     */
+    public void setMetrics(BackChannelLogoutMetrics metrics) {
+        this.metrics = Objects.requireNonNull(metrics);
+    }
+
+    /**
+     * Sets the bus which propagates the logouts to all the nodes of the
+     * cluster. If set, the filter publishes the logouts to the bus instead of
+     * terminating the sessions itself, and the sessions of each node are
+     * terminated by the listeners of the bus, without stage metrics. By
+     * default, no bus is used and only the sessions of this node are
+     * terminated.
+     *
+     * @param logoutEventBus
+     *            the bus, or {@code null} to terminate the sessions of this
+     *            node only
+     * @see SingleSignOnSessionTerminator
+     */
+    public void setLogoutEventBus(LogoutEventBus logoutEventBus) {
+        this.logoutEventBus = logoutEventBus;
+    }
+
     /**
      * Sets the back-channel logout route to match for this filter to handle the
      * requests.
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full license.
+ */
+package com.vaadin.sso.core;
+
+/**
+ * Records the duration of the stages of Back-Channel logout requests and the
+ * outcome of each request.
+ * <p>
+ * Implementations are called on the request thread, or on the logout executor
+ * thread for the stages run asynchronously, and must be thread-safe.
+ *
+ * @author Vaadin Ltd
+ * @since 4.1
+ * @see MicrometerBackChannelLogoutMetrics
+ */
+public interface BackChannelLogoutMetrics {
+
+    /**
+     * The registration-id used for requests which do not match a known client
+     * registration, so that arbitrary request paths cannot create new metrics.
+     */
+    String UNKNOWN_REGISTRATION_ID = "unknown";
+
+    /**
+     * A stage of Back-Channel logout request processing.
+     */
+    enum Stage {
+
+        /**
+         * Decoding of the Logout Token, including signature verification.
+         */
+        DECODE,
+
+        /**
+         * Validation of the Logout Token claims.
+         */
+        VALIDATE,
+
+        /**
+         * Decoding and validation of the Logout Token together, when they
+         * cannot be timed separately, as in the Spring Security filter.
+         */
+        AUTHENTICATE,
+
+        /**
+         * Lookup of the principals matching the Logout Token.
+         */
+        MATCH,
+
+        /**
+         * Publishing of the logout events for the matched principals.
+         */
+        PUBLISH,
+
+        /**
+         * Expiry of the sessions of the matched principals.
+         */
+        EXPIRE,
+
+        /**
+         * Matching and expiry of the sessions together, when they cannot be
+         * timed separately, as in the Spring Security logout handler.
+         */
+        LOGOUT
+    }
+
+    /**
+     * The outcome of a Back-Channel logout request.
+     */
+    enum Outcome {
+
+        /**
+         * The request was accepted.
+         */
+        SUCCESS,
+
+        /**
+         * The request path has no registration-id.
+         */
+        MISSING_REGISTRATION_ID,
+
+        /**
+         * The registration-id does not match any client registration.
+         */
+        UNKNOWN_REGISTRATION,
+
+        /**
+         * The request has no Logout Token.
+         */
+        MISSING_TOKEN,
+
+        /**
+         * The Logout Token could not be decoded or verified.
+         */
+        INVALID_TOKEN,
+
+        /**
+         * The Logout Token has invalid or replayed claims.
+         */
+        INVALID_CLAIMS,
+
+        /**
+         * The logout executor rejected the request.
+         */
+        REJECTED,
+
+        /**
+         * Some of the sessions could not be logged out.
+         */
+        PARTIAL_LOGOUT,
+
+        /**
+         * The request failed with an exception, such as an undecodable
+         * token or the JWK Set of the provider being unavailable, and no
+         * response was written.
+         */
+        ERROR;
+
+        /**
+         * Checks whether this outcome is a successful one.
+         *
+         * @return {@code true} for {@link #SUCCESS}
+         */
+        public boolean isSuccess() {
+            return this == SUCCESS;
+        }
+    }
+
+    /**
+     * Records the duration of a processing stage.
+     *
+     * @param registrationId
+     *            the client registration-id, not {@code null}
+     * @param stage
+     *            the stage, not {@code null}
+     * @param nanos
+     *            the duration in nanoseconds
+     */
+    void recordStage(String registrationId, Stage stage, long nanos);
+
+    /**
+     * Records the outcome and the total duration of a request.
+     *
+     * @param registrationId
+     *            the client registration-id, not {@code null}
+     * @param outcome
+     *            the outcome, not {@code null}
+     * @param nanos
+     *            the duration in nanoseconds
+     */
+    void recordRequest(String registrationId, Outcome outcome, long nanos);
+
+    /**
+     * Records the number of sessions expired by a request.
+     *
+     * @param registrationId
+     *            the client registration-id, not {@code null}
+     * @param count
+     *            the number of expired sessions
+     */
+    default void recordExpiredSessions(String registrationId, int count) {
+    }
+
+    /**
+     * An instance which records nothing, used when no metrics are configured.
+     */
+    BackChannelLogoutMetrics NONE = new BackChannelLogoutMetrics() {
+
+        @Override
+        public void recordStage(String registrationId, Stage stage,
+                long nanos) {
+        }
+
+        @Override
+        public void recordRequest(String registrationId, Outcome outcome,
+                long nanos) {
+        }
+    };
+}
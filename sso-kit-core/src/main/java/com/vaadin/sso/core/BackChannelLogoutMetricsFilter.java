@@ -0,0 +1,182 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full license.
+ */
+package com.vaadin.sso.core;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.util.Objects;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
+import org.springframework.security.web.authentication.logout.LogoutHandler;
+import org.springframework.security.web.servlet.util.matcher.PathPatternRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.vaadin.sso.core.BackChannelLogoutMetrics.Outcome;
+import com.vaadin.sso.core.BackChannelLogoutMetrics.Stage;
+
+/**
+ * A filter which records metrics for the OpenID Connect Back-Channel logout
+ * requests handled by Spring Security.
+ * <p>
+ * Spring Security decodes and validates the Logout Token in a filter, then
+ * expires the sessions in a logout handler. This filter must be added before
+ * Spring Security's one, and records the outcome and duration of each
+ * request. If the logout handler is also wrapped with
+ * {@link #instrument(LogoutHandler)}, the time spent in each of them is
+ * recorded as the {@link Stage#AUTHENTICATE} and {@link Stage#LOGOUT} stages.
+ *
+ * @author Vaadin Ltd
+ * @since 4.1
+ */
+public class BackChannelLogoutMetricsFilter extends OncePerRequestFilter {
+
+    /**
+     * The route of Spring Security's Back-Channel logout filter.
+     */
+    public static final String DEFAULT_LOGOUT_URI = "/logout/connect/back-channel/{registrationId}";
+
+    static final String REGISTRATION_ID_URI_VARIABLE_NAME = "registrationId";
+
+    /* Value defined by the specification */
+    static final String TOKEN_PARAM_NAME = "logout_token";
+
+    private static final String LOGOUT_START_ATTRIBUTE = BackChannelLogoutMetricsFilter.class
+            .getName() + ".LOGOUT_START";
+
+    private static final String LOGOUT_END_ATTRIBUTE = BackChannelLogoutMetricsFilter.class
+            .getName() + ".LOGOUT_END";
+
+    private final ClientRegistrationRepository clientRegistrationRepository;
+
+    private final BackChannelLogoutMetrics metrics;
+
+    private RequestMatcher requestMatcher = PathPatternRequestMatcher
+            .withDefaults().matcher(HttpMethod.POST, DEFAULT_LOGOUT_URI);
+
+    /**
+     * Creates an instance of the filter.
+     *
+     * @param clientRegistrationRepository
+     *            the client-registration repository, {@code not null}
+     * @param metrics
+     *            the metrics to record, {@code not null}
+     */
+    public BackChannelLogoutMetricsFilter(
+            ClientRegistrationRepository clientRegistrationRepository,
+            BackChannelLogoutMetrics metrics) {
+        this.clientRegistrationRepository = Objects
+                .requireNonNull(clientRegistrationRepository);
+        this.metrics = Objects.requireNonNull(metrics);
+    }
+
+    /**
+     * Wraps the given logout handler to record the time spent expiring the
+     * sessions.
+     *
+     * @param logoutHandler
+     *            the Back-Channel logout handler, {@code not null}
+     * @return the instrumented logout handler
+     */
+    public LogoutHandler instrument(LogoutHandler logoutHandler) {
+        Objects.requireNonNull(logoutHandler);
+        return (request, response, authentication) -> {
+            request.setAttribute(LOGOUT_START_ATTRIBUTE, System.nanoTime());
+            try {
+                logoutHandler.logout(request, response, authentication);
+            } finally {
+                request.setAttribute(LOGOUT_END_ATTRIBUTE, System.nanoTime());
+            }
+        };
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+            HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!requestMatcher.matches(request)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        final var start = System.nanoTime();
+        var failed = true;
+        try {
+            filterChain.doFilter(request, response);
+            failed = false;
+        } finally {
+            record(request, response, start, failed);
+        }
+    }
+
+    private void record(HttpServletRequest request,
+            HttpServletResponse response, long start, boolean failed) {
+        final var end = System.nanoTime();
+        final var registrationId = requestMatcher.matcher(request)
+                .getVariables().get(REGISTRATION_ID_URI_VARIABLE_NAME);
+        final var registration = registrationId == null ? null
+                : clientRegistrationRepository
+                        .findByRegistrationId(registrationId);
+        // Only known registration-ids are used as tags
+        final var tag = registration == null
+                ? BackChannelLogoutMetrics.UNKNOWN_REGISTRATION_ID
+                : registrationId;
+        final var logoutStart = request.getAttribute(LOGOUT_START_ATTRIBUTE);
+        final var logoutEnd = request.getAttribute(LOGOUT_END_ATTRIBUTE);
+        final Outcome outcome;
+        if (failed) {
+            outcome = Outcome.ERROR;
+        } else if (logoutStart instanceof Long s
+                && logoutEnd instanceof Long e) {
+            // The token was valid, since the logout handler was called
+            metrics.recordStage(tag, Stage.AUTHENTICATE, s - start);
+            metrics.recordStage(tag, Stage.LOGOUT, e - s);
+            final var status = response.getStatus();
+            outcome = status < HttpServletResponse.SC_BAD_REQUEST
+                    ? Outcome.SUCCESS
+                    : Outcome.PARTIAL_LOGOUT;
+        } else if (registrationId == null) {
+            outcome = Outcome.MISSING_REGISTRATION_ID;
+        } else if (registration == null) {
+            outcome = Outcome.UNKNOWN_REGISTRATION;
+        } else if (request.getParameter(TOKEN_PARAM_NAME) == null) {
+            outcome = Outcome.MISSING_TOKEN;
+        } else if (response.getStatus() < HttpServletResponse.SC_BAD_REQUEST) {
+            // The logout handler is not instrumented
+            outcome = Outcome.SUCCESS;
+        } else {
+            outcome = Outcome.INVALID_TOKEN;
+        }
+        metrics.recordRequest(tag, outcome, end - start);
+    }
+
+    /**
+     * Gets the request-matcher configured for this filter.
+     *
+     * @return this filter's request-matcher, not {@code null}
+     */
+    public RequestMatcher getRequestMatcher() {
+        return requestMatcher;
+    }
+
+    /**
+     * Sets the request-matcher for this filter. It must match the same
+     * requests as Spring Security's Back-Channel logout filter, and have a
+     * {@code registrationId} URI variable.
+     *
+     * @param requestMatcher
+     *            the request-matcher, not {@code null}
+     */
+    public void setRequestMatcher(RequestMatcher requestMatcher) {
+        this.requestMatcher = Objects.requireNonNull(requestMatcher);
+    }
+}
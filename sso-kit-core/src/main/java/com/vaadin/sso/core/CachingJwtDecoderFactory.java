@@ -0,0 +1,148 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full license.
+ */
+package com.vaadin.sso.core;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtDecoderFactory;
+
+/**
+ * A {@link JwtDecoderFactory} which caches the decoders created by a delegate
+ * factory, keeping one decoder for each client registration-id.
+ * <p>
+ * Decoders are expensive to create: each new decoder has its own JWK source
+ * which needs to fetch the key set from the identity provider before the first
+ * token can be verified. Reusing a warm decoder avoids a network round-trip
+ * for each decoded token. A cached decoder is replaced when the client
+ * registration it was created for changes.
+ *
+ * @author Vaadin Ltd
+ * @since 4.1
+ */
+public class CachingJwtDecoderFactory
+        implements JwtDecoderFactory<ClientRegistration> {
+
+    private final JwtDecoderFactory<ClientRegistration> delegate;
+
+    private final ConcurrentMap<String, CachedDecoder> decoders = new ConcurrentHashMap<>();
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    /**
+     * Creates a new instance which caches the decoders created by the given
+     * factory.
+     *
+     * @param delegate
+     *            the factory to create decoders on cache misses, not
+     *            {@code null}
+     */
+    public CachingJwtDecoderFactory(
+            JwtDecoderFactory<ClientRegistration> delegate) {
+        this.delegate = Objects.requireNonNull(delegate);
+    }
+
+    @Override
+    public JwtDecoder createDecoder(ClientRegistration clientRegistration) {
+        Objects.requireNonNull(clientRegistration);
+        final var registrationId = clientRegistration.getRegistrationId();
+        final var cached = decoders.get(registrationId);
+        if (cached != null && cached.isValidFor(clientRegistration)) {
+            hitCount.increment();
+            return cached.decoder();
+        }
+        return decoders.compute(registrationId, (id, current) -> {
+            if (current != null && current.isValidFor(clientRegistration)) {
+                hitCount.increment();
+                return current;
+            }
+            missCount.increment();
+            final var decoder = delegate.createDecoder(clientRegistration);
+            return new CachedDecoder(clientRegistration,
+                    Fingerprint.of(clientRegistration), decoder);
+        }).decoder();
+    }
+
+    /**
+     * Removes the cached decoder for the given registration-id, if any.
+     *
+     * @param registrationId
+     *            the client registration-id
+     */
+    public void invalidate(String registrationId) {
+        decoders.remove(registrationId);
+    }
+
+    /**
+     * Removes all the cached decoders.
+     */
+    public void invalidateAll() {
+        decoders.clear();
+    }
+
+    /**
+     * Gets the number of requests served by a cached decoder.
+     *
+     * @return the number of cache hits
+     */
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * Gets the number of requests which required creating a new decoder.
+     *
+     * @return the number of cache misses
+     */
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * Gets the number of decoders currently cached.
+     *
+     * @return the number of cached decoders
+     */
+    public int size() {
+        return decoders.size();
+    }
+
+    private record CachedDecoder(ClientRegistration clientRegistration,
+            Fingerprint fingerprint, JwtDecoder decoder) {
+
+        boolean isValidFor(ClientRegistration registration) {
+            // Repositories usually return the same instance, which makes the
+            // identity check the common case
+            return clientRegistration == registration
+                    || fingerprint.equals(Fingerprint.of(registration));
+        }
+    }
+
+    /*
+     * The parts of a client registration which affect how tokens are decoded
+     * and validated. ClientRegistration does not implement equals().
+     */
+    private record Fingerprint(String clientId, String issuerUri,
+            String jwkSetUri, Map<String, Object> configurationMetadata) {
+
+        static Fingerprint of(ClientRegistration registration) {
+            final var providerDetails = registration.getProviderDetails();
+            return new Fingerprint(registration.getClientId(),
+                    providerDetails.getIssuerUri(),
+                    providerDetails.getJwkSetUri(),
+                    providerDetails.getConfigurationMetadata());
+        }
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full license.
+ */
+package com.vaadin.sso.core;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.springframework.context.ApplicationListener;
+import org.springframework.security.core.session.AbstractSessionEvent;
+import org.springframework.security.core.session.SessionInformation;
+import org.springframework.security.core.session.SessionRegistry;
+import org.springframework.util.Assert;
+
+/**
+ * A {@link SessionRegistry} which decorates another registry so that the last
+ * request time of each session is refreshed at most once per the given
+ * granularity.
+ * <p>
+ * The concurrent session filter refreshes the last request time of a session
+ * on every request, which with Vaadin UIDL, heartbeat and push requests means
+ * dozens of writes per user per minute. This registry keeps the identifier
+ * and the monotonic time of the last refreshed session in each slot of a
+ * fixed-size table, indexed by the hash of the session identifier: a refresh
+ * within the granularity is skipped after reading a single slot and comparing
+ * the identifiers, without allocating or writing. A session whose slot has
+ * been taken by another session since its last refresh is refreshed again, so
+ * that sessions sharing a slot are refreshed more often, never less.
+ * <p>
+ * The last request time of the sessions, and so their order when the maximum
+ * number of sessions is enforced, may be behind by up to the granularity. This
+ * class listens to session events in place of the decorated registry, and
+ * closes it if needed: the decorated registry should not be registered as a
+ * bean.
+ *
+ * @author Vaadin Ltd
+ * @since 4.1
+ */
+public class CoalescingSessionRegistry
+        implements SessionRegistry, OidcSessionIndex, SessionRecencyIndex,
+        ApplicationListener<AbstractSessionEvent>, AutoCloseable {
+
+    /**
+     * The default granularity of the last request time.
+     */
+    public static final Duration DEFAULT_GRANULARITY = Duration.ofSeconds(1);
+
+    private static final int TABLE_SIZE = 1 << 14;
+
+    private final SessionRegistry delegate;
+
+    private final OidcSessionIndex index;
+
+    private final int granularityMillis;
+
+    private final AtomicReferenceArray<Refresh> refreshes = new AtomicReferenceArray<>(TABLE_SIZE);
+
+    /**
+     * Creates a new instance which decorates the given registry, using the
+     * default granularity.
+     *
+     * @param <R>
+     *            the type of the decorated registry
+     * @param delegate
+     *            the registry to decorate, not {@code null}
+     */
+    public <R extends SessionRegistry & OidcSessionIndex> CoalescingSessionRegistry(
+            R delegate) {
+        this(delegate, DEFAULT_GRANULARITY);
+    }
+
+    /**
+     * Creates a new instance which decorates the given registry.
+     *
+     * @param <R>
+     *            the type of the decorated registry
+     * @param delegate
+     *            the registry to decorate, not {@code null}
+     * @param granularity
+     *            the minimum interval between two refreshes of the last
+     *            request time of a session, between one millisecond and one
+     *            day
+     */
+    public <R extends SessionRegistry & OidcSessionIndex> CoalescingSessionRegistry(
+            R delegate, Duration granularity) {
+        Assert.isTrue(
+                granularity.toMillis() > 0
+                        && granularity.compareTo(Duration.ofDays(1)) <= 0,
+                "The granularity must be between 1 ms and 1 day");
+        this.delegate = Objects.requireNonNull(delegate);
+        this.index = delegate;
+        this.granularityMillis = (int) granularity.toMillis();
+    }
+
+    /**
+     * Gets the decorated registry.
+     *
+     * @return the decorated registry
+     */
+    public SessionRegistry getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public List<Object> getAllPrincipals() {
+        return delegate.getAllPrincipals();
+    }
+
+    @Override
+    public List<SessionInformation> getAllSessions(Object principal,
+            boolean includeExpiredSessions) {
+        return delegate.getAllSessions(principal, includeExpiredSessions);
+    }
+
+    @Override
+    public SessionInformation getSessionInformation(String sessionId) {
+        return delegate.getSessionInformation(sessionId);
+    }
+
+    @Override
+    public void refreshLastRequest(String sessionId) {
+        final int hash = sessionId.hashCode();
+        final int slot = (hash ^ (hash >>> 16)) & (TABLE_SIZE - 1);
+        final int now = (int) (System.nanoTime() / 1_000_000L);
+        final var refresh = refreshes.getOpaque(slot);
+        if (refresh != null && refresh.hash() == hash
+                && refresh.sessionId().equals(sessionId)) {
+            // The difference is computed on ints, so that it survives
+            // overflows
+            final int elapsed = now - refresh.time();
+            if (elapsed >= 0 && elapsed < granularityMillis) {
+                return;
+            }
+        }
+        refreshes.setOpaque(slot, new Refresh(hash, sessionId, now));
+        delegate.refreshLastRequest(sessionId);
+    }
+
+    @Override
+    public void registerNewSession(String sessionId, Object principal) {
+        delegate.registerNewSession(sessionId, principal);
+    }
+
+    @Override
+    public void removeSessionInformation(String sessionId) {
+        delegate.removeSessionInformation(sessionId);
+    }
+
+    @Override
+    public Collection<SessionInformation> findSessionsBySid(String issuer,
+            String sid) {
+        return index.findSessionsBySid(issuer, sid);
+    }
+
+    @Override
+    public Collection<SessionInformation> findSessionsBySubject(String issuer,
+            String subject) {
+        return index.findSessionsBySubject(issuer, subject);
+    }
+
+    @Override
+    public Collection<SessionInformation> findSessions(
+            LogoutCriteria criteria) {
+        return index.findSessions(criteria);
+    }
+
+    @Override
+    public int countActiveSessions(Object principal) {
+        if (delegate instanceof SessionRecencyIndex recencyIndex) {
+            return recencyIndex.countActiveSessions(principal);
+        }
+        return delegate.getAllSessions(principal, false).size();
+    }
+
+    @Override
+    public SessionInformation findLeastRecentlyUsedSession(Object principal) {
+        if (delegate instanceof SessionRecencyIndex recencyIndex) {
+            return recencyIndex.findLeastRecentlyUsedSession(principal);
+        }
+        return delegate.getAllSessions(principal, false).stream()
+                .min(Comparator.comparing(SessionInformation::getLastRequest))
+                .orElse(null);
+    }
+
+    @Override
+    public void enableRecencyOrder() {
+        if (delegate instanceof SessionRecencyIndex recencyIndex) {
+            recencyIndex.enableRecencyOrder();
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void onApplicationEvent(AbstractSessionEvent event) {
+        if (delegate instanceof ApplicationListener<?> listener) {
+            ((ApplicationListener<AbstractSessionEvent>) listener)
+                    .onApplicationEvent(event);
+        }
+    }
+
+    /*
+     * The last refresh of a session: the hash of its identifier, compared
+     * first, the identifier, and the time of the refresh in milliseconds.
+     */
+    private record Refresh(int hash, String sessionId, int time) {
+    }
+
+    /**
+     * Closes the decorated registry if it is closeable.
+     *
+     * @throws Exception
+     *             if the decorated registry cannot be closed
+     */
+    @Override
+    public void close() throws Exception {
+        if (delegate instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full license.
+ */
+package com.vaadin.sso.core;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.core.oidc.OidcUserInfo;
+import org.springframework.security.oauth2.core.oidc.user.DefaultOidcUser;
+import org.springframework.security.oauth2.core.oidc.user.OidcUser;
+import org.springframework.util.Assert;
+
+/**
+ * An {@link OidcUser} holding only the claims an application needs, to keep
+ * the memory held by each authenticated session low.
+ * <p>
+ * Unlike {@link DefaultOidcUser}, this user has no separate
+ * {@link OidcUserInfo}: the claims are held once, by the ID Token returned by
+ * {@link #getIdToken()}, whose token value is kept for the RP-Initiated
+ * Logout. The authorities are held as given, so that users with the same
+ * authorities can share the same set.
+ *
+ * @author Vaadin Ltd
+ * @since 4.1
+ * @see CompactOidcUserMapper
+ */
+public class CompactOidcUser implements OidcUser, Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final Set<GrantedAuthority> authorities;
+
+    private final OidcIdToken idToken;
+
+    private final String nameAttributeKey;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param authorities
+     *            the unmodifiable set of authorities, not {@code null}
+     * @param idToken
+     *            the ID Token holding the retained claims, not {@code null}
+     * @param nameAttributeKey
+     *            the name of the claim holding the user name, which must be
+     *            one of the retained claims
+     */
+    public CompactOidcUser(Set<GrantedAuthority> authorities,
+            OidcIdToken idToken, String nameAttributeKey) {
+        this.authorities = Objects.requireNonNull(authorities);
+        this.idToken = Objects.requireNonNull(idToken);
+        Assert.isTrue(idToken.hasClaim(nameAttributeKey),
+                "Missing attribute '" + nameAttributeKey + "' in claims");
+        this.nameAttributeKey = nameAttributeKey;
+    }
+
+    @Override
+    public Map<String, Object> getClaims() {
+        return idToken.getClaims();
+    }
+
+    /**
+     * Returns {@code null}, since the retained UserInfo claims are held by the
+     * ID Token along with the others. Use {@link #getClaims()} to read them.
+     *
+     * @return {@code null}
+     */
+    @Override
+    public OidcUserInfo getUserInfo() {
+        return null;
+    }
+
+    @Override
+    public OidcIdToken getIdToken() {
+        return idToken;
+    }
+
+    @Override
+    public Map<String, Object> getAttributes() {
+        return idToken.getClaims();
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public String getName() {
+        return String.valueOf(idToken.getClaims().get(nameAttributeKey));
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        return obj instanceof CompactOidcUser other
+                && getName().equals(other.getName())
+                && authorities.equals(other.authorities)
+                && getClaims().equals(other.getClaims());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(getName(), authorities, getClaims());
+    }
+
+    @Override
+    public String toString() {
+        return "CompactOidcUser [Name=" + getName() + ", Granted Authorities="
+                + authorities + "]";
+    }
+}
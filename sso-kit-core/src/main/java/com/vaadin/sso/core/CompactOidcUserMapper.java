@@ -0,0 +1,152 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full license.
+ */
+package com.vaadin.sso.core;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.client.oidc.userinfo.OidcUserSource;
+import org.springframework.security.oauth2.core.oidc.IdTokenClaimNames;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.core.oidc.StandardClaimNames;
+import org.springframework.security.oauth2.core.oidc.user.DefaultOidcUser;
+import org.springframework.security.oauth2.core.oidc.user.OidcUser;
+import org.springframework.security.oauth2.core.oidc.user.OidcUserAuthority;
+import org.springframework.security.oauth2.core.user.OAuth2UserAuthority;
+import org.springframework.util.StringUtils;
+
+/**
+ * A converter that maps the user of a delegate converter to a
+ * {@link CompactOidcUser}, which keeps only an allow-list of claims.
+ * <p>
+ * The {@code sub}, {@code iss} and {@code sid} claims, used to match the
+ * sessions of Back-Channel logouts, and the claim holding the user name are
+ * always kept, along with the token value of the ID Token, which is sent as
+ * the {@code id_token_hint} of the RP-Initiated Logout. The
+ * {@link OidcUserAuthority}, which holds another copy of the ID Token and
+ * UserInfo claims, is replaced with a plain authority of the same name. The
+ * authorities and the sets of authorities are pooled, so that the users
+ * sharing the same authorities share the same set.
+ *
+ * @author Vaadin Ltd
+ * @since 4.1
+ */
+public class CompactOidcUserMapper
+        implements Converter<OidcUserSource, OidcUser> {
+
+    /**
+     * The claims kept by default: the standard profile claims.
+     */
+    public static final List<String> DEFAULT_CLAIMS = List.of(
+            StandardClaimNames.NAME, StandardClaimNames.GIVEN_NAME,
+            StandardClaimNames.FAMILY_NAME, StandardClaimNames.MIDDLE_NAME,
+            StandardClaimNames.NICKNAME, StandardClaimNames.PREFERRED_USERNAME,
+            StandardClaimNames.PICTURE, StandardClaimNames.EMAIL,
+            StandardClaimNames.GENDER, StandardClaimNames.BIRTHDATE,
+            StandardClaimNames.LOCALE, StandardClaimNames.PHONE_NUMBER);
+
+    private final Converter<OidcUserSource, OidcUser> delegate;
+
+    private final Set<String> claimNames;
+
+    private final AuthorityPool authorityPool = AuthorityPool.getDefault();
+
+    /**
+     * Creates a new instance which maps the users as Spring Security's
+     * {@code OidcUserService} does by default, with the scopes of the access
+     * token as {@code SCOPE_} authorities.
+     *
+     * @param claimNames
+     *            the names of the claims to keep, not {@code null}
+     */
+    public CompactOidcUserMapper(Collection<String> claimNames) {
+        this(CompactOidcUserMapper::createDefaultUser, claimNames);
+    }
+
+    /**
+     * Creates a new instance which maps the users of the given converter, for
+     * example a {@link KeycloakUserMapper}.
+     *
+     * @param delegate
+     *            the converter creating the users to map, not {@code null}
+     * @param claimNames
+     *            the names of the claims to keep, not {@code null}
+     */
+    public CompactOidcUserMapper(Converter<OidcUserSource, OidcUser> delegate,
+            Collection<String> claimNames) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.claimNames = new LinkedHashSet<>(List.of(IdTokenClaimNames.SUB,
+                IdTokenClaimNames.ISS, SessionClaimIndex.SID_CLAIM));
+        this.claimNames.addAll(claimNames);
+    }
+
+    @Override
+    public OidcUser convert(OidcUserSource userSource) {
+        var user = delegate.convert(userSource);
+        var nameAttributeKey = getNameAttributeKey(userSource);
+        var userClaims = user.getClaims();
+        var claims = new LinkedHashMap<String, Object>();
+        for (var name : claimNames) {
+            var value = userClaims.get(name);
+            if (value != null) {
+                claims.put(name, value);
+            }
+        }
+        claims.putIfAbsent(nameAttributeKey, userClaims.get(nameAttributeKey));
+        var idToken = user.getIdToken();
+        var compactIdToken = new OidcIdToken(idToken.getTokenValue(),
+                idToken.getIssuedAt(), idToken.getExpiresAt(), claims);
+        var authorities = new LinkedHashSet<GrantedAuthority>();
+        for (var authority : user.getAuthorities()) {
+            authorities.add(compact(authority));
+        }
+        return new CompactOidcUser(authorityPool.intern(authorities),
+                compactIdToken, nameAttributeKey);
+    }
+
+    private GrantedAuthority compact(GrantedAuthority authority) {
+        if (authority instanceof OAuth2UserAuthority) {
+            return authorityPool.intern(
+                    new SimpleGrantedAuthority(authority.getAuthority()));
+        } else if (authority instanceof SimpleGrantedAuthority) {
+            return authorityPool.intern(authority);
+        }
+        // The authorities of the Keycloak mapper are pooled already, and
+        // other types may not have value-based equality
+        return authority;
+    }
+
+    private static String getNameAttributeKey(OidcUserSource userSource) {
+        var name = userSource.getUserRequest().getClientRegistration()
+                .getProviderDetails().getUserInfoEndpoint()
+                .getUserNameAttributeName();
+        return StringUtils.hasText(name) ? name : IdTokenClaimNames.SUB;
+    }
+
+    private static OidcUser createDefaultUser(OidcUserSource userSource) {
+        var userRequest = userSource.getUserRequest();
+        var userInfo = userSource.getUserInfo();
+        var nameAttributeKey = getNameAttributeKey(userSource);
+        var authorities = new LinkedHashSet<GrantedAuthority>();
+        authorities.add(new OidcUserAuthority(userRequest.getIdToken(),
+                userInfo, nameAttributeKey));
+        for (var scope : userRequest.getAccessToken().getScopes()) {
+            authorities.add(new SimpleGrantedAuthority(
+                    KeycloakUserMapper.SCOPE_PREFIX + scope));
+        }
+        return new DefaultOidcUser(authorities, userRequest.getIdToken(),
+                userInfo, nameAttributeKey);
+    }
+}
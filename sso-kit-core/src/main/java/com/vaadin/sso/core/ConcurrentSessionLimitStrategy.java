@@ -0,0 +1,147 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full license.
+ */
+package com.vaadin.sso.core;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.util.Objects;
+
+import org.springframework.security.config.ObjectPostProcessor;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.session.SessionRegistry;
+import org.springframework.security.web.authentication.session.ConcurrentSessionControlAuthenticationStrategy;
+import org.springframework.security.web.authentication.session.SessionAuthenticationException;
+
+/**
+ * A {@link ConcurrentSessionControlAuthenticationStrategy} which enforces the
+ * maximum number of sessions per principal with a {@link SessionRecencyIndex}.
+ * <p>
+ * The default strategy fetches, copies and sorts all the sessions of the
+ * principal on each login, which makes logins slow for principals with many
+ * sessions, such as shared service accounts or kiosk users. This strategy
+ * reads the number of active sessions of the principal, and expires the least
+ * recently used ones from the index, in logarithmic time and without copying.
+ *
+ * @author Vaadin Ltd
+ * @since 4.1
+ */
+public class ConcurrentSessionLimitStrategy
+        extends ConcurrentSessionControlAuthenticationStrategy {
+
+    private final SessionRegistry sessionRegistry;
+
+    private final SessionRecencyIndex recencyIndex;
+
+    private boolean exceptionIfMaximumExceeded;
+
+    /**
+     * Creates a new instance, enabling the recency order of the given
+     * registry.
+     *
+     * @param <R>
+     *            the type of the session registry
+     * @param sessionRegistry
+     *            the session registry, not {@code null}
+     */
+    public <R extends SessionRegistry & SessionRecencyIndex> ConcurrentSessionLimitStrategy(
+            R sessionRegistry) {
+        super(sessionRegistry);
+        this.sessionRegistry = Objects.requireNonNull(sessionRegistry);
+        this.recencyIndex = sessionRegistry;
+        sessionRegistry.enableRecencyOrder();
+    }
+
+    /**
+     * Creates a post processor which replaces the strategy created by the
+     * session concurrency configuration of {@code HttpSecurity} with an
+     * instance of this strategy, if a maximum number of sessions is given and
+     * the given registry is also a {@link SessionRecencyIndex}. Otherwise, the
+     * created strategy is kept, and the registry does not pay for ordering its
+     * sessions.
+     *
+     * @param sessionRegistry
+     *            the session registry of the session concurrency
+     *            configuration, not {@code null}
+     * @param maximumSessions
+     *            the maximum number of sessions per principal, or {@code -1}
+     *            for no limit
+     * @return the post processor
+     */
+    public static ObjectPostProcessor<ConcurrentSessionControlAuthenticationStrategy> postProcessor(
+            SessionRegistry sessionRegistry, int maximumSessions) {
+        return new ObjectPostProcessor<>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <O extends ConcurrentSessionControlAuthenticationStrategy> O postProcess(
+                    O strategy) {
+                if (maximumSessions <= 0
+                        || !(sessionRegistry instanceof SessionRecencyIndex)) {
+                    return strategy;
+                }
+                final var limitStrategy = new ConcurrentSessionLimitStrategy(
+                        (SessionRegistry & SessionRecencyIndex) sessionRegistry);
+                limitStrategy.setMaximumSessions(maximumSessions);
+                return (O) limitStrategy;
+            }
+        };
+    }
+
+    @Override
+    public void onAuthentication(Authentication authentication,
+            HttpServletRequest request, HttpServletResponse response) {
+        final var allowedSessions = getMaximumSessionsForThisUser(
+                authentication);
+        if (allowedSessions == -1) {
+            return;
+        }
+        final var principal = authentication.getPrincipal();
+        final var sessionCount = recencyIndex.countActiveSessions(principal);
+        if (sessionCount < allowedSessions) {
+            return;
+        }
+        if (sessionCount == allowedSessions
+                && isActiveSession(principal, request)) {
+            // Authenticated again in one of the allowed sessions
+            return;
+        }
+        if (exceptionIfMaximumExceeded) {
+            throw new SessionAuthenticationException(messages.getMessage(
+                    "ConcurrentSessionControlAuthenticationStrategy.exceededAllowed",
+                    new Object[] { allowedSessions },
+                    "Maximum sessions of {0} for this principal exceeded"));
+        }
+        // Leaves room for the new session
+        for (int i = sessionCount - allowedSessions; i >= 0; i--) {
+            final var oldest = recencyIndex
+                    .findLeastRecentlyUsedSession(principal);
+            if (oldest == null) {
+                break;
+            }
+            oldest.expireNow();
+        }
+    }
+
+    @Override
+    public void setExceptionIfMaximumExceeded(
+            boolean exceptionIfMaximumExceeded) {
+        super.setExceptionIfMaximumExceeded(exceptionIfMaximumExceeded);
+        this.exceptionIfMaximumExceeded = exceptionIfMaximumExceeded;
+    }
+
+    private boolean isActiveSession(Object principal,
+            HttpServletRequest request) {
+        final var session = request.getSession(false);
+        if (session == null) {
+            return false;
+        }
+        final var info = sessionRegistry.getSessionInformation(session.getId());
+        return info != null && !info.isExpired()
+                && principal.equals(info.getPrincipal());
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full license.
+ */
+package com.vaadin.sso.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.IMap;
+import com.hazelcast.multimap.MultiMap;
+import org.springframework.security.oauth2.client.oidc.authentication.logout.OidcLogoutToken;
+import org.springframework.security.oauth2.client.oidc.session.OidcSessionInformation;
+import org.springframework.security.oauth2.client.oidc.session.OidcSessionRegistry;
+import org.springframework.security.oauth2.core.oidc.IdTokenClaimNames;
+
+import static com.vaadin.sso.core.HazelcastSessionRegistry.sidKey;
+import static com.vaadin.sso.core.HazelcastSessionRegistry.subjectKey;
+
+/**
+ * An {@link OidcSessionRegistry} for the OIDC Back-Channel logout handler of
+ * Spring Security, replicated across the members of an embedded Hazelcast
+ * cluster.
+ * <p>
+ * As with the {@link HazelcastSessionRegistry}, the sessions are indexed by
+ * their {@code sid} and {@code sub} claims, so that a logout token received
+ * by any member is resolved with a lookup on the partition owning the claim.
+ *
+ * @author Vaadin Ltd
+ * @since 4.1
+ */
+public class HazelcastOidcSessionRegistry implements OidcSessionRegistry {
+
+    /**
+     * The default name of the distributed map of the sessions.
+     */
+    public static final String DEFAULT_MAP_NAME = "vaadin-sso-oidc-sessions";
+
+    private final IMap<String, OidcSessionInformation> sessions;
+
+    private final MultiMap<String, String> index;
+
+    /**
+     * Creates a new instance using the default map name.
+     *
+     * @param hazelcast
+     *            the Hazelcast member, not {@code null}
+     */
+    public HazelcastOidcSessionRegistry(HazelcastInstance hazelcast) {
+        this(hazelcast, DEFAULT_MAP_NAME);
+    }
+
+    /**
+     * Creates a new instance using the given map name.
+     *
+     * @param hazelcast
+     *            the Hazelcast member, not {@code null}
+     * @param mapName
+     *            the name of the distributed map of the sessions, not
+     *            {@code null}
+     */
+    public HazelcastOidcSessionRegistry(HazelcastInstance hazelcast,
+            String mapName) {
+        Objects.requireNonNull(hazelcast);
+        Objects.requireNonNull(mapName);
+        sessions = hazelcast.getMap(mapName);
+        index = hazelcast.getMultiMap(mapName + ".index");
+    }
+
+    @Override
+    public void saveSessionInformation(OidcSessionInformation info) {
+        final var sessionId = info.getSessionId();
+        final var user = info.getPrincipal();
+        final var issuer = SessionClaimIndex.issuer(user);
+        sessions.set(sessionId, info);
+        final var sid = user.getClaimAsString(SessionClaimIndex.SID_CLAIM);
+        if (sid != null) {
+            index.put(sidKey(issuer, sid), sessionId);
+        }
+        if (user.getSubject() != null) {
+            index.put(subjectKey(issuer, user.getSubject()), sessionId);
+        }
+    }
+
+    @Override
+    public OidcSessionInformation removeSessionInformation(
+            String clientSessionId) {
+        final var info = sessions.remove(clientSessionId);
+        if (info == null) {
+            return null;
+        }
+        final var user = info.getPrincipal();
+        final var issuer = SessionClaimIndex.issuer(user);
+        final var sid = user.getClaimAsString(SessionClaimIndex.SID_CLAIM);
+        if (sid != null) {
+            index.remove(sidKey(issuer, sid), clientSessionId);
+        }
+        if (user.getSubject() != null) {
+            index.remove(subjectKey(issuer, user.getSubject()),
+                    clientSessionId);
+        }
+        return info;
+    }
+
+    @Override
+    public Iterable<OidcSessionInformation> removeSessionInformation(
+            OidcLogoutToken logoutToken) {
+        final var issuer = logoutToken.getClaimAsString(IdTokenClaimNames.ISS);
+        final var sid = logoutToken.getSessionId();
+        final var key = sid != null ? sidKey(issuer, sid)
+                : subjectKey(issuer, logoutToken.getSubject());
+        final List<OidcSessionInformation> removed = new ArrayList<>();
+        for (var sessionId : index.get(key)) {
+            final var info = removeSessionInformation(sessionId);
+            if (info != null) {
+                removed.add(info);
+            }
+        }
+        return removed;
+    }
+}
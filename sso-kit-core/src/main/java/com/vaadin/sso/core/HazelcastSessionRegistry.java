@@ -0,0 +1,370 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full license.
+ */
+package com.vaadin.sso.core;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Predicate;
+
+import com.hazelcast.config.InMemoryFormat;
+import com.hazelcast.config.MapConfig;
+import com.hazelcast.config.NearCacheConfig;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.EntryProcessor;
+import com.hazelcast.map.IMap;
+import com.hazelcast.multimap.MultiMap;
+import org.springframework.context.ApplicationListener;
+import org.springframework.security.core.session.AbstractSessionEvent;
+import org.springframework.security.core.session.SessionDestroyedEvent;
+import org.springframework.security.core.session.SessionIdChangedEvent;
+import org.springframework.security.core.session.SessionInformation;
+import org.springframework.security.core.session.SessionRegistry;
+import org.springframework.security.oauth2.core.oidc.user.OidcUser;
+import org.springframework.util.Assert;
+
+/**
+ * A {@link SessionRegistry} replicated across the members of an embedded
+ * Hazelcast cluster, so that a Back-Channel logout request received by any
+ * member finds and expires the sessions of all the members.
+ * <p>
+ * The sessions are held in a distributed map with a near cache, so that the
+ * per-request lookups of a session are served from the local memory of the
+ * member. The sessions of OIDC users are indexed by their {@code sid} and
+ * {@code sub} claims in a distributed multi-map: a logout request is resolved
+ * with a lookup on the partition owning the claim, and a batched read of the
+ * matching sessions.
+ * <p>
+ * The last request time of a session is kept by the member which registered
+ * it, since the requests of a session are expected to be routed to the same
+ * member, and refreshing it on every request would invalidate the near cache
+ * of all the members. For the expiry of a session to be seen by the other
+ * members without delay, disable the batching of the near cache invalidations
+ * with the {@code hazelcast.map.invalidation.batch.enabled} property.
+ *
+ * @author Vaadin Ltd
+ * @since 4.1
+ */
+public class HazelcastSessionRegistry implements SessionRegistry,
+        OidcSessionIndex, ApplicationListener<AbstractSessionEvent> {
+
+    /**
+     * The default name of the distributed map of the sessions.
+     */
+    public static final String DEFAULT_MAP_NAME = "vaadin-sso-sessions";
+
+    private final IMap<String, SessionEntry> sessions;
+
+    private final MultiMap<String, String> index;
+
+    private final ConcurrentMap<String, ClusterSessionInformation> localSessions = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new instance using the default map name.
+     *
+     * @param hazelcast
+     *            the Hazelcast member, not {@code null}
+     */
+    public HazelcastSessionRegistry(HazelcastInstance hazelcast) {
+        this(hazelcast, DEFAULT_MAP_NAME);
+    }
+
+    /**
+     * Creates a new instance using the given map name. The map is configured
+     * with {@link #createMapConfig(String)} unless the member already has a
+     * configuration for it.
+     *
+     * @param hazelcast
+     *            the Hazelcast member, not {@code null}
+     * @param mapName
+     *            the name of the distributed map of the sessions, not
+     *            {@code null}
+     */
+    public HazelcastSessionRegistry(HazelcastInstance hazelcast,
+            String mapName) {
+        Objects.requireNonNull(hazelcast);
+        Objects.requireNonNull(mapName);
+        final var config = hazelcast.getConfig();
+        if (config.getMapConfigOrNull(mapName) == null) {
+            config.addMapConfig(createMapConfig(mapName));
+        }
+        sessions = hazelcast.getMap(mapName);
+        index = hazelcast.getMultiMap(mapName + ".index");
+    }
+
+    /**
+     * Creates the configuration of the distributed map of the sessions, with
+     * a near cache holding the sessions as objects, including the ones owned
+     * by the local member.
+     *
+     * @param mapName
+     *            the name of the map
+     * @return the map configuration
+     */
+    public static MapConfig createMapConfig(String mapName) {
+        final var nearCache = new NearCacheConfig(mapName)
+                .setInMemoryFormat(InMemoryFormat.OBJECT)
+                .setCacheLocalEntries(true).setInvalidateOnChange(true);
+        return new MapConfig(mapName).setNearCacheConfig(nearCache);
+    }
+
+    /**
+     * Gets the principals of all the sessions in the cluster. This iterates
+     * over the whole distributed map.
+     */
+    @Override
+    public List<Object> getAllPrincipals() {
+        final var principals = new LinkedHashSet<>();
+        for (var entry : sessions.values()) {
+            principals.add(entry.principal());
+        }
+        return new ArrayList<>(principals);
+    }
+
+    /**
+     * Gets the sessions of the given principal in the cluster. The sessions
+     * of OIDC users are found through the {@code sub} index, the ones of
+     * other principals by iterating over the whole distributed map.
+     */
+    @Override
+    public List<SessionInformation> getAllSessions(Object principal,
+            boolean includeExpiredSessions) {
+        final Predicate<SessionEntry> filter = e -> principal
+                .equals(e.principal())
+                && (includeExpiredSessions || !e.expired());
+        if (principal instanceof OidcUser user) {
+            return getSessions(index.get(subjectKey(
+                    SessionClaimIndex.issuer(user), user.getSubject())),
+                    filter);
+        }
+        final var result = new ArrayList<SessionInformation>();
+        for (var entry : sessions.entrySet()) {
+            if (filter.test(entry.getValue())) {
+                result.add(getSessionInformation(entry.getKey(),
+                        entry.getValue()));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public SessionInformation getSessionInformation(String sessionId) {
+        Assert.hasText(sessionId,
+                "SessionId required as per interface contract");
+        final var entry = sessions.get(sessionId);
+        if (entry == null) {
+            localSessions.remove(sessionId);
+            return null;
+        }
+        return getSessionInformation(sessionId, entry);
+    }
+
+    /**
+     * Refreshes the last request time of the session if it was registered by
+     * this member. The time is not replicated to the other members.
+     */
+    @Override
+    public void refreshLastRequest(String sessionId) {
+        Assert.hasText(sessionId,
+                "SessionId required as per interface contract");
+        final var info = localSessions.get(sessionId);
+        if (info != null) {
+            info.refreshLastRequest();
+        }
+    }
+
+    @Override
+    public void registerNewSession(String sessionId, Object principal) {
+        Assert.hasText(sessionId,
+                "SessionId required as per interface contract");
+        Assert.notNull(principal,
+                "Principal required as per interface contract");
+        removeSessionInformation(sessionId);
+        final var entry = SessionEntry.of(principal);
+        localSessions.put(sessionId,
+                new ClusterSessionInformation(principal, sessionId, this));
+        sessions.set(sessionId, entry);
+        if (entry.sid() != null) {
+            index.put(sidKey(entry.issuer(), entry.sid()), sessionId);
+        }
+        if (entry.subject() != null) {
+            index.put(subjectKey(entry.issuer(), entry.subject()), sessionId);
+        }
+    }
+
+    @Override
+    public void removeSessionInformation(String sessionId) {
+        Assert.hasText(sessionId,
+                "SessionId required as per interface contract");
+        localSessions.remove(sessionId);
+        final var entry = sessions.remove(sessionId);
+        if (entry == null) {
+            return;
+        }
+        if (entry.sid() != null) {
+            index.remove(sidKey(entry.issuer(), entry.sid()), sessionId);
+        }
+        if (entry.subject() != null) {
+            index.remove(subjectKey(entry.issuer(), entry.subject()),
+                    sessionId);
+        }
+    }
+
+    @Override
+    public Collection<SessionInformation> findSessionsBySid(String issuer,
+            String sid) {
+        return getSessions(index.get(sidKey(issuer, sid)), e -> true);
+    }
+
+    @Override
+    public Collection<SessionInformation> findSessionsBySubject(String issuer,
+            String subject) {
+        return getSessions(index.get(subjectKey(issuer, subject)), e -> true);
+    }
+
+    @Override
+    public void onApplicationEvent(AbstractSessionEvent event) {
+        if (event instanceof SessionDestroyedEvent destroyedEvent) {
+            removeSessionInformation(destroyedEvent.getId());
+        } else if (event instanceof SessionIdChangedEvent idChangedEvent) {
+            final var oldSessionId = idChangedEvent.getOldSessionId();
+            final var entry = sessions.get(oldSessionId);
+            if (entry != null) {
+                removeSessionInformation(oldSessionId);
+                registerNewSession(idChangedEvent.getNewSessionId(),
+                        entry.principal());
+            }
+        }
+    }
+
+    /*
+     * The keys of the index entries include the issuer, so that each lookup
+     * is answered by the single partition owning the key.
+     */
+    static String sidKey(String issuer, String sid) {
+        return "sid\n" + issuer + '\n' + sid;
+    }
+
+    static String subjectKey(String issuer, String subject) {
+        return "sub\n" + issuer + '\n' + subject;
+    }
+
+    private void expire(String sessionId) {
+        sessions.executeOnKey(sessionId, new ExpireProcessor());
+    }
+
+    private List<SessionInformation> getSessions(Collection<String> sessionIds,
+            Predicate<SessionEntry> filter) {
+        if (sessionIds.isEmpty()) {
+            return List.of();
+        }
+        final var entries = sessions.getAll(new HashSet<>(sessionIds));
+        final var result = new ArrayList<SessionInformation>(entries.size());
+        for (var entry : entries.entrySet()) {
+            if (filter.test(entry.getValue())) {
+                result.add(getSessionInformation(entry.getKey(),
+                        entry.getValue()));
+            }
+        }
+        return result;
+    }
+
+    private SessionInformation getSessionInformation(String sessionId,
+            SessionEntry entry) {
+        var info = localSessions.get(sessionId);
+        if (info == null) {
+            info = new ClusterSessionInformation(entry.principal(), sessionId,
+                    this);
+        }
+        if (entry.expired()) {
+            info.markExpired();
+        }
+        return info;
+    }
+
+    /*
+     * The replicated state of a session, any of the claims of which can be
+     * null.
+     */
+    record SessionEntry(Object principal, String issuer, String sid,
+            String subject, boolean expired) implements Serializable {
+
+        static SessionEntry of(Object principal) {
+            if (principal instanceof OidcUser user) {
+                return new SessionEntry(principal,
+                        SessionClaimIndex.issuer(user),
+                        user.getClaimAsString(SessionClaimIndex.SID_CLAIM),
+                        user.getSubject(), false);
+            }
+            return new SessionEntry(principal, null, null, null, false);
+        }
+
+        SessionEntry expire() {
+            return new SessionEntry(principal, issuer, sid, subject, true);
+        }
+    }
+
+    /*
+     * Marks a session as expired on the member owning it, atomically with
+     * respect to the other updates of the session.
+     */
+    private static final class ExpireProcessor
+            implements EntryProcessor<String, SessionEntry, Void> {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public Void process(Map.Entry<String, SessionEntry> entry) {
+            final var value = entry.getValue();
+            if (value != null && !value.expired()) {
+                entry.setValue(value.expire());
+            }
+            return null;
+        }
+    }
+
+    /*
+     * Session information whose expiry is replicated to the cluster.
+     */
+    private static final class ClusterSessionInformation
+            extends SessionInformation {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final transient HazelcastSessionRegistry registry;
+
+        ClusterSessionInformation(Object principal, String sessionId,
+                HazelcastSessionRegistry registry) {
+            super(principal, sessionId, new Date());
+            this.registry = registry;
+        }
+
+        @Override
+        public void expireNow() {
+            super.expireNow();
+            if (registry != null) {
+                registry.expire(getSessionId());
+            }
+        }
+
+        void markExpired() {
+            super.expireNow();
+        }
+    }
+}
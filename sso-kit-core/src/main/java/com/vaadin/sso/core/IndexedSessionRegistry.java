@@ -0,0 +1,161 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full license.
+ */
+package com.vaadin.sso.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+import org.springframework.context.ApplicationListener;
+import org.springframework.security.core.session.AbstractSessionEvent;
+import org.springframework.security.core.session.SessionDestroyedEvent;
+import org.springframework.security.core.session.SessionIdChangedEvent;
+import org.springframework.security.core.session.SessionInformation;
+import org.springframework.security.core.session.SessionRegistry;
+import org.springframework.security.core.session.SessionRegistryImpl;
+
+/**
+ * A {@link SessionRegistry} which decorates another registry with an index of
+ * the sessions by the {@code sid} and {@code sub} claims of their OIDC
+ * principals.
+ * <p>
+ * The index is updated when sessions are registered and removed, so that
+ * Back-Channel logout requests can find the sessions to expire with a lookup
+ * instead of iterating over all the principals in the registry.
+ * <p>
+ * This class listens to session events in place of the decorated registry: the
+ * decorated registry should not be registered as a bean.
+ *
+ * @author Vaadin Ltd
+ * @since 4.1
+ */
+public class IndexedSessionRegistry implements SessionRegistry,
+        OidcSessionIndex, ApplicationListener<AbstractSessionEvent> {
+
+    private final SessionRegistry delegate;
+
+    private final SessionClaimIndex index = new SessionClaimIndex();
+
+    private volatile SessionRegistrySweeper sweeper;
+
+    /**
+     * Creates a new instance which decorates a {@link SessionRegistryImpl}.
+     */
+    public IndexedSessionRegistry() {
+        this(new SessionRegistryImpl());
+    }
+
+    /**
+     * Creates a new instance which decorates the given registry.
+     *
+     * @param delegate
+     *            the registry to decorate, not {@code null}
+     */
+    public IndexedSessionRegistry(SessionRegistry delegate) {
+        this.delegate = Objects.requireNonNull(delegate);
+    }
+
+    @Override
+    public List<Object> getAllPrincipals() {
+        return delegate.getAllPrincipals();
+    }
+
+    @Override
+    public List<SessionInformation> getAllSessions(Object principal,
+            boolean includeExpiredSessions) {
+        return delegate.getAllSessions(principal, includeExpiredSessions);
+    }
+
+    @Override
+    public SessionInformation getSessionInformation(String sessionId) {
+        return delegate.getSessionInformation(sessionId);
+    }
+
+    @Override
+    public void refreshLastRequest(String sessionId) {
+        delegate.refreshLastRequest(sessionId);
+    }
+
+    @Override
+    public void registerNewSession(String sessionId, Object principal) {
+        // The delegate replaces any previous registration of the same id
+        unindex(sessionId);
+        delegate.registerNewSession(sessionId, principal);
+        index.add(sessionId, principal);
+        final var sessionSweeper = sweeper;
+        if (sessionSweeper != null) {
+            sessionSweeper.track(sessionId);
+        }
+    }
+
+    @Override
+    public void removeSessionInformation(String sessionId) {
+        unindex(sessionId);
+        delegate.removeSessionInformation(sessionId);
+    }
+
+    @Override
+    public Collection<SessionInformation> findSessionsBySid(String issuer,
+            String sid) {
+        return getSessions(index.findBySid(issuer, sid));
+    }
+
+    @Override
+    public Collection<SessionInformation> findSessionsBySubject(String issuer,
+            String subject) {
+        return getSessions(index.findBySubject(issuer, subject));
+    }
+
+    /**
+     * Sets the sweeper which removes the sessions timed out without a session
+     * destroyed event. The sessions registered from now on are tracked by the
+     * sweeper, which must sweep this registry.
+     *
+     * @param sweeper
+     *            the sweeper, or {@code null} to track no sessions
+     */
+    public void setSweeper(SessionRegistrySweeper sweeper) {
+        this.sweeper = sweeper;
+    }
+
+    @Override
+    public void onApplicationEvent(AbstractSessionEvent event) {
+        if (event instanceof SessionDestroyedEvent destroyedEvent) {
+            removeSessionInformation(destroyedEvent.getId());
+        } else if (event instanceof SessionIdChangedEvent idChangedEvent) {
+            final var oldSessionId = idChangedEvent.getOldSessionId();
+            final var info = getSessionInformation(oldSessionId);
+            if (info != null) {
+                removeSessionInformation(oldSessionId);
+                registerNewSession(idChangedEvent.getNewSessionId(),
+                        info.getPrincipal());
+            }
+        }
+    }
+
+    private void unindex(String sessionId) {
+        final var info = delegate.getSessionInformation(sessionId);
+        if (info != null) {
+            index.remove(sessionId, info.getPrincipal());
+        }
+    }
+
+    private List<SessionInformation> getSessions(Set<String> sessionIds) {
+        final var sessions = new ArrayList<SessionInformation>(
+                sessionIds.size());
+        for (String sessionId : sessionIds) {
+            final var info = delegate.getSessionInformation(sessionId);
+            if (info != null) {
+                sessions.add(info);
+            }
+        }
+        return sessions;
+    }
+}
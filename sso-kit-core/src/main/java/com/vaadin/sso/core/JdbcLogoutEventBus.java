@@ -0,0 +1,310 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full license.
+ */
+package com.vaadin.sso.core;
+
+import javax.sql.DataSource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.util.Assert;
+
+/**
+ * A {@link LogoutEventBus} which propagates logouts through a database table
+ * shared by all the nodes.
+ * <p>
+ * Each node polls the table at a fixed interval: it first inserts the criteria
+ * published since the previous poll in a single batch, then reads the rows
+ * with a greater identifier than the last one it has read, and delivers them
+ * as a single batch. A logout is thus acted upon by every node within about
+ * twice the poll interval. Rows are inserted in short transactions, so that
+ * they are committed in about the order of their identifiers. Rows older than
+ * the retention are deleted.
+ * <p>
+ * The table can be created with the {@value #SCHEMA_LOCATION} script.
+ * <p>
+ * As a {@link SmartLifecycle}, the bus is started and stopped by the Spring
+ * container when it is a bean. Otherwise, it must be started with
+ * {@link #start()} and closed with {@link #close()}.
+ *
+ * @author Vaadin Ltd
+ * @since 4.1
+ */
+public class JdbcLogoutEventBus
+        implements LogoutEventBus, SmartLifecycle, AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(JdbcLogoutEventBus.class);
+
+    /**
+     * The default name of the table.
+     */
+    public static final String DEFAULT_TABLE_NAME = "SSO_LOGOUT_EVENT";
+
+    /**
+     * The default interval between two polls.
+     */
+    public static final Duration DEFAULT_POLL_INTERVAL = Duration
+            .ofSeconds(1);
+
+    /**
+     * The class-path location of the script creating the default table.
+     */
+    public static final String SCHEMA_LOCATION = "com/vaadin/sso/core/logout-event-bus-schema.sql";
+
+    static final Duration RETENTION = Duration.ofMinutes(5);
+
+    private static final long CLEAN_UP_INTERVAL_MILLIS = Duration.ofMinutes(1)
+            .toMillis();
+
+    private final DataSource dataSource;
+
+    private final Duration pollInterval;
+
+    private final String insertSql;
+
+    private final String selectSql;
+
+    private final String maxIdSql;
+
+    private final String deleteSql;
+
+    private final Queue<LogoutCriteria> pending = new ConcurrentLinkedQueue<>();
+
+    private final LogoutEventListeners listeners = new LogoutEventListeners();
+
+    private Clock clock = Clock.systemUTC();
+
+    private ScheduledExecutorService scheduler;
+
+    /* The identifier of the last row read, or -1 before the first poll */
+    private long lastId = -1;
+
+    private long nextCleanUp;
+
+    /**
+     * Creates a new instance using the default table and poll interval.
+     *
+     * @param dataSource
+     *            the data source, not {@code null}
+     */
+    public JdbcLogoutEventBus(DataSource dataSource) {
+        this(dataSource, DEFAULT_TABLE_NAME, DEFAULT_POLL_INTERVAL);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param dataSource
+     *            the data source, not {@code null}
+     * @param tableName
+     *            the name of the table, not {@code null}
+     * @param pollInterval
+     *            the interval between two polls, positive
+     */
+    public JdbcLogoutEventBus(DataSource dataSource, String tableName,
+            Duration pollInterval) {
+        this.dataSource = Objects.requireNonNull(dataSource);
+        Assert.isTrue(tableName.matches("[A-Za-z_][A-Za-z0-9_.]*"),
+                "tableName must be a valid SQL identifier");
+        Assert.isTrue(pollInterval.isPositive(),
+                "pollInterval must be positive");
+        this.pollInterval = pollInterval;
+        this.insertSql = "INSERT INTO " + tableName
+                + " (ISSUER, SID, SUBJECT, CREATED_AT) VALUES (?, ?, ?, ?)";
+        this.selectSql = "SELECT ID, ISSUER, SID, SUBJECT FROM " + tableName
+                + " WHERE ID > ? ORDER BY ID";
+        this.maxIdSql = "SELECT MAX(ID) FROM " + tableName;
+        this.deleteSql = "DELETE FROM " + tableName + " WHERE CREATED_AT < ?";
+    }
+
+    @Override
+    public void publish(LogoutCriteria criteria) {
+        pending.add(Objects.requireNonNull(criteria));
+    }
+
+    @Override
+    public void subscribe(Consumer<? super List<LogoutCriteria>> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Starts polling the table. Only the logouts published from now on are
+     * delivered.
+     *
+     * @throws IllegalStateException
+     *             if the bus is already started
+     */
+    @Override
+    public synchronized void start() {
+        Assert.state(scheduler == null, "The bus is already started");
+        scheduler = Executors.newSingleThreadScheduledExecutor(Thread
+                .ofPlatform().name("sso-logout-event-bus").daemon().factory());
+        scheduler.scheduleWithFixedDelay(this::poll, 0,
+                pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops polling the table, as {@link #close()}.
+     */
+    @Override
+    public void stop() {
+        close();
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return scheduler != null;
+    }
+
+    /**
+     * Gets the phase of the bus, which is started before and stopped after
+     * the web server, so that the logouts received until the server stops
+     * are published.
+     *
+     * @return the phase
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    /**
+     * Stops polling the table, after inserting the logouts published so far.
+     */
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            try {
+                scheduler.awaitTermination(pollInterval.toMillis() * 2,
+                        TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            scheduler = null;
+        }
+        try (var connection = dataSource.getConnection()) {
+            flush(connection);
+        } catch (SQLException e) {
+            LOGGER.warn("Failed to publish the pending logout events", e);
+        }
+    }
+
+    /**
+     * Sets the clock used to timestamp the rows.
+     *
+     * @param clock
+     *            the clock, not {@code null}
+     */
+    public void setClock(Clock clock) {
+        this.clock = Objects.requireNonNull(clock);
+    }
+
+    /*
+     * Called at a fixed interval by the scheduler. Failures are logged, since
+     * throwing would cancel the polling.
+     */
+    void poll() {
+        try (var connection = dataSource.getConnection()) {
+            if (lastId < 0) {
+                // Skips the rows inserted before the first poll
+                lastId = readMaxId(connection);
+            }
+            flush(connection);
+            listeners.deliver(read(connection));
+            cleanUp(connection);
+        } catch (SQLException | RuntimeException e) {
+            LOGGER.warn("Failed to poll the logout events", e);
+        }
+    }
+
+    private void flush(Connection connection) throws SQLException {
+        final var batch = new ArrayList<LogoutCriteria>();
+        LogoutCriteria criteria;
+        while ((criteria = pending.poll()) != null) {
+            batch.add(criteria);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        final var now = clock.millis();
+        try (var statement = connection.prepareStatement(insertSql)) {
+            for (var c : batch) {
+                statement.setString(1, c.issuer());
+                statement.setString(2, c.sid());
+                statement.setString(3, c.subject());
+                statement.setLong(4, now);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+            commit(connection);
+        } catch (SQLException e) {
+            // Retried on the next poll
+            pending.addAll(batch);
+            throw e;
+        }
+    }
+
+    private List<LogoutCriteria> read(Connection connection)
+            throws SQLException {
+        final var batch = new ArrayList<LogoutCriteria>();
+        try (var statement = connection.prepareStatement(selectSql)) {
+            statement.setLong(1, lastId);
+            try (var rows = statement.executeQuery()) {
+                while (rows.next()) {
+                    lastId = rows.getLong(1);
+                    batch.add(new LogoutCriteria(rows.getString(2),
+                            rows.getString(3), rows.getString(4)));
+                }
+            }
+        }
+        return batch;
+    }
+
+    private long readMaxId(Connection connection) throws SQLException {
+        try (var statement = connection.prepareStatement(maxIdSql);
+                var rows = statement.executeQuery()) {
+            // MAX is null on an empty table, read as 0
+            return rows.next() ? rows.getLong(1) : 0;
+        }
+    }
+
+    private void cleanUp(Connection connection) throws SQLException {
+        final var now = clock.millis();
+        if (now < nextCleanUp) {
+            return;
+        }
+        nextCleanUp = now + CLEAN_UP_INTERVAL_MILLIS;
+        try (var statement = connection.prepareStatement(deleteSql)) {
+            statement.setLong(1, now - RETENTION.toMillis());
+            statement.executeUpdate();
+            commit(connection);
+        }
+    }
+
+    private static void commit(Connection connection) throws SQLException {
+        if (!connection.getAutoCommit()) {
+            connection.commit();
+        }
+    }
+}
@@ -0,0 +1,497 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full license.
+ */
+package com.vaadin.sso.core;
+
+import java.io.IOException;
+import java.io.Serial;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationListener;
+import org.springframework.security.core.session.AbstractSessionEvent;
+import org.springframework.security.core.session.SessionDestroyedEvent;
+import org.springframework.security.core.session.SessionIdChangedEvent;
+import org.springframework.security.core.session.SessionInformation;
+import org.springframework.security.core.session.SessionRegistry;
+import org.springframework.security.oauth2.core.oidc.user.OidcUser;
+import org.springframework.util.Assert;
+
+import com.vaadin.sso.core.SessionJournal.Entry;
+
+/**
+ * An {@link OidcSessionRegistry} which persists the {@code iss}, {@code sid}
+ * and {@code sub} claims of its sessions to a journal file, so that the
+ * sessions restored by the servlet container after a restart can still be
+ * found by Back-Channel logout requests.
+ * <p>
+ * Registrations and removals are appended to a memory-mapped file, which
+ * costs a memory copy per login and logout. The journal is compacted in the
+ * background, by rewriting the live sessions only, when it holds twice as
+ * many records as there are live sessions. The last request time of the
+ * sessions is journaled when the journal is rewritten and when the registry
+ * is closed, not on each request.
+ * <p>
+ * At startup, the journaled sessions are restored with a
+ * {@link RestoredPrincipal}, which holds their claims instead of the principal
+ * held by the session itself, and with their journaled last request time.
+ * Restored sessions are removed when the container destroys them, or once
+ * they have not been used for the restored session timeout, in case the
+ * container did not restore them, which is checked every minute.
+ * <p>
+ * The registry must be closed with {@link #close()}. A journal file must not
+ * be shared by several registries.
+ *
+ * @author Vaadin Ltd
+ * @since 4.1
+ */
+public class JournaledSessionRegistry implements SessionRegistry,
+        OidcSessionIndex, SessionRecencyIndex,
+        ApplicationListener<AbstractSessionEvent>, AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(JournaledSessionRegistry.class);
+
+    /**
+     * The default time after which unused restored sessions are removed, the
+     * default session timeout of servlet containers.
+     */
+    public static final Duration DEFAULT_RESTORED_SESSION_TIMEOUT = Duration
+            .ofMinutes(30);
+
+    /* Smaller journals are not worth compacting */
+    static final int MINIMUM_COMPACTION_RECORDS = 10_000;
+
+    private static final long IDLE_CHECK_PERIOD_SECONDS = 60;
+
+    private final OidcSessionRegistry delegate = new OidcSessionRegistry();
+
+    private final SessionJournal journal;
+
+    /* The journaled sessions, guarded by the journal lock when written */
+    private final ConcurrentMap<String, Entry> entries;
+
+    private final ConcurrentMap<String, SessionInformation> restored = new ConcurrentHashMap<>();
+
+    private final SessionClaimIndex restoredIndex = new SessionClaimIndex();
+
+    private final AtomicBoolean compacting = new AtomicBoolean();
+
+    private final ScheduledExecutorService compactor = Executors
+            .newSingleThreadScheduledExecutor(Thread.ofPlatform()
+                    .name("sso-session-journal-compactor").daemon().factory());
+
+    private volatile Duration restoredSessionTimeout = DEFAULT_RESTORED_SESSION_TIMEOUT;
+
+    /* Guarded by the journal lock */
+    private boolean closed;
+
+    /**
+     * Creates a new instance, restoring the sessions journaled in the given
+     * file, which is created if it does not exist.
+     *
+     * @param journalFile
+     *            the journal file, not {@code null}
+     * @throws UncheckedIOException
+     *             if the journal cannot be read or written
+     */
+    public JournaledSessionRegistry(Path journalFile) {
+        Objects.requireNonNull(journalFile);
+        try {
+            journal = new SessionJournal(journalFile);
+            entries = new ConcurrentHashMap<>(journal.replay());
+            journal.rewrite(() -> List.copyOf(entries.values()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(
+                    "Failed to open the session journal " + journalFile, e);
+        }
+        for (var entry : entries.values()) {
+            restore(entry.sessionId(),
+                    new RestoredPrincipal(entry.issuer(), entry.sid(),
+                            entry.subject()),
+                    new Date(entry.lastRequest()));
+        }
+        LOGGER.debug("Restored {} sessions from {}", entries.size(),
+                journalFile);
+        compactor.scheduleWithFixedDelay(this::removeIdleRestoredSessions,
+                IDLE_CHECK_PERIOD_SECONDS, IDLE_CHECK_PERIOD_SECONDS,
+                TimeUnit.SECONDS);
+    }
+
+    /**
+     * Sets the time after which restored sessions are removed if they are not
+     * used.
+     *
+     * @param restoredSessionTimeout
+     *            the timeout, not {@code null}
+     */
+    public void setRestoredSessionTimeout(Duration restoredSessionTimeout) {
+        this.restoredSessionTimeout = Objects
+                .requireNonNull(restoredSessionTimeout);
+    }
+
+    @Override
+    public List<Object> getAllPrincipals() {
+        final var principals = new LinkedHashSet<>(
+                delegate.getAllPrincipals());
+        for (var info : restored.values()) {
+            principals.add(info.getPrincipal());
+        }
+        return new ArrayList<>(principals);
+    }
+
+    @Override
+    public List<SessionInformation> getAllSessions(Object principal,
+            boolean includeExpiredSessions) {
+        if (!(principal instanceof RestoredPrincipal restoredPrincipal)) {
+            return delegate.getAllSessions(principal, includeExpiredSessions);
+        }
+        final var sessionIds = restoredPrincipal.sid() != null
+                ? restoredIndex.findBySid(restoredPrincipal.issuer(),
+                        restoredPrincipal.sid())
+                : restoredIndex.findBySubject(restoredPrincipal.issuer(),
+                        restoredPrincipal.subject());
+        final var result = new ArrayList<SessionInformation>();
+        for (var info : getRestoredSessions(sessionIds)) {
+            if (principal.equals(info.getPrincipal())
+                    && (includeExpiredSessions || !info.isExpired())) {
+                result.add(info);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public SessionInformation getSessionInformation(String sessionId) {
+        final var info = delegate.getSessionInformation(sessionId);
+        return info != null ? info : restored.get(sessionId);
+    }
+
+    @Override
+    public void refreshLastRequest(String sessionId) {
+        delegate.refreshLastRequest(sessionId);
+        final var info = restored.get(sessionId);
+        if (info != null) {
+            info.refreshLastRequest();
+        }
+    }
+
+    @Override
+    public void registerNewSession(String sessionId, Object principal) {
+        Assert.hasText(sessionId,
+                "SessionId required as per interface contract");
+        Assert.notNull(principal,
+                "Principal required as per interface contract");
+        unrestore(sessionId);
+        if (principal instanceof RestoredPrincipal restoredPrincipal) {
+            // A restored session whose identifier changed
+            delegate.removeSessionInformation(sessionId);
+            restore(sessionId, restoredPrincipal, new Date());
+        } else {
+            delegate.registerNewSession(sessionId, principal);
+        }
+        final var entry = toEntry(sessionId, principal);
+        synchronized (journal) {
+            final var previous = entry != null ? entries.put(sessionId, entry)
+                    : entries.remove(sessionId);
+            try {
+                if (closed) {
+                    return;
+                } else if (entry != null) {
+                    journal.appendRegistration(entry);
+                } else if (previous != null) {
+                    journal.appendRemoval(sessionId);
+                }
+            } catch (IOException e) {
+                LOGGER.warn("Failed to journal the session registration", e);
+            }
+        }
+        compactIfNeeded();
+    }
+
+    @Override
+    public void removeSessionInformation(String sessionId) {
+        Assert.hasText(sessionId,
+                "SessionId required as per interface contract");
+        remove(sessionId);
+        compactIfNeeded();
+    }
+
+    @Override
+    public Collection<SessionInformation> findSessionsBySid(String issuer,
+            String sid) {
+        final var sessions = new ArrayList<>(
+                delegate.findSessionsBySid(issuer, sid));
+        sessions.addAll(
+                getRestoredSessions(restoredIndex.findBySid(issuer, sid)));
+        return sessions;
+    }
+
+    @Override
+    public Collection<SessionInformation> findSessionsBySubject(String issuer,
+            String subject) {
+        final var sessions = new ArrayList<>(
+                delegate.findSessionsBySubject(issuer, subject));
+        sessions.addAll(getRestoredSessions(
+                restoredIndex.findBySubject(issuer, subject)));
+        return sessions;
+    }
+
+    /*
+     * Restored sessions are left out: their principals never match the one of
+     * a new login.
+     */
+    @Override
+    public int countActiveSessions(Object principal) {
+        return delegate.countActiveSessions(principal);
+    }
+
+    @Override
+    public SessionInformation findLeastRecentlyUsedSession(Object principal) {
+        return delegate.findLeastRecentlyUsedSession(principal);
+    }
+
+    @Override
+    public void enableRecencyOrder() {
+        delegate.enableRecencyOrder();
+    }
+
+    /**
+     * Sets the sweeper which removes the sessions timed out without a session
+     * destroyed event. The sessions registered from now on are tracked by the
+     * sweeper, which must sweep this registry. Idle restored sessions are
+     * removed by this registry instead.
+     *
+     * @param sweeper
+     *            the sweeper, or {@code null} to track no sessions
+     */
+    public void setSweeper(SessionRegistrySweeper sweeper) {
+        delegate.setSweeper(sweeper);
+    }
+
+    @Override
+    public void onApplicationEvent(AbstractSessionEvent event) {
+        if (event instanceof SessionDestroyedEvent destroyedEvent) {
+            removeSessionInformation(destroyedEvent.getId());
+        } else if (event instanceof SessionIdChangedEvent idChangedEvent) {
+            final var oldSessionId = idChangedEvent.getOldSessionId();
+            final var info = getSessionInformation(oldSessionId);
+            if (info != null) {
+                removeSessionInformation(oldSessionId);
+                registerNewSession(idChangedEvent.getNewSessionId(),
+                        info.getPrincipal());
+            }
+        }
+    }
+
+    /**
+     * Removes the restored sessions which have not been used for the restored
+     * session timeout, and rewrites the journal with the live sessions only.
+     * <p>
+     * This is done automatically in the background when the journal grows,
+     * but can also be scheduled. The sessions keep being registered and
+     * removed while the journal is rewritten.
+     */
+    public void compact() {
+        removeIdleRestoredSessions();
+        try {
+            journal.rewrite(this::snapshot);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to compact the session journal", e);
+        }
+    }
+
+    /**
+     * Journals the last request time of the sessions and closes the journal.
+     * The sessions registered or removed afterwards are not journaled.
+     */
+    @Override
+    public void close() {
+        compactor.shutdown();
+        try {
+            journal.rewrite(this::snapshot);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to rewrite the session journal", e);
+        }
+        synchronized (journal) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                journal.close();
+            } catch (IOException e) {
+                LOGGER.warn("Failed to close the session journal", e);
+            }
+        }
+    }
+
+    /*
+     * The number of records in the journal.
+     */
+    int getJournalRecords() {
+        return journal.getRecords();
+    }
+
+    /*
+     * Removes the restored sessions which have not been used for the restored
+     * session timeout.
+     */
+    void removeIdleRestoredSessions() {
+        final var idleSince = System.currentTimeMillis()
+                - restoredSessionTimeout.toMillis();
+        for (var info : restored.values()) {
+            if (info.getLastRequest().getTime() < idleSince) {
+                remove(info.getSessionId());
+            }
+        }
+    }
+
+    /*
+     * The journaled sessions with their current last request time, or null if
+     * the registry is closed. Called with the journal lock held.
+     */
+    private List<Entry> snapshot() {
+        if (closed) {
+            return null;
+        }
+        final var snapshot = new ArrayList<Entry>(entries.size());
+        for (var entry : entries.values()) {
+            final var info = getSessionInformation(entry.sessionId());
+            snapshot.add(info != null
+                    ? entry.withLastRequest(info.getLastRequest().getTime())
+                    : entry);
+        }
+        return snapshot;
+    }
+
+    private void remove(String sessionId) {
+        delegate.removeSessionInformation(sessionId);
+        unrestore(sessionId);
+        synchronized (journal) {
+            if (entries.remove(sessionId) != null && !closed) {
+                try {
+                    journal.appendRemoval(sessionId);
+                } catch (IOException e) {
+                    LOGGER.warn("Failed to journal the session removal", e);
+                }
+            }
+        }
+    }
+
+    private void compactIfNeeded() {
+        final var records = journal.getRecords();
+        if (records > MINIMUM_COMPACTION_RECORDS
+                && records > 2 * entries.size()
+                && compacting.compareAndSet(false, true)) {
+            // Other threads keep journaling meanwhile, without compacting
+            try {
+                compactor.execute(() -> {
+                    try {
+                        compact();
+                    } finally {
+                        compacting.set(false);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // Closed
+                compacting.set(false);
+            }
+        }
+    }
+
+    private void restore(String sessionId, RestoredPrincipal principal,
+            Date lastRequest) {
+        restored.put(sessionId,
+                new SessionInformation(principal, sessionId, lastRequest));
+        restoredIndex.add(sessionId, principal.issuer(), principal.sid(),
+                principal.subject());
+    }
+
+    private void unrestore(String sessionId) {
+        final var info = restored.remove(sessionId);
+        if (info != null) {
+            final var principal = (RestoredPrincipal) info.getPrincipal();
+            restoredIndex.remove(sessionId, principal.issuer(),
+                    principal.sid(), principal.subject());
+        }
+    }
+
+    private List<SessionInformation> getRestoredSessions(
+            Set<String> sessionIds) {
+        final var sessions = new ArrayList<SessionInformation>(
+                sessionIds.size());
+        for (String sessionId : sessionIds) {
+            final var info = restored.get(sessionId);
+            if (info != null) {
+                sessions.add(info);
+            }
+        }
+        return sessions;
+    }
+
+    private static Entry toEntry(String sessionId, Object principal) {
+        final var now = System.currentTimeMillis();
+        if (principal instanceof OidcUser user) {
+            return new Entry(sessionId, SessionClaimIndex.issuer(user),
+                    user.getClaimAsString(SessionClaimIndex.SID_CLAIM),
+                    user.getSubject(), now);
+        } else if (principal instanceof RestoredPrincipal restoredPrincipal) {
+            return new Entry(sessionId, restoredPrincipal.issuer(),
+                    restoredPrincipal.sid(), restoredPrincipal.subject(), now);
+        }
+        // Only the sessions of OIDC users can be found by logout requests
+        return null;
+    }
+
+    /**
+     * The principal of a session restored from the journal, which holds the
+     * claims used to find the session.
+     *
+     * @param issuer
+     *            the {@code iss} claim, can be {@code null}
+     * @param sid
+     *            the {@code sid} claim, can be {@code null}
+     * @param subject
+     *            the {@code sub} claim, can be {@code null}
+     */
+    public record RestoredPrincipal(String issuer, String sid,
+            String subject) implements RestoredSessionPrincipal, Serializable {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public String getName() {
+            return subject != null ? subject : sid;
+        }
+
+        @Override
+        public LogoutCriteria toLogoutCriteria() {
+            return sid != null ? LogoutCriteria.forSid(issuer, sid)
+                    : LogoutCriteria.forSubject(issuer, subject);
+        }
+    }
+}
@@ -0,0 +1,308 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full license.
+ */
+package com.vaadin.sso.core;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.util.Assert;
+
+/**
+ * A bounded cache of the {@code jti} claims of recently received Logout
+ * Tokens, used to reject replayed tokens.
+ * <p>
+ * An identifier is remembered for the retention window given at construction,
+ * from the time it is received or, if later, the time its token was issued.
+ * Tokens issued longer than the retention window ago must be rejected by the
+ * caller, since their identifiers may have been forgotten. When the cache is
+ * full, the identifiers closest to the end of their retention window are
+ * evicted first, so memory use is bounded regardless of the rate at which
+ * tokens are received. This class is thread-safe.
+ *
+ * @author Vaadin Ltd
+ * @since 4.1
+ */
+public final class JtiReplayCache {
+
+    /**
+     * The default lifetime assumed for Logout Tokens, as recommended by the
+     * OpenID Connect Back-Channel Logout specification.
+     */
+    public static final Duration DEFAULT_TOKEN_LIFETIME = Duration
+            .ofMinutes(2);
+
+    /**
+     * The default maximum number of identifiers kept in the cache.
+     */
+    public static final int DEFAULT_MAXIMUM_SIZE = 10_000;
+
+    /* Guarded by this */
+    private final Map<Key, Mark> marks = new HashMap<>();
+
+    /*
+     * The first and last marks of a list ordered by expiry, guarded by this.
+     * Marks are usually appended, unless their token was issued in the
+     * future, and are unlinked in constant time when removed.
+     */
+    private Mark first;
+
+    private Mark last;
+
+    private final LongAdder replayCount = new LongAdder();
+
+    private final LongAdder expiredCount = new LongAdder();
+
+    private final LongAdder evictedCount = new LongAdder();
+
+    private final long retentionMillis;
+
+    private final int maximumSize;
+
+    private Clock clock = Clock.systemUTC();
+
+    /**
+     * Creates a new cache which retains identifiers for the default token
+     * lifetime plus the given clock skew on both sides, and holds at most
+     * {@value #DEFAULT_MAXIMUM_SIZE} identifiers.
+     *
+     * @param clockSkew
+     *            the clock skew accepted when validating tokens, not negative
+     */
+    public JtiReplayCache(Duration clockSkew) {
+        this(retention(clockSkew), DEFAULT_MAXIMUM_SIZE);
+    }
+
+    /**
+     * Creates a new cache.
+     *
+     * @param retention
+     *            how long an identifier is remembered, positive
+     * @param maximumSize
+     *            the maximum number of identifiers kept, positive
+     */
+    public JtiReplayCache(Duration retention, int maximumSize) {
+        Assert.notNull(retention, "retention cannot be null");
+        Assert.isTrue(retention.isPositive(), "retention must be > 0");
+        Assert.isTrue(maximumSize > 0, "maximumSize must be > 0");
+        this.retentionMillis = retention.toMillis();
+        this.maximumSize = maximumSize;
+    }
+
+    /**
+     * Records the given token identifier if it has not been seen within the
+     * retention window.
+     *
+     * @param issuer
+     *            the issuer of the token, can be {@code null}
+     * @param jti
+     *            the token identifier, not {@code null}
+     * @return {@code true} if the identifier was recorded, {@code false} if it
+     *         is a replay
+     */
+    public boolean recordIfAbsent(String issuer, String jti) {
+        return recordIfAbsent(issuer, jti, null);
+    }
+
+    /**
+     * Records the given token identifier if it has not been seen within the
+     * retention window, retaining it from the time its token was issued if
+     * that is in the future.
+     *
+     * @param issuer
+     *            the issuer of the token, can be {@code null}
+     * @param jti
+     *            the token identifier, not {@code null}
+     * @param issuedAt
+     *            the time the token was issued, can be {@code null}
+     * @return {@code true} if the identifier was recorded, {@code false} if it
+     *         is a replay
+     */
+    public synchronized boolean recordIfAbsent(String issuer, String jti,
+            Instant issuedAt) {
+        Objects.requireNonNull(jti);
+        final var now = clock.millis();
+        expire(now);
+        final var key = new Key(issuer, jti);
+        if (marks.containsKey(key)) {
+            replayCount.increment();
+            return false;
+        }
+        final var from = issuedAt != null
+                ? Math.max(now, issuedAt.toEpochMilli())
+                : now;
+        final var mark = new Mark(key, from + retentionMillis);
+        marks.put(key, mark);
+        link(mark);
+        if (marks.size() > maximumSize) {
+            unmark(first);
+            evictedCount.increment();
+        }
+        return true;
+    }
+
+    /**
+     * Removes the given token identifier, so that the token is accepted again.
+     * Used when a recorded token could not be processed, so that its retry is
+     * not rejected as a replay.
+     *
+     * @param issuer
+     *            the issuer of the token, can be {@code null}
+     * @param jti
+     *            the token identifier, not {@code null}
+     */
+    public synchronized void remove(String issuer, String jti) {
+        Objects.requireNonNull(jti);
+        final var mark = marks.get(new Key(issuer, jti));
+        if (mark != null) {
+            unmark(mark);
+        }
+    }
+
+    /**
+     * Gets how long an identifier is remembered.
+     *
+     * @return the retention window
+     */
+    public Duration getRetention() {
+        return Duration.ofMillis(retentionMillis);
+    }
+
+    /**
+     * Gets the number of identifiers currently in the cache.
+     *
+     * @return the number of identifiers
+     */
+    public synchronized int size() {
+        return marks.size();
+    }
+
+    /**
+     * Gets the maximum number of identifiers kept in the cache.
+     *
+     * @return the maximum size
+     */
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * Gets the number of replayed identifiers rejected so far.
+     *
+     * @return the number of replays
+     */
+    public long getReplayCount() {
+        return replayCount.sum();
+    }
+
+    /**
+     * Gets the number of identifiers removed after their retention window.
+     *
+     * @return the number of expired identifiers
+     */
+    public long getExpiredCount() {
+        return expiredCount.sum();
+    }
+
+    /**
+     * Gets the number of identifiers removed before the end of their
+     * retention window to keep the cache within its maximum size.
+     *
+     * @return the number of evicted identifiers
+     */
+    public long getEvictedCount() {
+        return evictedCount.sum();
+    }
+
+    /**
+     * Sets the clock used to compute the retention window.
+     *
+     * @param clock
+     *            the clock, not {@code null}
+     */
+    public void setClock(Clock clock) {
+        Assert.notNull(clock, "clock cannot be null");
+        this.clock = clock;
+    }
+
+    private static Duration retention(Duration clockSkew) {
+        Assert.notNull(clockSkew, "clockSkew cannot be null");
+        Assert.isTrue(!clockSkew.isNegative(), "clockSkew must be >= 0");
+        return DEFAULT_TOKEN_LIFETIME.plus(clockSkew.multipliedBy(2));
+    }
+
+    private void expire(long now) {
+        while (first != null && first.expiresAt <= now) {
+            unmark(first);
+            expiredCount.increment();
+        }
+    }
+
+    /*
+     * Inserts the mark after the last one expiring before or with it, which
+     * is the last mark unless its token was issued in the future.
+     */
+    private void link(Mark mark) {
+        var previous = last;
+        while (previous != null && previous.expiresAt > mark.expiresAt) {
+            previous = previous.previous;
+        }
+        final var next = previous != null ? previous.next : first;
+        mark.previous = previous;
+        mark.next = next;
+        if (previous != null) {
+            previous.next = mark;
+        } else {
+            first = mark;
+        }
+        if (next != null) {
+            next.previous = mark;
+        } else {
+            last = mark;
+        }
+    }
+
+    private void unmark(Mark mark) {
+        marks.remove(mark.key);
+        if (mark.previous != null) {
+            mark.previous.next = mark.next;
+        } else {
+            first = mark.next;
+        }
+        if (mark.next != null) {
+            mark.next.previous = mark.previous;
+        } else {
+            last = mark.previous;
+        }
+        mark.previous = null;
+        mark.next = null;
+    }
+
+    private record Key(String issuer, String jti) {
+    }
+
+    private static final class Mark {
+
+        private final Key key;
+
+        private final long expiresAt;
+
+        private Mark previous;
+
+        private Mark next;
+
+        Mark(Key key, long expiresAt) {
+            this.key = key;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
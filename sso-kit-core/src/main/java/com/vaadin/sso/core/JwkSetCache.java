@@ -0,0 +1,440 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full license.
+ */
+package com.vaadin.sso.core;
+
+import java.net.URI;
+import java.security.PublicKey;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.KeySourceException;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.KeyType;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.proc.JWSKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jose.util.DefaultResourceRetriever;
+import com.nimbusds.jose.util.ResourceRetriever;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.util.Assert;
+
+/**
+ * A cache of JSON Web Key sets, shared by all the decoders which verify tokens
+ * signed by the same identity provider.
+ * <p>
+ * Each JWK set URI has a single cache entry holding the parsed public keys,
+ * indexed by key-id. The entry is refreshed in the background from shortly
+ * before its time-to-live expires, so that token verification only waits for
+ * the network when nothing is cached yet. Expired keys keep being used until
+ * a refresh succeeds, and failed refreshes are retried with an exponential
+ * backoff. When a token is signed with an unknown key-id, the set is fetched
+ * again at most once per {@link #setMinimumRefetchInterval(Duration) refetch
+ * interval}, and concurrent callers share the same fetch.
+ *
+ * @author Vaadin Ltd
+ * @since 4.1
+ */
+public class JwkSetCache {
+
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(JwkSetCache.class);
+
+    private static final int DEFAULT_CONNECT_TIMEOUT = 5000;
+
+    private static final int DEFAULT_READ_TIMEOUT = 5000;
+
+    private static final int DEFAULT_SIZE_LIMIT = 51200;
+
+    private static final Duration DEFAULT_TIME_TO_LIVE = Duration
+            .ofMinutes(5);
+
+    private static final Duration DEFAULT_REFRESH_AHEAD_TIME = Duration
+            .ofSeconds(30);
+
+    private static final Duration DEFAULT_MINIMUM_REFETCH_INTERVAL = Duration
+            .ofSeconds(30);
+
+    private static final long INITIAL_FAILURE_BACKOFF_MILLIS = 1000;
+
+    private static final long MAXIMUM_FAILURE_BACKOFF_MILLIS = Duration
+            .ofMinutes(1).toMillis();
+
+    private static final Set<JWSAlgorithm> DEFAULT_ALGORITHMS = Set
+            .of(JWSAlgorithm.RS256);
+
+    private static final JwkSetCache DEFAULT_INSTANCE = new JwkSetCache();
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final ResourceRetriever resourceRetriever;
+
+    private final Executor executor;
+
+    private final LongAdder fetchCount = new LongAdder();
+
+    private Duration timeToLive = DEFAULT_TIME_TO_LIVE;
+
+    private Duration refreshAheadTime = DEFAULT_REFRESH_AHEAD_TIME;
+
+    private Duration minimumRefetchInterval = DEFAULT_MINIMUM_REFETCH_INTERVAL;
+
+    private Clock clock = Clock.systemUTC();
+
+    /**
+     * Creates a new cache which fetches key sets over HTTP and refreshes them
+     * on virtual threads.
+     */
+    public JwkSetCache() {
+        this(new DefaultResourceRetriever(DEFAULT_CONNECT_TIMEOUT,
+                DEFAULT_READ_TIMEOUT, DEFAULT_SIZE_LIMIT),
+                Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    JwkSetCache(ResourceRetriever resourceRetriever, Executor executor) {
+        this.resourceRetriever = Objects.requireNonNull(resourceRetriever);
+        this.executor = Objects.requireNonNull(executor);
+    }
+
+    /**
+     * Gets the cache shared by the decoders that SSO Kit creates by default.
+     *
+     * @return the shared cache instance
+     */
+    public static JwkSetCache getDefault() {
+        return DEFAULT_INSTANCE;
+    }
+
+    /**
+     * Creates a decoder which verifies RS256 signatures with the keys cached
+     * for the given JWK set URI.
+     * <p>
+     * The returned decoder does not verify the {@code typ} header nor the
+     * claims: callers are expected to configure them with
+     * {@link NimbusJwtDecoder#setJwtValidator}.
+     *
+     * @param jwkSetUri
+     *            the JWK set URI, not {@code null}
+     * @return the decoder
+     */
+    public NimbusJwtDecoder createDecoder(String jwkSetUri) {
+        final var jwtProcessor = new DefaultJWTProcessor<SecurityContext>();
+        jwtProcessor.setJWSKeySelector(keySelector(jwkSetUri));
+        // Type and claims are validated by Spring Security's JwtValidators
+        jwtProcessor.setJWSTypeVerifier((type, context) -> {
+        });
+        jwtProcessor.setJWTClaimsSetVerifier((claims, context) -> {
+        });
+        return new NimbusJwtDecoder(jwtProcessor);
+    }
+
+    /**
+     * Gets a key selector which accepts RS256 signatures and selects keys
+     * from the set cached for the given JWK set URI.
+     *
+     * @param jwkSetUri
+     *            the JWK set URI, not {@code null}
+     * @return the key selector
+     */
+    public JWSKeySelector<SecurityContext> keySelector(String jwkSetUri) {
+        return keySelector(jwkSetUri, DEFAULT_ALGORITHMS);
+    }
+
+    /**
+     * Gets a key selector which accepts the given algorithms and selects keys
+     * from the set cached for the given JWK set URI.
+     *
+     * @param jwkSetUri
+     *            the JWK set URI, not {@code null}
+     * @param algorithms
+     *            the accepted signature algorithms, not empty
+     * @return the key selector
+     */
+    public JWSKeySelector<SecurityContext> keySelector(String jwkSetUri,
+            Set<JWSAlgorithm> algorithms) {
+        Assert.hasText(jwkSetUri, "jwkSetUri cannot be empty");
+        Assert.notEmpty(algorithms, "algorithms cannot be empty");
+        final var acceptedAlgorithms = Set.copyOf(algorithms);
+        return (header, context) -> {
+            if (!acceptedAlgorithms.contains(header.getAlgorithm())) {
+                return List.of();
+            }
+            return selectKeys(getEntry(jwkSetUri), header);
+        };
+    }
+
+    /**
+     * Removes the cached key set for the given JWK set URI, if any.
+     *
+     * @param jwkSetUri
+     *            the JWK set URI
+     */
+    public void invalidate(String jwkSetUri) {
+        entries.remove(jwkSetUri);
+    }
+
+    /**
+     * Gets the number of times a key set has been fetched from an identity
+     * provider.
+     *
+     * @return the number of fetches
+     */
+    public long getFetchCount() {
+        return fetchCount.sum();
+    }
+
+    /**
+     * Sets the time after which a cached key set must be fetched again. The
+     * default is 5 minutes.
+     *
+     * @param timeToLive
+     *            the time-to-live, not negative
+     */
+    public void setTimeToLive(Duration timeToLive) {
+        Assert.notNull(timeToLive, "timeToLive cannot be null");
+        Assert.isTrue(!timeToLive.isNegative(), "timeToLive must be >= 0");
+        this.timeToLive = timeToLive;
+    }
+
+    /**
+     * Sets how long before the time-to-live expires a background refresh is
+     * started. The default is 30 seconds.
+     *
+     * @param refreshAheadTime
+     *            the refresh-ahead time, not negative
+     */
+    public void setRefreshAheadTime(Duration refreshAheadTime) {
+        Assert.notNull(refreshAheadTime, "refreshAheadTime cannot be null");
+        Assert.isTrue(!refreshAheadTime.isNegative(),
+                "refreshAheadTime must be >= 0");
+        this.refreshAheadTime = refreshAheadTime;
+    }
+
+    /**
+     * Sets the minimum interval between two fetches caused by tokens signed
+     * with an unknown key-id. The default is 30 seconds.
+     *
+     * @param minimumRefetchInterval
+     *            the minimum refetch interval, not negative
+     */
+    public void setMinimumRefetchInterval(Duration minimumRefetchInterval) {
+        Assert.notNull(minimumRefetchInterval,
+                "minimumRefetchInterval cannot be null");
+        Assert.isTrue(!minimumRefetchInterval.isNegative(),
+                "minimumRefetchInterval must be >= 0");
+        this.minimumRefetchInterval = minimumRefetchInterval;
+    }
+
+    /**
+     * Sets the clock used to compute the age of the cached key sets.
+     *
+     * @param clock
+     *            the clock, not {@code null}
+     */
+    public void setClock(Clock clock) {
+        Assert.notNull(clock, "clock cannot be null");
+        this.clock = clock;
+    }
+
+    private Entry getEntry(String jwkSetUri) {
+        return entries.computeIfAbsent(jwkSetUri, Entry::new);
+    }
+
+    private static List<PublicKey> selectKeys(Entry entry, JWSHeader header)
+            throws KeySourceException {
+        final var keyType = KeyType.forAlgorithm(header.getAlgorithm());
+        final var keyId = header.getKeyID();
+        var keySet = entry.current();
+        var keys = keySet.select(keyId, keyType);
+        if (keys.isEmpty() && keyId != null) {
+            // The identity provider may have rotated its keys
+            keySet = entry.refetch(keySet);
+            keys = keySet.select(keyId, keyType);
+        }
+        return keys;
+    }
+
+    private KeySet fetch(String jwkSetUri) throws Exception {
+        fetchCount.increment();
+        final var resource = resourceRetriever
+                .retrieveResource(URI.create(jwkSetUri).toURL());
+        final var jwkSet = JWKSet.parse(resource.getContent());
+        return KeySet.of(jwkSet, clock.millis());
+    }
+
+    /*
+     * An immutable snapshot of a JWK set, holding the parsed public keys.
+     */
+    private record KeySet(List<CachedKey> keys,
+            Map<String, List<CachedKey>> keysById, long fetchedAt) {
+
+        static KeySet of(JWKSet jwkSet, long fetchedAt) throws JOSEException {
+            final var keys = new ArrayList<CachedKey>();
+            final var keysById = new HashMap<String, List<CachedKey>>();
+            for (JWK jwk : jwkSet.getKeys()) {
+                if (jwk.getKeyUse() != null
+                        && !KeyUse.SIGNATURE.equals(jwk.getKeyUse())) {
+                    continue;
+                }
+                final PublicKey publicKey;
+                if (jwk instanceof RSAKey rsaKey) {
+                    publicKey = rsaKey.toPublicKey();
+                } else if (jwk instanceof ECKey ecKey) {
+                    publicKey = ecKey.toPublicKey();
+                } else {
+                    continue;
+                }
+                final var key = new CachedKey(jwk.getKeyType(), publicKey);
+                keys.add(key);
+                if (jwk.getKeyID() != null) {
+                    keysById.computeIfAbsent(jwk.getKeyID(),
+                            id -> new ArrayList<>()).add(key);
+                }
+            }
+            return new KeySet(List.copyOf(keys),
+                    Collections.unmodifiableMap(keysById), fetchedAt);
+        }
+
+        List<PublicKey> select(String keyId, KeyType keyType) {
+            final var candidates = keyId == null ? keys
+                    : keysById.getOrDefault(keyId, List.of());
+            final var selected = new ArrayList<PublicKey>(candidates.size());
+            for (CachedKey key : candidates) {
+                if (key.keyType().equals(keyType)) {
+                    selected.add(key.publicKey());
+                }
+            }
+            return selected;
+        }
+    }
+
+    private record CachedKey(KeyType keyType, PublicKey publicKey) {
+    }
+
+    private final class Entry {
+
+        private final String jwkSetUri;
+
+        private final AtomicReference<CompletableFuture<KeySet>> inflight = new AtomicReference<>();
+
+        private volatile KeySet keySet;
+
+        private volatile long lastRefetch = Long.MIN_VALUE;
+
+        /* No background refresh is started before, after failures */
+        private volatile long retryAt = Long.MIN_VALUE;
+
+        /* Written by the single refresh in flight */
+        private int failures;
+
+        Entry(String jwkSetUri) {
+            this.jwkSetUri = jwkSetUri;
+        }
+
+        KeySet current() throws KeySourceException {
+            final var current = keySet;
+            if (current == null) {
+                return await(refresh());
+            }
+            final var now = clock.millis();
+            final var age = now - current.fetchedAt();
+            if (age >= timeToLive.toMillis() - refreshAheadTime.toMillis()
+                    && now >= retryAt) {
+                // Expired keys keep being used until the refresh succeeds
+                refresh();
+            }
+            return current;
+        }
+
+        KeySet refetch(KeySet seen) throws KeySourceException {
+            final var current = keySet;
+            if (current != seen) {
+                // Already refreshed by another caller
+                return current;
+            }
+            final var now = clock.millis();
+            if (lastRefetch != Long.MIN_VALUE && now
+                    - lastRefetch < minimumRefetchInterval.toMillis()) {
+                return seen;
+            }
+            lastRefetch = now;
+            return await(refresh());
+        }
+
+        CompletableFuture<KeySet> refresh() {
+            while (true) {
+                final var running = inflight.get();
+                if (running != null) {
+                    return running;
+                }
+                final var future = new CompletableFuture<KeySet>();
+                if (inflight.compareAndSet(null, future)) {
+                    executor.execute(() -> doRefresh(future));
+                    return future;
+                }
+            }
+        }
+
+        private void doRefresh(CompletableFuture<KeySet> future) {
+            try {
+                final var fetched = fetch(jwkSetUri);
+                keySet = fetched;
+                failures = 0;
+                retryAt = Long.MIN_VALUE;
+                inflight.compareAndSet(future, null);
+                future.complete(fetched);
+            } catch (Exception e) {
+                final var backoff = Math.min(MAXIMUM_FAILURE_BACKOFF_MILLIS,
+                        INITIAL_FAILURE_BACKOFF_MILLIS << Math.min(failures,
+                                16));
+                failures++;
+                retryAt = clock.millis() + backoff;
+                if (keySet != null) {
+                    LOGGER.warn("Could not refresh the JWK set from {}, "
+                            + "retrying in {} ms", jwkSetUri, backoff, e);
+                }
+                inflight.compareAndSet(future, null);
+                future.completeExceptionally(e);
+            }
+        }
+
+        private KeySet await(CompletableFuture<KeySet> future)
+                throws KeySourceException {
+            try {
+                return future.join();
+            } catch (CompletionException e) {
+                throw new KeySourceException(
+                        "Could not fetch the JWK set from " + jwkSetUri,
+                        e.getCause());
+            }
+        }
+    }
+}
@@ -7,11 +7,13 @@
  */
 package com.vaadin.sso.core;
 
+import java.text.ParseException;
 import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 
+import com.nimbusds.jwt.JWTParser;
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.oauth2.client.oidc.userinfo.OidcUserSource;
@@ -19,8 +21,12 @@ import org.springframework.security.oauth2.client.registration.ClientRegistratio
 import org.springframework.security.oauth2.core.oidc.user.DefaultOidcUser;
 import org.springframework.security.oauth2.core.oidc.user.OidcUser;
 import org.springframework.security.oauth2.core.oidc.user.OidcUserAuthority;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.JwtDecoderFactory;
 import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.MappedJwtClaimSetConverter;
 import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
 import org.springframework.util.StringUtils;
 
@@ -36,6 +42,10 @@ import org.springframework.util.StringUtils;
  * <li>Keycloak client roles from the {@code resource_access} claim as
  * {@code ROLE_} authorities</li>
  * </ul>
+ * <p>
+ * The role and scope authorities are pooled, so that the users sharing the
+ * same roles share the same authority instances, with their authority strings
+ * computed once.
  *
  * @author Vaadin Ltd
  * @since 4.0
@@ -52,52 +62,110 @@ public class KeycloakUserMapper implements Converter<OidcUserSource, OidcUser> {
 
     static final String SCOPE_PREFIX = "SCOPE_";
 
+    /* Converts the Nimbus claim types as NimbusJwtDecoder does */
+    private static final Converter<Map<String, Object>, Map<String, Object>> CLAIM_SET_CONVERTER = MappedJwtClaimSetConverter
+            .withDefaults(Collections.emptyMap());
+
     private final JwtDecoderFactory<ClientRegistration> decoderFactory;
 
+    private final AuthorityPool authorityPool = AuthorityPool.getDefault();
+
     /**
-     * Creates a new instance that uses the default
-     * {@link NimbusJwtDecoder}-based JWT decoder.
+     * Creates a new instance that reads the claims of the access token
+     * without verifying its signature again.
+     * <p>
+     * The access token is received directly from the token endpoint of the
+     * provider, over the TLS connection used by the authorization code grant,
+     * so a second verification of its signature does not add any guarantee
+     * while costing a signature check, and possibly a JWK Set fetch, on each
+     * login. Use {@link #KeycloakUserMapper(boolean)} to verify it anyway.
      */
     public KeycloakUserMapper() {
-        this(clientRegistration -> {
-            var providerDetails = clientRegistration.getProviderDetails();
-            var jwkSetUri = providerDetails.getJwkSetUri();
-            var issuerUri = providerDetails.getIssuerUri();
-            var jwtDecoder = NimbusJwtDecoder.withJwkSetUri(jwkSetUri).build();
-            jwtDecoder.setJwtValidator(
-                    JwtValidators.createDefaultWithIssuer(issuerUri));
-            return jwtDecoder;
-        });
+        this(false);
+    }
+
+    /**
+     * Creates a new instance, which optionally verifies the signature and the
+     * standard claims of the access token before reading its claims.
+     * <p>
+     * When verifying, the default {@link NimbusJwtDecoder}-based JWT decoder
+     * is used. Decoders are cached for each client registration and verify
+     * signatures with the keys held by the shared {@link JwkSetCache}.
+     *
+     * @param verifyAccessToken
+     *            {@code true} to verify the access token, {@code false} to
+     *            only read its claims
+     */
+    public KeycloakUserMapper(boolean verifyAccessToken) {
+        this(verifyAccessToken
+                ? new CachingJwtDecoderFactory(
+                        KeycloakUserMapper::createAccessTokenDecoder)
+                : clientRegistration -> KeycloakUserMapper::parseClaims);
     }
 
     KeycloakUserMapper(JwtDecoderFactory<ClientRegistration> decoderFactory) {
         this.decoderFactory = decoderFactory;
     }
 
+    private static JwtDecoder createAccessTokenDecoder(
+            ClientRegistration clientRegistration) {
+        var providerDetails = clientRegistration.getProviderDetails();
+        var jwkSetUri = providerDetails.getJwkSetUri();
+        var issuerUri = providerDetails.getIssuerUri();
+        var jwtDecoder = JwkSetCache.getDefault().createDecoder(jwkSetUri);
+        jwtDecoder.setJwtValidator(
+                JwtValidators.createDefaultWithIssuer(issuerUri));
+        return jwtDecoder;
+    }
+
+    /*
+     * Parses the token without verifying its signature. Only to be used for
+     * tokens received from a trusted party, like the token endpoint.
+     */
+    static Jwt parseClaims(String token) {
+        try {
+            var parsed = JWTParser.parse(token);
+            var headers = parsed.getHeader().toJSONObject();
+            var claims = CLAIM_SET_CONVERTER
+                    .convert(parsed.getJWTClaimsSet().getClaims());
+            return Jwt.withTokenValue(token).headers(h -> h.putAll(headers))
+                    .claims(c -> c.putAll(claims)).build();
+        } catch (ParseException e) {
+            throw new BadJwtException(
+                    "Failed to parse access token: " + e.getMessage(), e);
+        }
+    }
+
     @Override
     public OidcUser convert(OidcUserSource userSource) {
         var userRequest = userSource.getUserRequest();
         var userInfo = userSource.getUserInfo();
         var authorities = new LinkedHashSet<GrantedAuthority>();
         var accessToken = userRequest.getAccessToken();
-        accessToken.getScopes().stream().map(OidcScopeAuthority::new)
-                .forEach(authorities::add);
+        for (var scope : accessToken.getScopes()) {
+            authorities
+                    .add(authorityPool.intern(new OidcScopeAuthority(scope)));
+        }
         var clientRegistration = userRequest.getClientRegistration();
         var clientId = clientRegistration.getClientId();
         var jwtDecoder = decoderFactory.createDecoder(clientRegistration);
         var jwt = jwtDecoder.decode(accessToken.getTokenValue());
         if (jwt.hasClaim(REALM_ACCESS_CLAIM)) {
             var roles = extractRoles(jwt.getClaimAsMap(REALM_ACCESS_CLAIM));
-            roles.stream().map(KeycloakRealmRole::new)
-                    .forEach(authorities::add);
+            for (var role : roles) {
+                authorities
+                        .add(authorityPool.intern(new KeycloakRealmRole(role)));
+            }
         }
         if (jwt.hasClaim(RESOURCE_ACCESS_CLAIM)) {
             var resourceAccess = jwt.getClaimAsMap(RESOURCE_ACCESS_CLAIM);
             var clientAccess = asMap(resourceAccess.getOrDefault(clientId,
                     Collections.emptyMap()));
             var roles = extractRoles(clientAccess);
-            roles.stream().map(role -> new KeycloakClientRole(clientId, role))
-                    .forEach(authorities::add);
+            for (var role : roles) {
+                authorities.add(authorityPool
+                        .intern(new KeycloakClientRole(clientId, role)));
+            }
         }
         var providerDetails = clientRegistration.getProviderDetails();
         var userNameAttributeName = providerDetails.getUserInfoEndpoint()
@@ -132,28 +200,66 @@ public class KeycloakUserMapper implements Converter<OidcUserSource, OidcUser> {
         return Collections.emptyMap();
     }
 
-    record OidcScopeAuthority(String scope) implements GrantedAuthority {
+    /*
+     * The authority strings are computed once, when the record is created.
+     * The forms serialized before the authority component was added are
+     * deserialized with a null authority, which is computed instead.
+     */
+
+    record OidcScopeAuthority(String scope,
+            String authority) implements GrantedAuthority {
+
+        OidcScopeAuthority {
+            if (authority == null) {
+                authority = SCOPE_PREFIX + scope;
+            }
+        }
+
+        OidcScopeAuthority(String scope) {
+            this(scope, null);
+        }
 
         @Override
         public String getAuthority() {
-            return SCOPE_PREFIX + scope;
+            return authority;
         }
     }
 
-    record KeycloakRealmRole(String role) implements GrantedAuthority {
+    record KeycloakRealmRole(String role,
+            String authority) implements GrantedAuthority {
+
+        KeycloakRealmRole {
+            if (authority == null) {
+                authority = ROLE_PREFIX + role;
+            }
+        }
+
+        KeycloakRealmRole(String role) {
+            this(role, null);
+        }
 
         @Override
         public String getAuthority() {
-            return ROLE_PREFIX + role;
+            return authority;
         }
     }
 
-    record KeycloakClientRole(String client,
-            String role) implements GrantedAuthority {
+    record KeycloakClientRole(String client, String role,
+            String authority) implements GrantedAuthority {
+
+        KeycloakClientRole {
+            if (authority == null) {
+                authority = ROLE_PREFIX + role;
+            }
+        }
+
+        KeycloakClientRole(String client, String role) {
+            this(client, role, null);
+        }
 
         @Override
         public String getAuthority() {
-            return ROLE_PREFIX + role;
+            return authority;
         }
     }
 }
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full license.
+ */
+package com.vaadin.sso.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * A {@link LogoutEventBus} which delivers logouts within the JVM only, for
+ * single-node deployments and tests.
+ * <p>
+ * Published criteria are queued and delivered by a single drain at a time,
+ * so that the criteria published while a batch is delivered are delivered
+ * together in the next one.
+ *
+ * @author Vaadin Ltd
+ * @since 4.1
+ */
+public class LocalLogoutEventBus implements LogoutEventBus {
+
+    private final Queue<LogoutCriteria> pending = new ConcurrentLinkedQueue<>();
+
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    private final LogoutEventListeners listeners = new LogoutEventListeners();
+
+    private final Executor executor;
+
+    /**
+     * Creates a new instance which delivers the logouts on the publishing
+     * thread.
+     */
+    public LocalLogoutEventBus() {
+        this(Runnable::run);
+    }
+
+    /**
+     * Creates a new instance which delivers the logouts with the given
+     * executor.
+     *
+     * @param executor
+     *            the executor, not {@code null}
+     */
+    public LocalLogoutEventBus(Executor executor) {
+        this.executor = Objects.requireNonNull(executor);
+    }
+
+    @Override
+    public void publish(LogoutCriteria criteria) {
+        pending.add(Objects.requireNonNull(criteria));
+        if (draining.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                draining.set(false);
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<? super List<LogoutCriteria>> listener) {
+        listeners.add(listener);
+    }
+
+    private void drain() {
+        do {
+            final var batch = new ArrayList<LogoutCriteria>();
+            LogoutCriteria criteria;
+            while ((criteria = pending.poll()) != null) {
+                batch.add(criteria);
+            }
+            try {
+                listeners.deliver(batch);
+            } finally {
+                draining.set(false);
+            }
+            // Criteria queued meanwhile are drained again, unless another
+            // publisher has started a drain
+        } while (!pending.isEmpty() && draining.compareAndSet(false, true));
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full license.
+ */
+package com.vaadin.sso.core;
+
+/**
+ * Identifies the sessions to terminate by the OpenID Connect claims of their
+ * principals, like the claims of a Logout Token do.
+ * <p>
+ * If a session-id is given, it is used to match the sessions; otherwise the
+ * subject is used.
+ *
+ * @param issuer
+ *            the issuer identifier, or {@code null} to match any issuer
+ * @param sid
+ *            the session-id ({@code sid} claim), can be {@code null}
+ * @param subject
+ *            the subject ({@code sub} claim), can be {@code null} if the
+ *            session-id is given
+ * @author Vaadin Ltd
+ * @since 4.1
+ */
+public record LogoutCriteria(String issuer, String sid, String subject) {
+
+    /**
+     * Creates a new instance.
+     *
+     * @throws IllegalArgumentException
+     *             if both the session-id and the subject are {@code null}
+     */
+    public LogoutCriteria {
+        if (sid == null && subject == null) {
+            throw new IllegalArgumentException(
+                    "Either sid or subject must be given");
+        }
+    }
+
+    /**
+     * Creates criteria matching the sessions with the given session-id.
+     *
+     * @param issuer
+     *            the issuer identifier, or {@code null} to match any issuer
+     * @param sid
+     *            the session-id, not {@code null}
+     * @return the criteria
+     */
+    public static LogoutCriteria forSid(String issuer, String sid) {
+        return new LogoutCriteria(issuer, sid, null);
+    }
+
+    /**
+     * Creates criteria matching the sessions of the given subject.
+     *
+     * @param issuer
+     *            the issuer identifier, or {@code null} to match any issuer
+     * @param subject
+     *            the subject, not {@code null}
+     * @return the criteria
+     */
+    public static LogoutCriteria forSubject(String issuer, String subject) {
+        return new LogoutCriteria(issuer, null, subject);
+    }
+}
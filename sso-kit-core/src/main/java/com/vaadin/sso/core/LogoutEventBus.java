@@ -0,0 +1,46 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full license.
+ */
+package com.vaadin.sso.core;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Propagates logouts to all the nodes of a cluster, so that each node can
+ * terminate the sessions it holds, whichever node received the Back-Channel
+ * logout request.
+ * <p>
+ * Logouts are propagated as {@link LogoutCriteria}, since principals are only
+ * meaningful in the node holding their sessions. The criteria published on any
+ * node are delivered to the listeners of every node, including the publishing
+ * one, in batches without duplicates.
+ *
+ * @author Vaadin Ltd
+ * @since 4.1
+ * @see LocalLogoutEventBus
+ * @see JdbcLogoutEventBus
+ */
+public interface LogoutEventBus {
+
+    /**
+     * Publishes a logout to all the nodes.
+     *
+     * @param criteria
+     *            the criteria of the sessions to terminate, not {@code null}
+     */
+    void publish(LogoutCriteria criteria);
+
+    /**
+     * Subscribes a listener to the logouts published on any node. The listener
+     * is called with batches of distinct criteria, and must be thread-safe.
+     *
+     * @param listener
+     *            the listener, not {@code null}
+     */
+    void subscribe(Consumer<? super List<LogoutCriteria>> listener);
+}
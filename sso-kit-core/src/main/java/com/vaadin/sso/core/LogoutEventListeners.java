@@ -0,0 +1,56 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full license.
+ */
+package com.vaadin.sso.core;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The listeners of a {@link LogoutEventBus}, which are delivered batches of
+ * distinct criteria.
+ *
+ * @author Vaadin Ltd
+ * @since 4.1
+ */
+final class LogoutEventListeners {
+
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(LogoutEventListeners.class);
+
+    private final List<Consumer<? super List<LogoutCriteria>>> listeners = new CopyOnWriteArrayList<>();
+
+    void add(Consumer<? super List<LogoutCriteria>> listener) {
+        listeners.add(Objects.requireNonNull(listener));
+    }
+
+    /*
+     * Delivers the given criteria to all the listeners, once each, in the
+     * order they were first published.
+     */
+    void deliver(Collection<LogoutCriteria> criteria) {
+        if (criteria.isEmpty()) {
+            return;
+        }
+        final var batch = List.copyOf(new LinkedHashSet<>(criteria));
+        for (var listener : listeners) {
+            try {
+                listener.accept(batch);
+            } catch (RuntimeException e) {
+                // A failing listener must not prevent the others' logouts
+                LOGGER.warn("Logout event listener failed", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full license.
+ */
+package com.vaadin.sso.core;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.util.Objects;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.client.oidc.authentication.logout.OidcLogoutToken;
+import org.springframework.security.oauth2.core.oidc.IdTokenClaimNames;
+import org.springframework.security.web.authentication.logout.LogoutHandler;
+
+/**
+ * Wraps Spring Security's Back-Channel logout handler to publish the logouts
+ * it handles to a {@link LogoutEventBus}, so that the other nodes of the
+ * cluster terminate their sessions too.
+ *
+ * @author Vaadin Ltd
+ * @since 4.1
+ */
+public class LogoutEventPublishingHandler implements LogoutHandler {
+
+    private final LogoutHandler delegate;
+
+    private final LogoutEventBus eventBus;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param delegate
+     *            the Back-Channel logout handler, not {@code null}
+     * @param eventBus
+     *            the bus to publish the logouts to, not {@code null}
+     */
+    public LogoutEventPublishingHandler(LogoutHandler delegate,
+            LogoutEventBus eventBus) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.eventBus = Objects.requireNonNull(eventBus);
+    }
+
+    @Override
+    public void logout(HttpServletRequest request,
+            HttpServletResponse response, Authentication authentication) {
+        delegate.logout(request, response, authentication);
+        if (authentication != null && authentication
+                .getPrincipal() instanceof OidcLogoutToken token) {
+            final var sid = token.getSessionId();
+            final var subject = token.getSubject();
+            // Tokens with neither claim are rejected by Spring Security
+            if (sid != null || subject != null) {
+                eventBus.publish(new LogoutCriteria(
+                        token.getClaimAsString(IdTokenClaimNames.ISS), sid,
+                        subject));
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full license.
+ */
+package com.vaadin.sso.core;
+
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Records Back-Channel logout metrics in a Micrometer {@link MeterRegistry}.
+ * <p>
+ * The following meters are registered:
+ * <ul>
+ * <li>{@value #STAGE_TIMER}: a timer for each processing stage, tagged with
+ * {@code registration.id} and {@code stage}</li>
+ * <li>{@value #REQUEST_TIMER}: a timer for the whole request, tagged with
+ * {@code registration.id}, {@code outcome} ({@code success},
+ * {@code bad_request} or {@code error}) and {@code reason}</li>
+ * <li>{@value #EXPIRED_SESSIONS_COUNTER}: a counter of the expired sessions,
+ * tagged with {@code registration.id}</li>
+ * </ul>
+ *
+ * @author Vaadin Ltd
+ * @since 4.1
+ */
+public class MicrometerBackChannelLogoutMetrics
+        implements BackChannelLogoutMetrics {
+
+    /**
+     * The name of the timer of the processing stages.
+     */
+    public static final String STAGE_TIMER = "sso.backchannel.logout.stage";
+
+    /**
+     * The name of the timer of the requests.
+     */
+    public static final String REQUEST_TIMER = "sso.backchannel.logout.requests";
+
+    /**
+     * The name of the counter of the expired sessions.
+     */
+    public static final String EXPIRED_SESSIONS_COUNTER = "sso.backchannel.logout.sessions.expired";
+
+    static final String REGISTRATION_ID_TAG = "registration.id";
+
+    private final MeterRegistry registry;
+
+    /* Meters are cached to avoid building their ids on each request */
+    private final ConcurrentMap<StageKey, Timer> stageTimers = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<RequestKey, Timer> requestTimers = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, Counter> expiredSessionCounters = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new instance.
+     *
+     * @param registry
+     *            the meter registry, not {@code null}
+     */
+    public MicrometerBackChannelLogoutMetrics(MeterRegistry registry) {
+        this.registry = Objects.requireNonNull(registry);
+    }
+
+    @Override
+    public void recordStage(String registrationId, Stage stage, long nanos) {
+        stageTimers.computeIfAbsent(new StageKey(registrationId, stage),
+                key -> Timer.builder(STAGE_TIMER)
+                        .description("Back-Channel logout stage duration")
+                        .tag(REGISTRATION_ID_TAG, key.registrationId())
+                        .tag("stage", tagValue(key.stage()))
+                        .register(registry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordRequest(String registrationId, Outcome outcome,
+            long nanos) {
+        requestTimers.computeIfAbsent(new RequestKey(registrationId, outcome),
+                key -> Timer.builder(REQUEST_TIMER)
+                        .description("Back-Channel logout request duration")
+                        .tag(REGISTRATION_ID_TAG, key.registrationId())
+                        .tag("outcome", outcomeTag(key.outcome()))
+                        .tag("reason", tagValue(key.outcome()))
+                        .register(registry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordExpiredSessions(String registrationId, int count) {
+        expiredSessionCounters.computeIfAbsent(registrationId,
+                id -> Counter.builder(EXPIRED_SESSIONS_COUNTER)
+                        .description("Sessions expired by Back-Channel logout")
+                        .tag(REGISTRATION_ID_TAG, id).register(registry))
+                .increment(count);
+    }
+
+    private static String outcomeTag(Outcome outcome) {
+        return switch (outcome) {
+        case SUCCESS -> "success";
+        case ERROR -> "error";
+        default -> "bad_request";
+        };
+    }
+
+    private static String tagValue(Enum<?> value) {
+        return value.name().toLowerCase(Locale.ROOT);
+    }
+
+    private record StageKey(String registrationId, Stage stage) {
+    }
+
+    private record RequestKey(String registrationId, Outcome outcome) {
+    }
+}
@@ -43,7 +43,7 @@ public final class OidcLogoutTokenValidator
     private static final Logger LOGGER = LoggerFactory
             .getLogger(OidcLogoutTokenValidator.class);
 
-    private static final Duration DEFAULT_CLOCK_SKEW = Duration.ofSeconds(60);
+    static final Duration DEFAULT_CLOCK_SKEW = Duration.ofSeconds(60);
 
     private static final String ID_TOKEN_SIGNED_RESPONSE_ALG = "id_token_signed_response_alg";
 
@@ -59,6 +59,8 @@ public final class OidcLogoutTokenValidator
 
     private Clock clock = Clock.systemUTC();
 
+    private JtiReplayCache replayCache;
+
     public OidcLogoutTokenValidator(ClientRegistration clientRegistration) {
         Assert.notNull(clientRegistration, "clientRegistration cannot be null");
         this.clientRegistration = clientRegistration;
@@ -118,6 +120,13 @@ public final class OidcLogoutTokenValidator
             invalidClaims.put(IdTokenClaimNames.IAT, token.getIssuedAt());
         }
 
+        // Tokens older than the replay cache retention could be replayed
+        // once their JTI is forgotten
+        if (replayCache != null && !token.getIssuedAt()
+                .plus(replayCache.getRetention()).isAfter(now)) {
+            invalidClaims.put(IdTokenClaimNames.IAT, token.getIssuedAt());
+        }
+
         // 5. Verify that the Logout Token contains a SUB Claim, a SID Claim, or
         // both.
         final var subject = token.getSubject();
@@ -143,7 +152,7 @@ public final class OidcLogoutTokenValidator
 
         // 8. Optionally verify that another Logout Token with the same JTI
         // value has not been recently received.
-        // TODO
+        // Only recorded for otherwise valid tokens, see checkReplay below.
 
         // 9. Optionally verify that the IDD Logout Token Claim matches the ISS
         // Claim in an ID Token issued for the current session or a recent
@@ -160,6 +169,10 @@ public final class OidcLogoutTokenValidator
         // session of this RP with the OP.
         // TODO
 
+        if (invalidClaims.isEmpty()) {
+            checkReplay(token, invalidClaims);
+        }
+
         if (!invalidClaims.isEmpty()) {
             LOGGER.warn("Logout token validation failed because of invalid "
                     + "claims: {}", invalidClaims);
@@ -198,6 +211,30 @@ public final class OidcLogoutTokenValidator
         this.clock = clock;
     }
 
+    /**
+     * Sets the cache used to reject Logout Tokens whose
+     * {@link JwtClaimNames#JTI jti} claim has been recently received. Tokens
+     * issued longer than the retention window of the cache ago are then
+     * rejected too. By default, no cache is used and replayed tokens are
+     * accepted.
+     *
+     * @param replayCache
+     *            the replay cache, or {@code null} to accept replayed tokens
+     */
+    public void setReplayCache(JtiReplayCache replayCache) {
+        this.replayCache = replayCache;
+    }
+
+    private void checkReplay(Jwt token, Map<String, Object> invalidClaims) {
+        final var jti = token.getId();
+        final var iss = token.getClaimAsString(JwtClaimNames.ISS);
+        if (replayCache != null && jti != null
+                && !replayCache.recordIfAbsent(iss, jti,
+                        token.getIssuedAt())) {
+            invalidClaims.put(JwtClaimNames.JTI, jti);
+        }
+    }
+
     private static OAuth2Error invalidLogoutTokenAlgorithm(String alg) {
         return new OAuth2Error("invalid_request",
                 "The Logout Token algorithm is invalid: " + alg,
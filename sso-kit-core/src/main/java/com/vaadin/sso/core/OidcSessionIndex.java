@@ -0,0 +1,67 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full license.
+ */
+package com.vaadin.sso.core;
+
+import java.util.Collection;
+
+import org.springframework.security.core.session.SessionInformation;
+import org.springframework.security.core.session.SessionRegistry;
+
+/**
+ * A lookup of sessions by the OpenID Connect claims of their principals.
+ * <p>
+ * {@link SessionRegistry} implementations which also implement this interface
+ * allow Back-Channel logout requests to find the sessions to expire without
+ * iterating over all the principals in the registry.
+ *
+ * @author Vaadin Ltd
+ * @since 4.1
+ */
+public interface OidcSessionIndex {
+
+    /**
+     * Finds the sessions whose principal was authenticated with the given
+     * session-id ({@code sid} claim) by the given issuer.
+     *
+     * @param issuer
+     *            the issuer identifier, can be {@code null}
+     * @param sid
+     *            the session-id claim value, not {@code null}
+     * @return the matching sessions, possibly empty
+     */
+    Collection<SessionInformation> findSessionsBySid(String issuer,
+            String sid);
+
+    /**
+     * Finds the sessions whose principal has the given subject ({@code sub}
+     * claim) at the given issuer.
+     *
+     * @param issuer
+     *            the issuer identifier, can be {@code null}
+     * @param subject
+     *            the subject claim value, not {@code null}
+     * @return the matching sessions, possibly empty
+     */
+    Collection<SessionInformation> findSessionsBySubject(String issuer,
+            String subject);
+
+    /**
+     * Finds the sessions matching the given criteria: by session-id if given,
+     * by subject otherwise.
+     *
+     * @param criteria
+     *            the criteria, with a non-{@code null} issuer
+     * @return the matching sessions, possibly empty
+     */
+    default Collection<SessionInformation> findSessions(
+            LogoutCriteria criteria) {
+        return criteria.sid() != null
+                ? findSessionsBySid(criteria.issuer(), criteria.sid())
+                : findSessionsBySubject(criteria.issuer(), criteria.subject());
+    }
+}
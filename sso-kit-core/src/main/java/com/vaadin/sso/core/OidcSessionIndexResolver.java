@@ -0,0 +1,90 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full license.
+ */
+package com.vaadin.sso.core;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.oauth2.core.oidc.user.OidcUser;
+import org.springframework.session.IndexResolver;
+import org.springframework.session.PrincipalNameIndexResolver;
+import org.springframework.session.Session;
+
+import static org.springframework.security.web.context.HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY;
+
+/**
+ * An {@link IndexResolver} which indexes Spring Session sessions by the OIDC
+ * claims used by Back-Channel logout requests, for the
+ * {@link SpringSessionRegistry}.
+ * <p>
+ * The principal name index is resolved as by default, so that the sessions
+ * can still be found by user name. The {@code sub} and {@code sid} claims of
+ * the sessions of OIDC users are resolved as the {@link #SUBJECT_INDEX_NAME}
+ * and {@link #SID_INDEX_NAME} indexes, for the repositories which support
+ * indexes other than the principal name one.
+ *
+ * @author Vaadin Ltd
+ * @since 4.1
+ */
+public class OidcSessionIndexResolver implements IndexResolver<Session> {
+
+    /**
+     * The name of the index holding the {@code sub} claim.
+     */
+    public static final String SUBJECT_INDEX_NAME = OidcSessionIndexResolver.class
+            .getName() + ".SUB";
+
+    /**
+     * The name of the index holding the {@code sid} claim.
+     */
+    public static final String SID_INDEX_NAME = OidcSessionIndexResolver.class
+            .getName() + ".SID";
+
+    private final IndexResolver<Session> delegate;
+
+    /**
+     * Creates a new instance.
+     */
+    public OidcSessionIndexResolver() {
+        delegate = new PrincipalNameIndexResolver<>();
+    }
+
+    @Override
+    public Map<String, String> resolveIndexesFor(Session session) {
+        final var user = getOidcUser(session);
+        if (user == null) {
+            return delegate.resolveIndexesFor(session);
+        }
+        final var indexes = new HashMap<>(delegate.resolveIndexesFor(session));
+        final var subject = user.getSubject();
+        if (subject != null) {
+            indexes.put(SUBJECT_INDEX_NAME, subject);
+        }
+        final var sid = user.getClaimAsString(SessionClaimIndex.SID_CLAIM);
+        if (sid != null) {
+            indexes.put(SID_INDEX_NAME, sid);
+        }
+        return indexes;
+    }
+
+    /*
+     * Gets the OIDC user authenticated in the given session, or null.
+     */
+    static OidcUser getOidcUser(Session session) {
+        final Object context = session
+                .getAttribute(SPRING_SECURITY_CONTEXT_KEY);
+        if (context instanceof SecurityContext securityContext
+                && securityContext.getAuthentication() != null
+                && securityContext.getAuthentication()
+                        .getPrincipal() instanceof OidcUser user) {
+            return user;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,355 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full license.
+ */
+package com.vaadin.sso.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+import org.springframework.context.ApplicationListener;
+import org.springframework.security.core.session.AbstractSessionEvent;
+import org.springframework.security.core.session.SessionDestroyedEvent;
+import org.springframework.security.core.session.SessionIdChangedEvent;
+import org.springframework.security.core.session.SessionInformation;
+import org.springframework.security.core.session.SessionRegistry;
+import org.springframework.security.core.session.SessionRegistryImpl;
+import org.springframework.util.Assert;
+
+/**
+ * A {@link SessionRegistry} tuned for single sign-on workloads, which also
+ * indexes sessions by the {@code sid} and {@code sub} claims of their OIDC
+ * principals.
+ * <p>
+ * Unlike {@link SessionRegistryImpl}, sessions of the same principal are kept
+ * in a concurrent set instead of a copy-on-write one, so that registering a
+ * session does not copy the other sessions of the principal. Refreshing the
+ * last request time of a session, which happens on each request, only writes
+ * a single field.
+ * <p>
+ * The active sessions of each principal are counted. Once
+ * {@link #enableRecencyOrder()} is called, which is only needed when the
+ * maximum number of sessions per principal is enforced, they are also kept
+ * ordered by their last request time, so that the least recently used one is
+ * found in logarithmic time. Refreshing the last request time then also moves
+ * the session in this order, under the lock of the session only.
+ * <p>
+ * Not to be confused with Spring Security's
+ * {@code org.springframework.security.oauth2.client.oidc.session.OidcSessionRegistry},
+ * which is used by the built-in OIDC Back-Channel Logout support.
+ *
+ * @author Vaadin Ltd
+ * @since 4.1
+ */
+public class OidcSessionRegistry implements SessionRegistry, OidcSessionIndex,
+        SessionRecencyIndex, ApplicationListener<AbstractSessionEvent> {
+
+    private static final Comparator<RecencyKey> RECENCY_ORDER = Comparator
+            .comparingLong(RecencyKey::lastRequest)
+            .thenComparing(RecencyKey::sessionId);
+
+    private final ConcurrentMap<String, SessionRecord> sessions = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<Object, PrincipalSessions> principals = new ConcurrentHashMap<>();
+
+    private final SessionClaimIndex index = new SessionClaimIndex();
+
+    private volatile SessionRegistrySweeper sweeper;
+
+    private volatile boolean recencyOrdered;
+
+    @Override
+    public List<Object> getAllPrincipals() {
+        return new ArrayList<>(principals.keySet());
+    }
+
+    @Override
+    public List<SessionInformation> getAllSessions(Object principal,
+            boolean includeExpiredSessions) {
+        final var principalSessions = principals.get(principal);
+        if (principalSessions == null) {
+            return List.of();
+        }
+        final var sessionIds = principalSessions.sessionIds;
+        final var result = new ArrayList<SessionInformation>(
+                sessionIds.size());
+        for (String sessionId : sessionIds) {
+            final var info = sessions.get(sessionId);
+            if (info != null
+                    && (includeExpiredSessions || !info.isExpired())) {
+                result.add(info);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public SessionInformation getSessionInformation(String sessionId) {
+        Assert.hasText(sessionId,
+                "SessionId required as per interface contract");
+        return sessions.get(sessionId);
+    }
+
+    @Override
+    public void refreshLastRequest(String sessionId) {
+        Assert.hasText(sessionId,
+                "SessionId required as per interface contract");
+        final var info = sessions.get(sessionId);
+        if (info != null) {
+            info.refreshLastRequest();
+        }
+    }
+
+    @Override
+    public void registerNewSession(String sessionId, Object principal) {
+        Assert.hasText(sessionId,
+                "SessionId required as per interface contract");
+        Assert.notNull(principal,
+                "Principal required as per interface contract");
+        removeSessionInformation(sessionId);
+        final var principalSessions = principals.compute(principal,
+                (p, existing) -> {
+                    final var ps = existing != null ? existing
+                            : new PrincipalSessions();
+                    ps.sessionIds.add(sessionId);
+                    return ps;
+                });
+        final var info = new SessionRecord(principal, sessionId,
+                principalSessions);
+        sessions.put(sessionId, info);
+        info.activate(recencyOrdered);
+        index.add(sessionId, principal);
+        final var sessionSweeper = sweeper;
+        if (sessionSweeper != null) {
+            sessionSweeper.track(sessionId);
+        }
+    }
+
+    @Override
+    public void removeSessionInformation(String sessionId) {
+        Assert.hasText(sessionId,
+                "SessionId required as per interface contract");
+        final var info = sessions.remove(sessionId);
+        if (info == null) {
+            return;
+        }
+        info.deactivate();
+        final var principal = info.getPrincipal();
+        index.remove(sessionId, principal);
+        principals.computeIfPresent(principal, (p, principalSessions) -> {
+            principalSessions.sessionIds.remove(sessionId);
+            return principalSessions.sessionIds.isEmpty() ? null
+                    : principalSessions;
+        });
+    }
+
+    @Override
+    public Collection<SessionInformation> findSessionsBySid(String issuer,
+            String sid) {
+        return getSessions(index.findBySid(issuer, sid));
+    }
+
+    @Override
+    public Collection<SessionInformation> findSessionsBySubject(String issuer,
+            String subject) {
+        return getSessions(index.findBySubject(issuer, subject));
+    }
+
+    @Override
+    public int countActiveSessions(Object principal) {
+        final var principalSessions = principals.get(principal);
+        return principalSessions != null ? principalSessions.activeCount : 0;
+    }
+
+    @Override
+    public SessionInformation findLeastRecentlyUsedSession(Object principal) {
+        final var principalSessions = principals.get(principal);
+        if (principalSessions == null) {
+            return null;
+        }
+        if (recencyOrdered) {
+            final var active = principalSessions.active;
+            final var oldest = active != null ? active.firstEntry() : null;
+            return oldest != null ? oldest.getValue() : null;
+        }
+        SessionInformation oldest = null;
+        for (var sessionId : principalSessions.sessionIds) {
+            final var info = sessions.get(sessionId);
+            if (info != null && !info.isExpired() && (oldest == null || info
+                    .getLastRequest().before(oldest.getLastRequest()))) {
+                oldest = info;
+            }
+        }
+        return oldest;
+    }
+
+    @Override
+    public void enableRecencyOrder() {
+        recencyOrdered = true;
+        // Orders the sessions registered before
+        sessions.values().forEach(SessionRecord::order);
+    }
+
+    /**
+     * Sets the sweeper which removes the sessions timed out without a session
+     * destroyed event. The sessions registered from now on are tracked by the
+     * sweeper, which must sweep this registry.
+     *
+     * @param sweeper
+     *            the sweeper, or {@code null} to track no sessions
+     */
+    public void setSweeper(SessionRegistrySweeper sweeper) {
+        this.sweeper = sweeper;
+    }
+
+    @Override
+    public void onApplicationEvent(AbstractSessionEvent event) {
+        if (event instanceof SessionDestroyedEvent destroyedEvent) {
+            removeSessionInformation(destroyedEvent.getId());
+        } else if (event instanceof SessionIdChangedEvent idChangedEvent) {
+            final var oldSessionId = idChangedEvent.getOldSessionId();
+            final var info = sessions.get(oldSessionId);
+            if (info != null) {
+                removeSessionInformation(oldSessionId);
+                registerNewSession(idChangedEvent.getNewSessionId(),
+                        info.getPrincipal());
+            }
+        }
+    }
+
+    private List<SessionInformation> getSessions(Set<String> sessionIds) {
+        final var result = new ArrayList<SessionInformation>(
+                sessionIds.size());
+        for (String sessionId : sessionIds) {
+            final var info = sessions.get(sessionId);
+            if (info != null) {
+                result.add(info);
+            }
+        }
+        return result;
+    }
+
+    /*
+     * The sessions of a principal: the identifiers of all of them, the count
+     * of the active ones and, once one of them is ordered, the active ones
+     * ordered by last request time.
+     */
+    private static final class PrincipalSessions {
+
+        private static final AtomicIntegerFieldUpdater<PrincipalSessions> ACTIVE_COUNT = AtomicIntegerFieldUpdater
+                .newUpdater(PrincipalSessions.class, "activeCount");
+
+        private final Set<String> sessionIds = ConcurrentHashMap.newKeySet();
+
+        private volatile ConcurrentSkipListMap<RecencyKey, SessionRecord> active;
+
+        private volatile int activeCount;
+
+        ConcurrentSkipListMap<RecencyKey, SessionRecord> ordered() {
+            var map = active;
+            if (map == null) {
+                synchronized (this) {
+                    map = active;
+                    if (map == null) {
+                        map = new ConcurrentSkipListMap<>(RECENCY_ORDER);
+                        active = map;
+                    }
+                }
+            }
+            return map;
+        }
+    }
+
+    private record RecencyKey(long lastRequest, String sessionId) {
+    }
+
+    /*
+     * Session information which counts itself among the active sessions of
+     * its principal. When ordered, refreshing and expiring the session also
+     * reorder or remove it among the active sessions of its principal, under
+     * the lock of the session.
+     */
+    private static final class SessionRecord extends SessionInformation {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient PrincipalSessions principalSessions;
+
+        /* Whether counted among the active sessions, guarded by this */
+        private transient boolean active;
+
+        /* The key among the ordered active sessions, or null if not ordered */
+        private transient volatile RecencyKey key;
+
+        SessionRecord(Object principal, String sessionId,
+                PrincipalSessions principalSessions) {
+            super(principal, sessionId, new Date());
+            this.principalSessions = principalSessions;
+        }
+
+        @Override
+        public void refreshLastRequest() {
+            super.refreshLastRequest();
+            if (key != null) {
+                synchronized (this) {
+                    final var previous = key;
+                    final var now = getLastRequest().getTime();
+                    if (previous != null && previous.lastRequest() != now) {
+                        final var ordered = principalSessions.ordered();
+                        ordered.remove(previous);
+                        key = new RecencyKey(now, getSessionId());
+                        ordered.put(key, this);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public synchronized void expireNow() {
+            super.expireNow();
+            deactivate();
+        }
+
+        synchronized void activate(boolean ordered) {
+            if (!active && !isExpired()) {
+                active = true;
+                PrincipalSessions.ACTIVE_COUNT
+                        .incrementAndGet(principalSessions);
+                if (ordered) {
+                    order();
+                }
+            }
+        }
+
+        synchronized void order() {
+            if (active && key == null) {
+                key = new RecencyKey(getLastRequest().getTime(),
+                        getSessionId());
+                principalSessions.ordered().put(key, this);
+            }
+        }
+
+        synchronized void deactivate() {
+            if (active) {
+                active = false;
+                PrincipalSessions.ACTIVE_COUNT
+                        .decrementAndGet(principalSessions);
+                if (key != null) {
+                    principalSessions.ordered().remove(key);
+                    key = null;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full license.
+ */
+package com.vaadin.sso.core;
+
+import java.security.Principal;
+
+/**
+ * The principal of a session restored without the OIDC user it was created
+ * for, such as the sessions restored by {@link JournaledSessionRegistry}.
+ * <p>
+ * It holds the claims identifying the session to Back-Channel logout
+ * requests, so that the session can be matched with the OIDC user of its
+ * clients.
+ *
+ * @author Vaadin Ltd
+ * @since 4.1
+ */
+public interface RestoredSessionPrincipal extends Principal {
+
+    /**
+     * Gets the criteria matching the sessions of the principal: by session-id
+     * if known, by subject otherwise, as for the OIDC user the session was
+     * created for.
+     *
+     * @return the logout criteria, not {@code null}
+     */
+    LogoutCriteria toLogoutCriteria();
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full license.
+ */
+package com.vaadin.sso.core;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.security.oauth2.core.oidc.IdTokenClaimNames;
+import org.springframework.security.oauth2.core.oidc.user.OidcUser;
+
+/**
+ * Maps the issuer-scoped {@code sid} and {@code sub} claims of OIDC principals
+ * to the identifiers of their sessions.
+ */
+final class SessionClaimIndex {
+
+    /* The session-id claim, as defined by OpenID Connect Session Management */
+    static final String SID_CLAIM = "sid";
+
+    private final ConcurrentMap<Key, Set<String>> bySid = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<Key, Set<String>> bySubject = new ConcurrentHashMap<>();
+
+    /**
+     * Adds the session to the index if its principal is an {@link OidcUser}.
+     *
+     * @param sessionId
+     *            the session identifier
+     * @param principal
+     *            the session principal
+     */
+    void add(String sessionId, Object principal) {
+        if (principal instanceof OidcUser user) {
+            add(sessionId, issuer(user), user.getClaimAsString(SID_CLAIM),
+                    user.getSubject());
+        }
+    }
+
+    /*
+     * Adds the session to the index with the given claims, any of which can
+     * be null.
+     */
+    void add(String sessionId, String issuer, String sid, String subject) {
+        if (sid != null) {
+            add(bySid, new Key(issuer, sid), sessionId);
+        }
+        if (subject != null) {
+            add(bySubject, new Key(issuer, subject), sessionId);
+        }
+    }
+
+    /**
+     * Removes the session from the index.
+     *
+     * @param sessionId
+     *            the session identifier
+     * @param principal
+     *            the principal the session was added with
+     */
+    void remove(String sessionId, Object principal) {
+        if (principal instanceof OidcUser user) {
+            remove(sessionId, issuer(user), user.getClaimAsString(SID_CLAIM),
+                    user.getSubject());
+        }
+    }
+
+    /*
+     * Removes the session from the index, with the claims it was added with.
+     */
+    void remove(String sessionId, String issuer, String sid, String subject) {
+        if (sid != null) {
+            remove(bySid, new Key(issuer, sid), sessionId);
+        }
+        if (subject != null) {
+            remove(bySubject, new Key(issuer, subject), sessionId);
+        }
+    }
+
+    Set<String> findBySid(String issuer, String sid) {
+        return bySid.getOrDefault(new Key(issuer, sid), Set.of());
+    }
+
+    Set<String> findBySubject(String issuer, String subject) {
+        return bySubject.getOrDefault(new Key(issuer, subject), Set.of());
+    }
+
+    /**
+     * Gets the issuer of the given principal as a string. The claim is not
+     * read as a URL, since issuers are not required to be URLs.
+     *
+     * @param user
+     *            the OIDC user
+     * @return the issuer, or {@code null} if not available
+     */
+    static String issuer(OidcUser user) {
+        return user.getClaimAsString(IdTokenClaimNames.ISS);
+    }
+
+    private static void add(ConcurrentMap<Key, Set<String>> index, Key key,
+            String sessionId) {
+        index.compute(key, (k, sessionIds) -> {
+            final var ids = sessionIds != null ? sessionIds
+                    : ConcurrentHashMap.<String> newKeySet();
+            ids.add(sessionId);
+            return ids;
+        });
+    }
+
+    private static void remove(ConcurrentMap<Key, Set<String>> index, Key key,
+            String sessionId) {
+        index.computeIfPresent(key, (k, sessionIds) -> {
+            sessionIds.remove(sessionId);
+            return sessionIds.isEmpty() ? null : sessionIds;
+        });
+    }
+
+    private record Key(String issuer, String value) {
+    }
+}
@@ -0,0 +1,355 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full license.
+ */
+package com.vaadin.sso.core;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * An append-only journal of the registered and removed sessions, written to
+ * memory-mapped files.
+ * <p>
+ * Each record is written as its length followed by its content. The length
+ * is written last, after a zero length marking the end of the journal, so
+ * that a record interrupted by the end of the process is ignored when the
+ * journal is replayed. Records are written to the mapped pages only: they are
+ * left to the operating system to write to the disk.
+ * <p>
+ * The journal alternates between two generation files, the given one and a
+ * sibling with the {@value #GENERATION_SUFFIX} suffix. A rewrite fills the
+ * generation not in use, and then marks it as the current one with a greater
+ * sequence number in its header, so that files are neither moved nor
+ * truncated while they are mapped.
+ * <p>
+ * The journal must be rewritten after it is replayed, so that the records
+ * appended later never follow a partially written record.
+ */
+final class SessionJournal implements AutoCloseable {
+
+    /* "SSOJ" followed by the version of the format */
+    private static final long MAGIC = 0x53534f4a_00000002L;
+
+    /* The magic number followed by the sequence number of the generation */
+    private static final int HEADER_SIZE = 2 * Long.BYTES;
+
+    static final int INITIAL_CAPACITY = 1 << 20;
+
+    static final String GENERATION_SUFFIX = ".1";
+
+    private static final byte REGISTRATION = 1;
+
+    private static final byte REMOVAL = 2;
+
+    private static final int NULL_LENGTH = -1;
+
+    /**
+     * The claims of a journaled session, any of which but the session
+     * identifier can be {@code null}, and the time of its last request when
+     * it was journaled.
+     */
+    record Entry(String sessionId, String issuer, String sid, String subject,
+            long lastRequest) {
+
+        Entry withLastRequest(long lastRequest) {
+            return new Entry(sessionId, issuer, sid, subject, lastRequest);
+        }
+    }
+
+    private final Generation[] generations;
+
+    /* Held by the single rewrite in progress, acquired before this lock */
+    private final Object rewriteLock = new Object();
+
+    private int current;
+
+    private long sequence;
+
+    private int position;
+
+    private int records;
+
+    /* The records appended during a rewrite, or null */
+    private List<ByteBuffer> rewritePending;
+
+    private boolean closed;
+
+    SessionJournal(Path file) throws IOException {
+        final var first = new Generation(file);
+        try {
+            generations = new Generation[] { first, new Generation(file
+                    .resolveSibling(file.getFileName() + GENERATION_SUFFIX)) };
+        } catch (IOException e) {
+            first.close();
+            throw e;
+        }
+    }
+
+    /*
+     * Reads the records of the current generation, returning the sessions
+     * registered and not removed since, in registration order.
+     */
+    synchronized Map<String, Entry> replay() {
+        current = generations[1].sequence() > generations[0].sequence() ? 1
+                : 0;
+        sequence = Math.max(0, generations[current].sequence());
+        final var buffer = generations[current].buffer;
+        final var entries = new LinkedHashMap<String, Entry>();
+        position = HEADER_SIZE;
+        records = 0;
+        if (sequence == 0) {
+            // New or unknown files, overwritten by the next rewrite
+            return entries;
+        }
+        while (position + Integer.BYTES <= buffer.capacity()) {
+            final var length = buffer.getInt(position);
+            final var start = position + Integer.BYTES;
+            if (length <= 0 || length > buffer.capacity() - start) {
+                break;
+            }
+            final var record = buffer.slice(start, length);
+            try {
+                final var type = record.get();
+                final var sessionId = readString(record);
+                if (type == REGISTRATION) {
+                    entries.put(sessionId,
+                            new Entry(sessionId, readString(record),
+                                    readString(record), readString(record),
+                                    record.getLong()));
+                } else if (type == REMOVAL) {
+                    entries.remove(sessionId);
+                } else {
+                    break;
+                }
+            } catch (BufferUnderflowException | IllegalArgumentException e) {
+                break;
+            }
+            position = start + length;
+            records++;
+        }
+        return entries;
+    }
+
+    synchronized void appendRegistration(Entry entry) throws IOException {
+        append(registration(entry));
+    }
+
+    synchronized void appendRemoval(String sessionId) throws IOException {
+        final var id = encode(sessionId);
+        final var record = ByteBuffer.allocate(1 + size(id));
+        record.put(REMOVAL);
+        writeString(record, id);
+        append(record.flip());
+    }
+
+    /*
+     * Replaces the journal with one holding a registration record for each of
+     * the sessions returned by the given supplier, which is called with the
+     * lock of this journal held, and can return null to cancel the rewrite.
+     * The records are written without holding the lock: the ones appended
+     * meanwhile are copied to the new generation when it becomes current.
+     */
+    void rewrite(Supplier<? extends Collection<Entry>> snapshot)
+            throws IOException {
+        synchronized (rewriteLock) {
+            final Collection<Entry> entries;
+            final Generation target;
+            synchronized (this) {
+                entries = closed ? null : snapshot.get();
+                if (entries == null) {
+                    return;
+                }
+                target = generations[1 - current];
+                rewritePending = new ArrayList<>();
+            }
+            try {
+                // The target is only written by this thread until it is
+                // current, and is ignored while its sequence is lower
+                var end = HEADER_SIZE;
+                target.buffer.putInt(end, 0);
+                for (var entry : entries) {
+                    end = target.write(end, registration(entry));
+                }
+                target.buffer.force();
+                synchronized (this) {
+                    if (closed) {
+                        return;
+                    }
+                    for (var record : rewritePending) {
+                        end = target.write(end, record);
+                    }
+                    target.writeHeader(sequence + 1);
+                    current = 1 - current;
+                    sequence++;
+                    position = end;
+                    records = entries.size() + rewritePending.size();
+                }
+            } finally {
+                synchronized (this) {
+                    rewritePending = null;
+                }
+            }
+        }
+    }
+
+    /*
+     * The number of records appended since the journal was last rewritten or
+     * replayed, including the ones replayed.
+     */
+    synchronized int getRecords() {
+        return records;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            generations[current].buffer.force();
+        } finally {
+            generations[0].close();
+            generations[1].close();
+        }
+    }
+
+    private void append(ByteBuffer record) throws IOException {
+        position = generations[current].write(position, record);
+        records++;
+        if (rewritePending != null) {
+            rewritePending.add(record);
+        }
+    }
+
+    private static ByteBuffer registration(Entry entry) {
+        final var sessionId = encode(entry.sessionId());
+        final var issuer = encode(entry.issuer());
+        final var sid = encode(entry.sid());
+        final var subject = encode(entry.subject());
+        final var record = ByteBuffer.allocate(1 + size(sessionId)
+                + size(issuer) + size(sid) + size(subject) + Long.BYTES);
+        record.put(REGISTRATION);
+        writeString(record, sessionId);
+        writeString(record, issuer);
+        writeString(record, sid);
+        writeString(record, subject);
+        record.putLong(entry.lastRequest());
+        return record.flip();
+    }
+
+    private static byte[] encode(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int size(byte[] value) {
+        return Integer.BYTES + (value == null ? 0 : value.length);
+    }
+
+    private static void writeString(ByteBuffer record, byte[] value) {
+        if (value == null) {
+            record.putInt(NULL_LENGTH);
+        } else {
+            record.putInt(value.length).put(value);
+        }
+    }
+
+    private static String readString(ByteBuffer record) {
+        final var length = record.getInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        if (length < 0 || length > record.remaining()) {
+            throw new IllegalArgumentException("Malformed record");
+        }
+        final var value = new byte[length];
+        record.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    /*
+     * A generation file, mapped for as long as the journal is open.
+     */
+    private static final class Generation {
+
+        private final Path file;
+
+        private final FileChannel channel;
+
+        private MappedByteBuffer buffer;
+
+        Generation(Path file) throws IOException {
+            this.file = file;
+            channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            final var size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                channel.close();
+                throw new IOException(
+                        "The session journal is too large: " + file);
+            }
+            buffer = channel.map(MapMode.READ_WRITE, 0,
+                    Math.max((int) size, INITIAL_CAPACITY));
+        }
+
+        /*
+         * The sequence number of the generation, or -1 if it has no valid
+         * header.
+         */
+        long sequence() {
+            return buffer.getLong(0) == MAGIC ? buffer.getLong(Long.BYTES)
+                    : -1;
+        }
+
+        void writeHeader(long sequence) {
+            buffer.putLong(Long.BYTES, sequence);
+            buffer.putLong(0, MAGIC);
+        }
+
+        /*
+         * Writes the record at the given position, returning the position
+         * following it.
+         */
+        int write(int position, ByteBuffer record) throws IOException {
+            final var length = record.remaining();
+            final var end = (long) position + Integer.BYTES + length;
+            // Leaves room for the end marker
+            if (end + Integer.BYTES > buffer.capacity()) {
+                if (end + Integer.BYTES > Integer.MAX_VALUE) {
+                    throw new IOException(
+                            "The session journal is too large: " + file);
+                }
+                buffer = channel.map(MapMode.READ_WRITE, 0,
+                        (int) Math.min(Integer.MAX_VALUE, Math.max(
+                                end + Integer.BYTES,
+                                2L * buffer.capacity())));
+            }
+            buffer.put(position + Integer.BYTES, record, record.position(),
+                    length);
+            buffer.putInt((int) end, 0);
+            buffer.putInt(position, length);
+            return (int) end;
+        }
+
+        void close() throws IOException {
+            channel.close();
+        }
+    }
+}
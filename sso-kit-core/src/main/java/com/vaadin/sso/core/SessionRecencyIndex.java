@@ -0,0 +1,56 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full license.
+ */
+package com.vaadin.sso.core;
+
+import org.springframework.security.core.session.SessionInformation;
+import org.springframework.security.core.session.SessionRegistry;
+
+/**
+ * A lookup of the active sessions of a principal, ordered by their last
+ * request time.
+ * <p>
+ * {@link SessionRegistry} implementations which also implement this interface
+ * allow {@link ConcurrentSessionLimitStrategy} to enforce the maximum number of
+ * sessions per principal without fetching, copying and sorting all the
+ * sessions of the principal on each login.
+ *
+ * @author Vaadin Ltd
+ * @since 4.1
+ */
+public interface SessionRecencyIndex {
+
+    /**
+     * Counts the sessions of the given principal which are not expired.
+     *
+     * @param principal
+     *            the principal, not {@code null}
+     * @return the number of active sessions
+     */
+    int countActiveSessions(Object principal);
+
+    /**
+     * Finds the session of the given principal which is not expired and has
+     * the oldest last request time.
+     *
+     * @param principal
+     *            the principal, not {@code null}
+     * @return the least recently used session, or {@code null} if the
+     *         principal has no active session
+     */
+    SessionInformation findLeastRecentlyUsedSession(Object principal);
+
+    /**
+     * Starts keeping the active sessions of each principal ordered by their
+     * last request time, which makes {@link #findLeastRecentlyUsedSession}
+     * faster but each refresh of the last request time slower. It should only
+     * be enabled when the maximum number of sessions is enforced. Does nothing
+     * by default.
+     */
+    default void enableRecencyOrder() {
+    }
+}
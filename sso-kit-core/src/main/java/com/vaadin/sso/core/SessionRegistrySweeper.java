@@ -0,0 +1,196 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full license.
+ */
+package com.vaadin.sso.core;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.core.session.SessionRegistry;
+
+/**
+ * Removes from a {@link SessionRegistry} the sessions which have not been
+ * used for longer than the session timeout of the container.
+ * <p>
+ * Registries are normally cleaned up by the session destroyed events, which
+ * are missed when the container is stopped abruptly, when sessions are
+ * persisted by the container, or when no {@code HttpSessionEventPublisher}
+ * is registered. The entries of such sessions are kept forever, and make the
+ * registry and the Back-Channel logout requests slower.
+ * <p>
+ * Sessions are tracked when registered, in a hierarchical timing wheel
+ * ordered by the time they can time out: each sweep only checks the sessions
+ * due, and schedules again the ones used since they were tracked. Expired
+ * sessions are not removed before they time out, so that their next request
+ * is still rejected.
+ *
+ * @author Vaadin Ltd
+ * @since 4.1
+ * @see OidcSessionRegistry#setSweeper(SessionRegistrySweeper)
+ * @see IndexedSessionRegistry#setSweeper(SessionRegistrySweeper)
+ */
+public class SessionRegistrySweeper implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(SessionRegistrySweeper.class);
+
+    /**
+     * The default interval between sweeps.
+     */
+    public static final Duration DEFAULT_SWEEP_INTERVAL = Duration
+            .ofMinutes(1);
+
+    private static final long TICK_MILLIS = 1000;
+
+    private final SessionRegistry registry;
+
+    private final long sessionTimeoutMillis;
+
+    private final LongSupplier clock;
+
+    private final SessionTimingWheel wheel;
+
+    private final LongAdder reclaimed = new LongAdder();
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param registry
+     *            the registry to sweep, not {@code null}
+     * @param sessionTimeout
+     *            the session timeout of the container, not {@code null}
+     */
+    public SessionRegistrySweeper(SessionRegistry registry,
+            Duration sessionTimeout) {
+        this(registry, sessionTimeout, System::currentTimeMillis);
+    }
+
+    SessionRegistrySweeper(SessionRegistry registry, Duration sessionTimeout,
+            LongSupplier clock) {
+        this.registry = Objects.requireNonNull(registry);
+        this.sessionTimeoutMillis = sessionTimeout.toMillis();
+        this.clock = clock;
+        this.wheel = new SessionTimingWheel(TICK_MILLIS, clock.getAsLong());
+    }
+
+    /**
+     * Tracks a newly registered session, to be checked when it can time out.
+     *
+     * @param sessionId
+     *            the session identifier, not {@code null}
+     */
+    public void track(String sessionId) {
+        final var deadline = clock.getAsLong() + sessionTimeoutMillis;
+        synchronized (wheel) {
+            wheel.schedule(sessionId, deadline);
+        }
+    }
+
+    /**
+     * Removes the tracked sessions which timed out, that is whose last request
+     * is older than the session timeout.
+     *
+     * @return the number of removed sessions
+     */
+    public int sweep() {
+        final var now = clock.getAsLong();
+        final var due = new ArrayList<String>();
+        synchronized (wheel) {
+            wheel.advance(now, due::add);
+        }
+        int removed = 0;
+        for (var sessionId : due) {
+            final var info = registry.getSessionInformation(sessionId);
+            if (info == null) {
+                // Already removed, or tracked again with a new identifier
+                continue;
+            }
+            final var deadline = info.getLastRequest().getTime()
+                    + sessionTimeoutMillis;
+            if (deadline <= now) {
+                registry.removeSessionInformation(sessionId);
+                removed++;
+            } else {
+                synchronized (wheel) {
+                    wheel.schedule(sessionId, deadline);
+                }
+            }
+        }
+        if (removed > 0) {
+            LOGGER.debug("Removed {} timed out sessions from the registry",
+                    removed);
+            reclaimed.add(removed);
+        }
+        return removed;
+    }
+
+    /**
+     * Gets the number of timed out sessions removed from the registry since
+     * the sweeper was created.
+     *
+     * @return the number of removed sessions
+     */
+    public long getReclaimedCount() {
+        return reclaimed.sum();
+    }
+
+    /**
+     * Starts sweeping the registry periodically on a background thread.
+     *
+     * @param interval
+     *            the interval between sweeps, not {@code null}
+     */
+    public synchronized void start(Duration interval) {
+        if (scheduler != null) {
+            throw new IllegalStateException("The sweeper is already started");
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(Thread
+                .ofPlatform().name("sso-session-sweeper").daemon().factory());
+        final var millis = interval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::sweepSafely, millis, millis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the periodic sweeps, if started.
+     */
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /*
+     * The number of tracked sessions, including the ones already removed
+     * from the registry but not swept yet.
+     */
+    int getTrackedSessions() {
+        synchronized (wheel) {
+            return wheel.size();
+        }
+    }
+
+    private void sweepSafely() {
+        try {
+            sweep();
+        } catch (RuntimeException e) {
+            LOGGER.warn("Failed to sweep the session registry", e);
+        }
+    }
+}
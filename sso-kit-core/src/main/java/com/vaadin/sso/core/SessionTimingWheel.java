@@ -0,0 +1,136 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full license.
+ */
+package com.vaadin.sso.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A hierarchical timing wheel of session identifiers, each scheduled at a
+ * deadline.
+ * <p>
+ * Each level has {@value #SLOTS} slots, each slot of a level spanning all the
+ * slots of the level below. Scheduling a session and collecting a due one both
+ * take constant time, the sessions of a slot being moved to the level below
+ * when the wheel reaches it. Deadlines beyond the span of the wheel are kept
+ * in the last level and scheduled again when reached.
+ * <p>
+ * This class is not thread-safe.
+ */
+final class SessionTimingWheel {
+
+    private static final int SLOT_BITS = 6;
+
+    static final int SLOTS = 1 << SLOT_BITS;
+
+    private static final int SLOT_MASK = SLOTS - 1;
+
+    private static final int LEVELS = 4;
+
+    private final long tickMillis;
+
+    private final List<List<Entry>> slots = new ArrayList<>(LEVELS * SLOTS);
+
+    private long currentTick;
+
+    private int size;
+
+    private record Entry(String sessionId, long deadlineTick) {
+    }
+
+    /**
+     * Creates a new wheel.
+     *
+     * @param tickMillis
+     *            the duration of a slot of the first level, in milliseconds
+     * @param nowMillis
+     *            the current time, in milliseconds
+     */
+    SessionTimingWheel(long tickMillis, long nowMillis) {
+        this.tickMillis = tickMillis;
+        this.currentTick = nowMillis / tickMillis;
+        for (int i = 0; i < LEVELS * SLOTS; i++) {
+            slots.add(new ArrayList<>());
+        }
+    }
+
+    /*
+     * Schedules the session at the given deadline, rounded up to the next
+     * tick.
+     */
+    void schedule(String sessionId, long deadlineMillis) {
+        final var deadlineTick = Math.max(
+                Math.ceilDiv(deadlineMillis, tickMillis), currentTick + 1);
+        insert(new Entry(sessionId, deadlineTick));
+        size++;
+    }
+
+    /*
+     * Advances the wheel to the given time, passing the sessions whose
+     * deadline is reached to the given consumer.
+     */
+    void advance(long nowMillis, Consumer<String> due) {
+        final var targetTick = nowMillis / tickMillis;
+        while (currentTick < targetTick) {
+            if (size == 0) {
+                currentTick = targetTick;
+                return;
+            }
+            currentTick++;
+            // Moves the sessions of the higher slots reached to lower ones
+            for (int level = LEVELS - 1; level > 0; level--) {
+                if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+                    cascade(slot(level, currentTick));
+                }
+            }
+            final var slot = slot(0, currentTick);
+            if (!slot.isEmpty()) {
+                final var entries = new ArrayList<>(slot);
+                slot.clear();
+                for (var entry : entries) {
+                    if (entry.deadlineTick() <= currentTick) {
+                        size--;
+                        due.accept(entry.sessionId());
+                    } else {
+                        insert(entry);
+                    }
+                }
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void cascade(List<Entry> slot) {
+        if (slot.isEmpty()) {
+            return;
+        }
+        final var entries = new ArrayList<>(slot);
+        slot.clear();
+        entries.forEach(this::insert);
+    }
+
+    private void insert(Entry entry) {
+        final var tick = Math.max(entry.deadlineTick(), currentTick);
+        final var delta = tick - currentTick;
+        int level = 0;
+        while (level < LEVELS - 1
+                && delta >= 1L << (SLOT_BITS * (level + 1))) {
+            level++;
+        }
+        slot(level, tick).add(entry);
+    }
+
+    private List<Entry> slot(int level, long tick) {
+        final var index = (int) (tick >>> (SLOT_BITS * level)) & SLOT_MASK;
+        return slots.get(level * SLOTS + index);
+    }
+}
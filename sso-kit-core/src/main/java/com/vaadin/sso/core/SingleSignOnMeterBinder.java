@@ -0,0 +1,113 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full license.
+ */
+package com.vaadin.sso.core;
+
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Binds the metrics of the SSO Kit session management to a Micrometer
+ * {@link MeterRegistry}.
+ * <p>
+ * The following meters are registered, if the component they are read from
+ * is given:
+ * <ul>
+ * <li>{@value #RECLAIMED_SESSIONS_COUNTER}: a counter of the timed out
+ * sessions removed from the session registry by the
+ * {@link SessionRegistrySweeper}</li>
+ * <li>{@value #QUEUE_DEPTH_GAUGE}: the number of Back-Channel logout tasks
+ * waiting in the queue of the {@link BackChannelLogoutExecutor}</li>
+ * <li>{@value #LAG_GAUGE}: the time the most recently started logout task
+ * spent in the queue</li>
+ * <li>{@value #MAXIMUM_LAG_GAUGE}: the longest time a logout task has spent
+ * in the queue</li>
+ * </ul>
+ * The meters read their values from the components, which do not depend on
+ * Micrometer themselves.
+ *
+ * @author Vaadin Ltd
+ * @since 4.1
+ */
+public class SingleSignOnMeterBinder implements MeterBinder {
+
+    /**
+     * The name of the counter of the timed out sessions removed from the
+     * session registry.
+     */
+    public static final String RECLAIMED_SESSIONS_COUNTER = "sso.session.registry.reclaimed";
+
+    /**
+     * The name of the gauge of the queued Back-Channel logout tasks.
+     */
+    public static final String QUEUE_DEPTH_GAUGE = "sso.backchannel.logout.queue.depth";
+
+    /**
+     * The name of the gauge of the queueing time of the last started
+     * Back-Channel logout task.
+     */
+    public static final String LAG_GAUGE = "sso.backchannel.logout.queue.lag";
+
+    /**
+     * The name of the gauge of the longest queueing time of a Back-Channel
+     * logout task.
+     */
+    public static final String MAXIMUM_LAG_GAUGE = "sso.backchannel.logout.queue.lag.max";
+
+    private final SessionRegistrySweeper sweeper;
+
+    private final BackChannelLogoutExecutor executor;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param sweeper
+     *            the session registry sweeper, or {@code null} if the
+     *            registry is not swept
+     * @param executor
+     *            the Back-Channel logout executor, or {@code null} if logout
+     *            requests are processed synchronously
+     */
+    public SingleSignOnMeterBinder(SessionRegistrySweeper sweeper,
+            BackChannelLogoutExecutor executor) {
+        this.sweeper = sweeper;
+        this.executor = executor;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (sweeper != null) {
+            FunctionCounter
+                    .builder(RECLAIMED_SESSIONS_COUNTER, sweeper,
+                            SessionRegistrySweeper::getReclaimedCount)
+                    .description("Timed out sessions removed from the registry")
+                    .register(registry);
+        }
+        if (executor != null) {
+            Gauge.builder(QUEUE_DEPTH_GAUGE, executor,
+                    BackChannelLogoutExecutor::getQueueDepth)
+                    .description("Back-Channel logout tasks waiting")
+                    .register(registry);
+            TimeGauge.builder(LAG_GAUGE, executor, TimeUnit.NANOSECONDS,
+                    e -> e.getProcessingLag().toNanos())
+                    .description("Queueing time of the last started "
+                            + "Back-Channel logout task")
+                    .register(registry);
+            TimeGauge.builder(MAXIMUM_LAG_GAUGE, executor,
+                    TimeUnit.NANOSECONDS,
+                    e -> e.getMaximumProcessingLag().toNanos())
+                    .description("Longest queueing time of a Back-Channel "
+                            + "logout task")
+                    .register(registry);
+        }
+    }
+}
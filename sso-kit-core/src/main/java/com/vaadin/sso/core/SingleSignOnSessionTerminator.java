@@ -0,0 +1,202 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full license.
+ */
+package com.vaadin.sso.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.ObjLongConsumer;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.core.session.SessionInformation;
+import org.springframework.security.core.session.SessionRegistry;
+import org.springframework.security.oauth2.core.oidc.IdTokenClaimNames;
+import org.springframework.security.oauth2.core.oidc.user.OidcUser;
+
+import com.vaadin.sso.core.BackChannelLogoutMetrics.Stage;
+
+/**
+ * Terminates the sessions of the principals matching a set of
+ * {@link LogoutCriteria}, as Back-Channel logout requests do, but for many
+ * subjects or session-ids at once.
+ * <p>
+ * If the session registry is an {@link OidcSessionIndex} and all the criteria
+ * have an issuer, the sessions are looked up for each criteria. Otherwise, the
+ * principals in the registry are matched against all the criteria in a single
+ * pass. In both cases, a
+ * {@link UserLogoutEvent} is published for each matching principal before its
+ * sessions are expired.
+ *
+ * @author Vaadin Ltd
+ * @since 4.1
+ */
+public class SingleSignOnSessionTerminator {
+
+    private final SessionRegistry sessionRegistry;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param sessionRegistry
+     *            the session registry, not {@code null}
+     * @param eventPublisher
+     *            the event-publisher to publish logout events, not
+     *            {@code null}
+     */
+    public SingleSignOnSessionTerminator(SessionRegistry sessionRegistry,
+            ApplicationEventPublisher eventPublisher) {
+        this.sessionRegistry = Objects.requireNonNull(sessionRegistry);
+        this.eventPublisher = Objects.requireNonNull(eventPublisher);
+    }
+
+    /**
+     * Terminates the sessions matching the given criteria.
+     *
+     * @param criteria
+     *            the criteria to match, not {@code null}
+     * @return the number of expired sessions
+     */
+    public int terminate(LogoutCriteria criteria) {
+        return terminate(List.of(criteria));
+    }
+
+    /**
+     * Terminates the sessions matching any of the given criteria.
+     *
+     * @param criteria
+     *            the criteria to match, not {@code null}
+     * @return the number of expired sessions
+     */
+    public int terminate(Collection<LogoutCriteria> criteria) {
+        return terminate(criteria, (stage, nanos) -> {
+        });
+    }
+
+    /*
+     * Terminates the sessions matching any of the given criteria, passing the
+     * duration of each stage to the given recorder.
+     */
+    int terminate(Collection<LogoutCriteria> criteria,
+            ObjLongConsumer<Stage> stageRecorder) {
+        Objects.requireNonNull(criteria);
+        if (criteria.isEmpty()) {
+            return 0;
+        }
+        var start = System.nanoTime();
+        final var principals = new LinkedHashSet<>();
+        final var sessions = findSessions(criteria, principals);
+        start = record(stageRecorder, Stage.MATCH, start);
+        for (Object principal : principals) {
+            eventPublisher.publishEvent(new UserLogoutEvent(principal));
+        }
+        start = record(stageRecorder, Stage.PUBLISH, start);
+        for (SessionInformation session : sessions) {
+            session.expireNow();
+        }
+        record(stageRecorder, Stage.EXPIRE, start);
+        return sessions.size();
+    }
+
+    private static long record(ObjLongConsumer<Stage> stageRecorder,
+            Stage stage, long start) {
+        final var end = System.nanoTime();
+        stageRecorder.accept(stage, end - start);
+        return end;
+    }
+
+    /*
+     * Finds the unexpired sessions matching the criteria, adding the
+     * principals of all the matching sessions to the given set.
+     */
+    private List<SessionInformation> findSessions(
+            Collection<LogoutCriteria> criteria, Set<Object> principals) {
+        // The index is scoped by issuer, so it cannot match any issuer
+        if (sessionRegistry instanceof OidcSessionIndex index && criteria
+                .stream().allMatch(c -> c.issuer() != null)) {
+            // Sessions of equal principals have equal claims, so the index
+            // finds all the sessions of the principals it finds
+            final var sessions = new LinkedHashMap<String, SessionInformation>();
+            for (LogoutCriteria c : criteria) {
+                for (var session : index.findSessions(c)) {
+                    principals.add(session.getPrincipal());
+                    if (!session.isExpired()) {
+                        sessions.putIfAbsent(session.getSessionId(), session);
+                    }
+                }
+            }
+            return new ArrayList<>(sessions.values());
+        }
+        final var matcher = new Matcher(criteria);
+        for (Object principal : sessionRegistry.getAllPrincipals()) {
+            if (principal instanceof OidcUser user && matcher.matches(user)) {
+                principals.add(principal);
+            }
+        }
+        final var sessions = new ArrayList<SessionInformation>();
+        for (Object principal : principals) {
+            sessions.addAll(sessionRegistry.getAllSessions(principal, false));
+        }
+        return sessions;
+    }
+
+    /*
+     * Matches principals against many criteria with a hash lookup by sid and
+     * sub, instead of comparing them with each criteria.
+     */
+    private static final class Matcher {
+
+        /* Issuers by sid or sub value, null if any issuer matches */
+        private final Map<String, Set<String>> issuersBySid = new HashMap<>();
+
+        private final Map<String, Set<String>> issuersBySubject = new HashMap<>();
+
+        Matcher(Collection<LogoutCriteria> criteria) {
+            for (LogoutCriteria c : criteria) {
+                if (c.sid() != null) {
+                    add(issuersBySid, c.sid(), c.issuer());
+                } else {
+                    add(issuersBySubject, c.subject(), c.issuer());
+                }
+            }
+        }
+
+        boolean matches(OidcUser user) {
+            final var issuer = Objects.toString(
+                    user.getClaims().get(IdTokenClaimNames.ISS), null);
+            final var sid = user.getClaimAsString(SessionClaimIndex.SID_CLAIM);
+            return matches(issuersBySid, sid, issuer)
+                    || matches(issuersBySubject, user.getSubject(), issuer);
+        }
+
+        private static void add(Map<String, Set<String>> issuersByValue,
+                String value, String issuer) {
+            issuersByValue.computeIfAbsent(value, v -> new HashSet<>())
+                    .add(issuer);
+        }
+
+        private static boolean matches(Map<String, Set<String>> issuersByValue,
+                String value, String issuer) {
+            if (value == null) {
+                return false;
+            }
+            final var issuers = issuersByValue.get(value);
+            // Principals without an issuer claim match any issuer
+            return issuers != null && (issuer == null || issuers.contains(null)
+                    || issuers.contains(issuer));
+        }
+    }
+}
@@ -0,0 +1,301 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full license.
+ */
+package com.vaadin.sso.core;
+
+import java.io.Serial;
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.core.AuthenticatedPrincipal;
+import org.springframework.security.core.session.SessionInformation;
+import org.springframework.security.core.session.SessionRegistry;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.oauth2.core.oidc.user.OidcUser;
+import org.springframework.session.FindByIndexNameSessionRepository;
+import org.springframework.session.Session;
+
+import static org.springframework.session.FindByIndexNameSessionRepository.PRINCIPAL_NAME_INDEX_NAME;
+
+/**
+ * A {@link SessionRegistry} backed by a Spring Session
+ * {@link FindByIndexNameSessionRepository}, so that a Back-Channel logout
+ * request received by any node finds the sessions shared by all the nodes.
+ * <p>
+ * The repository must index the sessions with an
+ * {@link OidcSessionIndexResolver}, for example with a
+ * {@code SessionRepositoryCustomizer} bean. A logout then costs a single query
+ * of the {@link OidcSessionIndexResolver#SUBJECT_INDEX_NAME} index, or of the
+ * {@link OidcSessionIndexResolver#SID_INDEX_NAME} index for a logout with a
+ * {@code sid} claim only, and a deletion per matching session.
+ * <p>
+ * <b>The repositories of Spring Session, such as the JDBC one, only support
+ * the principal name index.</b> With them, which are detected, the sessions
+ * are found by subject through the principal name index, which must then
+ * hold the {@code sub} claim: the default name of OIDC users, unless another
+ * user name attribute is configured. Logouts with a {@code sid} claim only
+ * cannot be matched, and are logged as warnings.
+ * <p>
+ * Expiring a session deletes it from the repository. Sessions are registered
+ * and removed by Spring Session: the corresponding methods of this registry do
+ * nothing, and all the principals cannot be listed.
+ *
+ * @param <S>
+ *            the type of the sessions
+ * @author Vaadin Ltd
+ * @since 4.1
+ */
+public class SpringSessionRegistry<S extends Session>
+        implements SessionRegistry, OidcSessionIndex {
+
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(SpringSessionRegistry.class);
+
+    /* The repositories which only support the principal name index */
+    private static final Set<String> PRINCIPAL_NAME_INDEXED_REPOSITORIES = Set
+            .of("org.springframework.session.jdbc.JdbcIndexedSessionRepository",
+                    "org.springframework.session.hazelcast.HazelcastIndexedSessionRepository",
+                    "org.springframework.session.data.redis.RedisIndexedSessionRepository",
+                    "org.springframework.session.data.mongo.MongoIndexedSessionRepository");
+
+    private final FindByIndexNameSessionRepository<S> repository;
+
+    private final boolean claimIndexesSupported;
+
+    /**
+     * Creates a new instance, detecting whether the repository supports
+     * indexes other than the principal name one.
+     *
+     * @param repository
+     *            the session repository, not {@code null}
+     */
+    public SpringSessionRegistry(
+            FindByIndexNameSessionRepository<S> repository) {
+        this(repository, !isPrincipalNameIndexedOnly(repository));
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param repository
+     *            the session repository, not {@code null}
+     * @param claimIndexesSupported
+     *            whether the repository supports the indexes resolved by
+     *            {@link OidcSessionIndexResolver} other than the principal
+     *            name one
+     */
+    public SpringSessionRegistry(FindByIndexNameSessionRepository<S> repository,
+            boolean claimIndexesSupported) {
+        this.repository = Objects.requireNonNull(repository);
+        this.claimIndexesSupported = claimIndexesSupported;
+        if (!claimIndexesSupported) {
+            LOGGER.info("{} only supports the principal name index: sessions "
+                    + "are found by subject through it, and logouts without "
+                    + "a subject are not matched",
+                    repository.getClass().getSimpleName());
+        }
+    }
+
+    /**
+     * Returns an empty list, since the principals of all the sessions cannot
+     * be listed efficiently.
+     *
+     * @return an empty list
+     */
+    @Override
+    public List<Object> getAllPrincipals() {
+        return List.of();
+    }
+
+    @Override
+    public List<SessionInformation> getAllSessions(Object principal,
+            boolean includeExpiredSessions) {
+        final var sessions = repository.findByPrincipalName(name(principal));
+        final var result = new ArrayList<SessionInformation>(sessions.size());
+        for (var session : sessions.values()) {
+            final var user = OidcSessionIndexResolver.getOidcUser(session);
+            // Principals of other users may share the same name or subject
+            if ((user == null || user.equals(principal))
+                    && (includeExpiredSessions || !session.isExpired())) {
+                result.add(new SpringSessionInformation(session,
+                        user != null ? user : principal, repository));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public SessionInformation getSessionInformation(String sessionId) {
+        final var session = repository.findById(sessionId);
+        if (session == null) {
+            return null;
+        }
+        final var user = OidcSessionIndexResolver.getOidcUser(session);
+        final Object principal = user != null ? user
+                : session.getAttribute(PRINCIPAL_NAME_INDEX_NAME);
+        return principal != null
+                ? new SpringSessionInformation(session, principal, repository)
+                : null;
+    }
+
+    /**
+     * Does nothing, since the last accessed time of sessions is maintained by
+     * Spring Session.
+     */
+    @Override
+    public void refreshLastRequest(String sessionId) {
+        // Maintained by Spring Session
+    }
+
+    /**
+     * Does nothing, since sessions are registered by Spring Session.
+     */
+    @Override
+    public void registerNewSession(String sessionId, Object principal) {
+        // Maintained by Spring Session
+    }
+
+    /**
+     * Does nothing, since sessions are removed by Spring Session.
+     */
+    @Override
+    public void removeSessionInformation(String sessionId) {
+        // Maintained by Spring Session
+    }
+
+    /**
+     * Finds the sessions with the given claims, which cannot be found if the
+     * repository only supports the principal name index.
+     */
+    @Override
+    public Collection<SessionInformation> findSessionsBySid(String issuer,
+            String sid) {
+        if (!claimIndexesSupported) {
+            LOGGER.warn("Cannot find the sessions of sid {}: the session "
+                    + "repository only supports the principal name index",
+                    sid);
+            return List.of();
+        }
+        return find(repository.findByIndexNameAndIndexValue(
+                OidcSessionIndexResolver.SID_INDEX_NAME, sid), issuer, sid,
+                null);
+    }
+
+    @Override
+    public Collection<SessionInformation> findSessionsBySubject(String issuer,
+            String subject) {
+        return find(findBySubject(subject), issuer, null, subject);
+    }
+
+    /**
+     * Finds the sessions matching the given criteria, by subject if the
+     * criteria have one, since the subject is looked up even if the repository
+     * only supports the principal name index.
+     */
+    @Override
+    public Collection<SessionInformation> findSessions(
+            LogoutCriteria criteria) {
+        if (criteria.subject() == null) {
+            return findSessionsBySid(criteria.issuer(), criteria.sid());
+        }
+        return find(findBySubject(criteria.subject()), criteria.issuer(),
+                criteria.sid(), criteria.subject());
+    }
+
+    private Map<String, S> findBySubject(String subject) {
+        return claimIndexesSupported
+                ? repository.findByIndexNameAndIndexValue(
+                        OidcSessionIndexResolver.SUBJECT_INDEX_NAME, subject)
+                : repository.findByPrincipalName(subject);
+    }
+
+    /*
+     * Keeps the sessions of the OIDC users matching the given claims, the
+     * null ones matching any value.
+     */
+    private List<SessionInformation> find(Map<String, S> sessions,
+            String issuer, String sid, String subject) {
+        final var result = new ArrayList<SessionInformation>(sessions.size());
+        for (var session : sessions.values()) {
+            final var user = OidcSessionIndexResolver.getOidcUser(session);
+            if (user != null
+                    && Objects.equals(issuer, SessionClaimIndex.issuer(user))
+                    && (sid == null || sid.equals(user
+                            .getClaimAsString(SessionClaimIndex.SID_CLAIM)))
+                    && (subject == null || subject.equals(user.getSubject()))) {
+                result.add(new SpringSessionInformation(session, user,
+                        repository));
+            }
+        }
+        return result;
+    }
+
+    private static boolean isPrincipalNameIndexedOnly(Object repository) {
+        for (Class<?> type = repository.getClass(); type != null; type = type
+                .getSuperclass()) {
+            if (PRINCIPAL_NAME_INDEXED_REPOSITORIES.contains(type.getName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String name(Object principal) {
+        if (principal instanceof UserDetails userDetails) {
+            return userDetails.getUsername();
+        } else if (principal instanceof AuthenticatedPrincipal authenticated) {
+            return authenticated.getName();
+        } else if (principal instanceof Principal javaPrincipal) {
+            return javaPrincipal.getName();
+        }
+        return principal.toString();
+    }
+
+    /*
+     * Session information whose expiry deletes the session from the
+     * repository.
+     */
+    private static final class SpringSessionInformation
+            extends SessionInformation {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final transient FindByIndexNameSessionRepository<?> repository;
+
+        private final boolean sessionExpired;
+
+        SpringSessionInformation(Session session, Object principal,
+                FindByIndexNameSessionRepository<?> repository) {
+            super(principal, session.getId(),
+                    Date.from(session.getLastAccessedTime()));
+            this.repository = repository;
+            this.sessionExpired = session.isExpired();
+        }
+
+        @Override
+        public boolean isExpired() {
+            return sessionExpired || super.isExpired();
+        }
+
+        @Override
+        public void expireNow() {
+            super.expireNow();
+            if (repository != null) {
+                repository.deleteById(getSessionId());
+            }
+        }
+    }
+}
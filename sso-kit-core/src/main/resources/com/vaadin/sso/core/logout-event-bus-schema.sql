@@ -0,0 +1,9 @@
+CREATE TABLE SSO_LOGOUT_EVENT (
+    ID BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    ISSUER VARCHAR(2048),
+    SID VARCHAR(255),
+    SUBJECT VARCHAR(255),
+    CREATED_AT BIGINT NOT NULL
+);
+
+CREATE INDEX SSO_LOGOUT_EVENT_IX1 ON SSO_LOGOUT_EVENT (CREATED_AT);
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full license.
+ */
+package com.vaadin.sso.core;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import com.vaadin.sso.core.KeycloakUserMapper.KeycloakClientRole;
+import com.vaadin.sso.core.KeycloakUserMapper.KeycloakRealmRole;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AuthorityPoolTest {
+
+    @Test
+    void intern_equalAuthorities_firstInstanceReturned() {
+        var pool = new AuthorityPool();
+        var first = new KeycloakRealmRole("admin");
+
+        assertThat(pool.intern(first)).isSameAs(first);
+        assertThat(pool.intern(new KeycloakRealmRole("admin")))
+                .isSameAs(first);
+        // Client roles with the same authority string are different roles
+        assertThat(pool.intern(new KeycloakClientRole("client", "admin")))
+                .isNotEqualTo(first);
+        assertThat(pool.size()).isEqualTo(2);
+    }
+
+    @Test
+    void intern_poolFull_givenInstanceReturned() {
+        var pool = new AuthorityPool(1);
+        pool.intern(new KeycloakRealmRole("admin"));
+        var user = new KeycloakRealmRole("user");
+
+        assertThat(pool.intern(user)).isSameAs(user);
+        assertThat(pool.intern(new KeycloakRealmRole("user")))
+                .isNotSameAs(user);
+        assertThat(pool.size()).isEqualTo(1);
+    }
+
+    @Test
+    void intern_equalSets_firstUnmodifiableSetReturned() {
+        var pool = new AuthorityPool();
+        var admin = new KeycloakRealmRole("admin");
+        var user = new KeycloakRealmRole("user");
+
+        var first = pool.intern(List.of(admin, user));
+
+        assertThat(pool.intern(Set.of(user, admin))).isSameAs(first);
+        assertThat(first).containsExactly(admin, user);
+        assertThatThrownBy(() -> first.remove(admin))
+                .isInstanceOf(UnsupportedOperationException.class);
+    }
+}
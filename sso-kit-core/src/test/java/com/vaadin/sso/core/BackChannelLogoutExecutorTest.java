@@ -0,0 +1,99 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full license.
+ */
+package com.vaadin.sso.core;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.vaadin.sso.core.BackChannelLogoutExecutor.OverflowPolicy;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BackChannelLogoutExecutorTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private BackChannelLogoutExecutor executor;
+
+    @AfterEach
+    void cleanup() {
+        release.countDown();
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void task_runOnOtherThread() throws Exception {
+        executor = new BackChannelLogoutExecutor(1, 1,
+                OverflowPolicy.REJECT);
+        final var thread = new AtomicReference<Thread>();
+        final var done = new CountDownLatch(1);
+
+        executor.execute(() -> {
+            thread.set(Thread.currentThread());
+            done.countDown();
+        });
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(thread.get()).isNotSameAs(Thread.currentThread());
+        assertThat(thread.get().isVirtual()).isTrue();
+    }
+
+    @Test
+    void queueFull_rejectPolicy_taskRejected() throws Exception {
+        executor = new BackChannelLogoutExecutor(1, 1,
+                OverflowPolicy.REJECT);
+        fillQueue();
+
+        assertThatThrownBy(() -> executor.execute(() -> {
+        })).isInstanceOf(RejectedExecutionException.class);
+        assertThat(executor.getQueueDepth()).isEqualTo(1);
+        assertThat(executor.getOverflowCount()).isEqualTo(1);
+    }
+
+    @Test
+    void queueFull_callerRunsPolicy_taskRunOnCallerThread()
+            throws Exception {
+        executor = new BackChannelLogoutExecutor(1, 1,
+                OverflowPolicy.CALLER_RUNS);
+        fillQueue();
+        final var thread = new AtomicReference<Thread>();
+
+        executor.execute(() -> thread.set(Thread.currentThread()));
+
+        assertThat(thread.get()).isSameAs(Thread.currentThread());
+        assertThat(executor.getOverflowCount()).isEqualTo(1);
+    }
+
+    /*
+     * Occupies the single worker and the single queue slot. Returns a latch
+     * counted down by the queued task.
+     */
+    private CountDownLatch fillQueue() throws InterruptedException {
+        final var started = new CountDownLatch(1);
+        final var queued = new CountDownLatch(1);
+        executor.execute(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        executor.execute(queued::countDown);
+        return queued;
+    }
+}
@@ -14,11 +14,14 @@ import jakarta.servlet.http.HttpServletResponse;
 
 import java.io.IOException;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -32,10 +35,18 @@ import org.springframework.security.core.session.SessionRegistry;
 import org.springframework.security.oauth2.client.registration.ClientRegistration;
 import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
 import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.core.oidc.user.DefaultOidcUser;
 import org.springframework.security.oauth2.core.oidc.user.OidcUser;
+import org.springframework.security.oauth2.jwt.BadJwtException;
 import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimNames;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.AdditionalMatchers.not;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
@@ -202,6 +213,171 @@ class BackChannelLogoutFilterTest {
         verify(response).setStatus(HttpServletResponse.SC_OK);
     }
 
+    @Test
+    void indexedRegistry_onlyMatchingSessionsSetToExpire()
+            throws IOException, ServletException {
+        when(request.getRequestURI()).thenReturn("/logout/back-channel/test");
+        when(request.getParameter(BackChannelLogoutFilter.TOKEN_PARAM_NAME))
+                .thenReturn("token");
+
+        final var indexedRegistry = new IndexedSessionRegistry();
+        indexedRegistry.registerNewSession("matching",
+                createOidcUser("john", "1234"));
+        indexedRegistry.registerNewSession("non-matching",
+                createOidcUser("dave", "5678"));
+        filter = new BackChannelLogoutFilter(indexedRegistry,
+                clientRegistrationRepository, eventPublisher,
+                this::createJwtDecoder);
+
+        addClaimToLogoutToken(LogoutTokenClaimNames.SID, "1234");
+
+        filter.doFilter(request, response, chain);
+
+        assertTrue(indexedRegistry.getSessionInformation("matching")
+                .isExpired());
+        assertFalse(indexedRegistry.getSessionInformation("non-matching")
+                .isExpired());
+        verify(response).setStatus(HttpServletResponse.SC_OK);
+    }
+
+    @Test
+    void withLogoutExecutor_sessionsExpiredByExecutor()
+            throws IOException, ServletException {
+        when(request.getRequestURI()).thenReturn("/logout/back-channel/test");
+        when(request.getParameter(BackChannelLogoutFilter.TOKEN_PARAM_NAME))
+                .thenReturn("token");
+
+        final var indexedRegistry = new IndexedSessionRegistry();
+        indexedRegistry.registerNewSession("matching",
+                createOidcUser("john", "1234"));
+        filter = new BackChannelLogoutFilter(indexedRegistry,
+                clientRegistrationRepository, eventPublisher,
+                this::createJwtDecoder);
+        final var tasks = new ArrayList<Runnable>();
+        filter.setLogoutExecutor(tasks::add);
+
+        addClaimToLogoutToken(LogoutTokenClaimNames.SID, "1234");
+
+        filter.doFilter(request, response, chain);
+
+        verify(response).setStatus(HttpServletResponse.SC_OK);
+        assertFalse(indexedRegistry.getSessionInformation("matching")
+                .isExpired());
+
+        tasks.forEach(Runnable::run);
+
+        assertTrue(indexedRegistry.getSessionInformation("matching")
+                .isExpired());
+    }
+
+    @Test
+    void logoutExecutorRejectsTask_badRequest()
+            throws IOException, ServletException {
+        when(request.getRequestURI()).thenReturn("/logout/back-channel/test");
+        when(request.getParameter(BackChannelLogoutFilter.TOKEN_PARAM_NAME))
+                .thenReturn("token");
+        filter.setLogoutExecutor(task -> {
+            throw new RejectedExecutionException();
+        });
+        addClaimToLogoutToken(JwtClaimNames.JTI, "jti-1");
+
+        filter.doFilter(request, response, chain);
+
+        verify(response).setStatus(HttpServletResponse.SC_BAD_REQUEST);
+
+        // The retry of the rejected token is not a replay
+        filter.setLogoutExecutor(task -> {
+        });
+        filter.doFilter(request, response, chain);
+
+        verify(response).setStatus(HttpServletResponse.SC_OK);
+    }
+
+    @Test
+    void withMetrics_stagesAndOutcomeRecorded()
+            throws IOException, ServletException {
+        when(request.getRequestURI()).thenReturn("/logout/back-channel/test");
+        when(request.getParameter(BackChannelLogoutFilter.TOKEN_PARAM_NAME))
+                .thenReturn("token");
+        final var indexedRegistry = new IndexedSessionRegistry();
+        indexedRegistry.registerNewSession("matching",
+                createOidcUser("john", "1234"));
+        filter = new BackChannelLogoutFilter(indexedRegistry,
+                clientRegistrationRepository, eventPublisher,
+                this::createJwtDecoder);
+        final var meterRegistry = new SimpleMeterRegistry();
+        filter.setMetrics(
+                new MicrometerBackChannelLogoutMetrics(meterRegistry));
+
+        addClaimToLogoutToken(LogoutTokenClaimNames.SID, "1234");
+
+        filter.doFilter(request, response, chain);
+
+        for (var stage : List.of("decode", "validate", "match", "publish",
+                "expire")) {
+            assertEquals(1, meterRegistry
+                    .get(MicrometerBackChannelLogoutMetrics.STAGE_TIMER)
+                    .tags("registration.id", "test", "stage", stage).timer()
+                    .count());
+        }
+        assertEquals(1, meterRegistry
+                .get(MicrometerBackChannelLogoutMetrics.REQUEST_TIMER)
+                .tags("registration.id", "test", "outcome", "success",
+                        "reason", "success")
+                .timer().count());
+        assertEquals(1, meterRegistry.get(
+                MicrometerBackChannelLogoutMetrics.EXPIRED_SESSIONS_COUNTER)
+                .counter().count());
+    }
+
+    @Test
+    void withMetrics_decodingFails_errorRecordedAndRethrown() {
+        when(request.getRequestURI()).thenReturn("/logout/back-channel/test");
+        when(request.getParameter(BackChannelLogoutFilter.TOKEN_PARAM_NAME))
+                .thenReturn("token");
+        filter = new BackChannelLogoutFilter(sessionRegistry,
+                clientRegistrationRepository, eventPublisher,
+                registration -> token -> {
+                    throw new BadJwtException("Invalid signature");
+                });
+        final var meterRegistry = new SimpleMeterRegistry();
+        filter.setMetrics(
+                new MicrometerBackChannelLogoutMetrics(meterRegistry));
+
+        assertThrows(BadJwtException.class,
+                () -> filter.doFilter(request, response, chain));
+
+        assertEquals(1, meterRegistry
+                .get(MicrometerBackChannelLogoutMetrics.REQUEST_TIMER)
+                .tags("registration.id", "test", "outcome", "error",
+                        "reason", "error")
+                .timer().count());
+    }
+
+    @Test
+    void withMetrics_unknownRegistrationRecordedWithoutItsId()
+            throws IOException, ServletException {
+        when(request.getRequestURI()).thenReturn("/logout/back-channel/foo");
+        final var meterRegistry = new SimpleMeterRegistry();
+        filter.setMetrics(
+                new MicrometerBackChannelLogoutMetrics(meterRegistry));
+
+        filter.doFilter(request, response, chain);
+
+        assertEquals(1, meterRegistry
+                .get(MicrometerBackChannelLogoutMetrics.REQUEST_TIMER)
+                .tags("registration.id", "unknown", "outcome", "bad_request",
+                        "reason", "unknown_registration")
+                .timer().count());
+    }
+
+    private OidcUser createOidcUser(String subject, String sid) {
+        final var idToken = new OidcIdToken("token", Instant.now(),
+                Instant.now().plusSeconds(60),
+                Map.of("sub", subject, "sid", sid, "iss", ISSUER_URI));
+        return new DefaultOidcUser(List.of(), idToken);
+    }
+
     private SessionInformation createSessionSpy(Object principal) {
         final var now = Date.from(Instant.now());
         return spy(new SessionInformation(principal, "foo", now));
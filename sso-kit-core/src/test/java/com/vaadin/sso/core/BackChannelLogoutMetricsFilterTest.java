@@ -0,0 +1,170 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full license.
+ */
+package com.vaadin.sso.core;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.client.registration.InMemoryClientRegistrationRepository;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.web.authentication.logout.LogoutHandler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BackChannelLogoutMetricsFilterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private BackChannelLogoutMetricsFilter filter;
+
+    @BeforeEach
+    void setup() {
+        // @formatter:off
+        final var clientRegistration = ClientRegistration
+                .withRegistrationId("test")
+                .authorizationGrantType(
+                        AuthorizationGrantType.CLIENT_CREDENTIALS)
+                .clientId("test-client")
+                .tokenUri("http://issuer.com/token")
+                .build();
+        // @formatter:on
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new BackChannelLogoutMetricsFilter(
+                new InMemoryClientRegistrationRepository(clientRegistration),
+                new MicrometerBackChannelLogoutMetrics(meterRegistry));
+    }
+
+    @Test
+    void logoutHandlerCalled_stagesAndSuccessRecorded()
+            throws IOException, ServletException {
+        final LogoutHandler handler = filter.instrument(
+                (request, response, authentication) -> response
+                        .setStatus(HttpServletResponse.SC_OK));
+        final var request = logoutRequest("test");
+        final var response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, callingHandler(handler));
+
+        assertThat(stageCount("authenticate")).isEqualTo(1);
+        assertThat(stageCount("logout")).isEqualTo(1);
+        assertThat(requestCount("test", "success", "success")).isEqualTo(1);
+    }
+
+    @Test
+    void logoutHandlerFails_partialLogoutRecorded()
+            throws IOException, ServletException {
+        final LogoutHandler handler = filter.instrument(
+                (request, response, authentication) -> response
+                        .setStatus(HttpServletResponse.SC_BAD_REQUEST));
+        final var request = logoutRequest("test");
+        final var response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, callingHandler(handler));
+
+        assertThat(requestCount("test", "bad_request", "partial_logout"))
+                .isEqualTo(1);
+    }
+
+    @Test
+    void logoutHandlerNotCalled_invalidTokenRecorded()
+            throws IOException, ServletException {
+        final var request = logoutRequest("test");
+        final var response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response,
+                (req, res) -> ((HttpServletResponse) res)
+                        .setStatus(HttpServletResponse.SC_BAD_REQUEST));
+
+        assertThat(requestCount("test", "bad_request", "invalid_token"))
+                .isEqualTo(1);
+        assertThat(meterRegistry
+                .find(MicrometerBackChannelLogoutMetrics.STAGE_TIMER).timer())
+                .isNull();
+    }
+
+    @Test
+    void logoutHandlerNotInstrumented_successRecorded()
+            throws IOException, ServletException {
+        final var request = logoutRequest("test");
+        final var response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, new MockFilterChain());
+
+        assertThat(requestCount("test", "success", "success")).isEqualTo(1);
+        assertThat(meterRegistry
+                .find(MicrometerBackChannelLogoutMetrics.STAGE_TIMER).timer())
+                .isNull();
+    }
+
+    @Test
+    void chainFails_errorRecorded() {
+        final var request = logoutRequest("test");
+        final var response = new MockHttpServletResponse();
+
+        assertThatThrownBy(() -> filter.doFilter(request, response,
+                (req, res) -> {
+                    throw new IllegalStateException("failed");
+                })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(requestCount("test", "error", "error")).isEqualTo(1);
+    }
+
+    @Test
+    void unknownRegistration_recordedWithoutItsId()
+            throws IOException, ServletException {
+        final var request = logoutRequest("foo");
+        final var response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, new MockFilterChain());
+
+        assertThat(requestCount("unknown", "bad_request",
+                "unknown_registration")).isEqualTo(1);
+    }
+
+    private MockHttpServletRequest logoutRequest(String registrationId) {
+        final var request = new MockHttpServletRequest("POST",
+                "/logout/connect/back-channel/" + registrationId);
+        request.setParameter("logout_token", "token");
+        return request;
+    }
+
+    private long stageCount(String stage) {
+        return meterRegistry
+                .get(MicrometerBackChannelLogoutMetrics.STAGE_TIMER)
+                .tags("registration.id", "test", "stage", stage).timer()
+                .count();
+    }
+
+    private long requestCount(String registrationId, String outcome,
+            String reason) {
+        return meterRegistry
+                .get(MicrometerBackChannelLogoutMetrics.REQUEST_TIMER)
+                .tags("registration.id", registrationId, "outcome", outcome,
+                        "reason", reason)
+                .timer().count();
+    }
+
+    /* Stands for Spring Security's filter, which calls the logout handler */
+    private static FilterChain callingHandler(LogoutHandler handler) {
+        return (request, response) -> handler.logout(
+                (HttpServletRequest) request, (HttpServletResponse) response,
+                null);
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full license.
+ */
+package com.vaadin.sso.core;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class CachingJwtDecoderFactoryTest {
+
+    private static final String ISSUER_URI = "http://issuer.com";
+
+    private final AtomicInteger createdDecoders = new AtomicInteger();
+
+    private CachingJwtDecoderFactory factory;
+
+    @BeforeEach
+    void setup() {
+        factory = new CachingJwtDecoderFactory(registration -> {
+            createdDecoders.incrementAndGet();
+            return mock(JwtDecoder.class);
+        });
+    }
+
+    @Test
+    void sameRegistration_decoderIsReused() {
+        final var registration = createRegistration("test", "/jwks");
+
+        final var first = factory.createDecoder(registration);
+        final var second = factory.createDecoder(registration);
+
+        assertThat(second).isSameAs(first);
+        assertThat(createdDecoders).hasValue(1);
+        assertThat(factory.getMissCount()).isEqualTo(1);
+        assertThat(factory.getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void equivalentRegistrationInstance_decoderIsReused() {
+        final var first = factory
+                .createDecoder(createRegistration("test", "/jwks"));
+        final var second = factory
+                .createDecoder(createRegistration("test", "/jwks"));
+
+        assertThat(second).isSameAs(first);
+        assertThat(createdDecoders).hasValue(1);
+    }
+
+    @Test
+    void changedRegistration_decoderIsReplaced() {
+        final var first = factory
+                .createDecoder(createRegistration("test", "/jwks"));
+        final var second = factory
+                .createDecoder(createRegistration("test", "/other-jwks"));
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(createdDecoders).hasValue(2);
+        assertThat(factory.size()).isEqualTo(1);
+    }
+
+    @Test
+    void differentRegistrationIds_separateDecoders() {
+        final var first = factory
+                .createDecoder(createRegistration("foo", "/jwks"));
+        final var second = factory
+                .createDecoder(createRegistration("bar", "/jwks"));
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(factory.size()).isEqualTo(2);
+    }
+
+    @Test
+    void invalidate_decoderIsRecreated() {
+        final var registration = createRegistration("test", "/jwks");
+        final var first = factory.createDecoder(registration);
+
+        factory.invalidate("test");
+        final var second = factory.createDecoder(registration);
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(factory.getMissCount()).isEqualTo(2);
+    }
+
+    private static ClientRegistration createRegistration(String id,
+            String jwkSetPath) {
+        // @formatter:off
+        return ClientRegistration.withRegistrationId(id)
+                .authorizationGrantType(
+                        AuthorizationGrantType.CLIENT_CREDENTIALS)
+                .clientId("test-client")
+                .issuerUri(ISSUER_URI)
+                .jwkSetUri(ISSUER_URI + jwkSetPath)
+                .tokenUri(ISSUER_URI + "/token")
+                .build();
+        // @formatter:on
+    }
+}
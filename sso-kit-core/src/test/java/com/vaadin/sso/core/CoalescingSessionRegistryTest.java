@@ -0,0 +1,97 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full license.
+ */
+package com.vaadin.sso.core;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.security.core.session.SessionInformation;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.core.oidc.user.DefaultOidcUser;
+import org.springframework.security.web.session.HttpSessionDestroyedEvent;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class CoalescingSessionRegistryTest {
+
+    private static final String ISSUER_URI = "http://issuer.com";
+
+    @Mock
+    private OidcSessionRegistry delegate;
+
+    @Test
+    void refreshLastRequest_withinGranularity_delegateRefreshedOnce() {
+        final var registry = new CoalescingSessionRegistry(delegate,
+                Duration.ofDays(1));
+
+        for (int i = 0; i < 10; i++) {
+            registry.refreshLastRequest("session-1");
+            registry.refreshLastRequest("session-2");
+        }
+
+        verify(delegate, times(1)).refreshLastRequest("session-1");
+        verify(delegate, times(1)).refreshLastRequest("session-2");
+    }
+
+    @Test
+    void refreshLastRequest_afterGranularity_delegateRefreshedAgain()
+            throws InterruptedException {
+        final var registry = new CoalescingSessionRegistry(delegate,
+                Duration.ofMillis(1));
+
+        registry.refreshLastRequest("session-1");
+        Thread.sleep(5);
+        registry.refreshLastRequest("session-1");
+
+        verify(delegate, times(2)).refreshLastRequest("session-1");
+    }
+
+    @Test
+    void refreshLastRequest_sameHash_bothSessionsRefreshed() {
+        final var registry = new CoalescingSessionRegistry(delegate,
+                Duration.ofDays(1));
+        assertThat("Aa".hashCode()).isEqualTo("BB".hashCode());
+
+        registry.refreshLastRequest("Aa");
+        registry.refreshLastRequest("BB");
+        registry.refreshLastRequest("BB");
+
+        verify(delegate, times(1)).refreshLastRequest("Aa");
+        verify(delegate, times(1)).refreshLastRequest("BB");
+    }
+
+    @Test
+    void sessionDestroyed_removedFromDelegateAndIndex() {
+        final var registry = new CoalescingSessionRegistry(
+                new OidcSessionRegistry());
+        final var idToken = new OidcIdToken("token", Instant.now(),
+                Instant.now().plusSeconds(60),
+                Map.of("sub", "john", "sid", "sid-1", "iss", ISSUER_URI));
+        registry.registerNewSession("session-1",
+                new DefaultOidcUser(List.of(), idToken));
+        assertThat(registry.findSessionsBySid(ISSUER_URI, "sid-1"))
+                .extracting(SessionInformation::getSessionId)
+                .containsExactly("session-1");
+
+        registry.onApplicationEvent(new HttpSessionDestroyedEvent(
+                new MockHttpSession(null, "session-1")));
+
+        assertThat(registry.getSessionInformation("session-1")).isNull();
+        assertThat(registry.findSessionsBySid(ISSUER_URI, "sid-1")).isEmpty();
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full license.
+ */
+package com.vaadin.sso.core;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.client.oidc.userinfo.OidcUserRequest;
+import org.springframework.security.oauth2.client.oidc.userinfo.OidcUserSource;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.core.oidc.OidcUserInfo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompactOidcUserMapperTest {
+
+    private static final String ISSUER_URI = "http://localhost:8080/realms/test";
+
+    private OidcUserSource userSource;
+
+    @BeforeEach
+    void setup() {
+        var now = Instant.now();
+        var clientRegistration = ClientRegistration
+                .withRegistrationId("keycloak").clientId("client")
+                .authorizationGrantType(
+                        AuthorizationGrantType.AUTHORIZATION_CODE)
+                .redirectUri("{baseUrl}/login/oauth2/code/{registrationId}")
+                .authorizationUri(ISSUER_URI + "/auth")
+                .tokenUri(ISSUER_URI + "/token")
+                .userNameAttributeName("preferred_username").build();
+        var accessToken = new OAuth2AccessToken(
+                OAuth2AccessToken.TokenType.BEARER, "access-token", now,
+                now.plusSeconds(60), Set.of("openid", "profile"));
+        var idToken = new OidcIdToken("id-token", now, now.plusSeconds(60),
+                Map.of("sub", "user-123", "iss", ISSUER_URI, "sid", "sid-1",
+                        "aud", List.of("client"), "nonce", "nonce",
+                        "preferred_username", "john"));
+        var userInfo = new OidcUserInfo(Map.of("sub", "user-123", "email",
+                "john@example.com", "address", Map.of("country", "FI")));
+        userSource = new OidcUserSource(
+                new OidcUserRequest(clientRegistration, accessToken, idToken),
+                userInfo, null);
+    }
+
+    @Test
+    void convert_keepsAllowedAndLogoutClaimsOnly() {
+        var mapper = new CompactOidcUserMapper(List.of("email", "name"));
+
+        var user = mapper.convert(userSource);
+
+        assertThat(user).isInstanceOf(CompactOidcUser.class);
+        assertThat(user.getClaims()).containsOnlyKeys("sub", "iss", "sid",
+                "email", "preferred_username");
+        assertThat(user.getName()).isEqualTo("john");
+        assertThat(user.getUserInfo()).isNull();
+        assertThat(user.getIdToken().getTokenValue()).isEqualTo("id-token");
+        assertThat(user.getIdToken().getSubject()).isEqualTo("user-123");
+    }
+
+    @Test
+    void convert_sameAuthorities_authoritySetShared() {
+        var mapper = new CompactOidcUserMapper(List.of());
+
+        var first = mapper.convert(userSource);
+        var second = mapper.convert(userSource);
+
+        assertThat(second.getAuthorities()).isSameAs(first.getAuthorities());
+        assertThat(first.getAuthorities())
+                .extracting(GrantedAuthority::getAuthority)
+                .containsExactlyInAnyOrder("OIDC_USER", "SCOPE_openid",
+                        "SCOPE_profile");
+        assertThat(first.getAuthorities())
+                .allMatch(SimpleGrantedAuthority.class::isInstance);
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full license.
+ */
+package com.vaadin.sso.core;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.web.authentication.session.SessionAuthenticationException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ConcurrentSessionLimitStrategyTest {
+
+    private final TestingAuthenticationToken authentication = new TestingAuthenticationToken(
+            "john", null);
+
+    private OidcSessionRegistry registry;
+
+    private ConcurrentSessionLimitStrategy strategy;
+
+    @BeforeEach
+    void setup() {
+        registry = new OidcSessionRegistry();
+        strategy = new ConcurrentSessionLimitStrategy(registry);
+    }
+
+    @Test
+    void maximumSessionsReached_leastRecentlyUsedSessionExpired()
+            throws InterruptedException {
+        strategy.setMaximumSessions(3);
+        registry.registerNewSession("session-1", "john");
+        registry.registerNewSession("session-2", "john");
+        registry.registerNewSession("session-3", "john");
+        registry.registerNewSession("session-4", "jane");
+        Thread.sleep(5);
+        registry.refreshLastRequest("session-1");
+
+        strategy.onAuthentication(authentication, new MockHttpServletRequest(),
+                new MockHttpServletResponse());
+
+        assertThat(registry.getSessionInformation("session-2").isExpired())
+                .isTrue();
+        assertThat(registry.countActiveSessions("john")).isEqualTo(2);
+        assertThat(registry.findLeastRecentlyUsedSession("john")
+                .getSessionId()).isEqualTo("session-3");
+        assertThat(registry.getAllSessions("john", true)).hasSize(3);
+        assertThat(registry.countActiveSessions("jane")).isOne();
+    }
+
+    @Test
+    void authenticatedAgainInActiveSession_noSessionExpired() {
+        strategy.setMaximumSessions(1);
+        registry.registerNewSession("session-1", "john");
+        final var request = new MockHttpServletRequest();
+        request.setSession(new MockHttpSession(null, "session-1"));
+
+        strategy.onAuthentication(authentication, request,
+                new MockHttpServletResponse());
+
+        assertThat(registry.getSessionInformation("session-1").isExpired())
+                .isFalse();
+        assertThat(registry.countActiveSessions("john")).isOne();
+    }
+
+    @Test
+    void maximumSessionsReached_exceptionIfMaximumExceeded_throws() {
+        strategy.setMaximumSessions(1);
+        strategy.setExceptionIfMaximumExceeded(true);
+        registry.registerNewSession("session-1", "john");
+
+        assertThatThrownBy(() -> strategy.onAuthentication(authentication,
+                new MockHttpServletRequest(), new MockHttpServletResponse()))
+                .isInstanceOf(SessionAuthenticationException.class);
+        assertThat(registry.countActiveSessions("john")).isOne();
+    }
+}
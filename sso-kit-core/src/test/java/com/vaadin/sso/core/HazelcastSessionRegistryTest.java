@@ -0,0 +1,135 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full license.
+ */
+package com.vaadin.sso.core;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.session.SessionInformation;
+import org.springframework.security.oauth2.client.oidc.authentication.logout.OidcLogoutToken;
+import org.springframework.security.oauth2.client.oidc.session.OidcSessionInformation;
+
+import static com.vaadin.sso.core.TestUsers.ISSUER_URI;
+import static com.vaadin.sso.core.TestUsers.createUser;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HazelcastSessionRegistryTest {
+
+    private static HazelcastInstance member1;
+
+    private static HazelcastInstance member2;
+
+    @BeforeAll
+    static void startCluster() {
+        final var clusterName = UUID.randomUUID().toString();
+        member1 = Hazelcast.newHazelcastInstance(createConfig(clusterName));
+        member2 = Hazelcast.newHazelcastInstance(createConfig(clusterName));
+    }
+
+    @AfterAll
+    static void stopCluster() {
+        member2.shutdown();
+        member1.shutdown();
+    }
+
+    @Test
+    void sessionRegisteredOnOneMember_foundAndExpiredFromAnother()
+            throws InterruptedException {
+        final var mapName = UUID.randomUUID().toString();
+        final var registry1 = new HazelcastSessionRegistry(member1, mapName);
+        final var registry2 = new HazelcastSessionRegistry(member2, mapName);
+        final var john = createUser("john", "sid-1");
+        registry1.registerNewSession("session-1", john);
+        registry1.registerNewSession("session-2", createUser("jane", "sid-2"));
+        assertThat(registry1.getSessionInformation("session-1").isExpired())
+                .isFalse();
+
+        final var sessions = registry2.findSessionsBySid(ISSUER_URI, "sid-1");
+
+        assertThat(sessions).extracting(SessionInformation::getSessionId)
+                .containsExactly("session-1");
+        assertThat(sessions.iterator().next().getPrincipal()).isEqualTo(john);
+        assertThat(registry2.getAllSessions(john, false)).hasSize(1);
+
+        sessions.forEach(SessionInformation::expireNow);
+
+        // Near cache invalidations are delivered asynchronously
+        final var deadline = System.nanoTime() + 10_000_000_000L;
+        while (!registry1.getSessionInformation("session-1").isExpired()
+                && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(registry1.getSessionInformation("session-1").isExpired())
+                .isTrue();
+        assertThat(registry1.getSessionInformation("session-2").isExpired())
+                .isFalse();
+        assertThat(registry2.getAllSessions(john, false)).isEmpty();
+
+        registry1.removeSessionInformation("session-1");
+
+        assertThat(registry2.getSessionInformation("session-1")).isNull();
+        assertThat(registry2.findSessionsBySubject(ISSUER_URI, "john"))
+                .isEmpty();
+    }
+
+    @Test
+    void oidcSessionSavedOnOneMember_removedByLogoutTokenOnAnother() {
+        final var mapName = UUID.randomUUID().toString();
+        final var registry1 = new HazelcastOidcSessionRegistry(member1,
+                mapName);
+        final var registry2 = new HazelcastOidcSessionRegistry(member2,
+                mapName);
+        registry1.saveSessionInformation(new OidcSessionInformation(
+                "session-1", Map.of(), createUser("john", "sid-1")));
+        registry1.saveSessionInformation(new OidcSessionInformation(
+                "session-2", Map.of(), createUser("john", "sid-2")));
+
+        final var removed = registry2
+                .removeSessionInformation(createLogoutToken("sid-1"));
+
+        assertThat(removed).extracting(OidcSessionInformation::getSessionId)
+                .containsExactly("session-1");
+        assertThat(registry1.removeSessionInformation("session-1")).isNull();
+        assertThat(registry2.removeSessionInformation(createLogoutToken(null)))
+                .extracting(OidcSessionInformation::getSessionId)
+                .containsExactly("session-2");
+    }
+
+    private static Config createConfig(String clusterName) {
+        final var config = new Config().setClusterName(clusterName)
+                .setProperty("hazelcast.phone.home.enabled", "false")
+                .setProperty("hazelcast.logging.type", "none")
+                .setProperty("hazelcast.map.invalidation.batch.enabled",
+                        "false");
+        final var join = config.getNetworkConfig().getJoin();
+        join.getAutoDetectionConfig().setEnabled(false);
+        join.getMulticastConfig().setEnabled(false);
+        join.getTcpIpConfig().setEnabled(true).addMember("127.0.0.1");
+        config.getNetworkConfig().getInterfaces().setEnabled(true)
+                .addInterface("127.0.0.1");
+        return config;
+    }
+
+    private static OidcLogoutToken createLogoutToken(String sid) {
+        final var builder = OidcLogoutToken.withTokenValue("token")
+                .issuer(ISSUER_URI).audience(List.of("client"))
+                .subject("john").jti(UUID.randomUUID().toString())
+                .issuedAt(Instant.now()).events(Map.of(
+                        "http://schemas.openid.net/event/backchannel-logout",
+                        Map.of()));
+        return (sid != null ? builder.sessionId(sid) : builder).build();
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full license.
+ */
+package com.vaadin.sso.core;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.security.core.session.SessionInformation;
+import org.springframework.security.web.session.HttpSessionDestroyedEvent;
+
+import static com.vaadin.sso.core.TestUsers.ISSUER_URI;
+import static com.vaadin.sso.core.TestUsers.createUser;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IndexedSessionRegistryTest {
+
+    private IndexedSessionRegistry registry;
+
+    @BeforeEach
+    void setup() {
+        registry = new IndexedSessionRegistry();
+    }
+
+    @Test
+    void registeredSession_foundBySidAndSubject() {
+        final var user = createUser("john", "sid-1");
+        registry.registerNewSession("session-1", user);
+
+        assertThat(registry.findSessionsBySid(ISSUER_URI, "sid-1"))
+                .extracting(SessionInformation::getSessionId)
+                .containsExactly("session-1");
+        assertThat(registry.findSessionsBySubject(ISSUER_URI, "john"))
+                .extracting(SessionInformation::getSessionId)
+                .containsExactly("session-1");
+    }
+
+    @Test
+    void otherIssuer_notFound() {
+        registry.registerNewSession("session-1", createUser("john", "sid-1"));
+
+        assertThat(registry.findSessionsBySid("http://other.com", "sid-1"))
+                .isEmpty();
+    }
+
+    @Test
+    void removedSession_notFound() {
+        registry.registerNewSession("session-1", createUser("john", "sid-1"));
+        registry.registerNewSession("session-2", createUser("john", "sid-2"));
+
+        registry.removeSessionInformation("session-1");
+
+        assertThat(registry.findSessionsBySid(ISSUER_URI, "sid-1")).isEmpty();
+        assertThat(registry.findSessionsBySubject(ISSUER_URI, "john"))
+                .extracting(SessionInformation::getSessionId)
+                .containsExactly("session-2");
+    }
+
+    @Test
+    void sessionDestroyedEvent_sessionRemovedFromIndex() {
+        final var session = new MockHttpSession(null, "session-1");
+        registry.registerNewSession("session-1", createUser("john", "sid-1"));
+
+        registry.onApplicationEvent(new HttpSessionDestroyedEvent(session));
+
+        assertThat(registry.getSessionInformation("session-1")).isNull();
+        assertThat(registry.findSessionsBySid(ISSUER_URI, "sid-1")).isEmpty();
+    }
+
+    @Test
+    void nonOidcPrincipal_registeredButNotIndexed() {
+        registry.registerNewSession("session-1", "john");
+
+        assertThat(registry.getAllPrincipals()).containsExactly("john");
+        assertThat(registry.findSessionsBySubject(ISSUER_URI, "john"))
+                .isEmpty();
+    }
+}
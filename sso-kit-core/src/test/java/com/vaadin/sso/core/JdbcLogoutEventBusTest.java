@@ -0,0 +1,165 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full license.
+ */
+package com.vaadin.sso.core;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+class JdbcLogoutEventBusTest {
+
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(50);
+
+    private static final LogoutCriteria ALICE = LogoutCriteria
+            .forSubject("https://issuer.com", "alice");
+
+    private static final LogoutCriteria BOB = LogoutCriteria
+            .forSid("https://issuer.com", "bob-session");
+
+    private JdbcDataSource dataSource;
+
+    private JdbcLogoutEventBus node1;
+
+    private JdbcLogoutEventBus node2;
+
+    private final List<List<LogoutCriteria>> node1Batches = new CopyOnWriteArrayList<>();
+
+    private final List<List<LogoutCriteria>> node2Batches = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setup() throws IOException, SQLException {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID()
+                + ";DB_CLOSE_DELAY=-1");
+        createSchema();
+        node1 = new JdbcLogoutEventBus(dataSource,
+                JdbcLogoutEventBus.DEFAULT_TABLE_NAME, POLL_INTERVAL);
+        node2 = new JdbcLogoutEventBus(dataSource,
+                JdbcLogoutEventBus.DEFAULT_TABLE_NAME, POLL_INTERVAL);
+        node1.subscribe(node1Batches::add);
+        node2.subscribe(node2Batches::add);
+    }
+
+    @AfterEach
+    void cleanup() throws SQLException {
+        node1.close();
+        node2.close();
+        try (var connection = dataSource.getConnection();
+                var statement = connection.createStatement()) {
+            statement.execute("SHUTDOWN");
+        }
+    }
+
+    @Test
+    void publish_deliveredOnceToAllNodes() throws InterruptedException {
+        node1.start();
+        node2.start();
+
+        node1.publish(ALICE);
+
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> {
+            assertThat(node1Batches).containsExactly(List.of(ALICE));
+            assertThat(node2Batches).containsExactly(List.of(ALICE));
+        });
+        // Rows are only read once
+        Thread.sleep(POLL_INTERVAL.multipliedBy(4).toMillis());
+        assertThat(node1Batches).hasSize(1);
+        assertThat(node2Batches).hasSize(1);
+    }
+
+    @Test
+    void publishSameCriteriaOnManyNodes_deliveredInOneBatch() {
+        node1.poll();
+        node1.publish(ALICE);
+        node1.publish(BOB);
+        node2.publish(ALICE);
+        node2.close();
+
+        node1.poll();
+
+        assertThat(node1Batches).containsExactly(List.of(ALICE, BOB));
+    }
+
+    @Test
+    void firstPoll_earlierLogoutsNotDelivered() {
+        node2.publish(ALICE);
+        node2.close();
+
+        node1.poll();
+        node2.publish(BOB);
+        node2.close();
+        node1.poll();
+
+        assertThat(node1Batches).containsExactly(List.of(BOB));
+    }
+
+    @Test
+    void stop_pendingLogoutsPublished() {
+        node2.poll();
+        node1.start();
+        assertThat(node1.isRunning()).isTrue();
+
+        node1.publish(ALICE);
+        node1.stop();
+        node2.poll();
+
+        assertThat(node1.isRunning()).isFalse();
+        assertThat(node2Batches).containsExactly(List.of(ALICE));
+    }
+
+    @Test
+    void olderRowsDeleted() throws SQLException {
+        final var now = Instant.now();
+        node2.setClock(Clock.fixed(now.minus(JdbcLogoutEventBus.RETENTION)
+                .minusSeconds(1), ZoneOffset.UTC));
+        node2.publish(ALICE);
+        node2.close();
+
+        node1.poll();
+
+        try (var connection = dataSource.getConnection();
+                var statement = connection.createStatement();
+                var rows = statement.executeQuery("SELECT COUNT(*) FROM "
+                        + JdbcLogoutEventBus.DEFAULT_TABLE_NAME)) {
+            rows.next();
+            assertThat(rows.getInt(1)).isZero();
+        }
+    }
+
+    private void createSchema() throws IOException, SQLException {
+        final String script;
+        try (var stream = getClass().getClassLoader()
+                .getResourceAsStream(JdbcLogoutEventBus.SCHEMA_LOCATION)) {
+            script = new String(stream.readAllBytes(),
+                    StandardCharsets.UTF_8);
+        }
+        try (var connection = dataSource.getConnection();
+                var statement = connection.createStatement()) {
+            for (var sql : script.split(";")) {
+                if (!sql.isBlank()) {
+                    statement.execute(sql);
+                }
+            }
+        }
+    }
+}
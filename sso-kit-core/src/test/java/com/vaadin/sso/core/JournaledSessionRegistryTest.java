@@ -0,0 +1,168 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full license.
+ */
+package com.vaadin.sso.core;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.security.core.session.SessionInformation;
+import org.springframework.security.web.session.HttpSessionDestroyedEvent;
+
+import com.vaadin.sso.core.JournaledSessionRegistry.RestoredPrincipal;
+
+import static com.vaadin.sso.core.TestUsers.ISSUER_URI;
+import static com.vaadin.sso.core.TestUsers.createUser;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+class JournaledSessionRegistryTest {
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void restart_journaledSessionsRestoredAndIndexed() {
+        final var file = directory.resolve("sessions.journal");
+        try (var registry = new JournaledSessionRegistry(file)) {
+            registry.registerNewSession("session-1",
+                    createUser("john", "sid-1"));
+            registry.registerNewSession("session-2",
+                    createUser("jane", "sid-2"));
+            registry.removeSessionInformation("session-2");
+        }
+
+        try (var registry = new JournaledSessionRegistry(file)) {
+            final var sessions = registry.findSessionsBySid(ISSUER_URI,
+                    "sid-1");
+            assertThat(sessions).extracting(SessionInformation::getSessionId)
+                    .containsExactly("session-1");
+            final var principal = sessions.iterator().next().getPrincipal();
+            assertThat(principal).isEqualTo(
+                    new RestoredPrincipal(ISSUER_URI, "sid-1", "john"));
+            assertThat(registry.findSessionsBySubject(ISSUER_URI, "jane"))
+                    .isEmpty();
+
+            registry.getAllSessions(principal, false)
+                    .forEach(SessionInformation::expireNow);
+
+            assertThat(registry.getSessionInformation("session-1").isExpired())
+                    .isTrue();
+        }
+    }
+
+    @Test
+    void restoredSessionDestroyed_notRestoredAgain() {
+        final var file = directory.resolve("sessions.journal");
+        try (var registry = new JournaledSessionRegistry(file)) {
+            registry.registerNewSession("session-1",
+                    createUser("john", "sid-1"));
+        }
+        try (var registry = new JournaledSessionRegistry(file)) {
+            registry.onApplicationEvent(new HttpSessionDestroyedEvent(
+                    new MockHttpSession(null, "session-1")));
+        }
+
+        try (var registry = new JournaledSessionRegistry(file)) {
+            assertThat(registry.getAllPrincipals()).isEmpty();
+            assertThat(registry.getSessionInformation("session-1")).isNull();
+        }
+    }
+
+    @Test
+    void compact_unusedRestoredSessionRemoved() {
+        final var file = directory.resolve("sessions.journal");
+        try (var registry = new JournaledSessionRegistry(file)) {
+            registry.registerNewSession("session-1",
+                    createUser("john", "sid-1"));
+        }
+        try (var registry = new JournaledSessionRegistry(file)) {
+            registry.setRestoredSessionTimeout(Duration.ofMillis(-1));
+
+            registry.compact();
+
+            assertThat(registry.getSessionInformation("session-1")).isNull();
+            assertThat(registry.getJournalRecords()).isZero();
+        }
+    }
+
+    @Test
+    void restarts_lastRequestJournaledAndIdleSessionExpired() {
+        final var file = directory.resolve("sessions.journal");
+        final long lastRequest;
+        try (var registry = new JournaledSessionRegistry(file)) {
+            registry.registerNewSession("session-1",
+                    createUser("john", "sid-1"));
+            lastRequest = registry.getSessionInformation("session-1")
+                    .getLastRequest().getTime();
+        }
+        for (int i = 0; i < 3; i++) {
+            try (var registry = new JournaledSessionRegistry(file)) {
+                assertThat(registry.getSessionInformation("session-1")
+                        .getLastRequest().getTime()).isEqualTo(lastRequest);
+            }
+        }
+
+        try (var registry = new JournaledSessionRegistry(file)) {
+            registry.setRestoredSessionTimeout(Duration.ofMillis(-1));
+            registry.removeIdleRestoredSessions();
+
+            assertThat(registry.getSessionInformation("session-1")).isNull();
+        }
+        try (var registry = new JournaledSessionRegistry(file)) {
+            assertThat(registry.getSessionInformation("session-1")).isNull();
+        }
+    }
+
+    @Test
+    void compact_generationsAlternateAndAppendsKept() {
+        final var file = directory.resolve("sessions.journal");
+        try (var registry = new JournaledSessionRegistry(file)) {
+            registry.registerNewSession("session-1",
+                    createUser("john", "sid-1"));
+            registry.compact();
+            registry.registerNewSession("session-2",
+                    createUser("jane", "sid-2"));
+            registry.compact();
+            registry.registerNewSession("session-3",
+                    createUser("jim", "sid-3"));
+        }
+
+        assertThat(file.resolveSibling("sessions.journal.1"))
+                .satisfies(Files::isRegularFile);
+        try (var registry = new JournaledSessionRegistry(file)) {
+            assertThat(registry.getAllPrincipals()).hasSize(3);
+            assertThat(registry.findSessionsBySid(ISSUER_URI, "sid-3"))
+                    .extracting(SessionInformation::getSessionId)
+                    .containsExactly("session-3");
+        }
+    }
+
+    @Test
+    void loginChurn_journalCompacted() {
+        final var file = directory.resolve("sessions.journal");
+        final var churn = JournaledSessionRegistry.MINIMUM_COMPACTION_RECORDS;
+        try (var registry = new JournaledSessionRegistry(file)) {
+            final var user = createUser("john", "sid-1");
+            registry.registerNewSession("session-0", user);
+            for (int i = 1; i <= churn; i++) {
+                registry.registerNewSession("session-" + i, user);
+                registry.removeSessionInformation("session-" + (i - 1));
+            }
+
+            await().atMost(Duration.ofSeconds(5))
+                    .untilAsserted(() -> assertThat(
+                            registry.getJournalRecords())
+                            .isLessThanOrEqualTo(churn + 1));
+            assertThat(registry.getAllSessions(user, false)).hasSize(1);
+        }
+    }
+}
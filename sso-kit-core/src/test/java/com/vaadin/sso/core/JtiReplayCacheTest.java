@@ -0,0 +1,127 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full license.
+ */
+package com.vaadin.sso.core;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JtiReplayCacheTest {
+
+    private static final String ISSUER_URI = "http://issuer.com";
+
+    private static final Instant NOW = Instant.parse("2025-01-01T00:00:00Z");
+
+    private JtiReplayCache cache;
+
+    @BeforeEach
+    void setup() {
+        cache = new JtiReplayCache(Duration.ofMinutes(1), 3);
+        cache.setClock(Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    void sameJti_secondTimeRejected() {
+        assertThat(cache.recordIfAbsent(ISSUER_URI, "jti-1")).isTrue();
+        assertThat(cache.recordIfAbsent(ISSUER_URI, "jti-1")).isFalse();
+        assertThat(cache.getReplayCount()).isEqualTo(1);
+    }
+
+    @Test
+    void sameJtiFromOtherIssuer_accepted() {
+        cache.recordIfAbsent(ISSUER_URI, "jti-1");
+
+        assertThat(cache.recordIfAbsent("http://other.com", "jti-1"))
+                .isTrue();
+    }
+
+    @Test
+    void afterRetention_jtiExpiredAndAcceptedAgain() {
+        cache.recordIfAbsent(ISSUER_URI, "jti-1");
+
+        cache.setClock(Clock.fixed(NOW.plusSeconds(61), ZoneOffset.UTC));
+
+        assertThat(cache.recordIfAbsent(ISSUER_URI, "jti-1")).isTrue();
+        assertThat(cache.getExpiredCount()).isEqualTo(1);
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    void issuedInTheFuture_jtiRetainedFromIssueTime() {
+        cache.recordIfAbsent(ISSUER_URI, "jti-1", NOW.plusSeconds(30));
+
+        cache.setClock(Clock.fixed(NOW.plusSeconds(61), ZoneOffset.UTC));
+
+        assertThat(cache.recordIfAbsent(ISSUER_URI, "jti-1")).isFalse();
+    }
+
+    @Test
+    void issuedInTheFuture_laterJtisStillExpired() {
+        cache.recordIfAbsent(ISSUER_URI, "jti-1", NOW.plusSeconds(30));
+        cache.recordIfAbsent(ISSUER_URI, "jti-2");
+
+        cache.setClock(Clock.fixed(NOW.plusSeconds(61), ZoneOffset.UTC));
+        cache.recordIfAbsent(ISSUER_URI, "jti-3");
+
+        assertThat(cache.getExpiredCount()).isEqualTo(1);
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.recordIfAbsent(ISSUER_URI, "jti-1")).isFalse();
+        assertThat(cache.recordIfAbsent(ISSUER_URI, "jti-2")).isTrue();
+    }
+
+    @Test
+    void removed_jtiAcceptedAgain() {
+        cache.recordIfAbsent(ISSUER_URI, "jti-1");
+        cache.recordIfAbsent(ISSUER_URI, "jti-2");
+
+        cache.remove(ISSUER_URI, "jti-1");
+
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.recordIfAbsent(ISSUER_URI, "jti-1")).isTrue();
+        assertThat(cache.recordIfAbsent(ISSUER_URI, "jti-2")).isFalse();
+    }
+
+    @Test
+    void maximumSizeReached_oldestJtiEvicted() {
+        IntStream.range(0, 5)
+                .forEach(i -> cache.recordIfAbsent(ISSUER_URI, "jti-" + i));
+
+        assertThat(cache.size()).isEqualTo(3);
+        assertThat(cache.getEvictedCount()).isEqualTo(2);
+        assertThat(cache.recordIfAbsent(ISSUER_URI, "jti-0")).isTrue();
+        assertThat(cache.recordIfAbsent(ISSUER_URI, "jti-4")).isFalse();
+    }
+
+    @Test
+    void concurrentReplays_recordedOnce() throws Exception {
+        final var recorded = new AtomicInteger();
+        try (var executor = Executors.newFixedThreadPool(8)) {
+            IntStream.range(0, 100).forEach(i -> executor.execute(() -> {
+                if (cache.recordIfAbsent(ISSUER_URI, "jti-1")) {
+                    recorded.incrementAndGet();
+                }
+            }));
+            executor.shutdown();
+            assertThat(executor.awaitTermination(10, TimeUnit.SECONDS))
+                    .isTrue();
+        }
+
+        assertThat(recorded).hasValue(1);
+        assertThat(cache.getReplayCount()).isEqualTo(99);
+    }
+}
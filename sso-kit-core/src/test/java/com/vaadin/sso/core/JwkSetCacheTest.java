@@ -0,0 +1,157 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full license.
+ */
+package com.vaadin.sso.core;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jose.util.Resource;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwkSetCacheTest {
+
+    private static final String JWK_SET_URI = "http://issuer.com/jwks";
+
+    private final AtomicReference<JWKSet> publishedKeys = new AtomicReference<>();
+
+    private RSAKey key;
+
+    private JwkSetCache cache;
+
+    @BeforeEach
+    void setup() throws Exception {
+        key = new RSAKeyGenerator(2048).keyID("key-1").generate();
+        publishedKeys.set(new JWKSet(key.toPublicJWK()));
+        cache = new JwkSetCache(
+                url -> new Resource(publishedKeys.get().toString(),
+                        "application/json"),
+                Runnable::run);
+    }
+
+    @Test
+    void decodersForSameUri_shareOneFetch() throws Exception {
+        final var token = sign(key);
+
+        cache.createDecoder(JWK_SET_URI).decode(token);
+        cache.createDecoder(JWK_SET_URI).decode(token);
+
+        assertThat(cache.getFetchCount()).isEqualTo(1);
+    }
+
+    @Test
+    void withinRefreshAheadWindow_keySetIsRefreshed() throws Exception {
+        final var decoder = cache.createDecoder(JWK_SET_URI);
+        decoder.decode(sign(key));
+
+        cache.setClock(Clock.offset(Clock.systemUTC(),
+                Duration.ofMinutes(4).plusSeconds(45)));
+        decoder.decode(sign(key));
+
+        assertThat(cache.getFetchCount()).isEqualTo(2);
+    }
+
+    @Test
+    void expiredWhileProviderDown_cachedKeysUsedAndRetriedWithBackoff()
+            throws Exception {
+        final var providerDown = new AtomicBoolean();
+        final var refreshes = new ArrayList<Runnable>();
+        cache = new JwkSetCache(url -> {
+            if (providerDown.get()) {
+                throw new IOException("Connection refused");
+            }
+            return new Resource(publishedKeys.get().toString(),
+                    "application/json");
+        }, task -> {
+            if (providerDown.get()) {
+                refreshes.add(task);
+            } else {
+                task.run();
+            }
+        });
+        final var decoder = cache.createDecoder(JWK_SET_URI);
+        decoder.decode(sign(key));
+
+        providerDown.set(true);
+        final var expired = Instant.now().plus(Duration.ofMinutes(6));
+        cache.setClock(Clock.fixed(expired, ZoneOffset.UTC));
+        // Does not wait for the refresh, which is left queued
+        assertThat(decoder.decode(sign(key)).getSubject()).isEqualTo("john");
+        assertThat(refreshes).hasSize(1);
+        refreshes.removeFirst().run();
+
+        decoder.decode(sign(key));
+        assertThat(refreshes).as("refreshes within the backoff").isEmpty();
+
+        cache.setClock(Clock.fixed(expired.plusSeconds(2), ZoneOffset.UTC));
+        decoder.decode(sign(key));
+        assertThat(refreshes).hasSize(1);
+        assertThat(cache.getFetchCount()).isEqualTo(2);
+    }
+
+    @Test
+    void unknownKeyId_keySetIsFetchedAgain() throws Exception {
+        final var decoder = cache.createDecoder(JWK_SET_URI);
+        decoder.decode(sign(key));
+
+        final var rotatedKey = new RSAKeyGenerator(2048).keyID("key-2")
+                .generate();
+        publishedKeys.set(new JWKSet(rotatedKey.toPublicJWK()));
+
+        assertThat(decoder.decode(sign(rotatedKey)).getSubject())
+                .isEqualTo("john");
+        assertThat(cache.getFetchCount()).isEqualTo(2);
+    }
+
+    @Test
+    void unknownKeyId_refetchIsRateLimited() throws Exception {
+        final var decoder = cache.createDecoder(JWK_SET_URI);
+        decoder.decode(sign(key));
+        final var unknownKey = new RSAKeyGenerator(2048).keyID("unknown")
+                .generate();
+
+        assertThatThrownBy(() -> decoder.decode(sign(unknownKey)))
+                .isInstanceOf(JwtException.class);
+        assertThatThrownBy(() -> decoder.decode(sign(unknownKey)))
+                .isInstanceOf(JwtException.class);
+
+        assertThat(cache.getFetchCount()).isEqualTo(2);
+    }
+
+    private String sign(RSAKey signingKey) throws Exception {
+        final var header = new JWSHeader.Builder(JWSAlgorithm.RS256)
+                .keyID(signingKey.getKeyID()).build();
+        final var now = Instant.now();
+        final var claims = new JWTClaimsSet.Builder()
+                .issuer("http://issuer.com").subject("john")
+                .issueTime(Date.from(now))
+                .expirationTime(Date.from(now.plusSeconds(3600))).build();
+        final var jwt = new SignedJWT(header, claims);
+        jwt.sign(new RSASSASigner(signingKey));
+        return jwt.serialize();
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full license.
+ */
+package com.vaadin.sso.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+
+import com.vaadin.sso.core.KeycloakUserMapper.KeycloakClientRole;
+import com.vaadin.sso.core.KeycloakUserMapper.KeycloakRealmRole;
+import com.vaadin.sso.core.KeycloakUserMapper.OidcScopeAuthority;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KeycloakAuthoritySerializationTest {
+
+    @Test
+    void deserialize_formWithoutAuthority_authorityComputed()
+            throws Exception {
+        assertThat(deserializeAs(new LegacyScope("openid"),
+                OidcScopeAuthority.class))
+                .isEqualTo(new OidcScopeAuthority("openid"))
+                .extracting(GrantedAuthority::getAuthority)
+                .isEqualTo("SCOPE_openid");
+        assertThat(deserializeAs(new LegacyRealmRole("admin"),
+                KeycloakRealmRole.class))
+                .isEqualTo(new KeycloakRealmRole("admin"))
+                .extracting(GrantedAuthority::getAuthority)
+                .isEqualTo("ROLE_admin");
+        assertThat(deserializeAs(new LegacyClientRole("test-client", "editor"),
+                KeycloakClientRole.class))
+                .isEqualTo(new KeycloakClientRole("test-client", "editor"))
+                .extracting(GrantedAuthority::getAuthority)
+                .isEqualTo("ROLE_editor");
+    }
+
+    /* The authority records as serialized before their authority component */
+
+    private record LegacyScope(String scope) implements Serializable {
+    }
+
+    private record LegacyRealmRole(String role) implements Serializable {
+    }
+
+    private record LegacyClientRole(String client, String role)
+            implements Serializable {
+    }
+
+    /*
+     * Serializes the given record and deserializes it as the given type, by
+     * replacing the class name in the stream.
+     */
+    private static <T> T deserializeAs(Record legacy, Class<T> type)
+            throws IOException, ClassNotFoundException {
+        var bytes = new ByteArrayOutputStream();
+        try (var out = new ObjectOutputStream(bytes)) {
+            out.writeObject(legacy);
+        }
+        var stream = replace(bytes.toByteArray(),
+                utf(legacy.getClass().getName()), utf(type.getName()));
+        try (var in = new ObjectInputStream(
+                new ByteArrayInputStream(stream))) {
+            return type.cast(in.readObject());
+        }
+    }
+
+    private static byte[] utf(String value) throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        new DataOutputStream(bytes).writeUTF(value);
+        return bytes.toByteArray();
+    }
+
+    private static byte[] replace(byte[] bytes, byte[] target,
+            byte[] replacement) {
+        for (int i = 0; i <= bytes.length - target.length; i++) {
+            if (Arrays.equals(bytes, i, i + target.length, target, 0,
+                    target.length)) {
+                var result = new ByteArrayOutputStream();
+                result.write(bytes, 0, i);
+                result.writeBytes(replacement);
+                result.write(bytes, i + target.length,
+                        bytes.length - i - target.length);
+                return result.toByteArray();
+            }
+        }
+        throw new IllegalArgumentException("Not found");
+    }
+}
@@ -9,11 +9,18 @@ package com.vaadin.sso.core;
 
 import java.time.Instant;
 import java.util.Collection;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -28,6 +35,7 @@ import org.springframework.security.oauth2.client.registration.ClientRegistratio
 import org.springframework.security.oauth2.core.OAuth2AccessToken;
 import org.springframework.security.oauth2.core.oidc.OidcIdToken;
 import org.springframework.security.oauth2.core.oidc.OidcUserInfo;
+import org.springframework.security.oauth2.core.oidc.user.OidcUser;
 import org.springframework.security.oauth2.jwt.Jwt;
 
 import com.vaadin.sso.core.KeycloakUserMapper.KeycloakClientRole;
@@ -116,6 +124,19 @@ class KeycloakUserMapperTest {
                 new KeycloakRealmRole("user"));
     }
 
+    @Test
+    void convert_sameRoles_authorityInstancesShared() {
+        jwtClaims.put(KeycloakUserMapper.REALM_ACCESS_CLAIM,
+                Map.of(KeycloakUserMapper.ROLES_CLAIM, List.of("admin")));
+
+        var first = mapper.convert(userSource);
+        var second = mapper.convert(userSource);
+
+        assertThat(realmRole(second)).isSameAs(realmRole(first))
+                .extracting(GrantedAuthority::getAuthority)
+                .isEqualTo("ROLE_admin");
+    }
+
     @Test
     void convert_mapsClientRoles() {
         jwtClaims.put(KeycloakUserMapper.RESOURCE_ACCESS_CLAIM,
@@ -197,6 +218,36 @@ class KeycloakUserMapperTest {
         assertThat(user.getSubject()).isEqualTo("user-123");
     }
 
+    @Test
+    void convert_defaultMapper_readsRolesWithoutVerification()
+            throws Exception {
+        // Signed with a key the mapper does not know about
+        var key = new RSAKeyGenerator(2048).generate();
+        var claims = new JWTClaimsSet.Builder().issuer(ISSUER_URI)
+                .issueTime(new Date())
+                .claim(KeycloakUserMapper.REALM_ACCESS_CLAIM,
+                        Map.of(KeycloakUserMapper.ROLES_CLAIM,
+                                List.of("admin")))
+                .build();
+        var signedJwt = new SignedJWT(new JWSHeader(JWSAlgorithm.RS256),
+                claims);
+        signedJwt.sign(new RSASSASigner(key));
+        when(accessToken.getTokenValue()).thenReturn(signedJwt.serialize());
+        mapper = new KeycloakUserMapper();
+
+        var user = mapper.convert(userSource);
+
+        @SuppressWarnings("unchecked")
+        var authorities = (Collection<GrantedAuthority>) user.getAuthorities();
+        assertThat(authorities).contains(new KeycloakRealmRole("admin"));
+    }
+
+    private static GrantedAuthority realmRole(OidcUser user) {
+        return user.getAuthorities().stream()
+                .filter(KeycloakRealmRole.class::isInstance).findFirst()
+                .orElseThrow();
+    }
+
     private final HashMap<String, Object> jwtClaims = new HashMap<>();
 
     private Jwt createJwt(String tokenValue) {
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full license.
+ */
+package com.vaadin.sso.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocalLogoutEventBusTest {
+
+    private static final LogoutCriteria ALICE = LogoutCriteria
+            .forSubject("https://issuer.com", "alice");
+
+    private static final LogoutCriteria BOB = LogoutCriteria
+            .forSid("https://issuer.com", "bob-session");
+
+    @Test
+    void publish_deliveredToAllListeners() {
+        final var bus = new LocalLogoutEventBus();
+        final var first = new ArrayList<List<LogoutCriteria>>();
+        final var second = new ArrayList<List<LogoutCriteria>>();
+        bus.subscribe(first::add);
+        bus.subscribe(second::add);
+
+        bus.publish(ALICE);
+
+        assertThat(first).containsExactly(List.of(ALICE));
+        assertThat(second).containsExactly(List.of(ALICE));
+    }
+
+    @Test
+    void publishBeforeDrain_deliveredInOneBatchWithoutDuplicates() {
+        final var tasks = new ArrayList<Runnable>();
+        final var bus = new LocalLogoutEventBus(tasks::add);
+        final var batches = new ArrayList<List<LogoutCriteria>>();
+        bus.subscribe(batches::add);
+
+        bus.publish(ALICE);
+        bus.publish(BOB);
+        bus.publish(ALICE);
+
+        assertThat(tasks).hasSize(1);
+        tasks.get(0).run();
+        assertThat(batches).containsExactly(List.of(ALICE, BOB));
+    }
+
+    @Test
+    void listenerFails_otherListenersCalled() {
+        final var bus = new LocalLogoutEventBus();
+        final var batches = new ArrayList<List<LogoutCriteria>>();
+        bus.subscribe(batch -> {
+            throw new IllegalStateException("Failing listener");
+        });
+        bus.subscribe(batches::add);
+
+        bus.publish(ALICE);
+        bus.publish(BOB);
+
+        assertThat(batches).containsExactly(List.of(ALICE), List.of(BOB));
+    }
+}
@@ -7,6 +7,7 @@
  */
 package com.vaadin.sso.core;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
 import java.util.Map;
@@ -130,6 +131,34 @@ class OidcLogoutTokenValidatorTest {
         assertTrue(result.hasErrors());
     }
 
+    @Test
+    void replayedJti_withReplayCache_validationFails() {
+        validator.setReplayCache(
+                new JtiReplayCache(Duration.ofMinutes(1), 10));
+        final var token = createValidLogoutToken().jti("jti-1").build();
+
+        assertFalse(validator.validate(token).hasErrors());
+        assertTrue(validator.validate(token).hasErrors());
+    }
+
+    @Test
+    void issuedBeforeRetention_withReplayCache_validationFails() {
+        validator.setReplayCache(
+                new JtiReplayCache(Duration.ofMinutes(1), 10));
+        final var token = createValidLogoutToken().jti("jti-1")
+                .issuedAt(Instant.now().minusSeconds(61)).build();
+
+        assertTrue(validator.validate(token).hasErrors());
+    }
+
+    @Test
+    void replayedJti_withoutReplayCache_validationSuccedes() {
+        final var token = createValidLogoutToken().jti("jti-1").build();
+
+        assertFalse(validator.validate(token).hasErrors());
+        assertFalse(validator.validate(token).hasErrors());
+    }
+
     static Jwt.Builder createValidLogoutToken() {
         final var now = Instant.now();
         // @formatter:off
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full license.
+ */
+package com.vaadin.sso.core;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.security.core.session.SessionInformation;
+import org.springframework.security.web.session.HttpSessionDestroyedEvent;
+
+import static com.vaadin.sso.core.TestUsers.ISSUER_URI;
+import static com.vaadin.sso.core.TestUsers.createUser;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OidcSessionRegistryTest {
+
+    private OidcSessionRegistry registry;
+
+    @BeforeEach
+    void setup() {
+        registry = new OidcSessionRegistry();
+    }
+
+    @Test
+    void registerNewSession_sessionsTrackedPerPrincipal() {
+        final var user = createUser("john", "sid-1");
+
+        registry.registerNewSession("session-1", user);
+        registry.registerNewSession("session-2", user);
+
+        assertThat(registry.getAllPrincipals()).containsExactly(user);
+        assertThat(registry.getAllSessions(user, false))
+                .extracting(SessionInformation::getSessionId)
+                .containsExactlyInAnyOrder("session-1", "session-2");
+        assertThat(registry.findSessionsBySid(ISSUER_URI, "sid-1"))
+                .hasSize(2);
+    }
+
+    @Test
+    void expiredSession_excludedUnlessRequested() {
+        final var user = createUser("john", "sid-1");
+        registry.registerNewSession("session-1", user);
+
+        registry.getSessionInformation("session-1").expireNow();
+
+        assertThat(registry.getAllSessions(user, false)).isEmpty();
+        assertThat(registry.getAllSessions(user, true)).hasSize(1);
+    }
+
+    @Test
+    void refreshLastRequest_lastRequestUpdated() throws Exception {
+        registry.registerNewSession("session-1", createUser("john", "sid-1"));
+        final var info = registry.getSessionInformation("session-1");
+        final var registeredAt = info.getLastRequest();
+
+        Thread.sleep(5);
+        registry.refreshLastRequest("session-1");
+
+        assertThat(info.getLastRequest()).isAfter(registeredAt);
+    }
+
+    @Test
+    void findLeastRecentlyUsedSession_sameWithAndWithoutRecencyOrder()
+            throws Exception {
+        registry.registerNewSession("session-1", "john");
+        registry.registerNewSession("session-2", "john");
+        registry.registerNewSession("session-3", "john");
+        Thread.sleep(5);
+        registry.refreshLastRequest("session-1");
+        registry.getSessionInformation("session-2").expireNow();
+
+        assertThat(registry.countActiveSessions("john")).isEqualTo(2);
+        assertThat(registry.findLeastRecentlyUsedSession("john")
+                .getSessionId()).isEqualTo("session-3");
+
+        registry.enableRecencyOrder();
+
+        assertThat(registry.findLeastRecentlyUsedSession("john")
+                .getSessionId()).isEqualTo("session-3");
+        registry.removeSessionInformation("session-3");
+        assertThat(registry.countActiveSessions("john")).isOne();
+        assertThat(registry.findLeastRecentlyUsedSession("john")
+                .getSessionId()).isEqualTo("session-1");
+    }
+
+    @Test
+    void lastSessionRemoved_principalRemoved() {
+        final var user = createUser("john", "sid-1");
+        registry.registerNewSession("session-1", user);
+
+        registry.removeSessionInformation("session-1");
+
+        assertThat(registry.getAllPrincipals()).isEmpty();
+        assertThat(registry.getSessionInformation("session-1")).isNull();
+        assertThat(registry.findSessionsBySubject(ISSUER_URI, "john"))
+                .isEmpty();
+    }
+
+    @Test
+    void sessionDestroyedEvent_sessionRemoved() {
+        registry.registerNewSession("session-1", createUser("john", "sid-1"));
+
+        registry.onApplicationEvent(new HttpSessionDestroyedEvent(
+                new MockHttpSession(null, "session-1")));
+
+        assertThat(registry.getSessionInformation("session-1")).isNull();
+        assertThat(registry.getAllPrincipals()).isEmpty();
+    }
+
+    @Test
+    void concurrentRegistrations_allSessionsTracked() throws Exception {
+        final var user = createUser("john", "sid-1");
+        try (var executor = Executors.newFixedThreadPool(8)) {
+            IntStream.range(0, 1000).forEach(i -> executor.execute(
+                    () -> registry.registerNewSession("session-" + i, user)));
+            executor.shutdown();
+            assertThat(executor.awaitTermination(10, TimeUnit.SECONDS))
+                    .isTrue();
+        }
+
+        assertThat(registry.getAllSessions(user, false)).hasSize(1000);
+        assertThat(registry.findSessionsBySubject(ISSUER_URI, "john"))
+                .hasSize(1000);
+    }
+}
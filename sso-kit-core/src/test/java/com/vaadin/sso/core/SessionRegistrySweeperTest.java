@@ -0,0 +1,69 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full license.
+ */
+package com.vaadin.sso.core;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SessionRegistrySweeperTest {
+
+    private static final Duration TIMEOUT = Duration.ofMinutes(30);
+
+    private final AtomicLong offset = new AtomicLong();
+
+    @Test
+    void sweep_onlyTimedOutSessionsRemoved() {
+        final var registry = new OidcSessionRegistry();
+        final var sweeper = new SessionRegistrySweeper(registry, TIMEOUT,
+                () -> System.currentTimeMillis() + offset.get());
+        registry.setSweeper(sweeper);
+        // Tracked as if registered 20 minutes ago, but used now
+        offset.set(-Duration.ofMinutes(20).toMillis());
+        registry.registerNewSession("session-1", "john");
+        registry.registerNewSession("session-2", "jane");
+        registry.removeSessionInformation("session-2");
+
+        offset.set(Duration.ofMinutes(11).toMillis());
+
+        assertThat(sweeper.sweep()).isZero();
+        assertThat(registry.getSessionInformation("session-1")).isNotNull();
+        assertThat(sweeper.getTrackedSessions()).isOne();
+
+        offset.set(Duration.ofMinutes(31).toMillis());
+
+        assertThat(sweeper.sweep()).isOne();
+        assertThat(registry.getSessionInformation("session-1")).isNull();
+        assertThat(registry.getAllPrincipals()).isEmpty();
+        assertThat(sweeper.getTrackedSessions()).isZero();
+        assertThat(sweeper.getReclaimedCount()).isOne();
+    }
+
+    @Test
+    void timingWheel_deadlinesOnAllLevels_dueInOrder() {
+        final var wheel = new SessionTimingWheel(1000, 0);
+        final long[] deadlines = { 5_000, 90_000, 5_000_000, 300_000_000,
+                20_000_000_000L };
+        for (int i = deadlines.length - 1; i >= 0; i--) {
+            wheel.schedule("session-" + i, deadlines[i]);
+        }
+
+        final var due = new ArrayList<String>();
+        for (int i = 0; i < deadlines.length; i++) {
+            wheel.advance(deadlines[i] - 1000, due::add);
+            assertThat(due).hasSize(i);
+            wheel.advance(deadlines[i], due::add);
+            assertThat(due).hasSize(i + 1).endsWith("session-" + i);
+        }
+        assertThat(wheel.size()).isZero();
+    }
+}
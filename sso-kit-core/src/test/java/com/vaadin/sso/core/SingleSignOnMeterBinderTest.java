@@ -0,0 +1,86 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full license.
+ */
+package com.vaadin.sso.core;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+class SingleSignOnMeterBinderTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void sweeperGiven_reclaimedSessionsCounted() {
+        final var time = new AtomicLong(System.currentTimeMillis());
+        final var registry = new OidcSessionRegistry();
+        final var sweeper = new SessionRegistrySweeper(registry,
+                Duration.ofMinutes(30), time::get);
+        registry.setSweeper(sweeper);
+        registry.registerNewSession("session-1", "john");
+        new SingleSignOnMeterBinder(sweeper, null).bindTo(meterRegistry);
+
+        time.addAndGet(Duration.ofMinutes(31).toMillis());
+        sweeper.sweep();
+
+        assertThat(meterRegistry
+                .get(SingleSignOnMeterBinder.RECLAIMED_SESSIONS_COUNTER)
+                .functionCounter().count()).isOne();
+    }
+
+    @Test
+    void executorGiven_queueDepthAndLagBound() throws InterruptedException {
+        final var executor = new BackChannelLogoutExecutor(10, 1,
+                BackChannelLogoutExecutor.OverflowPolicy.REJECT);
+        new SingleSignOnMeterBinder(null, executor).bindTo(meterRegistry);
+        final var release = new CountDownLatch(1);
+        try {
+            executor.execute(() -> awaitQuietly(release));
+            executor.execute(() -> {
+            });
+
+            await().untilAsserted(() -> assertThat(meterRegistry
+                    .get(SingleSignOnMeterBinder.QUEUE_DEPTH_GAUGE).gauge()
+                    .value()).isOne());
+            Thread.sleep(20);
+            release.countDown();
+
+            await().untilAsserted(() -> assertThat(meterRegistry
+                    .get(SingleSignOnMeterBinder.MAXIMUM_LAG_GAUGE)
+                    .timeGauge().value(TimeUnit.MILLISECONDS))
+                    .isGreaterThanOrEqualTo(20));
+            assertThat(meterRegistry.get(SingleSignOnMeterBinder.LAG_GAUGE)
+                    .timeGauge()).isNotNull();
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void nothingGiven_noMetersRegistered() {
+        new SingleSignOnMeterBinder(null, null).bindTo(meterRegistry);
+
+        assertThat(meterRegistry.getMeters()).isEmpty();
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full license.
+ */
+package com.vaadin.sso.core;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.core.session.SessionRegistry;
+import org.springframework.security.core.session.SessionRegistryImpl;
+
+import static com.vaadin.sso.core.TestUsers.ISSUER_URI;
+import static com.vaadin.sso.core.TestUsers.createUser;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class SingleSignOnSessionTerminatorTest {
+
+    private ApplicationEventPublisher eventPublisher;
+
+    @BeforeEach
+    void setup() {
+        eventPublisher = mock(ApplicationEventPublisher.class);
+    }
+
+    @Test
+    void scannedRegistry_allMatchingSessionsExpired() {
+        final var registry = new SessionRegistryImpl();
+        assertBulkTermination(registry);
+    }
+
+    @Test
+    void indexedRegistry_allMatchingSessionsExpired() {
+        final var registry = new OidcSessionRegistry();
+        assertBulkTermination(registry);
+    }
+
+    @Test
+    void otherIssuer_sessionsNotExpired() {
+        final var registry = new SessionRegistryImpl();
+        registry.registerNewSession("session-1", createUser("john", "sid-1"));
+        final var terminator = new SingleSignOnSessionTerminator(registry,
+                eventPublisher);
+
+        final var expired = terminator
+                .terminate(LogoutCriteria.forSid("http://other.com", "sid-1"));
+
+        assertThat(expired).isZero();
+        assertThat(registry.getSessionInformation("session-1").isExpired())
+                .isFalse();
+    }
+
+    @Test
+    void criteriaWithoutSidAndSubject_rejected() {
+        assertThatThrownBy(() -> new LogoutCriteria(ISSUER_URI, null, null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private void assertBulkTermination(SessionRegistry registry) {
+        final var john = createUser("john", "sid-1");
+        registry.registerNewSession("john-1", john);
+        registry.registerNewSession("john-2", john);
+        registry.registerNewSession("dave-1", createUser("dave", "sid-3"));
+        registry.registerNewSession("mary-1", createUser("mary", "sid-4"));
+        final var terminator = new SingleSignOnSessionTerminator(registry,
+                eventPublisher);
+
+        final var expired = terminator.terminate(
+                List.of(LogoutCriteria.forSubject(ISSUER_URI, "john"),
+                        LogoutCriteria.forSid(null, "sid-3")));
+
+        assertThat(expired).isEqualTo(3);
+        assertThat(registry.getSessionInformation("john-1").isExpired())
+                .isTrue();
+        assertThat(registry.getSessionInformation("john-2").isExpired())
+                .isTrue();
+        assertThat(registry.getSessionInformation("dave-1").isExpired())
+                .isTrue();
+        assertThat(registry.getSessionInformation("mary-1").isExpired())
+                .isFalse();
+        verify(eventPublisher, times(2))
+                .publishEvent(any(UserLogoutEvent.class));
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full license.
+ */
+package com.vaadin.sso.core;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.core.session.SessionInformation;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.core.oidc.user.DefaultOidcUser;
+import org.springframework.security.oauth2.core.oidc.user.OidcUser;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.session.FindByIndexNameSessionRepository;
+import org.springframework.session.MapSession;
+import org.springframework.session.Session;
+import org.springframework.session.SessionRepository;
+import org.springframework.session.jdbc.JdbcIndexedSessionRepository;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static com.vaadin.sso.core.TestUsers.ISSUER_URI;
+import static com.vaadin.sso.core.TestUsers.createUser;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SpringSessionRegistryTest {
+
+    private EmbeddedDatabase database;
+
+    private JdbcIndexedSessionRepository repository;
+
+    private SpringSessionRegistry<?> registry;
+
+    @BeforeEach
+    void setup() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2).generateUniqueName(true)
+                .addScript("org/springframework/session/jdbc/schema-h2.sql")
+                .build();
+        repository = new JdbcIndexedSessionRepository(
+                new JdbcTemplate(database), new TransactionTemplate(
+                        new DataSourceTransactionManager(database)));
+        repository.setIndexResolver(new OidcSessionIndexResolver());
+        registry = new SpringSessionRegistry<>(repository);
+    }
+
+    @AfterEach
+    void teardown() {
+        database.shutdown();
+    }
+
+    @Test
+    void findSessions_subjectAndSid_matchingSessionFoundAndExpired() {
+        final var john = createUser("john", "sid-1");
+        final var sessionId = saveSession(john);
+        saveSession(createUser("john", "sid-2"));
+        saveSession(createUser("jane", "sid-3"));
+
+        final var sessions = registry.findSessions(
+                new LogoutCriteria(ISSUER_URI, "sid-1", "john"));
+
+        assertThat(sessions).extracting(SessionInformation::getSessionId)
+                .containsExactly(sessionId);
+        assertThat(sessions.iterator().next().getPrincipal()).isEqualTo(john);
+
+        sessions.forEach(SessionInformation::expireNow);
+
+        assertThat(repository.findById(sessionId)).isNull();
+        assertThat(repository.findByPrincipalName("john")).hasSize(1);
+    }
+
+    @Test
+    void findSessions_subjectOnly_allSessionsOfIssuerFound() {
+        final var first = saveSession(createUser("john", "sid-1"));
+        final var second = saveSession(createUser("john", "sid-2"));
+        saveSession(createUser("jane", "sid-3"));
+
+        assertThat(registry
+                .findSessions(new LogoutCriteria(ISSUER_URI, null, "john")))
+                .extracting(SessionInformation::getSessionId)
+                .containsExactlyInAnyOrder(first, second);
+        assertThat(registry.findSessions(
+                new LogoutCriteria("http://other.com", null, "john")))
+                .isEmpty();
+    }
+
+    @Test
+    void findSessions_sidOnlyWithPrincipalNameIndexOnly_noSessionsFound() {
+        saveSession(createUser("john", "sid-1"));
+
+        assertThat(registry
+                .findSessions(new LogoutCriteria(ISSUER_URI, "sid-1", null)))
+                .isEmpty();
+    }
+
+    @Test
+    void findSessions_sidOnlyWithClaimIndexes_sidIndexQueried() {
+        @SuppressWarnings("unchecked")
+        final FindByIndexNameSessionRepository<Session> indexedRepository = mock(
+                FindByIndexNameSessionRepository.class);
+        final var session = createSession(createUser("john", "sid-1"));
+        when(indexedRepository.findByIndexNameAndIndexValue(
+                OidcSessionIndexResolver.SID_INDEX_NAME, "sid-1"))
+                .thenReturn(Map.of(session.getId(), session));
+
+        assertThat(new SpringSessionRegistry<>(indexedRepository, true)
+                .findSessions(new LogoutCriteria(ISSUER_URI, "sid-1", null)))
+                .extracting(SessionInformation::getSessionId)
+                .containsExactly(session.getId());
+    }
+
+    @Test
+    void resolveIndexesFor_principalNameKept() {
+        final var idToken = new OidcIdToken("token", Instant.now(),
+                Instant.now().plusSeconds(60),
+                Map.of("sub", "john", "sid", "sid-1", "iss", ISSUER_URI,
+                        "preferred_username", "john.doe"));
+        final var user = new DefaultOidcUser(List.of(), idToken,
+                "preferred_username");
+
+        assertThat(new OidcSessionIndexResolver()
+                .resolveIndexesFor(createSession(user))).isEqualTo(Map.of(
+                        FindByIndexNameSessionRepository.PRINCIPAL_NAME_INDEX_NAME,
+                        "john.doe", OidcSessionIndexResolver.SUBJECT_INDEX_NAME,
+                        "john", OidcSessionIndexResolver.SID_INDEX_NAME,
+                        "sid-1"));
+    }
+
+    private static Session createSession(OidcUser user) {
+        final var session = new MapSession();
+        session.setAttribute(
+                HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY,
+                new SecurityContextImpl(new OAuth2AuthenticationToken(user,
+                        user.getAuthorities(), "keycloak")));
+        return session;
+    }
+
+    private String saveSession(OidcUser user) {
+        return saveSession(repository, user);
+    }
+
+    private static <S extends Session> String saveSession(
+            SessionRepository<S> repository, OidcUser user) {
+        final var session = repository.createSession();
+        session.setAttribute(
+                HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY,
+                new SecurityContextImpl(new OAuth2AuthenticationToken(user,
+                        user.getAuthorities(), "keycloak")));
+        repository.save(session);
+        return session.getId();
+    }
+}
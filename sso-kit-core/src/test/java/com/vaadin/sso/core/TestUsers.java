@@ -0,0 +1,34 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full license.
+ */
+package com.vaadin.sso.core;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.core.oidc.user.DefaultOidcUser;
+import org.springframework.security.oauth2.core.oidc.user.OidcUser;
+
+/*
+ * The OIDC users shared by the session registry tests.
+ */
+final class TestUsers {
+
+    static final String ISSUER_URI = "http://issuer.com";
+
+    private TestUsers() {
+    }
+
+    static OidcUser createUser(String subject, String sid) {
+        final var idToken = new OidcIdToken("token", Instant.now(),
+                Instant.now().plusSeconds(60),
+                Map.of("sub", subject, "sid", sid, "iss", ISSUER_URI));
+        return new DefaultOidcUser(List.of(), idToken);
+    }
+}
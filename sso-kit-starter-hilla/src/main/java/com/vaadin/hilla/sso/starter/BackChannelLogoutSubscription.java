@@ -8,28 +8,106 @@
 package com.vaadin.hilla.sso.starter;
 
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Consumer;
 
 import org.springframework.context.ApplicationListener;
+import org.springframework.security.oauth2.core.oidc.IdTokenClaimNames;
+import org.springframework.security.oauth2.core.oidc.user.OidcUser;
+import org.springframework.util.Assert;
+import reactor.core.Exceptions;
+import reactor.core.publisher.BufferOverflowStrategy;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
 
+import com.vaadin.sso.core.LogoutCriteria;
+import com.vaadin.sso.core.RestoredSessionPrincipal;
 import com.vaadin.sso.core.UserLogoutEvent;
 
 /**
  * A subscription for broadcasting back-channel logout events to the subscribed
  * clients.
+ * <p>
+ * Each principal has its own channel, so that an event is only dispatched to
+ * the clients of the logged out principal. OpenID Connect principals are
+ * identified by their issuer and session-id, or subject if there is no
+ * session-id; other principals by equality. A channel is removed when its last
+ * client unsubscribes.
+ * <p>
+ * Events are emitted into the channels one at a time, whatever the thread
+ * publishing them. Each client has a bounded buffer, so that a slow client
+ * cannot hold an unbounded number of messages: when the buffer is full, the
+ * configured {@link OverflowPolicy} applies.
  */
 public class BackChannelLogoutSubscription
         implements ApplicationListener<UserLogoutEvent> {
 
-    private Consumer<Object> consumer;
+    /**
+     * The default number of messages buffered for each client.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 16;
+
+    /**
+     * The policy applied to clients which do not consume their messages fast
+     * enough.
+     */
+    public enum OverflowPolicy {
+
+        /**
+         * Drops the oldest buffered message to make room for the new one. This
+         * is the default.
+         */
+        DROP,
+
+        /**
+         * Disconnects the client by terminating its Flux with an error.
+         */
+        DISCONNECT
+    }
 
-    private final Flux<Object> flux;
+    private static final String SID_CLAIM = "sid";
 
+    private static final Message LOGOUT_MESSAGE = new Message(
+            "User logged out");
+
+    private final ConcurrentMap<Object, Channel> channels = new ConcurrentHashMap<>();
+
+    private final int bufferSize;
+
+    private final OverflowPolicy overflowPolicy;
+
+    private final LongAdder emittedCount = new LongAdder();
+
+    private final LongAdder droppedCount = new LongAdder();
+
+    private final LongAdder laggingSubscriberCount = new LongAdder();
+
+    /**
+     * Creates a new instance with the default buffer size and the
+     * {@link OverflowPolicy#DROP} policy.
+     */
     public BackChannelLogoutSubscription() {
-        // Create a Flux and prepare to store the FluxSink "next" method as a
-        // consumer, that will be called when a user is logged out.
-        flux = Flux.create(sink -> consumer = sink::next).share();
+        this(DEFAULT_BUFFER_SIZE, OverflowPolicy.DROP);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param bufferSize
+     *            the maximum number of messages buffered for each client,
+     *            positive
+     * @param overflowPolicy
+     *            the policy for clients whose buffer is full, not
+     *            {@code null}
+     */
+    public BackChannelLogoutSubscription(int bufferSize,
+            OverflowPolicy overflowPolicy) {
+        Assert.isTrue(bufferSize > 0, "bufferSize must be > 0");
+        this.bufferSize = bufferSize;
+        this.overflowPolicy = Objects.requireNonNull(overflowPolicy);
     }
 
     /**
@@ -45,16 +123,44 @@ public class BackChannelLogoutSubscription
     }
 
     /**
-     * Create a filtered Flux for the given user.
+     * Create a Flux for the given user.
      *
      * @param principal
-     *            the user to filter the Flux for.
+     *            the user to create the Flux for.
      * @return a Flux that only concerns the given user.
      */
     public Flux<Message> getFluxForUser(Object principal) {
-        Objects.requireNonNull(principal);
-        return flux.filter(p -> Objects.equals(p, principal))
-                .map(p -> new Message("User logged out"));
+        final var key = channelKey(Objects.requireNonNull(principal));
+        return Flux.defer(() -> {
+            final var channel = subscribe(key);
+            final var lagging = new AtomicBoolean();
+            final Consumer<Message> onOverflow = message -> {
+                droppedCount.increment();
+                // Each client is counted once, however many messages it drops
+                if (lagging.compareAndSet(false, true)) {
+                    laggingSubscriberCount.increment();
+                }
+            };
+            final var flux = channel.sink.asFlux();
+            final var bufferedFlux = switch (overflowPolicy) {
+            case DROP -> flux.onBackpressureBuffer(bufferSize, onOverflow,
+                    BufferOverflowStrategy.DROP_OLDEST);
+            case DISCONNECT -> {
+                // The overflow error of onBackpressureBuffer is only
+                // signalled once the buffer is drained, which a lagging
+                // client may never do, so it is signalled separately
+                final var disconnect = Sinks.<Message> one();
+                yield flux.onBackpressureBuffer(bufferSize,
+                        onOverflow.andThen(message -> disconnect
+                                .tryEmitError(Exceptions.failWithOverflow(
+                                        "Back-Channel logout subscriber "
+                                                + "is lagging"))),
+                        BufferOverflowStrategy.DROP_LATEST)
+                        .takeUntilOther(disconnect.asMono());
+            }
+            };
+            return bufferedFlux.doFinally(signal -> unsubscribe(key));
+        });
     }
 
     /**
@@ -62,14 +168,115 @@ public class BackChannelLogoutSubscription
      *
      * @param principal
      *            the user that accepts the logout event.
-     * @return true if broadcast succeeds, false otherwise.
+     * @return true if the user has subscribed clients, false otherwise.
      */
     public boolean broadcast(Object principal) {
-        if (consumer != null) {
-            consumer.accept(principal);
-            return true;
+        final var channel = channels.get(channelKey(principal));
+        if (channel == null) {
+            return false;
+        }
+        channel.emit(LOGOUT_MESSAGE);
+        emittedCount.increment();
+        return true;
+    }
+
+    /**
+     * Gets the overflow policy of this subscription.
+     *
+     * @return the overflow policy
+     */
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    /**
+     * Gets the number of events emitted to subscribed clients.
+     *
+     * @return the number of emitted events
+     */
+    public long getEmittedCount() {
+        return emittedCount.sum();
+    }
+
+    /**
+     * Gets the number of messages dropped because a client buffer was full,
+     * including the ones which disconnected the client.
+     *
+     * @return the number of dropped messages
+     */
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    /**
+     * Gets the number of clients whose buffer has overflowed.
+     *
+     * @return the number of lagging subscribers
+     */
+    public long getLaggingSubscriberCount() {
+        return laggingSubscriberCount.sum();
+    }
+
+    /**
+     * Gets the number of principals with subscribed clients.
+     *
+     * @return the number of channels
+     */
+    int getChannelCount() {
+        return channels.size();
+    }
+
+    private Channel subscribe(Object key) {
+        return channels.compute(key, (k, channel) -> {
+            final var c = channel == null ? new Channel() : channel;
+            c.subscribers++;
+            return c;
+        });
+    }
+
+    private void unsubscribe(Object key) {
+        channels.computeIfPresent(key,
+                (k, channel) -> --channel.subscribers == 0 ? null : channel);
+    }
+
+    private static Object channelKey(Object principal) {
+        if (principal instanceof RestoredSessionPrincipal restoredPrincipal) {
+            // The clients of a restored session subscribe with its OIDC user
+            return restoredPrincipal.toLogoutCriteria();
+        }
+        if (principal instanceof OidcUser user) {
+            final var issuer = Objects.toString(
+                    user.getClaims().get(IdTokenClaimNames.ISS), null);
+            final var sid = user.getClaimAsString(SID_CLAIM);
+            if (sid != null) {
+                return LogoutCriteria.forSid(issuer, sid);
+            }
+            if (user.getSubject() != null) {
+                return LogoutCriteria.forSubject(issuer, user.getSubject());
+            }
+        }
+        return principal;
+    }
+
+    /*
+     * The sink of a principal. The subscriber count is only updated within
+     * the map operations, which are atomic for a given key.
+     */
+    private static final class Channel {
+
+        /* Never overflows, since each client buffers on its own */
+        private final Sinks.Many<Message> sink = Sinks.many().multicast()
+                .directBestEffort();
+
+        private int subscribers;
+
+        /*
+         * Sinks reject concurrent emissions instead of serializing them, so
+         * events published by concurrent requests are emitted one at a time.
+         */
+        synchronized void emit(Message message) {
+            sink.tryEmitNext(message);
         }
-        return false;
     }
 
     /**
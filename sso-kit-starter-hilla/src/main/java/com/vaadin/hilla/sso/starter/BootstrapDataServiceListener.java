@@ -7,16 +7,33 @@
  */
 package com.vaadin.hilla.sso.starter;
 
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.List;
+
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.jsoup.nodes.DataNode;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.core.oidc.user.OidcUser;
 
+import com.vaadin.flow.server.VaadinRequest;
 import com.vaadin.flow.server.VaadinServiceInitListener;
 
 /**
  * This class is responsible for injecting the single sign-on data into the
  * index.html
+ * <p>
+ * The rendered script is cached in the session of authenticated users, for as
+ * long as their ID token and authorities are the same: a login or a token
+ * refresh changes the ID token, which renders the script again. Only a digest
+ * of the ID token is kept with the script. The script of anonymous users only
+ * depends on the configuration, so it is rendered once.
  */
 public class BootstrapDataServiceListener implements VaadinServiceInitListener {
 
@@ -25,10 +42,15 @@ public class BootstrapDataServiceListener implements VaadinServiceInitListener {
             window.Vaadin.SingleSignOnData = %s;
             """;
 
+    static final String SCRIPT_ATTRIBUTE = BootstrapDataServiceListener.class
+            .getName() + ".SCRIPT";
+
     private final SingleSignOnContext singleSignOnContext;
     private final ObjectMapper objectMapper = new ObjectMapper()
             .setSerializationInclusion(JsonInclude.Include.NON_NULL);
 
+    private volatile String anonymousScript;
+
     public BootstrapDataServiceListener(
             SingleSignOnContext singleSignOnContext) {
         this.singleSignOnContext = singleSignOnContext;
@@ -37,8 +59,7 @@ public class BootstrapDataServiceListener implements VaadinServiceInitListener {
     @Override
     public void serviceInit(com.vaadin.flow.server.ServiceInitEvent event) {
         event.addIndexHtmlRequestListener(indexHtmlResponse -> {
-            var data = singleSignOnContext.getSingleSignOnData();
-            var script = SCRIPT_STRING.formatted(json(data));
+            var script = getScript(indexHtmlResponse.getVaadinRequest());
 
             // Use DataNode() instead of text() to avoid escaping the script
             var scriptNode = indexHtmlResponse.getDocument()
@@ -47,6 +68,53 @@ public class BootstrapDataServiceListener implements VaadinServiceInitListener {
         });
     }
 
+    private String getScript(VaadinRequest request) {
+        var authentication = SecurityContextHolder.getContext()
+                .getAuthentication();
+        if (authentication == null
+                || !(authentication.getPrincipal() instanceof OidcUser user)) {
+            var script = anonymousScript;
+            if (script == null) {
+                script = renderScript();
+                anonymousScript = script;
+            }
+            return script;
+        }
+        var session = request != null ? request.getWrappedSession(false)
+                : null;
+        if (session == null) {
+            return renderScript();
+        }
+        var idTokenDigest = digest(user.getIdToken().getTokenValue());
+        var authorities = authentication.getAuthorities();
+        if (session.getAttribute(
+                SCRIPT_ATTRIBUTE) instanceof CachedScript cached
+                && MessageDigest.isEqual(cached.idTokenDigest(), idTokenDigest)
+                && cached.hasAuthorities(authorities)) {
+            return cached.script();
+        }
+        var script = renderScript();
+        session.setAttribute(SCRIPT_ATTRIBUTE, new CachedScript(idTokenDigest,
+                authorities.stream().map(GrantedAuthority::getAuthority)
+                        .toList(),
+                script));
+        return script;
+    }
+
+    private String renderScript() {
+        var data = singleSignOnContext.getSingleSignOnData();
+        return SCRIPT_STRING.formatted(json(data));
+    }
+
+    private static byte[] digest(String idToken) {
+        try {
+            return MessageDigest.getInstance("SHA-256")
+                    .digest(idToken.getBytes(StandardCharsets.US_ASCII));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     private String json(Object o) {
         try {
             return objectMapper.writeValueAsString(o);
@@ -54,4 +122,27 @@ public class BootstrapDataServiceListener implements VaadinServiceInitListener {
             return "undefined";
         }
     }
+
+    /*
+     * The script rendered for an ID token and authorities, which are compared
+     * by value, so that the cache survives the authentication being restored
+     * from a serialized security context.
+     */
+    private record CachedScript(byte[] idTokenDigest, List<String> authorities,
+            String script) implements Serializable {
+
+        boolean hasAuthorities(
+                Collection<? extends GrantedAuthority> authorities) {
+            if (this.authorities.size() != authorities.size()) {
+                return false;
+            }
+            var names = this.authorities.iterator();
+            for (var authority : authorities) {
+                if (!names.next().equals(authority.getAuthority())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
 }
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full license.
+ */
+package com.vaadin.hilla.sso.starter;
+
+import java.util.List;
+
+/**
+ * Provides the identifiers of the registered OAuth2 providers, as an immutable
+ * snapshot which is replaced when the registrations change.
+ * <p>
+ * The default implementation, {@link RepositoryClientRegistrationCatalog},
+ * reads the registrations from the client-registration repository. Provide a
+ * bean of this type to list registrations which cannot be read from it.
+ *
+ * @author Vaadin Ltd
+ * @since 4.1
+ */
+public interface ClientRegistrationCatalog {
+
+    /**
+     * Gets the current snapshot of the registrations.
+     *
+     * @return the snapshot, not {@code null}
+     */
+    Snapshot getSnapshot();
+
+    /**
+     * Refreshes the snapshot, if the registrations have changed. Called when
+     * a {@link ClientRegistrationsChangedEvent} is published. Does nothing by
+     * default.
+     */
+    default void refresh() {
+    }
+
+    /**
+     * An immutable snapshot of the registrations.
+     *
+     * @param version
+     *            the version of the snapshot, incremented each time the
+     *            registrations change
+     * @param registrationIds
+     *            the registration identifiers, not {@code null}
+     */
+    record Snapshot(long version, List<String> registrationIds) {
+
+        /**
+         * An empty snapshot, of version {@code 0}.
+         */
+        public static final Snapshot EMPTY = new Snapshot(0, List.of());
+
+        /**
+         * Creates a new instance.
+         */
+        public Snapshot {
+            registrationIds = List.copyOf(registrationIds);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full license.
+ */
+package com.vaadin.hilla.sso.starter;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * An event to publish when client registrations are added or removed, so that
+ * the {@link ClientRegistrationCatalog} is refreshed.
+ *
+ * @author Vaadin Ltd
+ * @since 4.1
+ */
+public class ClientRegistrationsChangedEvent extends ApplicationEvent {
+
+    /**
+     * Creates a new instance.
+     *
+     * @param source
+     *            the object which changed the registrations, not
+     *            {@code null}
+     */
+    public ClientRegistrationsChangedEvent(Object source) {
+        super(source);
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full license.
+ */
+package com.vaadin.hilla.sso.starter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
+import org.springframework.security.oauth2.client.registration.InMemoryClientRegistrationRepository;
+
+/**
+ * A {@link ClientRegistrationCatalog} which reads the registrations from a
+ * client-registration repository.
+ * <p>
+ * <strong>The registrations can only be listed if the repository is
+ * {@link Iterable}</strong>, as {@link InMemoryClientRegistrationRepository}
+ * is. Otherwise the snapshot is always empty, so that no registration is
+ * offered to the client, and a warning is logged when the catalog is created.
+ * Provide a custom {@link ClientRegistrationCatalog} bean for such
+ * repositories.
+ * <p>
+ * The repository is read on the first call and on each refresh, and the
+ * version only changes if the registration identifiers do.
+ *
+ * @author Vaadin Ltd
+ * @since 4.1
+ */
+public class RepositoryClientRegistrationCatalog
+        implements ClientRegistrationCatalog {
+
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(RepositoryClientRegistrationCatalog.class);
+
+    private final ClientRegistrationRepository clientRegistrationRepository;
+
+    private volatile Snapshot snapshot;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param clientRegistrationRepository
+     *            the client-registration repository, not {@code null}
+     */
+    public RepositoryClientRegistrationCatalog(
+            ClientRegistrationRepository clientRegistrationRepository) {
+        this.clientRegistrationRepository = Objects
+                .requireNonNull(clientRegistrationRepository);
+        if (!(clientRegistrationRepository instanceof Iterable<?>)) {
+            LOGGER.warn("The client registrations of {} cannot be listed, "
+                    + "as it is not Iterable: provide a {} bean to list them",
+                    clientRegistrationRepository.getClass().getName(),
+                    ClientRegistrationCatalog.class.getSimpleName());
+        }
+    }
+
+    @Override
+    public Snapshot getSnapshot() {
+        var current = snapshot;
+        if (current == null) {
+            refresh();
+            current = snapshot;
+        }
+        return current;
+    }
+
+    @Override
+    public synchronized void refresh() {
+        var current = snapshot == null ? Snapshot.EMPTY : snapshot;
+        var registrationIds = readRegistrationIds();
+        if (snapshot == null
+                || !registrationIds.equals(current.registrationIds())) {
+            snapshot = new Snapshot(current.version() + 1, registrationIds);
+        }
+    }
+
+    private List<String> readRegistrationIds() {
+        var registrationIds = new ArrayList<String>();
+        if (clientRegistrationRepository instanceof Iterable<?> registrations) {
+            for (Object registration : registrations) {
+                if (registration instanceof ClientRegistration client) {
+                    registrationIds.add(client.getRegistrationId());
+                }
+            }
+        }
+        return registrationIds;
+    }
+}
@@ -9,27 +9,53 @@ package com.vaadin.hilla.sso.starter;
 
 import java.util.Objects;
 
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.autoconfigure.AutoConfigureBefore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.security.oauth2.client.autoconfigure.ConditionalOnOAuth2ClientRegistrationProperties;
+import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
+import org.springframework.context.event.EventListener;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.annotation.web.configurers.oauth2.client.OidcBackChannelLogoutHandler;
 import org.springframework.security.core.session.SessionRegistry;
+import org.springframework.security.oauth2.client.oidc.session.InMemoryOidcSessionRegistry;
+import org.springframework.security.oauth2.client.oidc.session.OidcSessionRegistry;
 import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.logout.LogoutFilter;
+import org.springframework.security.web.authentication.logout.LogoutHandler;
+import org.springframework.security.web.csrf.CsrfFilter;
 
 import com.vaadin.flow.spring.SpringSecurityAutoConfiguration;
 import com.vaadin.flow.spring.security.VaadinAwareSecurityContextHolderStrategyConfiguration;
 import com.vaadin.hilla.sso.starter.endpoint.BackChannelLogoutEndpoint;
 import com.vaadin.hilla.sso.starter.endpoint.SingleSignOnEndpoint;
 import com.vaadin.hilla.sso.starter.endpoint.UserEndpoint;
+import com.vaadin.sso.core.BackChannelLogoutExecutor;
 import com.vaadin.sso.core.BackChannelLogoutFilter;
+import com.vaadin.sso.core.BackChannelLogoutMetrics;
+import com.vaadin.sso.core.BackChannelLogoutMetricsFilter;
+import com.vaadin.sso.core.ConcurrentSessionLimitStrategy;
+import com.vaadin.sso.core.LogoutEventBus;
+import com.vaadin.sso.core.LogoutEventPublishingHandler;
+import com.vaadin.sso.core.MicrometerBackChannelLogoutMetrics;
+import com.vaadin.sso.core.SessionRegistrySweeper;
+import com.vaadin.sso.core.SingleSignOnMeterBinder;
+import com.vaadin.sso.core.SingleSignOnSessionTerminator;
 
 import static com.vaadin.flow.spring.security.VaadinSecurityConfigurer.vaadin;
 
@@ -62,10 +88,16 @@ public class SingleSignOnConfiguration {
 
     private final BackChannelLogoutFilter backChannelLogoutFilter;
 
+    private final SingleSignOnSessionTerminator sessionTerminator;
+
     private final SessionRegistry sessionRegistry;
 
+    private final ClientRegistrationRepository clientRegistrationRepository;
+
     private final BackChannelLogoutSubscription backChannelLogoutSubscription;
 
+    private final ClientRegistrationCatalog clientRegistrationCatalog;
+
     private final SingleSignOnContext singleSignOnContext;
 
     private final BootstrapDataServiceListener bootstrapDataServiceListener;
@@ -87,19 +119,30 @@ public class SingleSignOnConfiguration {
      *            the client-registration repository
      * @param eventPublisher
      *            the event publisher for logout events
+     * @param registrationCatalog
+     *            the client-registration catalog provider
      */
     public SingleSignOnConfiguration(SingleSignOnProperties properties,
             SessionRegistry sessionRegistry,
             ClientRegistrationRepository clientRegistrationRepository,
-            ApplicationEventPublisher eventPublisher) {
+            ApplicationEventPublisher eventPublisher,
+            ObjectProvider<ClientRegistrationCatalog> registrationCatalog) {
         this.properties = properties;
         this.sessionRegistry = sessionRegistry;
+        this.clientRegistrationRepository = clientRegistrationRepository;
         this.backChannelLogoutFilter = new BackChannelLogoutFilter(
                 sessionRegistry, clientRegistrationRepository, eventPublisher);
-        this.backChannelLogoutSubscription = new BackChannelLogoutSubscription();
+        this.sessionTerminator = new SingleSignOnSessionTerminator(
+                sessionRegistry, eventPublisher);
+        this.backChannelLogoutSubscription = new BackChannelLogoutSubscription(
+                properties.getBackChannelLogoutSubscriberBufferSize(),
+                properties.getBackChannelLogoutSubscriberOverflowPolicy());
+        this.clientRegistrationCatalog = registrationCatalog
+                .getIfAvailable(() -> new RepositoryClientRegistrationCatalog(
+                        clientRegistrationRepository));
         this.singleSignOnContext = new SingleSignOnContext(
-                clientRegistrationRepository, properties,
-                backChannelLogoutSubscription);
+                clientRegistrationRepository, this.clientRegistrationCatalog,
+                properties, backChannelLogoutSubscription);
         this.bootstrapDataServiceListener = new BootstrapDataServiceListener(
                 singleSignOnContext);
         this.backChannelLogoutEndpoint = new BackChannelLogoutEndpoint(
@@ -119,6 +162,20 @@ public class SingleSignOnConfiguration {
         return singleSignOnContext;
     }
 
+    /**
+     * Refreshes the client-registration catalog and the logout links when
+     * registrations change.
+     *
+     * @param event
+     *            the event
+     */
+    @EventListener
+    public void onClientRegistrationsChanged(
+            ClientRegistrationsChangedEvent event) {
+        clientRegistrationCatalog.refresh();
+        singleSignOnContext.clearLogoutUriTemplates();
+    }
+
     @Bean
     public BootstrapDataServiceListener bootstrapDataServiceListener() {
         return bootstrapDataServiceListener;
@@ -139,9 +196,46 @@ public class SingleSignOnConfiguration {
         return userEndpoint;
     }
 
+    /**
+     * Provides the executor which expires the sessions matched by Back-Channel
+     * logout requests, when asynchronous processing is enabled.
+     *
+     * @return the Back-Channel logout executor bean
+     */
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = SingleSignOnProperties.PREFIX, name = "back-channel-logout-async")
+    public BackChannelLogoutExecutor backChannelLogoutExecutor() {
+        return new BackChannelLogoutExecutor(
+                properties.getBackChannelLogoutQueueCapacity(),
+                properties.getBackChannelLogoutOverflowPolicy());
+    }
+
+    /**
+     * Subscribes the session terminator to the logout event bus, if there is
+     * one, so that the sessions of this node are terminated on the logouts
+     * published by any node of the cluster. The subscription is made once
+     * all the singletons are created, before the bus is started.
+     *
+     * @param logoutEventBus
+     *            the logout event bus provider
+     * @return the subscribing bean
+     */
+    @Bean
+    public SmartInitializingSingleton logoutEventBusSubscriber(
+            ObjectProvider<LogoutEventBus> logoutEventBus) {
+        return () -> logoutEventBus.ifAvailable(
+                eventBus -> eventBus.subscribe(sessionTerminator::terminate));
+    }
+
     @Bean
-    public SecurityFilterChain vaadinSecurityFilterChain(HttpSecurity http)
-            throws Exception {
+    public SecurityFilterChain vaadinSecurityFilterChain(HttpSecurity http,
+            ObjectProvider<BackChannelLogoutExecutor> logoutExecutor,
+            ObjectProvider<BackChannelLogoutMetrics> logoutMetrics,
+            ObjectProvider<LogoutEventBus> logoutEventBus) throws Exception {
+        final var metrics = logoutMetrics
+                .getIfAvailable(() -> BackChannelLogoutMetrics.NONE);
+        final var eventBus = logoutEventBus.getIfAvailable();
         final var loginRoute = Objects.requireNonNullElse(
                 properties.getLoginRoute(),
                 SingleSignOnProperties.DEFAULT_LOGIN_ROUTE);
@@ -162,11 +256,25 @@ public class SingleSignOnConfiguration {
                 // Sets the session-registry which is used for Back-Channel
                 concurrency.sessionRegistry(sessionRegistry);
             });
+
+            // Evicts the least recently used sessions from the registry
+            // instead of sorting all the sessions of the user on each login
+            sessionManagement.withObjectPostProcessor(
+                    ConcurrentSessionLimitStrategy.postProcessor(
+                            sessionRegistry,
+                            properties.getMaximumConcurrentSessions()));
         });
         if (properties.isBackChannelLogout()) {
             backChannelLogoutFilter.setBackChannelLogoutRoute(
                     properties.getBackChannelLogoutRoute());
 
+            // Expires the matching sessions off the request thread if
+            // asynchronous processing is enabled
+            backChannelLogoutFilter
+                    .setLogoutExecutor(logoutExecutor.getIfAvailable());
+            backChannelLogoutFilter.setMetrics(metrics);
+            backChannelLogoutFilter.setLogoutEventBus(eventBus);
+
             // Adds the Back-Channel logout filter to the filter chain
             http.addFilterAfter(backChannelLogoutFilter, LogoutFilter.class);
 
@@ -174,9 +282,133 @@ public class SingleSignOnConfiguration {
             final var matcher = backChannelLogoutFilter.getRequestMatcher();
             http.csrf(csrf -> csrf.ignoringRequestMatchers(matcher));
         } else {
-            http.oidcLogout().backChannel(Customizer.withDefaults());
+            final var metricsFilter = metrics == BackChannelLogoutMetrics.NONE
+                    ? null
+                    : new BackChannelLogoutMetricsFilter(
+                            clientRegistrationRepository, metrics);
+            if (metricsFilter != null) {
+                // Records the outcome of the requests handled by Spring
+                // Security's Back-Channel logout filter, placed before it
+                http.addFilterBefore(metricsFilter, CsrfFilter.class);
+            }
+            if (eventBus == null) {
+                http.oidcLogout().backChannel(Customizer.withDefaults());
+            } else {
+                // Propagates the logouts to the other nodes of the cluster
+                LogoutHandler logoutHandler = new LogoutEventPublishingHandler(
+                        backChannelLogoutHandler(http), eventBus);
+                if (metricsFilter != null) {
+                    // Records the duration of the logout stage as well
+                    logoutHandler = metricsFilter.instrument(logoutHandler);
+                }
+                final var handler = logoutHandler;
+                http.oidcLogout().backChannel(
+                        backChannel -> backChannel.logoutHandler(handler));
+            }
         }
 
         return http.build();
     }
+
+    /*
+     * Creates the logout handler as Spring Security would, sharing the OIDC
+     * session registry with the rest of its OIDC logout support.
+     */
+    private static OidcBackChannelLogoutHandler backChannelLogoutHandler(
+            HttpSecurity http) {
+        final var context = http.getSharedObject(ApplicationContext.class);
+        return context.getBeanProvider(OidcBackChannelLogoutHandler.class)
+                .getIfUnique(() -> {
+                    var registry = http
+                            .getSharedObject(OidcSessionRegistry.class);
+                    if (registry == null) {
+                        registry = context
+                                .getBeanProvider(OidcSessionRegistry.class)
+                                .getIfUnique(InMemoryOidcSessionRegistry::new);
+                        http.setSharedObject(OidcSessionRegistry.class,
+                                registry);
+                    }
+                    return new OidcBackChannelLogoutHandler(registry);
+                });
+    }
+
+    /**
+     * Provides Back-Channel logout metrics when Micrometer is available.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(MeterRegistry.class)
+    static class BackChannelLogoutMetricsConfiguration {
+
+        /**
+         * Provides the Back-Channel logout metrics, recorded in the meter
+         * registry if there is one.
+         *
+         * @param meterRegistry
+         *            the meter registry provider
+         * @return the Back-Channel logout metrics bean
+         */
+        @Bean
+        @ConditionalOnMissingBean
+        BackChannelLogoutMetrics backChannelLogoutMetrics(
+                ObjectProvider<MeterRegistry> meterRegistry) {
+            final var registry = meterRegistry.getIfUnique();
+            return registry == null ? BackChannelLogoutMetrics.NONE
+                    : new MicrometerBackChannelLogoutMetrics(registry);
+        }
+
+        /**
+         * Provides the binder of the session management metrics, which reads
+         * them from the session registry sweeper and the Back-Channel logout
+         * executor, if there are ones.
+         *
+         * @param sweeper
+         *            the session registry sweeper provider
+         * @param logoutExecutor
+         *            the Back-Channel logout executor provider
+         * @return the meter binder bean
+         */
+        @Bean
+        @ConditionalOnMissingBean
+        SingleSignOnMeterBinder singleSignOnMeterBinder(
+                ObjectProvider<SessionRegistrySweeper> sweeper,
+                ObjectProvider<BackChannelLogoutExecutor> logoutExecutor) {
+            return new SingleSignOnMeterBinder(sweeper.getIfAvailable(),
+                    logoutExecutor.getIfAvailable());
+        }
+
+        /**
+         * Provides the binder of the Back-Channel logout subscription
+         * metrics: the counters of the emitted messages, of the messages
+         * dropped for lagging subscribers, and of the lagging subscribers.
+         *
+         * @param subscription
+         *            the Back-Channel logout subscription
+         * @return the meter binder bean
+         */
+        @Bean
+        MeterBinder backChannelLogoutSubscriptionMeterBinder(
+                BackChannelLogoutSubscription subscription) {
+            return registry -> {
+                FunctionCounter
+                        .builder("sso.backchannel.logout.subscription.emitted",
+                                subscription,
+                                BackChannelLogoutSubscription::getEmittedCount)
+                        .description("Back-Channel logout messages emitted")
+                        .register(registry);
+                FunctionCounter
+                        .builder("sso.backchannel.logout.subscription.dropped",
+                                subscription,
+                                BackChannelLogoutSubscription::getDroppedCount)
+                        .description("Back-Channel logout messages dropped")
+                        .register(registry);
+                FunctionCounter.builder(
+                        "sso.backchannel.logout.subscription.lagging",
+                        subscription,
+                        BackChannelLogoutSubscription::getLaggingSubscriberCount)
+                        .description("Back-Channel logout subscribers lagging "
+                                + "behind")
+                        .register(registry);
+            };
+        }
+    }
 }
@@ -9,10 +9,12 @@ package com.vaadin.hilla.sso.starter;
 
 import jakarta.servlet.http.HttpServletRequest;
 
-import java.util.ArrayList;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
@@ -20,12 +22,12 @@ import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
 import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
-import org.springframework.security.oauth2.client.registration.InMemoryClientRegistrationRepository;
 import org.springframework.security.oauth2.core.oidc.user.OidcUser;
 import org.springframework.security.web.util.UrlUtils;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.UriUtils;
 import reactor.core.publisher.Flux;
 
 import com.vaadin.hilla.Nonnull;
@@ -38,20 +40,57 @@ public class SingleSignOnContext {
     private static final String ROLE_PREFIX = "ROLE_";
     private static final int ROLE_PREFIX_LENGTH = ROLE_PREFIX.length();
 
+    private static final String BASE_URL_PLACEHOLDER = "{baseUrl}";
+
+    /* Base URLs depend on the Host header, so their number is limited */
+    private static final int MAXIMUM_BASE_URLS = 64;
+
     private final ClientRegistrationRepository clientRegistrationRepository;
 
+    private final ClientRegistrationCatalog clientRegistrationCatalog;
+
     private final SingleSignOnProperties properties;
 
     private final BackChannelLogoutSubscription backChannelLogoutSubscription;
 
+    private final ConcurrentMap<String, LogoutUriTemplate> logoutUriTemplates = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<BaseUrlKey, String> baseUrls = new ConcurrentHashMap<>();
+
     public SingleSignOnContext(
             ClientRegistrationRepository clientRegistrationRepository,
             SingleSignOnProperties properties,
             BackChannelLogoutSubscription backChannelLogoutSubscription) {
+        this(clientRegistrationRepository,
+                new RepositoryClientRegistrationCatalog(
+                        clientRegistrationRepository),
+                properties, backChannelLogoutSubscription);
+    }
+
+    /**
+     * Creates a new instance which lists the registered OAuth2 providers with
+     * the given catalog.
+     *
+     * @param clientRegistrationRepository
+     *            the client-registration repository, not {@code null}
+     * @param clientRegistrationCatalog
+     *            the client-registration catalog, not {@code null}
+     * @param properties
+     *            the configuration properties, not {@code null}
+     * @param backChannelLogoutSubscription
+     *            the back-channel logout subscription, not {@code null}
+     */
+    public SingleSignOnContext(
+            ClientRegistrationRepository clientRegistrationRepository,
+            ClientRegistrationCatalog clientRegistrationCatalog,
+            SingleSignOnProperties properties,
+            BackChannelLogoutSubscription backChannelLogoutSubscription) {
         Objects.requireNonNull(clientRegistrationRepository);
+        Objects.requireNonNull(clientRegistrationCatalog);
         Objects.requireNonNull(properties);
         Objects.requireNonNull(backChannelLogoutSubscription);
         this.clientRegistrationRepository = clientRegistrationRepository;
+        this.clientRegistrationCatalog = clientRegistrationCatalog;
         this.properties = properties;
         this.backChannelLogoutSubscription = backChannelLogoutSubscription;
     }
@@ -89,24 +128,13 @@ public class SingleSignOnContext {
     /**
      * Returns all the registered OAuth2 providers.
      *
-     * @return a list of identifiers of the registered OAuth2 providers, as
-     *         defined in the application properties.
+     * @return an immutable list of identifiers of the registered OAuth2
+     *         providers, as listed by the client-registration catalog.
+     * @see ClientRegistrationCatalog
      */
     @Nonnull
     public List<@Nonnull String> getRegisteredProviders() {
-        // Use the Optional pattern to walk the client registration repository
-        // down to the client registrations
-        return Optional.of(clientRegistrationRepository)
-                // By default, the client registration repository is an instance
-                // of InMemoryClientRegistrationRepository
-                .filter(InMemoryClientRegistrationRepository.class::isInstance)
-                .map(InMemoryClientRegistrationRepository.class::cast)
-                .map(repo -> {
-                    List<String> list = new ArrayList<>();
-                    repo.iterator().forEachRemaining(registration -> list
-                            .add(registration.getRegistrationId()));
-                    return list;
-                }).orElse(List.of());
+        return clientRegistrationCatalog.getSnapshot().registrationIds();
     }
 
     /**
@@ -181,23 +209,43 @@ public class SingleSignOnContext {
                 .map(this::buildLogoutLink);
     }
 
+    /*
+     * Forgets the compiled end-session endpoints, so that they are looked up
+     * again after the client registrations changed.
+     */
+    void clearLogoutUriTemplates() {
+        logoutUriTemplates.clear();
+    }
+
     private String buildLogoutLink(
             OAuth2AuthenticationToken authenticationToken) {
         // Build the logout URL according to the OpenID Connect specification
         var registrationId = authenticationToken
                 .getAuthorizedClientRegistrationId();
+        var template = logoutUriTemplates.computeIfAbsent(registrationId,
+                this::compileLogoutUriTemplate);
+        var user = (OidcUser) authenticationToken.getPrincipal();
+        return template.expand(user.getIdToken().getTokenValue(),
+                getPostLogoutRedirectUri());
+    }
+
+    private LogoutUriTemplate compileLogoutUriTemplate(String registrationId) {
         var clientRegistration = clientRegistrationRepository
                 .findByRegistrationId(registrationId);
         var details = clientRegistration.getProviderDetails();
         // The end_session_endpoint is buried in the provider metadata
         var endSessionEndpoint = details.getConfigurationMetadata()
                 .get("end_session_endpoint").toString();
-        var user = (OidcUser) authenticationToken.getPrincipal();
-        var builder = UriComponentsBuilder.fromUriString(endSessionEndpoint)
-                .queryParam("id_token_hint", user.getIdToken().getTokenValue())
-                .queryParam("post_logout_redirect_uri",
-                        getPostLogoutRedirectUri());
-        return builder.toUriString();
+        var components = UriComponentsBuilder
+                .fromUriString(endSessionEndpoint).build();
+        var prefix = UriComponentsBuilder.fromUriString(endSessionEndpoint)
+                .fragment(null).toUriString()
+                + (components.getQueryParams().isEmpty() ? '?' : '&');
+        var fragment = components.getFragment();
+        var suffix = fragment == null ? ""
+                : "#" + UriUtils.encodeFragment(fragment,
+                        StandardCharsets.UTF_8);
+        return new LogoutUriTemplate(prefix, suffix);
     }
 
     private String getPostLogoutRedirectUri() {
@@ -205,19 +253,50 @@ public class SingleSignOnContext {
         String logoutUri;
 
         // the logout redirect route can contain a {baseUrl} placeholder
-        if (logoutRedirectRoute.contains("{baseUrl}")) {
-            logoutUri = getCurrentHttpRequest()
-                    .map(request -> UriComponentsBuilder
-                            .fromUriString(
-                                    UrlUtils.buildFullRequestUrl(request))
-                            .replacePath(request.getContextPath())
-                            .replaceQuery(null).fragment(null).build()
-                            .toUriString())
-                    .map(uri -> logoutRedirectRoute.replace("{baseUrl}", uri))
+        if (logoutRedirectRoute.contains(BASE_URL_PLACEHOLDER)) {
+            logoutUri = getCurrentHttpRequest().map(this::getBaseUrl)
+                    .map(uri -> logoutRedirectRoute
+                            .replace(BASE_URL_PLACEHOLDER, uri))
                     .orElse(logoutRedirectRoute);
         } else {
             logoutUri = logoutRedirectRoute;
         }
         return logoutUri;
     }
+
+    private String getBaseUrl(HttpServletRequest request) {
+        var key = new BaseUrlKey(request.getScheme(), request.getServerName(),
+                request.getServerPort(), request.getContextPath());
+        var baseUrl = baseUrls.get(key);
+        if (baseUrl == null) {
+            baseUrl = UrlUtils.buildFullRequestUrl(key.scheme(),
+                    key.serverName(), key.serverPort(), key.contextPath(),
+                    null);
+            if (baseUrls.size() < MAXIMUM_BASE_URLS) {
+                baseUrls.putIfAbsent(key, baseUrl);
+            }
+        }
+        return baseUrl;
+    }
+
+    /*
+     * The end-session endpoint of a registration, parsed and encoded once,
+     * with the position of the logout query parameters.
+     */
+    private record LogoutUriTemplate(String prefix, String suffix) {
+
+        String expand(String idTokenHint, String postLogoutRedirectUri) {
+            return prefix + "id_token_hint=" + encode(idTokenHint)
+                    + "&post_logout_redirect_uri="
+                    + encode(postLogoutRedirectUri) + suffix;
+        }
+
+        private static String encode(String value) {
+            return UriUtils.encodeQueryParam(value, StandardCharsets.UTF_8);
+        }
+    }
+
+    private record BaseUrlKey(String scheme, String serverName, int serverPort,
+            String contextPath) {
+    }
 }
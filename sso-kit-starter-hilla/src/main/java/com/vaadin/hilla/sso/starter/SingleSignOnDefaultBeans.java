@@ -7,15 +7,31 @@
  */
 package com.vaadin.hilla.sso.starter;
 
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.core.env.Environment;
 import org.springframework.security.core.session.SessionRegistry;
-import org.springframework.security.core.session.SessionRegistryImpl;
 import org.springframework.security.oauth2.client.oidc.userinfo.OidcUserService;
+import org.springframework.security.oauth2.client.oidc.userinfo.OidcUserSource;
+import org.springframework.security.oauth2.core.oidc.user.OidcUser;
+import org.springframework.util.StringUtils;
 
+import com.vaadin.sso.core.CoalescingSessionRegistry;
+import com.vaadin.sso.core.CompactOidcUserMapper;
+import com.vaadin.sso.core.IndexedSessionRegistry;
+import com.vaadin.sso.core.JournaledSessionRegistry;
 import com.vaadin.sso.core.KeycloakUserMapper;
+import com.vaadin.sso.core.OidcSessionIndex;
+import com.vaadin.sso.core.OidcSessionRegistry;
+import com.vaadin.sso.core.SessionRegistrySweeper;
 
 /**
  * This configuration class provides default instances for the required beans.
@@ -27,29 +43,118 @@ import com.vaadin.sso.core.KeycloakUserMapper;
 public class SingleSignOnDefaultBeans {
 
     /**
-     * Provides a default {@link SessionRegistry} bean.
+     * The session timeout of the container when not configured.
+     */
+    private static final Duration DEFAULT_SESSION_TIMEOUT = Duration
+            .ofMinutes(30);
+
+    /**
+     * Provides a default {@link SessionRegistry} bean which indexes sessions by
+     * the OIDC claims used in Back-Channel logout requests, journals them if
+     * a session journal is configured, and coalesces the refreshes of their
+     * last request time if a refresh granularity is configured.
      *
+     * @param properties
+     *            the configuration properties provider
      * @return the session registry bean
      */
     @Bean
     @ConditionalOnMissingBean
-    SessionRegistry getSessionRegistry() {
-        return new SessionRegistryImpl();
+    SessionRegistry getSessionRegistry(
+            ObjectProvider<SingleSignOnProperties> properties) {
+        var ssoProperties = properties
+                .getIfAvailable(SingleSignOnProperties::new);
+        var sessionJournal = ssoProperties.getSessionJournal();
+        var granularity = ssoProperties.getSessionRefreshGranularity();
+        if (StringUtils.hasText(sessionJournal)) {
+            return coalesce(
+                    new JournaledSessionRegistry(Path.of(sessionJournal)),
+                    granularity);
+        }
+        return coalesce(new OidcSessionRegistry(), granularity);
+    }
+
+    private static <R extends SessionRegistry & OidcSessionIndex> SessionRegistry coalesce(
+            R registry, Duration granularity) {
+        return granularity != null
+                ? new CoalescingSessionRegistry(registry, granularity)
+                : registry;
+    }
+
+    /**
+     * Provides a {@link SessionRegistrySweeper} bean which periodically
+     * removes the sessions timed out without a session destroyed event from
+     * the session registry, if a sweep interval is configured. Only the
+     * registries provided by SSO Kit track their sessions for the sweeper.
+     *
+     * @param sessionRegistry
+     *            the session registry
+     * @param properties
+     *            the configuration properties provider
+     * @param environment
+     *            the environment, used to get the session timeout
+     * @return the session registry sweeper bean
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = SingleSignOnProperties.PREFIX, name = "session-sweep-interval")
+    SessionRegistrySweeper sessionRegistrySweeper(
+            SessionRegistry sessionRegistry,
+            ObjectProvider<SingleSignOnProperties> properties,
+            Environment environment) {
+        var sessionTimeout = environment.getProperty(
+                "server.servlet.session.timeout", Duration.class,
+                DEFAULT_SESSION_TIMEOUT);
+        var sweeper = new SessionRegistrySweeper(sessionRegistry,
+                sessionTimeout);
+        var trackingRegistry = sessionRegistry;
+        if (sessionRegistry instanceof CoalescingSessionRegistry coalescing) {
+            trackingRegistry = coalescing.getDelegate();
+        }
+        switch (trackingRegistry) {
+        case OidcSessionRegistry registry -> registry.setSweeper(sweeper);
+        case IndexedSessionRegistry registry -> registry.setSweeper(sweeper);
+        case JournaledSessionRegistry registry -> registry.setSweeper(sweeper);
+        default -> {
+            // Sessions are not tracked by other registries
+        }
+        }
+        sweeper.start(properties.getIfAvailable(SingleSignOnProperties::new)
+                .getSessionSweepInterval());
+        return sweeper;
     }
 
     /**
      * Provides a default {@link OidcUserService} bean that uses
      * {@link KeycloakUserMapper} to map Keycloak realm and client roles to
-     * Spring Security granted authorities.
+     * Spring Security granted authorities, and {@link CompactOidcUserMapper}
+     * to keep only the configured claims of the users.
      *
+     * @param properties
+     *            the configuration properties provider
      * @return the OIDC user service bean
      */
     @Bean
     @ConditionalOnMissingBean
-    @ConditionalOnProperty(prefix = SingleSignOnProperties.PREFIX, name = "keycloak-roles")
-    OidcUserService oidcUserService() {
+    @ConditionalOnExpression("${" + SingleSignOnProperties.PREFIX
+            + ".keycloak-roles:false} or ${" + SingleSignOnProperties.PREFIX
+            + ".compact-principal:false}")
+    OidcUserService oidcUserService(
+            ObjectProvider<SingleSignOnProperties> properties) {
+        var ssoProperties = properties
+                .getIfAvailable(SingleSignOnProperties::new);
+        Converter<OidcUserSource, OidcUser> converter = null;
+        if (ssoProperties.isKeycloakRoles()) {
+            converter = new KeycloakUserMapper(
+                    ssoProperties.isKeycloakRolesVerifyAccessToken());
+        }
+        if (ssoProperties.isCompactPrincipal()) {
+            var claims = ssoProperties.getCompactPrincipalClaims();
+            converter = converter == null ? new CompactOidcUserMapper(claims)
+                    : new CompactOidcUserMapper(converter, claims);
+        }
         var oidcUserService = new OidcUserService();
-        oidcUserService.setOidcUserConverter(new KeycloakUserMapper());
+        oidcUserService.setOidcUserConverter(converter);
         return oidcUserService;
     }
 }
@@ -9,6 +9,7 @@ package com.vaadin.hilla.sso.starter;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import com.vaadin.hilla.sso.starter.BackChannelLogoutSubscription.OverflowPolicy;
 import com.vaadin.sso.core.AbstractSingleSignOnProperties;
 
 /**
@@ -24,4 +25,57 @@ public class SingleSignOnProperties extends AbstractSingleSignOnProperties {
      * The prefix for SSO Kit starter properties.
      */
     public static final String PREFIX = "hilla.sso";
+
+    /**
+     * The maximum number of Back-Channel logout messages buffered for each
+     * subscribed client.
+     */
+    private int backChannelLogoutSubscriberBufferSize = BackChannelLogoutSubscription.DEFAULT_BUFFER_SIZE;
+
+    /**
+     * The policy applied to subscribed clients whose buffer is full.
+     */
+    private OverflowPolicy backChannelLogoutSubscriberOverflowPolicy = OverflowPolicy.DROP;
+
+    /**
+     * Gets the maximum number of Back-Channel logout messages buffered for
+     * each subscribed client.
+     *
+     * @return the buffer size
+     */
+    public int getBackChannelLogoutSubscriberBufferSize() {
+        return backChannelLogoutSubscriberBufferSize;
+    }
+
+    /**
+     * Sets the maximum number of Back-Channel logout messages buffered for
+     * each subscribed client.
+     *
+     * @param backChannelLogoutSubscriberBufferSize
+     *            the buffer size
+     */
+    public void setBackChannelLogoutSubscriberBufferSize(
+            int backChannelLogoutSubscriberBufferSize) {
+        this.backChannelLogoutSubscriberBufferSize = backChannelLogoutSubscriberBufferSize;
+    }
+
+    /**
+     * Gets the policy applied to subscribed clients whose buffer is full.
+     *
+     * @return the overflow policy
+     */
+    public OverflowPolicy getBackChannelLogoutSubscriberOverflowPolicy() {
+        return backChannelLogoutSubscriberOverflowPolicy;
+    }
+
+    /**
+     * Sets the policy applied to subscribed clients whose buffer is full.
+     *
+     * @param backChannelLogoutSubscriberOverflowPolicy
+     *            the overflow policy
+     */
+    public void setBackChannelLogoutSubscriberOverflowPolicy(
+            OverflowPolicy backChannelLogoutSubscriberOverflowPolicy) {
+        this.backChannelLogoutSubscriberOverflowPolicy = backChannelLogoutSubscriberOverflowPolicy;
+    }
 }
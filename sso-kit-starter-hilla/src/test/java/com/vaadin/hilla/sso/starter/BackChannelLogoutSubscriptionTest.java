@@ -7,19 +7,35 @@
  */
 package com.vaadin.hilla.sso.starter;
 
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.reactivestreams.Subscription;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.core.oidc.user.DefaultOidcUser;
+import org.springframework.security.oauth2.core.oidc.user.OidcUser;
+import reactor.core.publisher.BaseSubscriber;
 
+import com.vaadin.hilla.sso.starter.BackChannelLogoutSubscription.OverflowPolicy;
+import com.vaadin.sso.core.LogoutCriteria;
+import com.vaadin.sso.core.RestoredSessionPrincipal;
 import com.vaadin.sso.core.UserLogoutEvent;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 /**
  * Test suite for {@link BackChannelLogoutSubscription}.
@@ -55,4 +71,125 @@ class BackChannelLogoutSubscriptionTest {
         assertInstanceOf(BackChannelLogoutSubscription.Message.class,
                 received.get(1));
     }
+
+    @Test
+    void getFluxForUser_lastSubscriberCancels_channelRemoved() {
+        var backChannelLogoutSubscription = new BackChannelLogoutSubscription();
+        var flux = backChannelLogoutSubscription.getFluxForUser("foo");
+        var first = flux.subscribe();
+        var second = flux.subscribe();
+        assertEquals(1, backChannelLogoutSubscription.getChannelCount());
+
+        first.dispose();
+        assertTrue(backChannelLogoutSubscription.broadcast("foo"));
+
+        second.dispose();
+        assertEquals(0, backChannelLogoutSubscription.getChannelCount());
+        assertFalse(backChannelLogoutSubscription.broadcast("foo"));
+    }
+
+    @Test
+    void getFluxForUser_oidcUser_matchedBySessionId() {
+        var backChannelLogoutSubscription = new BackChannelLogoutSubscription();
+        var received = new ArrayList<>();
+        backChannelLogoutSubscription
+                .getFluxForUser(createOidcUser("token-1", "john", "1234"))
+                .subscribe(received::add);
+
+        // A distinct principal instance for the same IdP session
+        backChannelLogoutSubscription
+                .broadcast(createOidcUser("token-2", "john", "1234"));
+        backChannelLogoutSubscription
+                .broadcast(createOidcUser("token-3", "john", "5678"));
+
+        assertEquals(1, received.size());
+    }
+
+    @Test
+    void getFluxForUser_restoredPrincipal_matchedBySessionId() {
+        var backChannelLogoutSubscription = new BackChannelLogoutSubscription();
+        var received = new ArrayList<>();
+        backChannelLogoutSubscription
+                .getFluxForUser(createOidcUser("token-1", "john", "1234"))
+                .subscribe(received::add);
+
+        // The principal of a session restored without its OIDC user
+        var principal = mock(RestoredSessionPrincipal.class);
+        when(principal.toLogoutCriteria()).thenReturn(
+                LogoutCriteria.forSid("https://issuer.com", "1234"));
+        backChannelLogoutSubscription.broadcast(principal);
+
+        assertEquals(1, received.size());
+    }
+
+    @Test
+    void broadcast_slowSubscriber_oldestMessagesDropped() {
+        var backChannelLogoutSubscription = new BackChannelLogoutSubscription(
+                2, OverflowPolicy.DROP);
+        var subscriber = new IdleSubscriber();
+        backChannelLogoutSubscription.getFluxForUser("foo")
+                .subscribe(subscriber);
+
+        for (int i = 0; i < 5; i++) {
+            backChannelLogoutSubscription.broadcast("foo");
+        }
+
+        assertEquals(5, backChannelLogoutSubscription.getEmittedCount());
+        assertEquals(3, backChannelLogoutSubscription.getDroppedCount());
+        assertEquals(1,
+                backChannelLogoutSubscription.getLaggingSubscriberCount());
+        assertNull(subscriber.error);
+        subscriber.request(5);
+        assertEquals(2, subscriber.received.size());
+    }
+
+    @Test
+    void broadcast_slowSubscriber_disconnected() {
+        var backChannelLogoutSubscription = new BackChannelLogoutSubscription(
+                2, OverflowPolicy.DISCONNECT);
+        var subscriber = new IdleSubscriber();
+        backChannelLogoutSubscription.getFluxForUser("foo")
+                .subscribe(subscriber);
+
+        for (int i = 0; i < 3; i++) {
+            backChannelLogoutSubscription.broadcast("foo");
+        }
+
+        assertNotNull(subscriber.error);
+        assertEquals(1,
+                backChannelLogoutSubscription.getLaggingSubscriberCount());
+        assertEquals(0, backChannelLogoutSubscription.getChannelCount());
+    }
+
+    /* Requests nothing until told to */
+    private static final class IdleSubscriber
+            extends BaseSubscriber<BackChannelLogoutSubscription.Message> {
+
+        private final List<Object> received = new ArrayList<>();
+
+        private Throwable error;
+
+        @Override
+        protected void hookOnSubscribe(Subscription subscription) {
+        }
+
+        @Override
+        protected void hookOnNext(BackChannelLogoutSubscription.Message value) {
+            received.add(value);
+        }
+
+        @Override
+        protected void hookOnError(Throwable throwable) {
+            error = throwable;
+        }
+    }
+
+    private static OidcUser createOidcUser(String tokenValue, String subject,
+            String sid) {
+        var idToken = new OidcIdToken(tokenValue, Instant.now(),
+                Instant.now().plusSeconds(60),
+                Map.of("iss", "https://issuer.com", "sub", subject, "sid",
+                        sid));
+        return new DefaultOidcUser(List.of(), idToken);
+    }
 }
@@ -7,7 +7,13 @@
  */
 package com.vaadin.hilla.sso.starter;
 
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 import org.jsoup.nodes.Document;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -15,16 +21,25 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.core.oidc.user.DefaultOidcUser;
+import org.springframework.security.oauth2.core.oidc.user.OidcUser;
 
 import com.vaadin.flow.server.ServiceInitEvent;
 import com.vaadin.flow.server.VaadinRequest;
 import com.vaadin.flow.server.VaadinResponse;
+import com.vaadin.flow.server.WrappedSession;
 import com.vaadin.flow.server.communication.IndexHtmlRequestListener;
 import com.vaadin.flow.server.communication.IndexHtmlResponse;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -45,6 +60,11 @@ class BootstrapDataServiceListenerTest {
                 singleSignOnContext);
     }
 
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
     @Test
     void serviceInit_indexHtmlRequestListenerIsAdded() {
         var serviceInitEvent = mock(ServiceInitEvent.class);
@@ -108,6 +128,124 @@ class BootstrapDataServiceListenerTest {
                 .formatted(expectedSingleSignOnData), scriptString);
     }
 
+    @Test
+    void indexHtmlRequested_anonymousUser_scriptRenderedOnce() {
+        var vaadinRequest = mock(VaadinRequest.class);
+        when(singleSignOnContext.getSingleSignOnData())
+                .thenReturn(new SingleSignOnData());
+        var indexHtmlRequestListener = captureIndexHtmlRequestListener();
+
+        requestIndexHtml(indexHtmlRequestListener, vaadinRequest);
+        requestIndexHtml(indexHtmlRequestListener, vaadinRequest);
+
+        verify(singleSignOnContext).getSingleSignOnData();
+    }
+
+    @Test
+    void indexHtmlRequested_sameIdToken_scriptCached() {
+        var vaadinRequest = mock(VaadinRequest.class);
+        var session = mock(WrappedSession.class);
+        var attributes = new HashMap<String, Object>();
+        when(vaadinRequest.getWrappedSession(false)).thenReturn(session);
+        when(session.getAttribute(anyString()))
+                .thenAnswer(i -> attributes.get(i.<String> getArgument(0)));
+        doAnswer(i -> attributes.put(i.getArgument(0), i.getArgument(1)))
+                .when(session).setAttribute(anyString(), any());
+        when(singleSignOnContext.getSingleSignOnData())
+                .thenReturn(createSingleSignOnData());
+        var indexHtmlRequestListener = captureIndexHtmlRequestListener();
+
+        SecurityContextHolder.getContext().setAuthentication(
+                new TestingAuthenticationToken(createUser("token"), null,
+                        "ROLE_USER"));
+        requestIndexHtml(indexHtmlRequestListener, vaadinRequest);
+        // An authentication restored from a serialized security context
+        SecurityContextHolder.getContext().setAuthentication(
+                new TestingAuthenticationToken(createUser("token"), null,
+                        "ROLE_USER"));
+        var script = requestIndexHtml(indexHtmlRequestListener,
+                vaadinRequest);
+        verify(singleSignOnContext).getSingleSignOnData();
+        verify(session).setAttribute(anyString(), any());
+
+        // A token refresh or a new login changes the ID token
+        SecurityContextHolder.getContext().setAuthentication(
+                new TestingAuthenticationToken(createUser("refreshed"), null,
+                        "ROLE_USER"));
+        requestIndexHtml(indexHtmlRequestListener, vaadinRequest);
+        verify(singleSignOnContext, times(2)).getSingleSignOnData();
+        assertEquals(BootstrapDataServiceListener.SCRIPT_STRING.formatted(
+                "{\"authenticated\":true,\"roles\":[],\"loginLink\":\"login\","
+                        + "\"logoutLink\":\"logout\","
+                        + "\"backChannelLogoutEnabled\":true}"),
+                script);
+    }
+
+    @Test
+    void indexHtmlRequested_noRequest_scriptRendered() {
+        when(singleSignOnContext.getSingleSignOnData())
+                .thenReturn(createSingleSignOnData());
+        var indexHtmlRequestListener = captureIndexHtmlRequestListener();
+        SecurityContextHolder.getContext().setAuthentication(
+                new TestingAuthenticationToken(createUser("token"), null,
+                        "ROLE_USER"));
+
+        requestIndexHtml(indexHtmlRequestListener, null);
+
+        verify(singleSignOnContext).getSingleSignOnData();
+    }
+
+    @Test
+    void indexHtmlRequested_authoritiesChanged_scriptRenderedAgain() {
+        var vaadinRequest = mock(VaadinRequest.class);
+        var session = mock(WrappedSession.class);
+        var attributes = new HashMap<String, Object>();
+        when(vaadinRequest.getWrappedSession(false)).thenReturn(session);
+        when(session.getAttribute(anyString()))
+                .thenAnswer(i -> attributes.get(i.<String> getArgument(0)));
+        doAnswer(i -> attributes.put(i.getArgument(0), i.getArgument(1)))
+                .when(session).setAttribute(anyString(), any());
+        when(singleSignOnContext.getSingleSignOnData())
+                .thenReturn(createSingleSignOnData());
+        var indexHtmlRequestListener = captureIndexHtmlRequestListener();
+        var user = createUser("token");
+
+        SecurityContextHolder.getContext().setAuthentication(
+                new TestingAuthenticationToken(user, null, "ROLE_USER"));
+        requestIndexHtml(indexHtmlRequestListener, vaadinRequest);
+        SecurityContextHolder.getContext()
+                .setAuthentication(new TestingAuthenticationToken(user, null,
+                        "ROLE_USER", "ROLE_ADMIN"));
+        requestIndexHtml(indexHtmlRequestListener, vaadinRequest);
+
+        verify(singleSignOnContext, times(2)).getSingleSignOnData();
+    }
+
+    private IndexHtmlRequestListener captureIndexHtmlRequestListener() {
+        var serviceInitEvent = mock(ServiceInitEvent.class);
+        bootstrapDataServiceListener.serviceInit(serviceInitEvent);
+        verify(serviceInitEvent)
+                .addIndexHtmlRequestListener(listenerArgumentCaptor.capture());
+        return listenerArgumentCaptor.getValue();
+    }
+
+    private static String requestIndexHtml(
+            IndexHtmlRequestListener indexHtmlRequestListener,
+            VaadinRequest vaadinRequest) {
+        var indexHtmlResponse = new IndexHtmlResponse(vaadinRequest,
+                mock(VaadinResponse.class), new Document("baseUri"));
+        indexHtmlRequestListener.modifyIndexHtmlResponse(indexHtmlResponse);
+        return indexHtmlResponse.getDocument().body()
+                .getElementsByTag("script").get(0).childNodes().get(0)
+                .toString();
+    }
+
+    private static OidcUser createUser(String idToken) {
+        return new DefaultOidcUser(List.of(), new OidcIdToken(idToken,
+                Instant.now(), Instant.now().plusSeconds(60),
+                Map.of("sub", "john")));
+    }
+
     private SingleSignOnData createSingleSignOnData() {
         var singleSignOnData = new SingleSignOnData();
         singleSignOnData.setAuthenticated(true);
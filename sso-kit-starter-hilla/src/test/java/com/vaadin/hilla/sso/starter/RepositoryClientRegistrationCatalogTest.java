@@ -0,0 +1,117 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full license.
+ */
+package com.vaadin.hilla.sso.starter;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RepositoryClientRegistrationCatalogTest {
+
+    @Test
+    void getSnapshot_iterableRepository_registrationIdsListed() {
+        var repository = new TenantRepository();
+        repository.add("google");
+        repository.add("github");
+        var catalog = new RepositoryClientRegistrationCatalog(repository);
+
+        var snapshot = catalog.getSnapshot();
+
+        assertThat(snapshot.registrationIds())
+                .containsExactlyInAnyOrder("google", "github");
+        assertThat(snapshot.version()).isEqualTo(1);
+        assertThat(catalog.getSnapshot()).isSameAs(snapshot);
+    }
+
+    @Test
+    void refresh_registrationsChanged_newVersion() {
+        var repository = new TenantRepository();
+        repository.add("google");
+        var catalog = new RepositoryClientRegistrationCatalog(repository);
+        var snapshot = catalog.getSnapshot();
+
+        catalog.refresh();
+        assertThat(catalog.getSnapshot()).isSameAs(snapshot);
+
+        repository.add("github");
+        catalog.refresh();
+        assertThat(catalog.getSnapshot().version()).isEqualTo(2);
+        assertThat(catalog.getSnapshot().registrationIds())
+                .containsExactlyInAnyOrder("google", "github");
+    }
+
+    @Test
+    void getSnapshot_nonIterableRepository_empty() {
+        ClientRegistrationRepository repository = id -> null;
+        var catalog = new RepositoryClientRegistrationCatalog(repository);
+
+        assertThat(catalog.getSnapshot().registrationIds()).isEmpty();
+    }
+
+    @Test
+    void getSnapshot_repositoryIteratesOtherElements_elementsSkipped() {
+        var registrations = new TenantRepository();
+        registrations.add("google");
+        var repository = new MixedRepository(
+                List.of("github", registrations.iterator().next()));
+        var catalog = new RepositoryClientRegistrationCatalog(repository);
+
+        assertThat(catalog.getSnapshot().registrationIds())
+                .containsExactly("google");
+    }
+
+    /* A repository iterating more than its registrations */
+    private record MixedRepository(List<Object> elements)
+            implements ClientRegistrationRepository, Iterable<Object> {
+
+        @Override
+        public ClientRegistration findByRegistrationId(String registrationId) {
+            return null;
+        }
+
+        @Override
+        public Iterator<Object> iterator() {
+            return elements.iterator();
+        }
+    }
+
+    /* Stands for a repository whose registrations are loaded at runtime */
+    private static class TenantRepository implements
+            ClientRegistrationRepository, Iterable<ClientRegistration> {
+
+        private final Map<String, ClientRegistration> registrations = new ConcurrentHashMap<>();
+
+        void add(String registrationId) {
+            registrations.put(registrationId, ClientRegistration
+                    .withRegistrationId(registrationId)
+                    .authorizationGrantType(
+                            AuthorizationGrantType.CLIENT_CREDENTIALS)
+                    .clientId(registrationId + "-id")
+                    .tokenUri("https://" + registrationId + ".com/token")
+                    .build());
+        }
+
+        @Override
+        public ClientRegistration findByRegistrationId(String registrationId) {
+            return registrations.get(registrationId);
+        }
+
+        @Override
+        public Iterator<ClientRegistration> iterator() {
+            return List.copyOf(registrations.values()).iterator();
+        }
+    }
+}
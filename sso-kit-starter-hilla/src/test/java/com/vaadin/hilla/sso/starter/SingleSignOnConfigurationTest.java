@@ -7,6 +7,21 @@
  */
 package com.vaadin.hilla.sso.starter;
 
+import javax.sql.DataSource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -14,17 +29,31 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.boot.autoconfigure.AutoConfigurations;
 import org.springframework.boot.test.context.runner.WebApplicationContextRunner;
+import org.springframework.security.core.session.SessionRegistry;
 import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.core.oidc.user.DefaultOidcUser;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import com.vaadin.flow.spring.SpringBootAutoConfiguration;
 import com.vaadin.flow.spring.SpringSecurityAutoConfiguration;
 import com.vaadin.hilla.sso.starter.endpoint.BackChannelLogoutEndpoint;
 import com.vaadin.hilla.sso.starter.endpoint.SingleSignOnEndpoint;
 import com.vaadin.hilla.sso.starter.endpoint.UserEndpoint;
+import com.vaadin.sso.core.BackChannelLogoutExecutor;
+import com.vaadin.sso.core.BackChannelLogoutExecutor.OverflowPolicy;
 import com.vaadin.sso.core.BackChannelLogoutFilter;
+import com.vaadin.sso.core.BackChannelLogoutMetrics;
+import com.vaadin.sso.core.BackChannelLogoutMetricsFilter;
+import com.vaadin.sso.core.JdbcLogoutEventBus;
+import com.vaadin.sso.core.LocalLogoutEventBus;
+import com.vaadin.sso.core.LogoutCriteria;
+import com.vaadin.sso.core.LogoutEventBus;
+import com.vaadin.sso.core.MicrometerBackChannelLogoutMetrics;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -101,6 +130,119 @@ class SingleSignOnConfigurationTest {
                 });
     }
 
+    @Test
+    void backChannelLogoutAsync_isTrue_backChannelLogoutExecutorConfigured() {
+        contextRunner.withPropertyValues("hilla.sso.back-channel-logout=true",
+                "hilla.sso.back-channel-logout-async=true",
+                "hilla.sso.back-channel-logout-overflow-policy=reject")
+                .run(ctx -> {
+                    var executor = ctx
+                            .getBean(BackChannelLogoutExecutor.class);
+                    assertEquals(OverflowPolicy.REJECT,
+                            executor.getOverflowPolicy());
+                });
+    }
+
+    @Test
+    void subscriberOverflowPolicy_isSet_backChannelLogoutSubscriptionUsesIt() {
+        contextRunner.withPropertyValues(
+                "hilla.sso.back-channel-logout-subscriber-overflow-policy=disconnect")
+                .run(ctx -> {
+                    var subscription = ctx
+                            .getBean(BackChannelLogoutSubscription.class);
+                    assertEquals(
+                            BackChannelLogoutSubscription.OverflowPolicy.DISCONNECT,
+                            subscription.getOverflowPolicy());
+                });
+    }
+
+    @Test
+    void clientRegistrationCatalogPresent_usedAndRefreshed() {
+        var refreshCount = new AtomicInteger();
+        var catalog = new ClientRegistrationCatalog() {
+
+            @Override
+            public Snapshot getSnapshot() {
+                return new Snapshot(refreshCount.get(), List.of("tenant"));
+            }
+
+            @Override
+            public void refresh() {
+                refreshCount.incrementAndGet();
+            }
+        };
+        contextRunner.withBean(ClientRegistrationCatalog.class, () -> catalog)
+                .run(ctx -> {
+                    var context = ctx.getBean(SingleSignOnContext.class);
+                    assertEquals(List.of("tenant"),
+                            context.getRegisteredProviders());
+
+                    ctx.publishEvent(new ClientRegistrationsChangedEvent(this));
+                    assertEquals(1, refreshCount.get());
+                });
+    }
+
+    @Test
+    void meterRegistryPresent_backChannelLogoutInstrumented() {
+        contextRunner.withBean(SimpleMeterRegistry.class).run(ctx -> {
+            assertThat(ctx).getBean(BackChannelLogoutMetrics.class)
+                    .isInstanceOf(MicrometerBackChannelLogoutMetrics.class);
+            var filterChain = (SecurityFilterChain) ctx
+                    .getBean("vaadinSecurityFilterChain");
+            assertTrue(filterChain.getFilters().stream().anyMatch(
+                    filter -> filter instanceof BackChannelLogoutMetricsFilter));
+        });
+    }
+
+    @Test
+    void meterRegistryPresent_subscriptionCountersBound() {
+        contextRunner.withBean(SimpleMeterRegistry.class).run(ctx -> {
+            var meterRegistry = ctx.getBean(SimpleMeterRegistry.class);
+            ctx.getBean("backChannelLogoutSubscriptionMeterBinder",
+                    MeterBinder.class).bindTo(meterRegistry);
+            var subscription = ctx
+                    .getBean(BackChannelLogoutSubscription.class);
+            var subscriber = subscription.getFluxForUser("john").subscribe();
+            subscription.broadcast("john");
+            subscriber.dispose();
+            assertEquals(1, meterRegistry
+                    .get("sso.backchannel.logout.subscription.emitted")
+                    .functionCounter().count());
+            assertThat(meterRegistry
+                    .find("sso.backchannel.logout.subscription.dropped")
+                    .functionCounter()).isNotNull();
+            assertThat(meterRegistry
+                    .find("sso.backchannel.logout.subscription.lagging")
+                    .functionCounter()).isNotNull();
+        });
+    }
+
+    @Test
+    void logoutEventBusPresent_backChannelLogoutFilterPublishesToIt() {
+        contextRunner.withPropertyValues("hilla.sso.back-channel-logout=true")
+                .withBean(LogoutEventBus.class, LocalLogoutEventBus::new)
+                .run(ctx -> {
+                    var filterChain = (SecurityFilterChain) ctx
+                            .getBean("vaadinSecurityFilterChain");
+                    var filter = filterChain.getFilters().stream()
+                            .filter(BackChannelLogoutFilter.class::isInstance)
+                            .findFirst().orElseThrow();
+                    assertThat(ReflectionTestUtils.getField(filter,
+                            "logoutEventBus"))
+                            .isSameAs(ctx.getBean(LogoutEventBus.class));
+                });
+    }
+
+    @Test
+    void meterRegistryMissing_backChannelLogoutNotInstrumented() {
+        contextRunner.run(ctx -> {
+            var filterChain = (SecurityFilterChain) ctx
+                    .getBean("vaadinSecurityFilterChain");
+            assertTrue(filterChain.getFilters().stream().noneMatch(
+                    filter -> filter instanceof BackChannelLogoutMetricsFilter));
+        });
+    }
+
     @Test
     void backChannelLogout_isFalse_backChannelLogoutFilterNotConfigured() {
         contextRunner.withPropertyValues("hilla.sso.back-channel-logout=false")
@@ -111,4 +253,52 @@ class SingleSignOnConfigurationTest {
                             BackChannelLogoutFilter.class::isInstance));
                 });
     }
+
+    @Test
+    void jdbcLogoutEventBusPresent_startedAndMatchingSessionExpired() {
+        var dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID()
+                + ";DB_CLOSE_DELAY=-1");
+        createLogoutEventTable(dataSource);
+        contextRunner.withPropertyValues("vaadin.sso.back-channel-logout=true")
+                .withBean(JdbcLogoutEventBus.class,
+                        () -> new JdbcLogoutEventBus(dataSource,
+                                JdbcLogoutEventBus.DEFAULT_TABLE_NAME,
+                                Duration.ofMillis(50)))
+                .run(ctx -> {
+                    var eventBus = ctx.getBean(JdbcLogoutEventBus.class);
+                    var sessionRegistry = ctx.getBean(SessionRegistry.class);
+                    var idToken = new OidcIdToken("token", Instant.now(),
+                            Instant.now().plusSeconds(60),
+                            Map.of("sub", "john", "sid", "sid-1", "iss",
+                                    "https://issuer.com"));
+                    sessionRegistry.registerNewSession("session-1",
+                            new DefaultOidcUser(List.of(), idToken));
+
+                    assertThat(eventBus.isRunning()).isTrue();
+                    eventBus.publish(LogoutCriteria
+                            .forSid("https://issuer.com", "sid-1"));
+                    await().atMost(Duration.ofSeconds(5))
+                            .untilAsserted(() -> assertThat(sessionRegistry
+                                    .getSessionInformation("session-1")
+                                    .isExpired()).isTrue());
+                });
+    }
+
+    private static void createLogoutEventTable(DataSource dataSource) {
+        try (var stream = JdbcLogoutEventBus.class.getClassLoader()
+                .getResourceAsStream(JdbcLogoutEventBus.SCHEMA_LOCATION);
+                var connection = dataSource.getConnection();
+                var statement = connection.createStatement()) {
+            var script = new String(stream.readAllBytes(),
+                    StandardCharsets.UTF_8);
+            for (var sql : script.split(";")) {
+                if (!sql.isBlank()) {
+                    statement.execute(sql);
+                }
+            }
+        } catch (IOException | SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 }
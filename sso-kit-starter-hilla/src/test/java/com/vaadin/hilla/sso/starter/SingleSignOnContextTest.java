@@ -33,6 +33,7 @@ import org.springframework.security.oauth2.core.oidc.user.DefaultOidcUser;
 import org.springframework.security.oauth2.core.oidc.user.OidcUser;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.util.UriComponentsBuilder;
 import reactor.core.publisher.Flux;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -137,7 +138,6 @@ class SingleSignOnContextTest {
         when(request.getScheme()).thenReturn("https");
         when(request.getServerName()).thenReturn("vaadin.com");
         when(request.getServerPort()).thenReturn(80);
-        when(request.getRequestURI()).thenReturn("/");
         when(request.getContextPath()).thenReturn("/logout");
         RequestContextHolder.setRequestAttributes(attributes);
         SecurityContextHolder.setContext(securityContext);
@@ -195,6 +195,89 @@ class SingleSignOnContextTest {
         assertEquals(message, messageFlux.blockFirst());
     }
 
+    @Test
+    void getLogoutLink_endpointWithQueryAndFragment_parametersEncodedInQuery() {
+        var properties = mock(SingleSignOnProperties.class);
+        var securityContext = mock(SecurityContext.class);
+        var authenticationToken = mock(OAuth2AuthenticationToken.class);
+        var repository = mock(ClientRegistrationRepository.class);
+        var endSessionEndpoint = "https://vaadin.com/oauth2/logout?client_id=vaadin#end";
+        var clientRegistration = ClientRegistration.withRegistrationId("vaadin")
+                .authorizationGrantType(
+                        AuthorizationGrantType.CLIENT_CREDENTIALS)
+                .providerConfigurationMetadata(Map.of("end_session_endpoint",
+                        endSessionEndpoint))
+                .clientId("vaadin-id")
+                .tokenUri("https://vaadin.com/oauth2/token").build();
+        var postLogoutRedirectUri = "https://app.com/logged-out?a=b&c=d e";
+
+        when(properties.getLogoutRedirectRoute())
+                .thenReturn(postLogoutRedirectUri);
+        when(repository.findByRegistrationId("vaadin"))
+                .thenReturn(clientRegistration);
+        when(authenticationToken.getPrincipal())
+                .thenReturn(createDefaultOidcUser());
+        when(authenticationToken.getAuthorizedClientRegistrationId())
+                .thenReturn("vaadin");
+        when(securityContext.getAuthentication())
+                .thenReturn(authenticationToken);
+        SecurityContextHolder.setContext(securityContext);
+
+        var context = new SingleSignOnContext(repository, properties,
+                defaultBackChannelLogoutSubscription);
+        var result = List.of(context.getLogoutLink().orElseThrow(),
+                context.getLogoutLink().orElseThrow());
+
+        var expected = UriComponentsBuilder.fromUriString(endSessionEndpoint)
+                .queryParam("id_token_hint", "tokenValue")
+                .queryParam("post_logout_redirect_uri", postLogoutRedirectUri)
+                .toUriString();
+        assertEquals(List.of(expected, expected), result);
+        // The registration is only looked up to compile the template
+        verify(repository).findByRegistrationId("vaadin");
+    }
+
+    @Test
+    void getLogoutLink_afterLogoutUriTemplatesCleared_endpointLookedUpAgain() {
+        var properties = mock(SingleSignOnProperties.class);
+        var securityContext = mock(SecurityContext.class);
+        var authenticationToken = mock(OAuth2AuthenticationToken.class);
+        var repository = mock(ClientRegistrationRepository.class);
+        var builder = ClientRegistration.withRegistrationId("vaadin")
+                .authorizationGrantType(
+                        AuthorizationGrantType.CLIENT_CREDENTIALS)
+                .clientId("vaadin-id")
+                .tokenUri("https://vaadin.com/oauth2/token");
+        var oldRegistration = builder
+                .providerConfigurationMetadata(Map.of("end_session_endpoint",
+                        "https://old.vaadin.com/oauth2/logout"))
+                .build();
+        var newRegistration = builder
+                .providerConfigurationMetadata(Map.of("end_session_endpoint",
+                        "https://new.vaadin.com/oauth2/logout"))
+                .build();
+
+        when(properties.getLogoutRedirectRoute()).thenReturn("/");
+        when(repository.findByRegistrationId("vaadin"))
+                .thenReturn(oldRegistration, newRegistration);
+        when(authenticationToken.getPrincipal())
+                .thenReturn(createDefaultOidcUser());
+        when(authenticationToken.getAuthorizedClientRegistrationId())
+                .thenReturn("vaadin");
+        when(securityContext.getAuthentication())
+                .thenReturn(authenticationToken);
+        SecurityContextHolder.setContext(securityContext);
+
+        var context = new SingleSignOnContext(repository, properties,
+                defaultBackChannelLogoutSubscription);
+        var oldLink = context.getLogoutLink().orElseThrow();
+        context.clearLogoutUriTemplates();
+        var newLink = context.getLogoutLink().orElseThrow();
+
+        assertTrue(oldLink.startsWith("https://old.vaadin.com/oauth2/logout?"));
+        assertTrue(newLink.startsWith("https://new.vaadin.com/oauth2/logout?"));
+    }
+
     private DefaultOidcUser createDefaultOidcUser() {
         var grantedAuthorities = List
                 .of(new SimpleGrantedAuthority("ROLE_USER"));
@@ -9,26 +9,51 @@ package com.vaadin.sso.starter;
 
 import java.util.Objects;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.autoconfigure.AutoConfigureBefore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.security.oauth2.client.autoconfigure.ConditionalOnOAuth2ClientRegistrationProperties;
+import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 import org.springframework.security.config.Customizer;
+import org.springframework.security.config.ObjectPostProcessor;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.annotation.web.configurers.oauth2.client.OidcBackChannelLogoutHandler;
 import org.springframework.security.core.session.SessionRegistry;
+import org.springframework.security.oauth2.client.oidc.session.InMemoryOidcSessionRegistry;
+import org.springframework.security.oauth2.client.oidc.session.OidcSessionRegistry;
 import org.springframework.security.oauth2.client.oidc.web.logout.OidcClientInitiatedLogoutSuccessHandler;
 import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.LoginUrlAuthenticationEntryPoint;
 import org.springframework.security.web.authentication.logout.LogoutFilter;
+import org.springframework.security.web.authentication.logout.LogoutHandler;
+import org.springframework.security.web.csrf.CsrfFilter;
+import org.springframework.security.web.session.ConcurrentSessionFilter;
 
 import com.vaadin.flow.spring.SpringSecurityAutoConfiguration;
 import com.vaadin.flow.spring.security.VaadinAwareSecurityContextHolderStrategyConfiguration;
+import com.vaadin.sso.core.BackChannelLogoutExecutor;
 import com.vaadin.sso.core.BackChannelLogoutFilter;
+import com.vaadin.sso.core.BackChannelLogoutMetrics;
+import com.vaadin.sso.core.BackChannelLogoutMetricsFilter;
+import com.vaadin.sso.core.ConcurrentSessionLimitStrategy;
+import com.vaadin.sso.core.LogoutEventBus;
+import com.vaadin.sso.core.LogoutEventPublishingHandler;
+import com.vaadin.sso.core.MicrometerBackChannelLogoutMetrics;
+import com.vaadin.sso.core.SessionRegistrySweeper;
+import com.vaadin.sso.core.SingleSignOnMeterBinder;
+import com.vaadin.sso.core.SingleSignOnSessionTerminator;
 
 import static com.vaadin.flow.spring.security.VaadinSecurityConfigurer.vaadin;
 
@@ -63,8 +88,12 @@ public class SingleSignOnConfiguration {
 
     private final SessionRegistry sessionRegistry;
 
+    private final ClientRegistrationRepository clientRegistrationRepository;
+
     private final BackChannelLogoutFilter backChannelLogoutFilter;
 
+    private final SingleSignOnSessionTerminator sessionTerminator;
+
     /**
      * Creates an instance of this configuration bean.
      *
@@ -83,17 +112,57 @@ public class SingleSignOnConfiguration {
             ApplicationEventPublisher eventPublisher) {
         this.properties = properties;
         this.sessionRegistry = sessionRegistry;
+        this.clientRegistrationRepository = clientRegistrationRepository;
         this.logoutSuccessHandler = new OidcClientInitiatedLogoutSuccessHandler(
                 clientRegistrationRepository);
         this.logoutSuccessHandler
                 .setRedirectStrategy(new UidlRedirectStrategy());
         this.backChannelLogoutFilter = new BackChannelLogoutFilter(
                 sessionRegistry, clientRegistrationRepository, eventPublisher);
+        this.sessionTerminator = new SingleSignOnSessionTerminator(
+                sessionRegistry, eventPublisher);
+    }
+
+    /**
+     * Provides the executor which expires the sessions matched by Back-Channel
+     * logout requests, when asynchronous processing is enabled.
+     *
+     * @return the Back-Channel logout executor bean
+     */
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = SingleSignOnProperties.PREFIX, name = "back-channel-logout-async")
+    public BackChannelLogoutExecutor backChannelLogoutExecutor() {
+        return new BackChannelLogoutExecutor(
+                properties.getBackChannelLogoutQueueCapacity(),
+                properties.getBackChannelLogoutOverflowPolicy());
     }
 
+    /**
+     * Subscribes the session terminator to the logout event bus, if there is
+     * one, so that the sessions of this node are terminated on the logouts
+     * published by any node of the cluster. The subscription is made once
+     * all the singletons are created, before the bus is started.
+     *
+     * @param logoutEventBus
+     *            the logout event bus provider
+     * @return the subscribing bean
+     */
     @Bean
-    public SecurityFilterChain vaadinSecurityFilterChain(HttpSecurity http)
-            throws Exception {
+    public SmartInitializingSingleton logoutEventBusSubscriber(
+            ObjectProvider<LogoutEventBus> logoutEventBus) {
+        return () -> logoutEventBus.ifAvailable(
+                eventBus -> eventBus.subscribe(sessionTerminator::terminate));
+    }
+
+    @Bean
+    public SecurityFilterChain vaadinSecurityFilterChain(HttpSecurity http,
+            ObjectProvider<BackChannelLogoutExecutor> logoutExecutor,
+            ObjectProvider<BackChannelLogoutMetrics> logoutMetrics,
+            ObjectProvider<LogoutEventBus> logoutEventBus) throws Exception {
+        final var metrics = logoutMetrics
+                .getIfAvailable(() -> BackChannelLogoutMetrics.NONE);
+        final var eventBus = logoutEventBus.getIfAvailable();
         final var loginRoute = Objects.requireNonNullElse(
                 properties.getLoginRoute(),
                 SingleSignOnProperties.DEFAULT_LOGIN_ROUTE);
@@ -130,12 +199,38 @@ public class SingleSignOnConfiguration {
                 final var expiredStrategy = new UidlExpiredSessionStrategy();
                 concurrency.expiredSessionStrategy(expiredStrategy);
             });
+
+            // Evicts the least recently used sessions from the registry
+            // instead of sorting all the sessions of the user on each login
+            sessionManagement.withObjectPostProcessor(
+                    ConcurrentSessionLimitStrategy.postProcessor(
+                            sessionRegistry, maximumSessions));
+
+            // Skips the concurrency checks for static and heartbeat requests
+            sessionManagement.withObjectPostProcessor(
+                    new ObjectPostProcessor<ConcurrentSessionFilter>() {
+                        @Override
+                        @SuppressWarnings("unchecked")
+                        public <O extends ConcurrentSessionFilter> O postProcess(
+                                O filter) {
+                            return (O) new VaadinConcurrentSessionFilter(
+                                    filter, sessionRegistry,
+                                    new UidlExpiredSessionStrategy());
+                        }
+                    });
         });
 
         if (properties.isBackChannelLogout()) {
             backChannelLogoutFilter
                     .setBackChannelLogoutRoute(backChannelLogoutRoute);
 
+            // Expires the matching sessions off the request thread if
+            // asynchronous processing is enabled
+            backChannelLogoutFilter
+                    .setLogoutExecutor(logoutExecutor.getIfAvailable());
+            backChannelLogoutFilter.setMetrics(metrics);
+            backChannelLogoutFilter.setLogoutEventBus(eventBus);
+
             // Adds the Back-Channel logout filter to the filter chain
             http.addFilterAfter(backChannelLogoutFilter, LogoutFilter.class);
 
@@ -143,8 +238,97 @@ public class SingleSignOnConfiguration {
             final var matcher = backChannelLogoutFilter.getRequestMatcher();
             http.csrf(csrf -> csrf.ignoringRequestMatchers(matcher));
         } else {
-            http.oidcLogout().backChannel(Customizer.withDefaults());
+            final var metricsFilter = metrics == BackChannelLogoutMetrics.NONE
+                    ? null
+                    : new BackChannelLogoutMetricsFilter(
+                            clientRegistrationRepository, metrics);
+            if (metricsFilter != null) {
+                // Records the outcome of the requests handled by Spring
+                // Security's Back-Channel logout filter, placed before it
+                http.addFilterBefore(metricsFilter, CsrfFilter.class);
+            }
+            if (eventBus == null) {
+                http.oidcLogout().backChannel(Customizer.withDefaults());
+            } else {
+                // Propagates the logouts to the other nodes of the cluster
+                LogoutHandler logoutHandler = new LogoutEventPublishingHandler(
+                        backChannelLogoutHandler(http), eventBus);
+                if (metricsFilter != null) {
+                    // Records the duration of the logout stage as well
+                    logoutHandler = metricsFilter.instrument(logoutHandler);
+                }
+                final var handler = logoutHandler;
+                http.oidcLogout().backChannel(
+                        backChannel -> backChannel.logoutHandler(handler));
+            }
         }
         return http.build();
     }
+
+    /*
+     * Creates the logout handler as Spring Security would, sharing the OIDC
+     * session registry with the rest of its OIDC logout support.
+     */
+    private static OidcBackChannelLogoutHandler backChannelLogoutHandler(
+            HttpSecurity http) {
+        final var context = http.getSharedObject(ApplicationContext.class);
+        return context.getBeanProvider(OidcBackChannelLogoutHandler.class)
+                .getIfUnique(() -> {
+                    var registry = http
+                            .getSharedObject(OidcSessionRegistry.class);
+                    if (registry == null) {
+                        registry = context
+                                .getBeanProvider(OidcSessionRegistry.class)
+                                .getIfUnique(InMemoryOidcSessionRegistry::new);
+                        http.setSharedObject(OidcSessionRegistry.class,
+                                registry);
+                    }
+                    return new OidcBackChannelLogoutHandler(registry);
+                });
+    }
+
+    /**
+     * Provides Back-Channel logout metrics when Micrometer is available.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(MeterRegistry.class)
+    static class BackChannelLogoutMetricsConfiguration {
+
+        /**
+         * Provides the Back-Channel logout metrics, recorded in the meter
+         * registry if there is one.
+         *
+         * @param meterRegistry
+         *            the meter registry provider
+         * @return the Back-Channel logout metrics bean
+         */
+        @Bean
+        @ConditionalOnMissingBean
+        BackChannelLogoutMetrics backChannelLogoutMetrics(
+                ObjectProvider<MeterRegistry> meterRegistry) {
+            final var registry = meterRegistry.getIfUnique();
+            return registry == null ? BackChannelLogoutMetrics.NONE
+                    : new MicrometerBackChannelLogoutMetrics(registry);
+        }
+
+        /**
+         * Provides the binder of the session management metrics, which reads
+         * them from the session registry sweeper and the Back-Channel logout
+         * executor, if there are ones.
+         *
+         * @param sweeper
+         *            the session registry sweeper provider
+         * @param logoutExecutor
+         *            the Back-Channel logout executor provider
+         * @return the meter binder bean
+         */
+        @Bean
+        @ConditionalOnMissingBean
+        SingleSignOnMeterBinder singleSignOnMeterBinder(
+                ObjectProvider<SessionRegistrySweeper> sweeper,
+                ObjectProvider<BackChannelLogoutExecutor> logoutExecutor) {
+            return new SingleSignOnMeterBinder(sweeper.getIfAvailable(),
+                    logoutExecutor.getIfAvailable());
+        }
+    }
 }
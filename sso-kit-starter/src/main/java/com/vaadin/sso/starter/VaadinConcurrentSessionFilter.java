@@ -0,0 +1,75 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full license.
+ */
+package com.vaadin.sso.starter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.io.IOException;
+import java.util.Objects;
+
+import org.springframework.security.core.session.SessionRegistry;
+import org.springframework.security.web.session.ConcurrentSessionFilter;
+import org.springframework.security.web.session.SessionInformationExpiredStrategy;
+
+import com.vaadin.sso.starter.VaadinRequestClassifier.Category;
+
+/**
+ * A {@link ConcurrentSessionFilter} which skips the session concurrency checks
+ * for the static resources of Vaadin, which neither read nor change the state
+ * of the session.
+ * <p>
+ * Static resources are passed down the chain without looking up the session.
+ * All the other requests are handed to the decorated filter, including the
+ * heartbeat requests: they keep the session alive, so their last request time
+ * must be refreshed for the session not to be swept from the registry.
+ *
+ * @author Vaadin Ltd
+ * @since 4.1
+ * @see VaadinRequestClassifier
+ */
+public class VaadinConcurrentSessionFilter extends ConcurrentSessionFilter {
+
+    private final ConcurrentSessionFilter delegate;
+
+    private final VaadinRequestClassifier classifier = new VaadinRequestClassifier();
+
+    /**
+     * Creates a new instance which decorates the given filter.
+     *
+     * @param delegate
+     *            the filter checking the other requests, not {@code null}
+     * @param sessionRegistry
+     *            the session registry of the decorated filter, not
+     *            {@code null}
+     * @param expiredStrategy
+     *            the expired session strategy of the decorated filter, not
+     *            {@code null}
+     */
+    public VaadinConcurrentSessionFilter(ConcurrentSessionFilter delegate,
+            SessionRegistry sessionRegistry,
+            SessionInformationExpiredStrategy expiredStrategy) {
+        // Keeps the order of the concurrent session filter in the chain
+        super(sessionRegistry, expiredStrategy);
+        this.delegate = Objects.requireNonNull(delegate);
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response,
+            FilterChain chain) throws IOException, ServletException {
+        if (request instanceof HttpServletRequest httpRequest && classifier
+                .classify(httpRequest) == Category.STATIC_RESOURCE) {
+            chain.doFilter(request, response);
+            return;
+        }
+        delegate.doFilter(request, response, chain);
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full license.
+ */
+package com.vaadin.sso.starter;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import com.vaadin.flow.server.HandlerHelper;
+import com.vaadin.flow.shared.ApplicationConstants;
+
+/**
+ * Classifies the requests handled by a Vaadin application by whether they can
+ * change the state of the session.
+ * <p>
+ * Framework internal requests are recognized as in {@link UidlRedirectStrategy}
+ * and classified by their request type. Other requests are classified as
+ * static resources when their path inside the Vaadin servlet matches one of
+ * the public resources of Vaadin, which are also permitted to all by the
+ * Vaadin security configuration.
+ *
+ * @author Vaadin Ltd
+ * @since 4.1
+ */
+public class VaadinRequestClassifier {
+
+    /**
+     * The categories of requests.
+     */
+    public enum Category {
+
+        /**
+         * A static resource, such as a bundle, a theme or an icon, which
+         * neither reads nor changes the state of the session.
+         */
+        STATIC_RESOURCE,
+
+        /**
+         * A heartbeat request, which only keeps the session and the UI alive.
+         */
+        HEARTBEAT,
+
+        /**
+         * Any other request, including UIDL and push requests.
+         */
+        OTHER
+    }
+
+    private static final List<PathPattern> STATIC_RESOURCES = Stream
+            .of(HandlerHelper.getPublicResources(),
+                    HandlerHelper.getPublicResourcesRoot(),
+                    HandlerHelper.getPublicResourcesRequiringSecurityContext())
+            .flatMap(Stream::of).map(PathPatternParser.defaultInstance::parse)
+            .toList();
+
+    /**
+     * Classifies the given request.
+     *
+     * @param request
+     *            the request to classify, not {@code null}
+     * @return the category of the request, never {@code null}
+     */
+    public Category classify(HttpServletRequest request) {
+        final var servletMapping = request.getHttpServletMapping().getPattern();
+        if (HandlerHelper.isFrameworkInternalRequest(servletMapping, request)) {
+            final var requestType = request
+                    .getParameter(ApplicationConstants.REQUEST_TYPE_PARAMETER);
+            return ApplicationConstants.REQUEST_TYPE_HEARTBEAT
+                    .equals(requestType) ? Category.HEARTBEAT : Category.OTHER;
+        }
+        final var pathInContext = HandlerHelper
+                .getRequestPathInsideContext(request);
+        if (pathInContext == null) {
+            return Category.OTHER;
+        }
+        final var pathInServlet = HandlerHelper
+                .getPathIfInsideServlet(servletMapping, pathInContext)
+                .orElse(pathInContext);
+        // The path may or may not start with a slash, depending on the mapping
+        final var path = PathContainer.parsePath(
+                pathInServlet.startsWith("/") ? pathInServlet
+                        : '/' + pathInServlet);
+        for (var pattern : STATIC_RESOURCES) {
+            if (pattern.matches(path)) {
+                return Category.STATIC_RESOURCE;
+            }
+        }
+        return Category.OTHER;
+    }
+}
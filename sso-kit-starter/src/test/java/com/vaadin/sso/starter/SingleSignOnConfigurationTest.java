@@ -7,24 +7,62 @@
  */
 package com.vaadin.sso.starter;
 
+import javax.sql.DataSource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.InstanceOfAssertFactories;
+import org.h2.jdbcx.JdbcDataSource;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.boot.autoconfigure.AutoConfigurations;
 import org.springframework.boot.test.context.runner.WebApplicationContextRunner;
+import org.springframework.security.core.session.SessionRegistry;
 import org.springframework.security.oauth2.client.oidc.userinfo.OidcUserService;
 import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
+import org.springframework.security.oauth2.client.web.OAuth2LoginAuthenticationFilter;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.core.oidc.user.DefaultOidcUser;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import com.vaadin.flow.spring.SpringBootAutoConfiguration;
 import com.vaadin.flow.spring.SpringSecurityAutoConfiguration;
+import com.vaadin.sso.core.BackChannelLogoutExecutor;
+import com.vaadin.sso.core.BackChannelLogoutExecutor.OverflowPolicy;
 import com.vaadin.sso.core.BackChannelLogoutFilter;
+import com.vaadin.sso.core.BackChannelLogoutMetrics;
+import com.vaadin.sso.core.BackChannelLogoutMetricsFilter;
+import com.vaadin.sso.core.CoalescingSessionRegistry;
+import com.vaadin.sso.core.CompactOidcUserMapper;
+import com.vaadin.sso.core.ConcurrentSessionLimitStrategy;
+import com.vaadin.sso.core.JdbcLogoutEventBus;
+import com.vaadin.sso.core.JournaledSessionRegistry;
+import com.vaadin.sso.core.LocalLogoutEventBus;
+import com.vaadin.sso.core.LogoutCriteria;
+import com.vaadin.sso.core.LogoutEventBus;
 import com.vaadin.sso.core.KeycloakUserMapper;
+import com.vaadin.sso.core.MicrometerBackChannelLogoutMetrics;
+import com.vaadin.sso.core.OidcSessionRegistry;
+import com.vaadin.sso.core.SessionRegistrySweeper;
+import com.vaadin.sso.core.SingleSignOnMeterBinder;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -95,6 +133,103 @@ class SingleSignOnConfigurationTest {
                 });
     }
 
+    @Test
+    void backChannelLogoutAsync_isTrue_backChannelLogoutExecutorConfigured() {
+        contextRunner.withPropertyValues("vaadin.sso.back-channel-logout=true",
+                "vaadin.sso.back-channel-logout-async=true",
+                "vaadin.sso.back-channel-logout-overflow-policy=reject")
+                .run(ctx -> {
+                    var executor = ctx
+                            .getBean(BackChannelLogoutExecutor.class);
+                    assertEquals(OverflowPolicy.REJECT,
+                            executor.getOverflowPolicy());
+                });
+    }
+
+    @Test
+    void meterRegistryPresent_backChannelLogoutInstrumented() {
+        contextRunner.withBean(SimpleMeterRegistry.class).run(ctx -> {
+            assertThat(ctx).getBean(BackChannelLogoutMetrics.class)
+                    .isInstanceOf(MicrometerBackChannelLogoutMetrics.class);
+            var filterChain = (SecurityFilterChain) ctx
+                    .getBean("vaadinSecurityFilterChain");
+            assertTrue(filterChain.getFilters().stream().anyMatch(
+                    filter -> filter instanceof BackChannelLogoutMetricsFilter));
+        });
+    }
+
+    @Test
+    void logoutEventBusPresent_backChannelLogoutFilterPublishesToIt() {
+        contextRunner.withPropertyValues("vaadin.sso.back-channel-logout=true")
+                .withBean(LogoutEventBus.class, LocalLogoutEventBus::new)
+                .run(ctx -> {
+                    var filterChain = (SecurityFilterChain) ctx
+                            .getBean("vaadinSecurityFilterChain");
+                    var filter = filterChain.getFilters().stream()
+                            .filter(BackChannelLogoutFilter.class::isInstance)
+                            .findFirst().orElseThrow();
+                    assertThat(ReflectionTestUtils.getField(filter,
+                            "logoutEventBus"))
+                            .isSameAs(ctx.getBean(LogoutEventBus.class));
+                });
+    }
+
+    @Test
+    void meterRegistryMissing_backChannelLogoutNotInstrumented() {
+        contextRunner.run(ctx -> {
+            var filterChain = (SecurityFilterChain) ctx
+                    .getBean("vaadinSecurityFilterChain");
+            assertTrue(filterChain.getFilters().stream().noneMatch(
+                    filter -> filter instanceof BackChannelLogoutMetricsFilter));
+        });
+    }
+
+    @Test
+    void sessionConcurrency_vaadinConcurrentSessionFilterConfigured() {
+        contextRunner.run(ctx -> {
+            var filterChain = (SecurityFilterChain) ctx
+                    .getBean("vaadinSecurityFilterChain");
+            assertTrue(filterChain.getFilters().stream().anyMatch(
+                    filter -> filter instanceof VaadinConcurrentSessionFilter));
+        });
+    }
+
+    @Test
+    void maximumConcurrentSessions_isSet_concurrentSessionLimitStrategyConfigured() {
+        contextRunner
+                .withPropertyValues("vaadin.sso.maximum-concurrent-sessions=1")
+                .run(ctx -> {
+                    var filterChain = (SecurityFilterChain) ctx
+                            .getBean("vaadinSecurityFilterChain");
+                    var filter = filterChain.getFilters().stream()
+                            .filter(OAuth2LoginAuthenticationFilter.class::isInstance)
+                            .findFirst().orElseThrow();
+                    assertThat(ReflectionTestUtils.getField(
+                            ReflectionTestUtils.getField(filter,
+                                    "sessionStrategy"),
+                            "delegateStrategies"))
+                            .asInstanceOf(InstanceOfAssertFactories.LIST)
+                            .hasAtLeastOneElementOfType(
+                                    ConcurrentSessionLimitStrategy.class);
+                });
+    }
+
+    @Test
+    void maximumConcurrentSessions_notSet_defaultStrategyKept() {
+        contextRunner.run(ctx -> {
+            var filterChain = (SecurityFilterChain) ctx
+                    .getBean("vaadinSecurityFilterChain");
+            var filter = filterChain.getFilters().stream()
+                    .filter(OAuth2LoginAuthenticationFilter.class::isInstance)
+                    .findFirst().orElseThrow();
+            assertThat(ReflectionTestUtils.getField(
+                    ReflectionTestUtils.getField(filter, "sessionStrategy"),
+                    "delegateStrategies"))
+                    .asInstanceOf(InstanceOfAssertFactories.LIST)
+                    .noneMatch(ConcurrentSessionLimitStrategy.class::isInstance);
+        });
+    }
+
     @Test
     void backChannelLogout_isFalse_backChannelLogoutFilterNotConfigured() {
         contextRunner.withPropertyValues("vaadin.sso.back-channel-logout=false")
@@ -106,6 +241,60 @@ class SingleSignOnConfigurationTest {
                 });
     }
 
+    @Test
+    void sessionRegistry_defaultBean_isOidcSessionRegistry() {
+        contextRunner.run(ctx -> assertThat(ctx)
+                .getBean(SessionRegistry.class)
+                .isInstanceOf(OidcSessionRegistry.class));
+    }
+
+    @Test
+    void sessionJournal_isSet_sessionRegistryIsJournaled(
+            @TempDir Path directory) {
+        var journal = directory.resolve("sessions.journal");
+        contextRunner
+                .withPropertyValues("vaadin.sso.session-journal=" + journal)
+                .run(ctx -> assertThat(ctx).getBean(SessionRegistry.class)
+                        .isInstanceOf(JournaledSessionRegistry.class));
+        assertThat(journal).exists();
+    }
+
+    @Test
+    void sessionRefreshGranularity_isSet_sessionRegistryIsCoalescing() {
+        contextRunner
+                .withPropertyValues(
+                        "vaadin.sso.session-refresh-granularity=1s")
+                .run(ctx -> assertThat(ctx).getBean(SessionRegistry.class)
+                        .isInstanceOf(CoalescingSessionRegistry.class));
+    }
+
+    @Test
+    void sessionSweepInterval_isSet_sessionRegistryIsSwept() {
+        contextRunner
+                .withPropertyValues("vaadin.sso.session-sweep-interval=1m")
+                .run(ctx -> {
+                    assertThat(ctx).hasSingleBean(SessionRegistrySweeper.class);
+                    var registry = ctx.getBean(SessionRegistry.class);
+                    assertThat(ReflectionTestUtils.getField(registry,
+                            "sweeper")).isSameAs(
+                                    ctx.getBean(SessionRegistrySweeper.class));
+                });
+    }
+
+    @Test
+    void sessionSweepInterval_isSet_reclaimedSessionsBound() {
+        contextRunner
+                .withPropertyValues("vaadin.sso.session-sweep-interval=1m")
+                .withBean(SimpleMeterRegistry.class).run(ctx -> {
+                    var meterRegistry = ctx.getBean(SimpleMeterRegistry.class);
+                    ctx.getBean(SingleSignOnMeterBinder.class)
+                            .bindTo(meterRegistry);
+                    assertThat(meterRegistry.find(
+                            SingleSignOnMeterBinder.RECLAIMED_SESSIONS_COUNTER)
+                            .functionCounter()).isNotNull();
+                });
+    }
+
     @Test
     void keycloakRoles_isTrue_oidcUserServiceHasKeycloakUserMapper() {
         contextRunner.withPropertyValues("vaadin.sso.keycloak-roles=true")
@@ -119,9 +308,72 @@ class SingleSignOnConfigurationTest {
                 });
     }
 
+    @Test
+    void compactPrincipal_isTrue_oidcUserServiceHasCompactOidcUserMapper() {
+        contextRunner.withPropertyValues("vaadin.sso.compact-principal=true",
+                "vaadin.sso.compact-principal-claims=email").run(ctx -> {
+                    var oidcUserService = ctx.getBean(OidcUserService.class);
+                    var oidcUserConverter = ReflectionTestUtils
+                            .getField(oidcUserService, "oidcUserConverter");
+                    assertThat(oidcUserConverter)
+                            .isInstanceOf(CompactOidcUserMapper.class);
+                    assertThat(ReflectionTestUtils.getField(oidcUserConverter,
+                            "claimNames"))
+                            .isEqualTo(Set.of("sub", "iss", "sid", "email"));
+                });
+    }
+
     @Test
     void keycloakRoles_isFalse_noOidcUserServiceBean() {
         contextRunner.run(
                 ctx -> assertThat(ctx).doesNotHaveBean(OidcUserService.class));
     }
+
+    @Test
+    void jdbcLogoutEventBusPresent_startedAndMatchingSessionExpired() {
+        var dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID()
+                + ";DB_CLOSE_DELAY=-1");
+        createLogoutEventTable(dataSource);
+        contextRunner.withPropertyValues("vaadin.sso.back-channel-logout=true")
+                .withBean(JdbcLogoutEventBus.class,
+                        () -> new JdbcLogoutEventBus(dataSource,
+                                JdbcLogoutEventBus.DEFAULT_TABLE_NAME,
+                                Duration.ofMillis(50)))
+                .run(ctx -> {
+                    var eventBus = ctx.getBean(JdbcLogoutEventBus.class);
+                    var sessionRegistry = ctx.getBean(SessionRegistry.class);
+                    var idToken = new OidcIdToken("token", Instant.now(),
+                            Instant.now().plusSeconds(60),
+                            Map.of("sub", "john", "sid", "sid-1", "iss",
+                                    "https://issuer.com"));
+                    sessionRegistry.registerNewSession("session-1",
+                            new DefaultOidcUser(List.of(), idToken));
+
+                    assertThat(eventBus.isRunning()).isTrue();
+                    eventBus.publish(LogoutCriteria
+                            .forSid("https://issuer.com", "sid-1"));
+                    await().atMost(Duration.ofSeconds(5))
+                            .untilAsserted(() -> assertThat(sessionRegistry
+                                    .getSessionInformation("session-1")
+                                    .isExpired()).isTrue());
+                });
+    }
+
+    private static void createLogoutEventTable(DataSource dataSource) {
+        try (var stream = JdbcLogoutEventBus.class.getClassLoader()
+                .getResourceAsStream(JdbcLogoutEventBus.SCHEMA_LOCATION);
+                var connection = dataSource.getConnection();
+                var statement = connection.createStatement()) {
+            var script = new String(stream.readAllBytes(),
+                    StandardCharsets.UTF_8);
+            for (var sql : script.split(";")) {
+                if (!sql.isBlank()) {
+                    statement.execute(sql);
+                }
+            }
+        } catch (IOException | SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 }
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2000-2025 Vaadin Ltd.
+ *
+ * This program is available under Vaadin Commercial License and Service Terms.
+ *
+ * See <https://vaadin.com/commercial-license-and-service-terms> for the full license.
+ */
+package com.vaadin.sso.starter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.MappingMatch;
+
+import java.io.IOException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletMapping;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.security.core.session.SessionRegistry;
+import org.springframework.security.web.session.ConcurrentSessionFilter;
+
+import com.vaadin.flow.shared.ApplicationConstants;
+
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class VaadinConcurrentSessionFilterTest {
+
+    @Mock
+    private ConcurrentSessionFilter delegate;
+
+    @Mock
+    private SessionRegistry sessionRegistry;
+
+    @Mock
+    private FilterChain chain;
+
+    private MockHttpServletRequest request;
+
+    private MockHttpServletResponse response;
+
+    private VaadinConcurrentSessionFilter filter;
+
+    @BeforeEach
+    void setup() {
+        request = new MockHttpServletRequest();
+        request.setHttpServletMapping(
+                new MockHttpServletMapping("", "", "/*", MappingMatch.PATH));
+        request.setSession(new MockHttpSession(null, "1234"));
+        response = new MockHttpServletResponse();
+        filter = new VaadinConcurrentSessionFilter(delegate, sessionRegistry,
+                new UidlExpiredSessionStrategy());
+    }
+
+    @Test
+    void staticResource_notChecked() throws IOException, ServletException {
+        request.setRequestURI("/VAADIN/build/bundle.js");
+        request.setPathInfo("/VAADIN/build/bundle.js");
+
+        filter.doFilter(request, response, chain);
+
+        verify(chain).doFilter(request, response);
+        verifyNoInteractions(delegate, sessionRegistry);
+    }
+
+    @Test
+    void heartbeatRequest_checkedByDelegate()
+            throws IOException, ServletException {
+        request.setMethod("POST");
+        request.setParameter(ApplicationConstants.REQUEST_TYPE_PARAMETER,
+                ApplicationConstants.REQUEST_TYPE_HEARTBEAT);
+
+        filter.doFilter(request, response, chain);
+
+        verify(delegate).doFilter(request, response, chain);
+        verifyNoInteractions(chain, sessionRegistry);
+    }
+
+    @Test
+    void uidlRequest_checkedByDelegate() throws IOException, ServletException {
+        request.setMethod("POST");
+        request.setParameter(ApplicationConstants.REQUEST_TYPE_PARAMETER,
+                ApplicationConstants.REQUEST_TYPE_UIDL);
+
+        filter.doFilter(request, response, chain);
+
+        verify(delegate).doFilter(request, response, chain);
+        verifyNoInteractions(chain, sessionRegistry);
+    }
+
+    @Test
+    void routeRequest_checkedByDelegate() throws IOException, ServletException {
+        request.setRequestURI("/themes-view");
+        request.setPathInfo("/themes-view");
+
+        filter.doFilter(request, response, chain);
+
+        verify(delegate).doFilter(request, response, chain);
+        verifyNoInteractions(chain, sessionRegistry);
+    }
+}